@@ -65,6 +65,7 @@ dependencies {
     implementation(projects.stdlibSerializationCodecs)
     implementation(projects.toolingApi)
 
+    implementation(libs.aircompressor)
     implementation(libs.fastutil)
     implementation(libs.guava)
     implementation(libs.kryo)
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.cc.impl
+
+import static org.hamcrest.CoreMatchers.startsWith
+
+class ConfigurationCacheNestedBuildsLoadIntegrationTest extends AbstractConfigurationCacheIntegrationTest {
+
+    def "loads state of several included builds and buildSrc builds with parallel load #parallelLoad"() {
+        given:
+        def configurationCache = newConfigurationCacheFixture()
+        withBuildSrc(".")
+        withIncludedBuild("a", '"hello from a using ${Greeting.FROM}"')
+        withBuildSrc("a")
+        withIncludedBuild("b")
+        withIncludedBuild("c")
+        settingsFile << """
+            includeBuild 'a'
+            includeBuild 'b'
+            includeBuild 'c'
+        """
+        buildFile << """
+            tasks.register('hello') {
+                dependsOn gradle.includedBuilds*.task(':hello')
+                doLast { println 'hello from root' }
+            }
+        """
+
+        when:
+        configurationCacheRun "hello", ":buildSrc:hello", "-Dorg.gradle.configuration-cache.internal.parallel-load=$parallelLoad"
+
+        then:
+        configurationCache.assertStateStored()
+        assertHelloFromAllBuilds()
+
+        when:
+        configurationCacheRun "hello", ":buildSrc:hello", "-Dorg.gradle.configuration-cache.internal.parallel-load=$parallelLoad"
+
+        then:
+        configurationCache.assertStateLoaded()
+        assertHelloFromAllBuilds()
+
+        where:
+        parallelLoad << [true, false]
+    }
+
+    def "reports failure to load the state of one of several included builds with parallel load #parallelLoad"() {
+        given:
+        def configurationCache = newConfigurationCacheFixture()
+        withIncludedBuild("a")
+        withIncludedBuild("b")
+        withIncludedBuild("c")
+        file("b/build.gradle") << """
+            class BrokenSerializable implements java.io.Serializable {
+                private Object readResolve() {
+                    throw new RuntimeException("BOOM")
+                }
+            }
+
+            class BrokenTaskType extends DefaultTask {
+                final prop = new BrokenSerializable()
+            }
+
+            tasks.register('broken', BrokenTaskType)
+            tasks.named('hello') { dependsOn 'broken' }
+        """
+        settingsFile << """
+            includeBuild 'a'
+            includeBuild 'b'
+            includeBuild 'c'
+        """
+        buildFile << """
+            tasks.register('hello') {
+                dependsOn gradle.includedBuilds*.task(':hello')
+            }
+        """
+
+        when:
+        configurationCacheFails "hello", "-Dorg.gradle.configuration-cache.internal.parallel-load=$parallelLoad"
+
+        then:
+        configurationCache.assertStateStored()
+        failure.assertTasksExecuted()
+        failure.assertHasFailures(1)
+        failure.assertThatDescription(startsWith("Could not load the value of field `prop` of task `"))
+        failure.assertHasCause("BOOM")
+
+        when:
+        configurationCacheFails "hello", "-Dorg.gradle.configuration-cache.internal.parallel-load=$parallelLoad"
+
+        then:
+        configurationCache.assertStateLoadFailed()
+        failure.assertTasksExecuted()
+        failure.assertHasFailures(1)
+        failure.assertThatDescription(startsWith("Could not load the value of field `prop` of task `"))
+        failure.assertHasCause("BOOM")
+
+        where:
+        parallelLoad << [true, false]
+    }
+
+    private void assertHelloFromAllBuilds() {
+        outputContains("hello from buildSrc of .")
+        outputContains("hello from a using buildSrc of a")
+        outputContains("hello from b")
+        outputContains("hello from c")
+        outputContains("hello from root")
+    }
+
+    private void withIncludedBuild(String name, String message = "'hello from $name'") {
+        file("$name/settings.gradle") << """
+            rootProject.name = '$name'
+        """
+        file("$name/build.gradle") << """
+            tasks.register('hello') {
+                def message = $message
+                doLast { println message }
+            }
+        """
+    }
+
+    private void withBuildSrc(String owner) {
+        file("$owner/buildSrc/src/main/java/Greeting.java") << """
+            public class Greeting {
+                public static final String FROM = "buildSrc of $owner";
+            }
+        """
+        file("$owner/buildSrc/build.gradle") << """
+            plugins { id 'java' }
+
+            tasks.register('hello') {
+                doLast { println 'hello from buildSrc of $owner' }
+            }
+        """
+    }
+}
@@ -51,6 +51,7 @@ import org.gradle.internal.build.StandAloneNestedBuild
 import org.gradle.internal.build.event.BuildEventListenerRegistryInternal
 import org.gradle.internal.buildoption.FeatureFlags
 import org.gradle.internal.buildtree.BuildTreeWorkGraph
+import org.gradle.internal.cc.base.exceptions.ConfigurationCacheException
 import org.gradle.internal.cc.base.serialize.IsolateOwners
 import org.gradle.internal.cc.base.serialize.ProjectProvider
 import org.gradle.internal.cc.base.serialize.service
@@ -65,7 +66,13 @@ import org.gradle.internal.extensions.core.serviceOf
 import org.gradle.internal.extensions.stdlib.uncheckedCast
 import org.gradle.internal.file.FileSystemDefaultExcludesProvider
 import org.gradle.internal.flow.services.BuildFlowScope
+import org.gradle.internal.operations.BuildOperationContext
+import org.gradle.internal.operations.BuildOperationDescriptor
+import org.gradle.internal.operations.BuildOperationExecutor
 import org.gradle.internal.operations.BuildOperationProgressEventEmitter
+import org.gradle.internal.operations.BuildOperationQueue
+import org.gradle.internal.operations.MultipleBuildOperationFailures
+import org.gradle.internal.operations.RunnableBuildOperation
 import org.gradle.internal.scopeids.id.BuildInvocationScopeId
 import org.gradle.internal.serialize.codecs.core.IsolateContextSource
 import org.gradle.internal.serialize.graph.MutableReadContext
@@ -89,6 +96,7 @@ import org.gradle.vcs.internal.VcsMappingsStore
 import java.io.File
 import java.io.InputStream
 import java.io.OutputStream
+import java.util.concurrent.atomic.AtomicReferenceArray
 
 
 typealias BuildTreeWorkGraphBuilder = BuildTreeWorkGraph.Builder.(BuildState) -> Unit
@@ -153,7 +161,8 @@ class ConfigurationCacheState(
     private val stateFile: ConfigurationCacheStateFile,
     private val contextSource: IsolateContextSource,
     private val eventEmitter: BuildOperationProgressEventEmitter,
-    private val host: ConfigurationCacheHost
+    private val host: ConfigurationCacheHost,
+    private val parallelLoad: Boolean
 ) {
     /**
      * Writes the state for the whole build starting from the given root [build] and returns the set
@@ -298,9 +307,89 @@ class ConfigurationCacheState(
 
     private
     suspend fun MutableReadContext.readBuildsInTree(rootBuild: ConfigurationCacheBuild): List<CachedBuildState> {
-        return readList {
+        val builds = readList {
             readBuildState(rootBuild)
         }
+        return readNestedBuildStates(rootBuild, builds)
+    }
+
+    /**
+     * Decodes the state files of the nested builds, concurrently when [parallel loading][parallelLoad] is enabled.
+     *
+     * Included builds have already been registered, in order, while reading the root state file.
+     * A buildSrc build is only registered once the state of its owner has been loaded,
+     * so when loading in parallel, all included builds are loaded before the buildSrc builds.
+     * References between builds (tasks and build services) are resolved lazily, so the state files of the builds loaded together can be decoded independently.
+     * The returned list preserves the order in which the builds were stored.
+     */
+    private
+    fun ReadContext.readNestedBuildStates(rootBuild: ConfigurationCacheBuild, builds: List<BuildToLoad>): List<CachedBuildState> {
+        if (!parallelLoad) {
+            return builds.map { build ->
+                when (build) {
+                    is BuildToLoad.Loaded -> build.state
+                    is BuildToLoad.Included -> readNestedBuildState(build.build)
+                    is BuildToLoad.BuildSrc -> readNestedBuildState(registerBuildSrcBuild(rootBuild, build.ownerIdentifier))
+                }
+            }
+        }
+
+        val loadedBuilds = AtomicReferenceArray<CachedBuildState>(builds.size)
+        val includedBuilds = mutableListOf<IndexedValue<ConfigurationCacheBuild>>()
+        builds.forEachIndexed { index, build ->
+            when (build) {
+                is BuildToLoad.Loaded -> loadedBuilds.set(index, build.state)
+                is BuildToLoad.Included -> includedBuilds.add(IndexedValue(index, build.build))
+                is BuildToLoad.BuildSrc -> Unit
+            }
+        }
+        readNestedBuildStatesInParallel(includedBuilds, loadedBuilds)
+        val buildSrcBuilds = builds.withIndex().mapNotNull { (index, build) ->
+            if (build is BuildToLoad.BuildSrc) IndexedValue(index, registerBuildSrcBuild(rootBuild, build.ownerIdentifier))
+            else null
+        }
+        readNestedBuildStatesInParallel(buildSrcBuilds, loadedBuilds)
+        return List(builds.size) { index -> loadedBuilds.get(index) }
+    }
+
+    private
+    fun ReadContext.readNestedBuildStatesInParallel(builds: List<IndexedValue<ConfigurationCacheBuild>>, loadedBuilds: AtomicReferenceArray<CachedBuildState>) {
+        if (builds.size < 2) {
+            builds.forEach { (index, build) -> loadedBuilds.set(index, readNestedBuildState(build)) }
+            return
+        }
+        runBuildOperations("reading included builds") { queue ->
+            builds.forEach { (index, build) ->
+                queue.add(readNestedBuildOperation(build) {
+                    loadedBuilds.set(index, it)
+                })
+            }
+        }
+    }
+
+    private
+    fun ReadContext.readNestedBuildOperation(build: ConfigurationCacheBuild, onLoaded: (CachedBuildState) -> Unit) =
+        object : RunnableBuildOperation {
+            override fun run(context: BuildOperationContext) {
+                onLoaded(readNestedBuildState(build))
+            }
+
+            override fun description(): BuildOperationDescriptor.Builder =
+                BuildOperationDescriptor
+                    .displayName("Loading configuration for ${build.state.displayName.displayName}")
+                    .progressDisplayName(build.state.identityPath.path)
+        }
+
+    private
+    fun runBuildOperations(message: String, schedule: (BuildOperationQueue<RunnableBuildOperation>) -> Unit) {
+        try {
+            host.service<BuildOperationExecutor>().runAllWithAccessToProjectState<RunnableBuildOperation> { schedule(it) }
+        } catch (@Suppress("SwallowedException") e: MultipleBuildOperationFailures) {
+            if (e.causes.size == 1) {
+                throw e.causes[0]
+            }
+            throw ConfigurationCacheException({ "Error while $message" }, e.causes)
+        }
     }
 
     private
@@ -334,12 +423,12 @@ class ConfigurationCacheState(
     }
 
     private
-    suspend fun MutableReadContext.readBuildState(rootBuild: ConfigurationCacheBuild): CachedBuildState {
+    suspend fun MutableReadContext.readBuildState(rootBuild: ConfigurationCacheBuild): BuildToLoad {
         return when (readEnum<BuildType>()) {
-            BuildType.BuildWithNoWork -> readBuildWithNoWork(rootBuild)
-            BuildType.RootBuild -> readBuildContent(rootBuild)
-            BuildType.IncludedBuild -> readIncludedBuild(rootBuild)
-            BuildType.BuildSrcBuild -> readBuildSrcBuild(rootBuild)
+            BuildType.BuildWithNoWork -> BuildToLoad.Loaded(readBuildWithNoWork(rootBuild))
+            BuildType.RootBuild -> BuildToLoad.Loaded(readBuildContent(rootBuild))
+            BuildType.IncludedBuild -> BuildToLoad.Included(readIncludedBuild(rootBuild))
+            BuildType.BuildSrcBuild -> BuildToLoad.BuildSrc(readBuildSrcOwner(rootBuild))
         }
     }
 
@@ -361,14 +450,15 @@ class ConfigurationCacheState(
     }
 
     private
-    suspend fun ReadContext.readIncludedBuild(rootBuild: ConfigurationCacheBuild): CachedBuildState {
+    suspend fun ReadContext.readIncludedBuild(rootBuild: ConfigurationCacheBuild): ConfigurationCacheBuild {
         val build = withGradleIsolate(rootBuild.gradle, userTypesCodec) {
             val settingsFile = read() as File?
             val definition = readIncludedBuildDefinition(rootBuild)
             val buildPath = read() as Path
             rootBuild.addIncludedBuild(definition, settingsFile, buildPath)
         }
-        return readNestedBuildState(build)
+        build.gradle.loadGradleProperties()
+        return build
     }
 
     private
@@ -396,17 +486,20 @@ class ConfigurationCacheState(
     }
 
     private
-    suspend fun ReadContext.readBuildSrcBuild(rootBuild: ConfigurationCacheBuild): CachedBuildState {
-        val build = withGradleIsolate(rootBuild.gradle, userTypesCodec) {
-            val ownerIdentifier = readNonNull<BuildIdentifier>()
-            rootBuild.getBuildSrcOf(ownerIdentifier)
+    suspend fun ReadContext.readBuildSrcOwner(rootBuild: ConfigurationCacheBuild): BuildIdentifier =
+        withGradleIsolate(rootBuild.gradle, userTypesCodec) {
+            readNonNull<BuildIdentifier>()
         }
-        return readNestedBuildState(build)
+
+    private
+    fun registerBuildSrcBuild(rootBuild: ConfigurationCacheBuild, ownerIdentifier: BuildIdentifier): ConfigurationCacheBuild {
+        val build = rootBuild.getBuildSrcOf(ownerIdentifier)
+        build.gradle.loadGradleProperties()
+        return build
     }
 
     private
     fun ReadContext.readNestedBuildState(build: ConfigurationCacheBuild): CachedBuildState {
-        build.gradle.loadGradleProperties()
         // Decode the build state using the contextualized IO service for the build
         return build.gradle.serviceOf<ConfigurationCacheIncludedBuildIO>().run {
             readIncludedBuildStateFrom(
@@ -891,6 +984,25 @@ class StoredBuildTreeState(
 )
 
 
+/**
+ * A build read from the root state file, either fully loaded or a nested build whose own state file remains to be read.
+ */
+internal
+sealed class BuildToLoad {
+    class Loaded(val state: CachedBuildState) : BuildToLoad()
+
+    /**
+     * A registered included build.
+     */
+    class Included(val build: ConfigurationCacheBuild) : BuildToLoad()
+
+    /**
+     * A buildSrc build, registered only once the state of its owner has been loaded.
+     */
+    class BuildSrc(val ownerIdentifier: BuildIdentifier) : BuildToLoad()
+}
+
+
 internal
 enum class BuildType {
     BuildWithNoWork, RootBuild, IncludedBuild, BuildSrcBuild
@@ -29,6 +29,9 @@ import org.gradle.internal.cc.base.serialize.withGradleIsolate
 import org.gradle.internal.cc.impl.cacheentry.EntryDetails
 import org.gradle.internal.cc.impl.cacheentry.ModelKey
 import org.gradle.internal.cc.impl.initialization.ConfigurationCacheStartParameter
+import org.gradle.internal.cc.impl.io.BlockCompressingOutputStream
+import org.gradle.internal.cc.impl.io.BlockCompressionExecutor
+import org.gradle.internal.cc.impl.io.maybeDecompress
 import org.gradle.internal.cc.impl.io.safeWrap
 import org.gradle.internal.cc.impl.problems.ConfigurationCacheProblems
 import org.gradle.internal.cc.impl.serialize.Codecs
@@ -101,6 +104,9 @@ class DefaultConfigurationCacheIO internal constructor(
     private
     val encryptionService by lazy { service<EncryptionService>() }
 
+    private
+    val compressionExecutor by lazy { service<BlockCompressionExecutor>() }
+
     override fun writeCacheEntryDetailsTo(
         buildStateRegistry: BuildStateRegistry,
         intermediateModels: Map<ModelKey, BlockAddress>,
@@ -272,7 +278,7 @@ class DefaultConfigurationCacheIO internal constructor(
         stateFile: ConfigurationCacheStateFile,
         action: suspend MutableReadContext.(ConfigurationCacheState) -> T
     ) = withReadContextFor(stateFile, stringEncoder) { codecs ->
-        ConfigurationCacheState(codecs, stateFile, ChildContextSource(stateFile), eventEmitter, host).run {
+        ConfigurationCacheState(codecs, stateFile, ChildContextSource(stateFile), eventEmitter, host, startParameter.isParallelLoad).run {
             action(this)
         }
     }
@@ -287,7 +293,7 @@ class DefaultConfigurationCacheIO internal constructor(
             host.currentBuild.gradle.owner.displayName.displayName + " state"
         }
         return withWriteContextFor(stateFile, profile, stringEncoder) { codecs ->
-            action(ConfigurationCacheState(codecs, stateFile, ChildContextSource(stateFile), eventEmitter, host))
+            action(ConfigurationCacheState(codecs, stateFile, ChildContextSource(stateFile), eventEmitter, host, startParameter.isParallelLoad))
         }
     }
 
@@ -347,12 +353,16 @@ class DefaultConfigurationCacheIO internal constructor(
         }
 
     private
-    fun outputStreamFor(stateType: StateType, outputStream: () -> OutputStream) =
-        maybeEncrypt(stateType, outputStream, encryptionService::outputStream)
+    fun outputStreamFor(stateType: StateType, outputStream: () -> OutputStream): OutputStream {
+        // Compress before encrypting, as encrypted data does not compress
+        val encryptedOutputStream = { maybeEncrypt(stateType, outputStream, encryptionService::outputStream) }
+        return if (startParameter.isCompressingState) safeWrap(encryptedOutputStream) { BlockCompressingOutputStream(it, compressionExecutor) }
+        else encryptedOutputStream()
+    }
 
     private
-    fun inputStreamFor(stateType: StateType, inputStream: () -> InputStream) =
-        maybeEncrypt(stateType, inputStream, encryptionService::inputStream)
+    fun inputStreamFor(stateType: StateType, inputStream: () -> InputStream): InputStream =
+        safeWrap({ maybeEncrypt(stateType, inputStream, encryptionService::inputStream) }, ::maybeDecompress)
 
     private
     fun <I : Closeable, O : I> maybeEncrypt(stateType: StateType, inner: () -> I, outer: (I) -> O): I =
@@ -75,6 +75,14 @@ class ConfigurationCacheStartParameter internal constructor(
      */
     val isDeduplicatingStrings: Boolean = options.getInternalFlag("org.gradle.configuration-cache.internal.deduplicate-strings", true)
 
+    /**
+     * Whether configuration cache state files should be compressed.
+     * Compressed files are detected when reading, regardless of this option.
+     *
+     * The default is `false`.
+     */
+    val isCompressingState: Boolean = options.getInternalFlag("org.gradle.configuration-cache.internal.compress", false)
+
     /**
      * Whether configuration cache storing/loading should be done in parallel.
      *
@@ -0,0 +1,339 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.cc.impl.io
+
+import io.airlift.compress.MalformedInputException
+import io.airlift.compress.lz4.Lz4Compressor
+import io.airlift.compress.lz4.Lz4Decompressor
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.concurrent.ManagedExecutor
+import org.gradle.internal.service.scopes.Scope
+import org.gradle.internal.service.scopes.ServiceScope
+import java.io.Closeable
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.IOException
+import java.io.InputStream
+import java.io.OutputStream
+import java.io.PushbackInputStream
+import java.util.ArrayDeque
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Future
+
+
+/**
+ * Marks a compressed configuration cache state stream, followed by a sequence of blocks.
+ *
+ * Each block is written as its uncompressed length, its stored length and the stored bytes.
+ * The stored bytes are LZ4 compressed, unless both lengths are equal, in which case the block is stored as is.
+ * The end of the stream is marked by a block with an uncompressed length of `0`.
+ */
+private
+val compressedStreamHeader = byteArrayOf('G'.code.toByte(), 'C'.code.toByte(), 'C'.code.toByte(), 'Z'.code.toByte(), 1)
+
+
+/**
+ * Returns a stream that decompresses the given stream when it starts with the compressed stream header,
+ * or the stream contents as is otherwise.
+ */
+internal
+fun maybeDecompress(inputStream: InputStream): InputStream {
+    val pushback = PushbackInputStream(inputStream, compressedStreamHeader.size)
+    val header = ByteArray(compressedStreamHeader.size)
+    var read = 0
+    while (read < header.size) {
+        val count = pushback.read(header, read, header.size - read)
+        if (count < 0) {
+            break
+        }
+        read += count
+    }
+    if (read == header.size && header.contentEquals(compressedStreamHeader)) {
+        return BlockDecompressingInputStream(pushback)
+    }
+    pushback.unread(header, 0, read)
+    return pushback
+}
+
+
+/**
+ * Compresses the blocks of large configuration cache state files.
+ *
+ * A single pool with a bounded number of threads is shared by all state files written in the build tree,
+ * regardless of how many of them are written at the same time.
+ */
+@ServiceScope(Scope.BuildTree::class)
+internal
+class BlockCompressionExecutor(
+    private val executorFactory: ExecutorFactory
+) : Closeable {
+
+    val parallelism: Int = Runtime.getRuntime().availableProcessors().coerceIn(1, 4)
+
+    private
+    var executor: ManagedExecutor? = null
+
+    @Synchronized
+    fun <T> submit(task: Callable<T>): Future<T> {
+        val executor = executor ?: executorFactory.create("Configuration cache compression", parallelism).also { executor = it }
+        return executor.submit(task)
+    }
+
+    @Synchronized
+    override fun close() {
+        executor?.stop()
+        executor = null
+    }
+}
+
+
+/**
+ * Compresses the written bytes with LZ4, in independent blocks.
+ *
+ * The first blocks are compressed on the writing thread.
+ * Once the stream has grown beyond [parallelThresholdBlocks] blocks, the following blocks are compressed by the [compressionExecutor],
+ * while still being written in order.
+ */
+internal
+class BlockCompressingOutputStream(
+    outputStream: OutputStream,
+    private val compressionExecutor: BlockCompressionExecutor,
+    private val blockSize: Int = 1024 * 1024,
+    private val parallelThresholdBlocks: Int = 4
+) : OutputStream() {
+
+    private
+    val output = DataOutputStream(outputStream)
+
+    private
+    val compressor = Lz4Compressor()
+
+    private
+    var buffer = ByteArray(blockSize)
+
+    private
+    var position = 0
+
+    private
+    var blockCount = 0
+
+    private
+    val pendingBlocks = ArrayDeque<Future<CompressedBlock>>()
+
+    private
+    var closed = false
+
+    init {
+        output.write(compressedStreamHeader)
+    }
+
+    override fun write(b: Int) {
+        if (position == buffer.size) {
+            writeBlock()
+        }
+        buffer[position++] = b.toByte()
+    }
+
+    override fun write(b: ByteArray, off: Int, len: Int) {
+        var offset = off
+        var remaining = len
+        while (remaining > 0) {
+            if (position == buffer.size) {
+                writeBlock()
+            }
+            val count = minOf(remaining, buffer.size - position)
+            System.arraycopy(b, offset, buffer, position, count)
+            position += count
+            offset += count
+            remaining -= count
+        }
+    }
+
+    override fun flush() {
+        // Blocks are only written when they are full, so that flushing a stream does not hurt the compression ratio
+        output.flush()
+    }
+
+    override fun close() {
+        if (closed) {
+            return
+        }
+        closed = true
+        try {
+            if (position > 0) {
+                writeBlock()
+            }
+            while (pendingBlocks.isNotEmpty()) {
+                writeCompressed(awaitBlock(pendingBlocks.removeFirst()))
+            }
+            output.writeInt(0)
+        } finally {
+            pendingBlocks.forEach { it.cancel(false) }
+            output.close()
+        }
+    }
+
+    private
+    fun writeBlock() {
+        val length = position
+        position = 0
+        blockCount++
+        if (blockCount <= parallelThresholdBlocks) {
+            writeCompressed(compress(compressor, buffer, length))
+            return
+        }
+
+        val block = buffer
+        buffer = ByteArray(blockSize)
+        pendingBlocks.addLast(compressionExecutor.submit(Callable {
+            // Compressors keep state between calls, so each block uses its own
+            compress(Lz4Compressor(), block, length)
+        }))
+        // Bound the memory used by blocks waiting to be written
+        while (pendingBlocks.size > compressionExecutor.parallelism * 2) {
+            writeCompressed(awaitBlock(pendingBlocks.removeFirst()))
+        }
+    }
+
+    private
+    fun awaitBlock(block: Future<CompressedBlock>): CompressedBlock =
+        try {
+            block.get()
+        } catch (e: ExecutionException) {
+            throw IOException("Could not compress configuration cache state.", e.cause)
+        }
+
+    private
+    fun writeCompressed(block: CompressedBlock) {
+        output.writeInt(block.uncompressedLength)
+        output.writeInt(block.length)
+        output.write(block.bytes, 0, block.length)
+    }
+
+    private
+    class CompressedBlock(val uncompressedLength: Int, val bytes: ByteArray, val length: Int)
+
+    private
+    fun compress(compressor: Lz4Compressor, bytes: ByteArray, length: Int): CompressedBlock {
+        val compressed = ByteArray(compressor.maxCompressedLength(length))
+        val compressedLength = compressor.compress(bytes, 0, length, compressed, 0, compressed.size)
+        return if (compressedLength < length) CompressedBlock(length, compressed, compressedLength)
+        // Incompressible blocks are stored as is
+        else CompressedBlock(length, bytes.copyOf(length), length)
+    }
+}
+
+
+/**
+ * Reads a stream written by [BlockCompressingOutputStream], after its header.
+ */
+internal
+class BlockDecompressingInputStream(inputStream: InputStream) : InputStream() {
+
+    private
+    val input = DataInputStream(inputStream)
+
+    private
+    val decompressor = Lz4Decompressor()
+
+    private
+    var compressed = ByteArray(0)
+
+    private
+    var buffer = ByteArray(0)
+
+    private
+    var position = 0
+
+    private
+    var limit = 0
+
+    private
+    var endOfStream = false
+
+    override fun read(): Int {
+        if (!ensureAvailable()) {
+            return -1
+        }
+        return buffer[position++].toInt() and 0xff
+    }
+
+    override fun read(b: ByteArray, off: Int, len: Int): Int {
+        if (len == 0) {
+            return 0
+        }
+        if (!ensureAvailable()) {
+            return -1
+        }
+        val count = minOf(len, limit - position)
+        System.arraycopy(buffer, position, b, off, count)
+        position += count
+        return count
+    }
+
+    override fun available(): Int = limit - position
+
+    override fun close() {
+        input.close()
+    }
+
+    private
+    fun ensureAvailable(): Boolean {
+        while (position == limit) {
+            if (endOfStream) {
+                return false
+            }
+            readBlock()
+        }
+        return true
+    }
+
+    private
+    fun readBlock() {
+        val uncompressedLength = input.readInt()
+        if (uncompressedLength == 0) {
+            endOfStream = true
+            return
+        }
+        val storedLength = input.readInt()
+        if (uncompressedLength < 0 || storedLength < 0 || storedLength > uncompressedLength) {
+            throw IOException("Corrupt compressed configuration cache state.")
+        }
+        if (buffer.size < uncompressedLength) {
+            buffer = ByteArray(uncompressedLength)
+        }
+        if (storedLength == uncompressedLength) {
+            input.readFully(buffer, 0, uncompressedLength)
+        } else {
+            if (compressed.size < storedLength) {
+                compressed = ByteArray(storedLength)
+            }
+            input.readFully(compressed, 0, storedLength)
+            val decompressedLength = try {
+                decompressor.decompress(compressed, 0, storedLength, buffer, 0, uncompressedLength)
+            } catch (e: MalformedInputException) {
+                throw IOException("Corrupt compressed configuration cache state.", e)
+            }
+            if (decompressedLength != uncompressedLength) {
+                throw IOException("Corrupt compressed configuration cache state.")
+            }
+        }
+        position = 0
+        limit = uncompressedLength
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.cc.impl.io
+
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.After
+import org.junit.Test
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.util.Random
+
+
+class BlockCompressionTest {
+
+    private
+    val executorFactory = DefaultExecutorFactory()
+
+    private
+    val compressionExecutor = BlockCompressionExecutor(executorFactory)
+
+    @After
+    fun stopExecutors() {
+        compressionExecutor.close()
+        executorFactory.stop()
+    }
+
+    @Test
+    fun `can read back compressed streams`() {
+        for (size in listOf(0, 1, 1000, 64 * 1024 + 1)) {
+            val data = sampleData(size)
+
+            val compressed = compress(data, blockSize = 64 * 1024)
+
+            assertThat(decompress(compressed).contentEquals(data), equalTo(true))
+        }
+    }
+
+    @Test
+    fun `can read back large streams compressed in parallel`() {
+        val data = sampleData(1024 * 1024 + 17)
+
+        val compressed = compress(data, blockSize = 16 * 1024)
+
+        assertThat(compressed.size < data.size, equalTo(true))
+        assertThat(decompress(compressed).contentEquals(data), equalTo(true))
+    }
+
+    @Test
+    fun `can read back incompressible blocks`() {
+        val random = Random(42)
+        val data = ByteArray(64 * 1024 + 1).also { random.nextBytes(it) }
+
+        val compressed = compress(data, blockSize = 16 * 1024)
+
+        assertThat(decompress(compressed).contentEquals(data), equalTo(true))
+    }
+
+    @Test
+    fun `streams written at the same time can share the compression executor`() {
+        val data = sampleData(512 * 1024)
+
+        val streams = (1..8).map {
+            val bytes = ByteArrayOutputStream()
+            bytes to BlockCompressingOutputStream(bytes, compressionExecutor, blockSize = 16 * 1024, parallelThresholdBlocks = 2)
+        }
+        streams.forEach { (_, stream) -> stream.write(data) }
+        streams.forEach { (_, stream) -> stream.close() }
+
+        streams.forEach { (bytes, _) ->
+            assertThat(decompress(bytes.toByteArray()).contentEquals(data), equalTo(true))
+        }
+    }
+
+    @Test
+    fun `reads uncompressed streams as is`() {
+        for (text in listOf("", "G", "GCC", "uncompressed state")) {
+            assertThat(String(decompress(text.toByteArray())), equalTo(text))
+        }
+    }
+
+    private
+    fun compress(data: ByteArray, blockSize: Int): ByteArray {
+        val bytes = ByteArrayOutputStream()
+        BlockCompressingOutputStream(bytes, compressionExecutor, blockSize = blockSize, parallelThresholdBlocks = 2).use { stream ->
+            // Write in pieces that do not line up with the blocks
+            var offset = 0
+            while (offset < data.size) {
+                val count = minOf(data.size - offset, 1000)
+                stream.write(data, offset, count)
+                offset += count
+            }
+        }
+        return bytes.toByteArray()
+    }
+
+    private
+    fun decompress(bytes: ByteArray): ByteArray =
+        maybeDecompress(ByteArrayInputStream(bytes)).use { it.readBytes() }
+
+    private
+    fun sampleData(size: Int): ByteArray {
+        val random = Random(size.toLong())
+        return ByteArray(size) { index -> if (index % 8 == 0) random.nextInt().toByte() else (index % 64).toByte() }
+    }
+}
@@ -23,7 +23,10 @@
 import org.gradle.util.internal.GFileUtils;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
 public class DefaultFileTreeElement extends AbstractFileTreeElement {
     private final File file;
@@ -72,6 +75,24 @@ public InputStream open() {
         return GFileUtils.openInputStream(file);
     }
 
+    @Override
+    protected void copyFile(File target) throws IOException {
+        // Let the operating system transfer the content, which can use in-kernel copies or copy-on-write clones
+        try (FileChannel source = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+             FileChannel destination = FileChannel.open(target.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = source.size();
+            long position = 0;
+            while (position < size) {
+                long transferred = source.transferTo(position, size - position, destination);
+                if (transferred <= 0) {
+                    // The file has been truncated while copying
+                    break;
+                }
+                position += transferred;
+            }
+        }
+    }
+
     @Override
     public RelativePath getRelativePath() {
         return relativePath;
@@ -0,0 +1,296 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.file.archive;
+
+import groovy.lang.Closure;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.gradle.api.Action;
+import org.gradle.api.Transformer;
+import org.gradle.api.file.ConfigurableFilePermissions;
+import org.gradle.api.file.ContentFilterable;
+import org.gradle.api.file.DuplicatesStrategy;
+import org.gradle.api.file.ExpandDetails;
+import org.gradle.api.file.FilePermissions;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.api.internal.file.AbstractFileTreeElement;
+import org.gradle.api.internal.file.copy.DefaultZipCompressor;
+import org.gradle.api.internal.file.copy.FileCopyDetailsInternal;
+import org.gradle.api.internal.file.copy.ParallelCopyExecutor;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares deflating the entries of a ZIP archive on the calling thread with deflating them on multiple threads.
+ *
+ * The archive contains many small files, like a fat jar, and a few large files, like a distribution.
+ * With the {@code archive-entries} source the files are read on the calling thread, like entries of nested archives or filtered files.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ZipCopyActionBenchmark {
+    private static final int SMALL_FILES = 4000;
+    private static final int LARGE_FILES = 4;
+
+    @Param({"sequential", "parallel"})
+    String mode;
+
+    @Param({"files", "archive-entries"})
+    String source;
+
+    private File tempDir;
+    private File zipFile;
+    private List<FileCopyDetailsInternal> entries;
+    private DefaultExecutorFactory executorFactory;
+    private ParallelCopyExecutor parallelCopyExecutor;
+
+    @Setup
+    public void setup() throws IOException {
+        tempDir = Files.createTempDirectory("zip-benchmark").toFile();
+        zipFile = new File(tempDir, "archive.zip");
+        File sourceDir = new File(tempDir, "source");
+        Random random = new Random(1234);
+        boolean readInParallel = source.equals("files");
+        entries = new ArrayList<>();
+        for (int i = 0; i < SMALL_FILES; i++) {
+            entries.add(createFile(sourceDir, "org/example/package" + i / 100 + "/Class" + i + ".class", 1024 + random.nextInt(16 * 1024), random, readInParallel));
+        }
+        for (int i = 0; i < LARGE_FILES; i++) {
+            entries.add(createFile(sourceDir, "lib/library" + i + ".so", 32 * 1024 * 1024, random, readInParallel));
+        }
+        executorFactory = new DefaultExecutorFactory();
+        parallelCopyExecutor = new ParallelCopyExecutor(executorFactory, Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        executorFactory.stop();
+        try (Stream<Path> paths = Files.walk(tempDir.toPath())) {
+            paths.map(Path::toFile).sorted((a, b) -> b.getPath().compareTo(a.getPath())).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public void zip() {
+        ZipCopyAction action = mode.equals("parallel")
+            ? new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipArchiveOutputStream.DEFLATED), new DocumentationRegistry(), "UTF-8", false, parallelCopyExecutor, tempDir)
+            : new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipArchiveOutputStream.DEFLATED), new DocumentationRegistry(), "UTF-8", false);
+        action.execute(streamAction -> entries.forEach(streamAction::processFile));
+    }
+
+    private static FileCopyDetailsInternal createFile(File sourceDir, String path, int size, Random random, boolean readInParallel) throws IOException {
+        // Content which compresses about as well as class files
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) (random.nextInt(4) == 0 ? random.nextInt(256) : 'a' + random.nextInt(16));
+        }
+        File file = new File(sourceDir, path);
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), content);
+        return new BenchmarkFileCopyDetails(file, RelativePath.parse(true, path), readInParallel);
+    }
+
+    private static class BenchmarkFileCopyDetails extends AbstractFileTreeElement implements FileCopyDetailsInternal {
+        private final File file;
+        private final RelativePath path;
+        private final boolean readInParallel;
+
+        private BenchmarkFileCopyDetails(File file, RelativePath path, boolean readInParallel) {
+            super((f, mode) -> {
+                throw new UnsupportedOperationException();
+            });
+            this.file = file;
+            this.path = path;
+            this.readInParallel = readInParallel;
+        }
+
+        @Override
+        public boolean isIncludeEmptyDirs() {
+            return true;
+        }
+
+        @Override
+        public boolean canBeCopiedInParallel() {
+            return readInParallel;
+        }
+
+        @Override
+        public String getDisplayName() {
+            return path.toString();
+        }
+
+        @Override
+        public File getFile() {
+            return file;
+        }
+
+        @Override
+        public boolean isDirectory() {
+            return false;
+        }
+
+        @Override
+        public long getLastModified() {
+            return file.lastModified();
+        }
+
+        @Override
+        public long getSize() {
+            return file.length();
+        }
+
+        @Override
+        public InputStream open() {
+            try {
+                return Files.newInputStream(file.toPath());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public RelativePath getRelativePath() {
+            return path;
+        }
+
+        @Override
+        public void exclude() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setName(String name) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setPath(String path) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setRelativePath(RelativePath path) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        @Deprecated
+        public void setMode(int mode) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void permissions(Action<? super ConfigurableFilePermissions> configureAction) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setPermissions(FilePermissions permissions) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setDuplicatesStrategy(DuplicatesStrategy strategy) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public DuplicatesStrategy getDuplicatesStrategy() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isDefaultDuplicatesStrategy() {
+            return true;
+        }
+
+        @Override
+        public String getSourceName() {
+            return file.getName();
+        }
+
+        @Override
+        public String getSourcePath() {
+            return path.getPathString();
+        }
+
+        @Override
+        public RelativePath getRelativeSourcePath() {
+            return path;
+        }
+
+        @Override
+        public ContentFilterable filter(Map<String, ?> properties, Class<? extends FilterReader> filterType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ContentFilterable filter(Class<? extends FilterReader> filterType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ContentFilterable filter(Closure closure) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ContentFilterable filter(Transformer<String, String> transformer) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ContentFilterable expand(Map<String, ?> properties) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ContentFilterable expand(Map<String, ?> properties, Action<? super ExpandDetails> action) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.FileCopyDetails;
+import org.gradle.api.internal.file.copy.FileCopyDetailsInternal;
+import org.gradle.api.internal.file.copy.ParallelCopyExecutor;
+import org.gradle.internal.UncheckedException;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Deflates the entries of a ZIP archive on the shared {@link ParallelCopyExecutor} and writes them to the archive in the order they have been added.
+ *
+ * <p>Each entry is deflated into a {@link ZipEntryBuffer} and then copied as a raw entry, so the archive does not depend on the
+ * order in which the entries have been deflated. Files which are only available while they are visited are read on the
+ * calling thread and deflated on the pool.</p>
+ *
+ * <p>The entries are written directly to the archive on the calling thread until {@value #PARALLEL_THRESHOLD_BYTES} bytes have been written,
+ * so small archives do not pay for buffering and handing work over to the pool.</p>
+ *
+ * <p>The archive must not allow ZIP64, since raw entries are written without the ZIP64 extra field which the sequential path adds to entries of unknown size.</p>
+ */
+class ParallelZipEntryWriter implements Closeable {
+    static final long PARALLEL_THRESHOLD_BYTES = 1024 * 1024;
+    private static final int MAX_PENDING_ENTRIES_PER_THREAD = 4;
+    private static final int IN_MEMORY_LIMIT = 256 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ZipArchiveOutputStream zipOutStr;
+    private final File zipFile;
+    private final File temporaryDir;
+    private final ParallelCopyExecutor executor;
+    private final int maxPendingEntries;
+    private final Deque<PendingEntry> pendingEntries = new ArrayDeque<>();
+    private final Queue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private long sequentiallyWrittenBytes;
+
+    ParallelZipEntryWriter(ZipArchiveOutputStream zipOutStr, File zipFile, File temporaryDir, ParallelCopyExecutor executor) {
+        this.zipOutStr = zipOutStr;
+        this.zipFile = zipFile;
+        this.temporaryDir = temporaryDir;
+        this.executor = executor;
+        this.maxPendingEntries = executor.getParallelism() * MAX_PENDING_ENTRIES_PER_THREAD;
+    }
+
+    void putDirectory(FileCopyDetails dirDetails, ZipArchiveEntry archiveEntry) throws IOException {
+        if (isBelowParallelThreshold()) {
+            zipOutStr.putArchiveEntry(archiveEntry);
+            zipOutStr.closeArchiveEntry();
+            return;
+        }
+        pendingEntries.add(new PendingEntry(dirDetails, archiveEntry, null));
+    }
+
+    void putFile(FileCopyDetailsInternal fileDetails, ZipArchiveEntry archiveEntry) throws IOException {
+        if (isBelowParallelThreshold()) {
+            zipOutStr.putArchiveEntry(archiveEntry);
+            fileDetails.copyTo(zipOutStr);
+            zipOutStr.closeArchiveEntry();
+            // The size of the entry is known once it has been closed
+            sequentiallyWrittenBytes += Math.max(0, archiveEntry.getSize());
+            return;
+        }
+        CompletableFuture<DeflatedContent> content;
+        if (fileDetails.canBeCopiedInParallel()) {
+            content = CompletableFuture.supplyAsync(() -> deflate(fileDetails::copyTo), executor);
+        } else {
+            ZipEntryBuffer uncompressed = new ZipEntryBuffer(temporaryDir, IN_MEMORY_LIMIT);
+            try {
+                fileDetails.copyTo(uncompressed);
+                uncompressed.close();
+            } catch (Throwable t) {
+                uncompressed.discard();
+                throw UncheckedException.throwAsUncheckedException(t);
+            }
+            content = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return deflate(out -> {
+                        try (InputStream in = uncompressed.openInputStream()) {
+                            byte[] buffer = new byte[BUFFER_SIZE];
+                            int read;
+                            while ((read = in.read(buffer)) >= 0) {
+                                out.write(buffer, 0, read);
+                            }
+                        } catch (IOException e) {
+                            throw UncheckedException.throwAsUncheckedException(e);
+                        }
+                    });
+                } finally {
+                    uncompressed.discard();
+                }
+            }, executor);
+        }
+        pendingEntries.add(new PendingEntry(fileDetails, archiveEntry, content));
+    }
+
+    private boolean isBelowParallelThreshold() {
+        return sequentiallyWrittenBytes < PARALLEL_THRESHOLD_BYTES;
+    }
+
+    /**
+     * Writes the entries which are ready to the archive, and waits for the oldest entries while too many entries are pending.
+     */
+    void writeCompletedEntries() {
+        while (!pendingEntries.isEmpty() && (pendingEntries.size() > maxPendingEntries || pendingEntries.peek().isDone())) {
+            write(pendingEntries.remove());
+        }
+    }
+
+    /**
+     * Writes all remaining entries to the archive.
+     */
+    void finish() {
+        while (!pendingEntries.isEmpty()) {
+            write(pendingEntries.remove());
+        }
+    }
+
+    private void write(PendingEntry pending) {
+        try {
+            if (pending.content == null) {
+                zipOutStr.putArchiveEntry(pending.archiveEntry);
+                zipOutStr.closeArchiveEntry();
+                return;
+            }
+            DeflatedContent content = pending.content.join();
+            try (InputStream in = content.compressed.openInputStream()) {
+                ZipArchiveEntry archiveEntry = pending.archiveEntry;
+                archiveEntry.setMethod(ZipArchiveEntry.DEFLATED);
+                archiveEntry.setCrc(content.crc);
+                archiveEntry.setSize(content.size);
+                archiveEntry.setCompressedSize(content.compressed.size());
+                zipOutStr.addRawArchiveEntry(archiveEntry, in);
+            } finally {
+                content.compressed.discard();
+            }
+        } catch (Exception e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            throw new GradleException(String.format("Could not add %s to ZIP '%s'.", pending.details, zipFile), cause);
+        }
+    }
+
+    private DeflatedContent deflate(ContentWriter contentWriter) {
+        if (closed.get()) {
+            throw new IllegalStateException("The ZIP archive is not written anymore.");
+        }
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        }
+        ZipEntryBuffer compressed = new ZipEntryBuffer(temporaryDir, IN_MEMORY_LIMIT);
+        try {
+            CRC32 crc = new CRC32();
+            try (DeflaterOutputStream deflaterOutput = new DeflaterOutputStream(compressed, deflater, BUFFER_SIZE)) {
+                contentWriter.writeTo(new CheckedOutputStream(deflaterOutput, crc));
+            }
+            return new DeflatedContent(compressed, crc.getValue(), deflater.getBytesRead());
+        } catch (Throwable t) {
+            compressed.discard();
+            throw UncheckedException.throwAsUncheckedException(t);
+        } finally {
+            deflater.reset();
+            deflaters.add(deflater);
+        }
+    }
+
+    /**
+     * Discards the entries which have not been written. The executor is shared, so it is not stopped,
+     * but the entries which did not start deflating yet are skipped.
+     */
+    @Override
+    public void close() {
+        closed.set(true);
+        for (PendingEntry pending : pendingEntries) {
+            if (pending.content != null) {
+                // Wait for the entries which are being deflated, so their buffers and deflaters are not used anymore
+                DeflatedContent content = pending.content.handle((deflated, failure) -> deflated).join();
+                if (content != null) {
+                    content.compressed.discard();
+                }
+            }
+        }
+        pendingEntries.clear();
+        Deflater deflater;
+        while ((deflater = deflaters.poll()) != null) {
+            deflater.end();
+        }
+    }
+
+    private interface ContentWriter {
+        void writeTo(OutputStream outputStream);
+    }
+
+    private static class PendingEntry {
+        private final FileCopyDetails details;
+        private final ZipArchiveEntry archiveEntry;
+        @Nullable
+        private final CompletableFuture<DeflatedContent> content;
+
+        private PendingEntry(FileCopyDetails details, ZipArchiveEntry archiveEntry, @Nullable CompletableFuture<DeflatedContent> content) {
+            this.details = details;
+            this.archiveEntry = archiveEntry;
+            this.content = content;
+        }
+
+        private boolean isDone() {
+            return content == null || content.isDone();
+        }
+    }
+
+    private static class DeflatedContent {
+        private final ZipEntryBuffer compressed;
+        private final long crc;
+        private final long size;
+
+        private DeflatedContent(ZipEntryBuffer compressed, long crc, long size) {
+            this.compressed = compressed;
+            this.crc = crc;
+            this.size = size;
+        }
+    }
+}
@@ -26,11 +26,13 @@
 import org.gradle.api.internal.file.copy.CopyAction;
 import org.gradle.api.internal.file.copy.CopyActionProcessingStream;
 import org.gradle.api.internal.file.copy.FileCopyDetailsInternal;
+import org.gradle.api.internal.file.copy.ParallelCopyExecutor;
 import org.gradle.api.internal.file.copy.ZipCompressor;
 import org.gradle.api.tasks.WorkResult;
 import org.gradle.api.tasks.WorkResults;
 import org.gradle.internal.IoActions;
 
+import javax.annotation.Nullable;
 import java.io.File;
 
 public class ZipCopyAction implements CopyAction {
@@ -49,13 +51,27 @@ public class ZipCopyAction implements CopyAction {
     private final DocumentationRegistry documentationRegistry;
     private final String encoding;
     private final boolean preserveFileTimestamps;
+    @Nullable
+    private final ParallelCopyExecutor parallelCopyExecutor;
+    @Nullable
+    private final File temporaryDir;
 
     public ZipCopyAction(File zipFile, ZipCompressor compressor, DocumentationRegistry documentationRegistry, String encoding, boolean preserveFileTimestamps) {
+        this(zipFile, compressor, documentationRegistry, encoding, preserveFileTimestamps, null, null);
+    }
+
+    /**
+     * @param parallelCopyExecutor used to deflate the entries of the archive in parallel, or {@code null} to deflate them on the calling thread
+     * @param temporaryDir where entries which are too large to be kept in memory are stored until they are written to the archive
+     */
+    public ZipCopyAction(File zipFile, ZipCompressor compressor, DocumentationRegistry documentationRegistry, String encoding, boolean preserveFileTimestamps, @Nullable ParallelCopyExecutor parallelCopyExecutor, @Nullable File temporaryDir) {
         this.zipFile = zipFile;
         this.compressor = compressor;
         this.documentationRegistry = documentationRegistry;
         this.encoding = encoding;
         this.preserveFileTimestamps = preserveFileTimestamps;
+        this.parallelCopyExecutor = parallelCopyExecutor;
+        this.temporaryDir = temporaryDir;
     }
 
     @Override
@@ -70,7 +86,14 @@ public WorkResult execute(final CopyActionProcessingStream stream) {
 
         try {
             IoActions.withResource(zipOutStr, outputStream -> {
-                stream.process(new StreamAction(outputStream, encoding));
+                if (isDeflatedInParallel()) {
+                    try (ParallelZipEntryWriter parallelWriter = new ParallelZipEntryWriter(outputStream, zipFile, temporaryDir, parallelCopyExecutor)) {
+                        stream.process(new StreamAction(outputStream, encoding, parallelWriter));
+                        parallelWriter.finish();
+                    }
+                } else {
+                    stream.process(new StreamAction(outputStream, encoding, null));
+                }
             });
         } catch (Exception e) {
             if (e.getCause() instanceof Zip64RequiredException) {
@@ -88,9 +111,12 @@ public WorkResult execute(final CopyActionProcessingStream stream) {
 
     private class StreamAction implements CopyActionProcessingStreamAction {
         private final ZipArchiveOutputStream zipOutStr;
+        @Nullable
+        private final ParallelZipEntryWriter parallelWriter;
 
-        public StreamAction(ZipArchiveOutputStream zipOutStr, String encoding) {
+        public StreamAction(ZipArchiveOutputStream zipOutStr, String encoding, @Nullable ParallelZipEntryWriter parallelWriter) {
             this.zipOutStr = zipOutStr;
+            this.parallelWriter = parallelWriter;
             if (encoding != null) {
                 this.zipOutStr.setEncoding(encoding);
             }
@@ -103,16 +129,23 @@ public void processFile(FileCopyDetailsInternal details) {
             } else {
                 visitFile(details);
             }
+            if (parallelWriter != null) {
+                parallelWriter.writeCompletedEntries();
+            }
         }
 
-        private void visitFile(FileCopyDetails fileDetails) {
+        private void visitFile(FileCopyDetailsInternal fileDetails) {
             try {
                 ZipArchiveEntry archiveEntry = new ZipArchiveEntry(fileDetails.getRelativePath().getPathString());
                 archiveEntry.setTime(getArchiveTimeFor(fileDetails));
                 archiveEntry.setUnixMode(UnixStat.FILE_FLAG | fileDetails.getPermissions().toUnixNumeric());
-                zipOutStr.putArchiveEntry(archiveEntry);
-                fileDetails.copyTo(zipOutStr);
-                zipOutStr.closeArchiveEntry();
+                if (parallelWriter != null) {
+                    parallelWriter.putFile(fileDetails, archiveEntry);
+                } else {
+                    zipOutStr.putArchiveEntry(archiveEntry);
+                    fileDetails.copyTo(zipOutStr);
+                    zipOutStr.closeArchiveEntry();
+                }
             } catch (Exception e) {
                 throw new GradleException(String.format("Could not add %s to ZIP '%s'.", fileDetails, zipFile), e);
             }
@@ -124,14 +157,28 @@ private void visitDir(FileCopyDetails dirDetails) {
                 ZipArchiveEntry archiveEntry = new ZipArchiveEntry(dirDetails.getRelativePath().getPathString() + '/');
                 archiveEntry.setTime(getArchiveTimeFor(dirDetails));
                 archiveEntry.setUnixMode(UnixStat.DIR_FLAG | dirDetails.getPermissions().toUnixNumeric());
-                zipOutStr.putArchiveEntry(archiveEntry);
-                zipOutStr.closeArchiveEntry();
+                if (parallelWriter != null) {
+                    parallelWriter.putDirectory(dirDetails, archiveEntry);
+                } else {
+                    zipOutStr.putArchiveEntry(archiveEntry);
+                    zipOutStr.closeArchiveEntry();
+                }
             } catch (Exception e) {
                 throw new GradleException(String.format("Could not add %s to ZIP '%s'.", dirDetails, zipFile), e);
             }
         }
     }
 
+    private boolean isDeflatedInParallel() {
+        // When ZIP64 is allowed, entries of unknown size get a ZIP64 extra field in their local header, which raw entries cannot have.
+        // So an archive deflated in parallel would not be the same as one deflated sequentially.
+        return parallelCopyExecutor != null
+            && parallelCopyExecutor.isParallel()
+            && temporaryDir != null
+            && compressor.getEntryCompressionMethod() == ZipArchiveOutputStream.DEFLATED
+            && !compressor.isZip64Allowed();
+    }
+
     private long getArchiveTimeFor(FileCopyDetails details) {
         return preserveFileTimestamps ? details.getLastModified() : ZipEntryConstants.CONSTANT_TIME_FOR_ZIP_ENTRIES;
     }
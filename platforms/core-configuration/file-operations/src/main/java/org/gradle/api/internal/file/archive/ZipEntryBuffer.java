@@ -0,0 +1,110 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive;
+
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+/**
+ * Holds the content of a ZIP entry until it is written to the archive.
+ *
+ * <p>The content is kept in memory up to a limit, larger content is moved to a temporary file.</p>
+ */
+class ZipEntryBuffer extends OutputStream {
+    private final File temporaryDir;
+    private final int inMemoryLimit;
+    private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+    @Nullable
+    private File file;
+    @Nullable
+    private OutputStream fileOutput;
+    private long size;
+
+    ZipEntryBuffer(File temporaryDir, int inMemoryLimit) {
+        this.temporaryDir = temporaryDir;
+        this.inMemoryLimit = inMemoryLimit;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        outputFor(1).write(b);
+        size++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        outputFor(len).write(b, off, len);
+        size += len;
+    }
+
+    private OutputStream outputFor(int len) throws IOException {
+        if (fileOutput != null) {
+            return fileOutput;
+        }
+        if (size + len <= inMemoryLimit) {
+            return memory;
+        }
+        file = File.createTempFile("zip-entry", ".tmp", temporaryDir);
+        fileOutput = new BufferedOutputStream(Files.newOutputStream(file.toPath()));
+        memory.writeTo(fileOutput);
+        memory = new ByteArrayOutputStream(0);
+        return fileOutput;
+    }
+
+    /**
+     * Finishes writing the content.
+     */
+    @Override
+    public void close() throws IOException {
+        if (fileOutput != null) {
+            fileOutput.close();
+        }
+    }
+
+    long size() {
+        return size;
+    }
+
+    InputStream openInputStream() throws IOException {
+        if (file != null) {
+            return Files.newInputStream(file.toPath());
+        }
+        return new ByteArrayInputStream(memory.toByteArray());
+    }
+
+    /**
+     * Releases the content, after it has been written or when the archive cannot be created.
+     */
+    void discard() {
+        memory = new ByteArrayOutputStream(0);
+        if (file != null) {
+            try {
+                close();
+                Files.deleteIfExists(file.toPath());
+            } catch (IOException e) {
+                file.deleteOnExit();
+            }
+        }
+    }
+}
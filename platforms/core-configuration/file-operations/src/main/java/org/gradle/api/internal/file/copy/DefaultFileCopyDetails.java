@@ -29,6 +29,7 @@
 import org.gradle.api.file.RelativePath;
 import org.gradle.api.internal.file.AbstractFileTreeElement;
 import org.gradle.api.internal.file.DefaultConfigurableFilePermissions;
+import org.gradle.api.internal.file.DefaultFileTreeElement;
 import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.provider.Provider;
 import org.gradle.internal.Actions;
@@ -277,6 +278,12 @@ public boolean isDefaultDuplicatesStrategy() {
         return defaultDuplicatesStrategy;
     }
 
+    @Override
+    public boolean canBeCopiedInParallel() {
+        // Elements of archives and generated files are only available while they are visited
+        return !filterChain.hasFilters() && !isDirectory() && fileDetails instanceof DefaultFileTreeElement;
+    }
+
     @Override
     public String getSourceName() {
         return this.fileDetails.getName();
@@ -21,37 +21,73 @@
 import org.gradle.internal.FileUtils;
 import org.gradle.internal.file.PathToFileResolver;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.Objects;
 
 public class FileCopyAction implements CopyAction {
 
     private final PathToFileResolver fileResolver;
+    @Nullable
+    private final ParallelCopyExecutor parallelCopyExecutor;
 
     public FileCopyAction(PathToFileResolver fileResolver) {
+        this(fileResolver, null);
+    }
+
+    /**
+     * @param parallelCopyExecutor used to copy the files which are not transformed in parallel, or {@code null} to copy all files on the calling thread
+     */
+    public FileCopyAction(PathToFileResolver fileResolver, @Nullable ParallelCopyExecutor parallelCopyExecutor) {
         this.fileResolver = fileResolver;
+        this.parallelCopyExecutor = parallelCopyExecutor;
     }
 
     @Override
     public WorkResult execute(CopyActionProcessingStream stream) {
-        FileCopyDetailsInternalAction action = new FileCopyDetailsInternalAction();
-        stream.process(action);
-        return WorkResults.didWork(action.didWork);
+        if (parallelCopyExecutor == null || !parallelCopyExecutor.isParallel()) {
+            FileCopyDetailsInternalAction action = new FileCopyDetailsInternalAction(null);
+            stream.process(action);
+            return WorkResults.didWork(action.didWork);
+        }
+        try (ParallelFileOperations parallelCopies = new ParallelFileOperations(parallelCopyExecutor)) {
+            FileCopyDetailsInternalAction action = new FileCopyDetailsInternalAction(parallelCopies);
+            stream.process(action);
+            parallelCopies.waitForAll();
+            return WorkResults.didWork(action.didWork || parallelCopies.getDidWork());
+        }
     }
 
     private class FileCopyDetailsInternalAction implements CopyActionProcessingStreamAction {
+        @Nullable
+        private final ParallelFileOperations parallelCopies;
         private boolean didWork;
 
+        private FileCopyDetailsInternalAction(@Nullable ParallelFileOperations parallelCopies) {
+            this.parallelCopies = parallelCopies;
+        }
+
         @Override
         public void processFile(FileCopyDetailsInternal details) {
             File target = fileResolver.resolve(details.getRelativePath().getPathString());
-            renameIfCaseChanged(target);
-            boolean copied = details.copyTo(target);
+            if (parallelCopies != null) {
+                if (details.canBeCopiedInParallel()) {
+                    parallelCopies.submit(target, () -> copy(details, target));
+                    return;
+                }
+                parallelCopies.waitFor(target);
+            }
+            boolean copied = copy(details, target);
             if (copied) {
                 didWork = true;
             }
         }
 
+        private boolean copy(FileCopyDetailsInternal details, File target) {
+            renameIfCaseChanged(target);
+            return details.copyTo(target);
+        }
+
         private void renameIfCaseChanged(File target) {
             if (target.exists()) {
                 File canonicalizedTarget = FileUtils.canonicalize(target);
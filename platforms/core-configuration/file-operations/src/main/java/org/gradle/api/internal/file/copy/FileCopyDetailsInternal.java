@@ -23,4 +23,10 @@ public interface FileCopyDetailsInternal extends FileCopyDetails {
     boolean isIncludeEmptyDirs();
 
     boolean isDefaultDuplicatesStrategy();
+
+    /**
+     * Whether the content of this file is copied unchanged from a file in the file system,
+     * so the copy can happen on another thread after the file has been visited.
+     */
+    boolean canBeCopiedInParallel();
 }
@@ -120,6 +120,11 @@ public boolean isIncludeEmptyDirs() {
             return includeEmptyDirs;
         }
 
+        @Override
+        public boolean canBeCopiedInParallel() {
+            return false;
+        }
+
         @Override
         public String getDisplayName() {
             return path.toString();
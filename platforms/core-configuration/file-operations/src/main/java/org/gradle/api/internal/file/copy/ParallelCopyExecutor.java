@@ -0,0 +1,82 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.copy;
+
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.service.scopes.Scope;
+import org.gradle.internal.service.scopes.ServiceScope;
+import org.gradle.internal.work.WorkerLimits;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.util.concurrent.Executor;
+
+/**
+ * The pool of threads shared by all copy and archive actions which process files in parallel.
+ *
+ * <p>The pool has at most as many threads as the build has workers, and no more than {@value #MAX_THREADS}.
+ * It is created when it is used for the first time.</p>
+ */
+@ServiceScope(Scope.CrossBuildSession.class)
+public class ParallelCopyExecutor implements Executor, Closeable {
+    private static final int MAX_THREADS = 8;
+
+    private final ExecutorFactory executorFactory;
+    private final int parallelism;
+    @Nullable
+    private ManagedExecutor executor;
+
+    public ParallelCopyExecutor(ExecutorFactory executorFactory, WorkerLimits workerLimits) {
+        this(executorFactory, workerLimits.getMaxWorkerCount());
+    }
+
+    public ParallelCopyExecutor(ExecutorFactory executorFactory, int maxThreads) {
+        this.executorFactory = executorFactory;
+        this.parallelism = Math.max(1, Math.min(MAX_THREADS, maxThreads));
+    }
+
+    /**
+     * The maximum number of operations which run at the same time.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Whether running operations on this executor is any faster than running them on the calling thread.
+     */
+    public boolean isParallel() {
+        return parallelism > 1;
+    }
+
+    @Override
+    public synchronized void execute(Runnable command) {
+        if (executor == null) {
+            executor = executorFactory.create("Parallel file operations", parallelism);
+        }
+        executor.execute(command);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.stop();
+            executor = null;
+        }
+    }
+}
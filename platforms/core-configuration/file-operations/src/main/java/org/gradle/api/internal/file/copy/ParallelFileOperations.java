@@ -0,0 +1,142 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.copy;
+
+import org.gradle.internal.UncheckedException;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs operations on files in the destination of a copy on the shared {@link ParallelCopyExecutor}.
+ *
+ * <p>Operations are submitted from a single thread. Operations on the same file run in the order they have been submitted.
+ * The number of submitted operations which did not complete yet is bounded, so the submitting thread slows down to the pace of the file system.</p>
+ *
+ * <p>The first {@value #PARALLEL_THRESHOLD_OPERATIONS} operations run on the submitting thread, so small copies do not pay for handing work over to the pool.</p>
+ */
+class ParallelFileOperations implements Closeable {
+    static final int PARALLEL_THRESHOLD_OPERATIONS = 16;
+    private static final int MAX_PENDING_OPERATIONS_PER_THREAD = 32;
+
+    private final ParallelCopyExecutor executor;
+    private final int maxPendingOperations;
+    private final Semaphore pendingOperations;
+    private final ConcurrentMap<String, CompletableFuture<Void>> operationsByFile = new ConcurrentHashMap<>();
+    private final AtomicBoolean didWork = new AtomicBoolean();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private int submittedOperations;
+
+    ParallelFileOperations(ParallelCopyExecutor executor) {
+        this.executor = executor;
+        this.maxPendingOperations = executor.getParallelism() * MAX_PENDING_OPERATIONS_PER_THREAD;
+        this.pendingOperations = new Semaphore(maxPendingOperations);
+    }
+
+    /**
+     * Schedules an operation on the given file, which returns whether it did any work.
+     *
+     * @throws RuntimeException the failure of a previous operation
+     */
+    void submit(File file, BooleanSupplier operation) {
+        waitFor(file);
+        rethrowFailure();
+        if (submittedOperations++ < PARALLEL_THRESHOLD_OPERATIONS) {
+            if (operation.getAsBoolean()) {
+                didWork.set(true);
+            }
+            return;
+        }
+        pendingOperations.acquireUninterruptibly();
+        String key = key(file);
+        CompletableFuture<Void> completion = new CompletableFuture<>();
+        operationsByFile.put(key, completion);
+        executor.execute(() -> {
+            try {
+                if (operation.getAsBoolean()) {
+                    didWork.set(true);
+                }
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            } finally {
+                operationsByFile.remove(key, completion);
+                pendingOperations.release();
+                completion.complete(null);
+            }
+        });
+    }
+
+    /**
+     * Waits until the operations on the given file have completed.
+     */
+    void waitFor(File file) {
+        CompletableFuture<Void> completion = operationsByFile.get(key(file));
+        if (completion != null) {
+            completion.join();
+        }
+    }
+
+    /**
+     * Waits until all operations have completed.
+     *
+     * @throws RuntimeException the failure of an operation
+     */
+    void waitForAll() {
+        awaitPendingOperations();
+        rethrowFailure();
+    }
+
+    private void awaitPendingOperations() {
+        pendingOperations.acquireUninterruptibly(maxPendingOperations);
+        pendingOperations.release(maxPendingOperations);
+    }
+
+    boolean getDidWork() {
+        return didWork.get();
+    }
+
+    private void rethrowFailure() {
+        Throwable t = failure.get();
+        if (t != null) {
+            throw UncheckedException.throwAsUncheckedException(t);
+        }
+    }
+
+    /**
+     * Files which only differ in case may be the same file on the file system.
+     */
+    private static String key(File file) {
+        return file.getPath().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Waits until all operations have completed, without reporting their failures.
+     * The executor is shared, so it is not stopped.
+     */
+    @Override
+    public void close() {
+        awaitPendingOperations();
+    }
+}
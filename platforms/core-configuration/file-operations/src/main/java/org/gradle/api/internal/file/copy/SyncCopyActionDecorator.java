@@ -41,6 +41,8 @@ public class SyncCopyActionDecorator implements CopyAction {
     private final PatternFilterable preserveSpec;
     private final Deleter deleter;
     private final DirectoryFileTreeFactory directoryFileTreeFactory;
+    @Nullable
+    private final ParallelCopyExecutor parallelCopyExecutor;
 
     public SyncCopyActionDecorator(
         File baseDestDir,
@@ -57,12 +59,27 @@ public SyncCopyActionDecorator(
         @Nullable PatternFilterable preserveSpec,
         Deleter deleter,
         DirectoryFileTreeFactory directoryFileTreeFactory
+    ) {
+        this(baseDestDir, delegate, preserveSpec, deleter, directoryFileTreeFactory, null);
+    }
+
+    /**
+     * @param parallelCopyExecutor used to delete the files which are not part of the copy in parallel, or {@code null} to delete them on the calling thread
+     */
+    public SyncCopyActionDecorator(
+        File baseDestDir,
+        CopyAction delegate,
+        @Nullable PatternFilterable preserveSpec,
+        Deleter deleter,
+        DirectoryFileTreeFactory directoryFileTreeFactory,
+        @Nullable ParallelCopyExecutor parallelCopyExecutor
     ) {
         this.baseDestDir = baseDestDir;
         this.delegate = delegate;
         this.preserveSpec = preserveSpec;
         this.deleter = deleter;
         this.directoryFileTreeFactory = directoryFileTreeFactory;
+        this.parallelCopyExecutor = parallelCopyExecutor;
     }
 
     @Override
@@ -74,13 +91,23 @@ public WorkResult execute(final CopyActionProcessingStream stream) {
             action.processFile(details);
         }));
 
-        SyncCopyActionDecoratorFileVisitor fileVisitor = new SyncCopyActionDecoratorFileVisitor(visited, preserveSpec, deleter);
-
         MinimalFileTree walker = directoryFileTreeFactory.create(baseDestDir).postfix();
-        walker.visit(fileVisitor);
+        boolean didDelete;
+        if (parallelCopyExecutor == null || !parallelCopyExecutor.isParallel()) {
+            SyncCopyActionDecoratorFileVisitor fileVisitor = new SyncCopyActionDecoratorFileVisitor(visited, preserveSpec, deleter, null);
+            walker.visit(fileVisitor);
+            didDelete = fileVisitor.didWork;
+        } else {
+            try (ParallelFileOperations parallelDeletes = new ParallelFileOperations(parallelCopyExecutor)) {
+                SyncCopyActionDecoratorFileVisitor fileVisitor = new SyncCopyActionDecoratorFileVisitor(visited, preserveSpec, deleter, parallelDeletes);
+                walker.visit(fileVisitor);
+                parallelDeletes.waitForAll();
+                didDelete = fileVisitor.didWork || parallelDeletes.getDidWork();
+            }
+        }
         visited.clear();
 
-        return WorkResults.didWork(didWork.getDidWork() || fileVisitor.didWork);
+        return WorkResults.didWork(didWork.getDidWork() || didDelete);
     }
 
     private static class SyncCopyActionDecoratorFileVisitor implements FileVisitor {
@@ -88,11 +115,14 @@ private static class SyncCopyActionDecoratorFileVisitor implements FileVisitor {
         private final Spec<FileTreeElement> preserveSpec;
         private final PatternSet preserveSet;
         private final Deleter deleter;
+        @Nullable
+        private final ParallelFileOperations parallelDeletes;
         private boolean didWork;
 
-        private SyncCopyActionDecoratorFileVisitor(Set<RelativePath> visited, @Nullable PatternFilterable preserveSpec, Deleter deleter) {
+        private SyncCopyActionDecoratorFileVisitor(Set<RelativePath> visited, @Nullable PatternFilterable preserveSpec, Deleter deleter, @Nullable ParallelFileOperations parallelDeletes) {
             this.visited = visited;
             this.deleter = deleter;
+            this.parallelDeletes = parallelDeletes;
             PatternSet preserveSet = new PatternSet();
             if (preserveSpec != null) {
                 preserveSet.include(preserveSpec.getIncludes());
@@ -116,13 +146,26 @@ private void maybeDelete(FileVisitDetails fileDetails) {
             RelativePath path = fileDetails.getRelativePath();
             if (!visited.contains(path)) {
                 if (preserveSet.isEmpty() || !preserveSpec.isSatisfiedBy(fileDetails)) {
-                    try {
-                        didWork = deleter.deleteRecursively(fileDetails.getFile());
-                    } catch (IOException ex) {
-                        throw new UncheckedIOException(ex);
+                    File file = fileDetails.getFile();
+                    if (parallelDeletes == null) {
+                        didWork = delete(file);
+                    } else if (fileDetails.isDirectory()) {
+                        // The walk is depth-first, so the directory is only deleted once the deletion of its children has completed
+                        parallelDeletes.waitForAll();
+                        didWork |= delete(file);
+                    } else {
+                        parallelDeletes.submit(file, () -> delete(file));
                     }
                 }
             }
         }
+
+        private boolean delete(File file) {
+            try {
+                return deleter.deleteRecursively(file);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
     }
 }
@@ -26,4 +26,14 @@ public interface ZipCompressor extends ArchiveOutputStreamFactory {
     @Override
     ZipArchiveOutputStream createArchiveOutputStream(File destination) throws IOException;
 
+    /**
+     * The compression method of the entries of the archive, either {@link ZipArchiveOutputStream#DEFLATED} or {@link ZipArchiveOutputStream#STORED}.
+     */
+    int getEntryCompressionMethod();
+
+    /**
+     * Whether the archive uses the ZIP64 extensions when it needs them.
+     */
+    boolean isZip64Allowed();
+
 }
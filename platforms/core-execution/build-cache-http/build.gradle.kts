@@ -14,6 +14,7 @@ dependencies {
     api(libs.jsr305)
 
     api(projects.baseServices)
+    api(projects.buildOption)
     api(projects.buildCacheSpi)
     api(projects.coreApi)
     api(projects.resourcesHttp)
@@ -32,11 +33,20 @@ dependencies {
     integTestImplementation(projects.enterpriseOperations)
     integTestImplementation(testFixtures(projects.buildCache))
     integTestImplementation(libs.jetty)
+    integTestImplementation(libs.mockwebserver)
 
     integTestDistributionRuntimeOnly(projects.distributionsJvm) {
         because("Uses application plugin.")
     }
 }
+
+tasks.withType<JavaCompile>().configureEach {
+    // The HTTP/2 transport uses java.net.http from the JDK, and is only used when running on Java 11 or later
+    options.release = null
+    sourceCompatibility = "8"
+    targetCompatibility = "8"
+}
+
 tasks.isolatedProjectsIntegTest {
     enabled = false
 }
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.http.internal
+
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import org.apache.http.HttpStatus
+import org.gradle.api.UncheckedIOException
+import org.gradle.api.internal.DocumentationRegistry
+import org.gradle.caching.BuildCacheException
+import org.gradle.caching.BuildCacheService
+import org.gradle.caching.BuildCacheServiceFactory
+import org.gradle.caching.http.HttpBuildCache
+import org.gradle.caching.internal.TestBuildCacheKey
+import org.gradle.internal.buildoption.DefaultInternalOptions
+import org.gradle.internal.resource.transport.http.DefaultHttpSettings
+import org.gradle.internal.resource.transport.http.DefaultSslContextFactory
+import org.gradle.internal.resource.transport.http.HttpClientHelper
+import org.gradle.test.precondition.Requires
+import org.gradle.test.preconditions.UnitTestPreconditions
+import org.gradle.util.TestUtil
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+@Requires(UnitTestPreconditions.Jdk11OrLater)
+class MultiplexingHttpBuildCacheServiceTest extends Specification {
+    def server = new MockWebServer()
+    def clientFactory = new MultiplexingHttpClientFactory()
+    def sslContextFactory = new DefaultSslContextFactory()
+    def key = new TestBuildCacheKey(0x01234567abcdef)
+
+    def setup() {
+        server.start()
+    }
+
+    def cleanup() {
+        clientFactory.close()
+        server.shutdown()
+    }
+
+    def "creates multiplexing service when enabled"() {
+        expect:
+        createCache() instanceof MultiplexingHttpBuildCacheService
+    }
+
+    def "can load artifact from cache"() {
+        server.enqueue(new MockResponse().setBody("Data"))
+
+        when:
+        def receivedInput = null
+        def found = createCache().load(key) { input ->
+            receivedInput = input.text
+        }
+
+        then:
+        found
+        receivedInput == "Data"
+
+        def request = server.takeRequest()
+        request.method == "GET"
+        request.path == "/cache/${key.hashCode}"
+        request.getHeader("Accept") == "${HttpBuildCacheService.BUILD_CACHE_CONTENT_TYPE}, */*"
+        request.getHeader("X-Gradle-Version") == "3.0"
+    }
+
+    def "reports cache miss on 404"() {
+        server.enqueue(new MockResponse().setResponseCode(HttpStatus.SC_NOT_FOUND))
+
+        expect:
+        !createCache().load(key) { input -> throw new AssertionError("Should not be called") }
+    }
+
+    def "can store artifact"() {
+        server.enqueue(new MockResponse())
+
+        when:
+        createCache().store(key, new HttpBuildCacheServiceTest.Writer("Data".bytes))
+
+        then:
+        def request = server.takeRequest()
+        request.method == "PUT"
+        request.path == "/cache/${key.hashCode}"
+        request.getHeader("Content-Type") == HttpBuildCacheService.BUILD_CACHE_CONTENT_TYPE
+        request.getHeader("X-Gradle-Version") == "3.0"
+        request.body.readUtf8() == "Data"
+    }
+
+    def "does preemptive authentication"() {
+        def config = configuration()
+        config.credentials.username = "user"
+        config.credentials.password = "password"
+        server.enqueue(new MockResponse())
+
+        when:
+        createCache(config).store(key, new HttpBuildCacheServiceTest.Writer("Data".bytes))
+
+        then:
+        server.takeRequest().getHeader("Authorization") == "Basic ${"user:password".bytes.encodeBase64()}"
+    }
+
+    def "store reports recoverable error on http code 500"() {
+        server.enqueue(new MockResponse().setResponseCode(HttpStatus.SC_INTERNAL_SERVER_ERROR))
+
+        when:
+        createCache().store(key, new HttpBuildCacheServiceTest.Writer("Data".bytes))
+
+        then:
+        BuildCacheException exception = thrown()
+        exception.message == "Storing entry at '${server.url("/cache/${key.hashCode}")}' response status 500"
+    }
+
+    def "load reports non-recoverable error on http code 401"() {
+        server.enqueue(new MockResponse().setResponseCode(HttpStatus.SC_UNAUTHORIZED))
+
+        when:
+        createCache().load(key) { input -> throw new AssertionError("Should not be called") }
+
+        then:
+        UncheckedIOException exception = thrown()
+        exception.message == "Loading entry from '${server.url("/cache/${key.hashCode}")}' response status 401"
+    }
+
+    def "storing to cache follows method preserving redirects"() {
+        server.enqueue(new MockResponse().setResponseCode(HttpStatus.SC_TEMPORARY_REDIRECT).setHeader("Location", "/redirect/cache/${key.hashCode}"))
+        server.enqueue(new MockResponse())
+        def writer = new HttpBuildCacheServiceTest.Writer("Data".bytes)
+
+        when:
+        createCache().store(key, writer)
+
+        then:
+        server.takeRequest().path == "/cache/${key.hashCode}"
+        def redirected = server.takeRequest()
+        redirected.method == "PUT"
+        redirected.path == "/redirect/cache/${key.hashCode}"
+        redirected.body.readUtf8() == "Data"
+    }
+
+    def "storing to cache follows non method preserving redirects with GET"() {
+        server.enqueue(new MockResponse().setResponseCode(HttpStatus.SC_MOVED_TEMPORARILY).setHeader("Location", "/redirect/cache/${key.hashCode}"))
+        server.enqueue(new MockResponse())
+
+        when:
+        createCache().store(key, new HttpBuildCacheServiceTest.Writer("Data".bytes))
+
+        then:
+        server.takeRequest().method == "PUT"
+        server.takeRequest().method == "GET"
+    }
+
+    def "treats too many redirects as failure"() {
+        11.times { index ->
+            server.enqueue(new MockResponse().setResponseCode(HttpStatus.SC_MOVED_TEMPORARILY).setHeader("Location", "/redirect${index}/cache/${key.hashCode}"))
+        }
+
+        when:
+        createCache().load(key) { input -> throw new AssertionError("Should not be called") }
+
+        then:
+        BuildCacheException exception = thrown()
+        exception.message == "Maximum redirects (10) exceeded"
+        server.requestCount == 11
+    }
+
+    def "treats redirect loop as failure"() {
+        server.enqueue(new MockResponse().setResponseCode(HttpStatus.SC_MOVED_TEMPORARILY).setHeader("Location", "/redirect/cache/${key.hashCode}"))
+        server.enqueue(new MockResponse().setResponseCode(HttpStatus.SC_MOVED_TEMPORARILY).setHeader("Location", "/cache/${key.hashCode}"))
+
+        when:
+        createCache().load(key) { input -> throw new AssertionError("Should not be called") }
+
+        then:
+        BuildCacheException exception = thrown()
+        exception.message == "Circular redirect to '${server.url("/cache/${key.hashCode}")}'"
+    }
+
+    def "builds with the same connection settings share a JDK client"() {
+        when:
+        def first = clientFactory.create(settings())
+        def second = clientFactory.create(settings())
+
+        then:
+        !first.is(second)
+        first.client.is(second.client)
+    }
+
+    def "falls back to HTTP/1.1 service for untrusted servers"() {
+        def config = configuration()
+        config.allowUntrustedServer = true
+
+        expect:
+        createCache(config) instanceof HttpBuildCacheService
+    }
+
+    def "concurrent requests of different builds are served"() {
+        def requestCount = 8
+        server.enqueue(new MockResponse().setBody("Data"))
+        requestCount.times {
+            server.enqueue(new MockResponse().setBody("Data").setBodyDelay(100, TimeUnit.MILLISECONDS))
+        }
+        def firstBuildCache = createCache()
+        def secondBuildCache = createCache()
+        def executor = Executors.newFixedThreadPool(requestCount)
+        firstBuildCache.load(key) { input -> input.text }
+
+        when:
+        def results = executor.invokeAll((1..requestCount).collect { index ->
+            def cache = index % 2 == 0 ? firstBuildCache : secondBuildCache
+            return { cache.load(new TestBuildCacheKey(index)) { input -> input.text } } as Callable<Boolean>
+        })*.get()
+
+        then:
+        results.every()
+        server.requestCount == requestCount + 1
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    private BuildCacheService createCache(HttpBuildCache config = configuration()) {
+        def httpClientHelperFactory = HttpClientHelper.Factory.createFactory(new DocumentationRegistry())
+        new DefaultHttpBuildCacheServiceFactory(sslContextFactory, { it.addHeader("X-Gradle-Version", "3.0") }, httpClientHelperFactory, clientFactory, new DefaultInternalOptions([(DefaultHttpBuildCacheServiceFactory.HTTP2.systemPropertyName): "true"]))
+            .createBuildCacheService(config, new NoopBuildCacheDescriber())
+    }
+
+    private DefaultHttpSettings settings() {
+        DefaultHttpSettings.builder()
+            .withAuthenticationSettings([])
+            .withSslContextFactory(sslContextFactory)
+            .withRedirectVerifier {}
+            .build()
+    }
+
+    private HttpBuildCache configuration() {
+        def config = TestUtil.newInstance(HttpBuildCache)
+        config.url = server.url("/cache/").uri()
+        config.allowInsecureProtocol = true
+        config
+    }
+
+    private static class NoopBuildCacheDescriber implements BuildCacheServiceFactory.Describer {
+        @Override
+        BuildCacheServiceFactory.Describer type(String type) { this }
+
+        @Override
+        BuildCacheServiceFactory.Describer config(String name, String value) { this }
+    }
+}
@@ -18,12 +18,15 @@
 
 import com.google.common.annotations.VisibleForTesting;
 import org.gradle.api.GradleException;
+import org.gradle.api.JavaVersion;
 import org.gradle.authentication.Authentication;
 import org.gradle.caching.BuildCacheService;
 import org.gradle.caching.BuildCacheServiceFactory;
 import org.gradle.caching.http.HttpBuildCache;
 import org.gradle.caching.http.HttpBuildCacheCredentials;
 import org.gradle.internal.authentication.DefaultBasicAuthentication;
+import org.gradle.internal.buildoption.InternalFlag;
+import org.gradle.internal.buildoption.InternalOptions;
 import org.gradle.internal.deprecation.Documentation;
 import org.gradle.internal.resource.transport.http.DefaultHttpSettings;
 import org.gradle.internal.resource.transport.http.HttpClientHelper;
@@ -31,10 +34,14 @@
 import org.gradle.internal.resource.transport.http.SslContextFactory;
 import org.gradle.internal.verifier.HttpRedirectVerifier;
 import org.gradle.internal.verifier.HttpRedirectVerifierFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.Collections;
 
@@ -43,17 +50,30 @@
  */
 public class DefaultHttpBuildCacheServiceFactory implements BuildCacheServiceFactory<HttpBuildCache> {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultHttpBuildCacheServiceFactory.class);
     private static final int MAX_REDIRECTS = Integer.getInteger("org.gradle.cache.http.max-redirects", 10);
+    @VisibleForTesting
+    static final InternalFlag HTTP2 = new InternalFlag("org.gradle.cache.http.http2");
 
     private final SslContextFactory sslContextFactory;
     private final HttpBuildCacheRequestCustomizer requestCustomizer;
     private final HttpClientHelper.Factory httpClientHelperFactory;
+    private final MultiplexingHttpClientFactory multiplexingHttpClientFactory;
+    private final InternalOptions internalOptions;
 
     @Inject
-    public DefaultHttpBuildCacheServiceFactory(SslContextFactory sslContextFactory, HttpBuildCacheRequestCustomizer requestCustomizer, HttpClientHelper.Factory httpClientHelperFactory) {
+    public DefaultHttpBuildCacheServiceFactory(
+        SslContextFactory sslContextFactory,
+        HttpBuildCacheRequestCustomizer requestCustomizer,
+        HttpClientHelper.Factory httpClientHelperFactory,
+        MultiplexingHttpClientFactory multiplexingHttpClientFactory,
+        InternalOptions internalOptions
+    ) {
         this.sslContextFactory = sslContextFactory;
         this.requestCustomizer = requestCustomizer;
         this.httpClientHelperFactory = httpClientHelperFactory;
+        this.multiplexingHttpClientFactory = multiplexingHttpClientFactory;
+        this.internalOptions = internalOptions;
     }
 
     @Override
@@ -96,7 +116,7 @@ public BuildCacheService createBuildCacheService(HttpBuildCache configuration, D
             builder.withSslContextFactory(sslContextFactory);
         }
 
-        HttpClientHelper httpClientHelper = httpClientHelperFactory.create(builder.build());
+        HttpSettings settings = builder.build();
 
         describer.type("HTTP")
             .config("url", noUserInfoUrl.toASCIIString())
@@ -105,9 +125,38 @@ public BuildCacheService createBuildCacheService(HttpBuildCache configuration, D
             .config("allowInsecureProtocol", Boolean.toString(allowInsecureProtocol))
             .config("useExpectContinue", Boolean.toString(useExpectContinue));
 
+        if (internalOptions.getOption(HTTP2).get() && canUseHttp2(allowUntrustedServer)) {
+            String authorization = authenticated ? basicAuthorization(credentials) : null;
+            return new MultiplexingHttpBuildCacheService(
+                multiplexingHttpClientFactory.create(settings),
+                noUserInfoUrl, requestCustomizer, useExpectContinue, authorization
+            );
+        }
+        HttpClientHelper httpClientHelper = httpClientHelperFactory.create(settings);
         return new HttpBuildCacheService(httpClientHelper, noUserInfoUrl, requestCustomizer, useExpectContinue);
     }
 
+    /**
+     * HTTP/2 is spoken by the HTTP client of the JDK, which is only available on Java 11 or later.
+     * It always verifies the host name of the server, so it can not be used for untrusted servers either.
+     */
+    private static boolean canUseHttp2(boolean allowUntrustedServer) {
+        if (!JavaVersion.current().isJava11Compatible()) {
+            LOGGER.info("HTTP/2 for the HTTP build cache requires Java 11 or later, using HTTP/1.1 instead.");
+            return false;
+        }
+        if (allowUntrustedServer) {
+            LOGGER.info("HTTP/2 for the HTTP build cache is not supported for untrusted servers, using HTTP/1.1 instead.");
+            return false;
+        }
+        return true;
+    }
+
+    private static String basicAuthorization(HttpBuildCacheCredentials credentials) {
+        String userInfo = credentials.getUsername() + ":" + credentials.getPassword();
+        return "Basic " + Base64.getEncoder().encodeToString(userInfo.getBytes(StandardCharsets.UTF_8));
+    }
+
     private HttpRedirectVerifier createRedirectVerifier(URI url, boolean allowInsecureProtocol) {
         return HttpRedirectVerifierFactory
             .create(
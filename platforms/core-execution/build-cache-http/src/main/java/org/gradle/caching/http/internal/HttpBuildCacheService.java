@@ -155,7 +155,7 @@ public boolean isStreaming() {
         }
     }
 
-    private static BuildCacheException wrap(Throwable e) {
+    static BuildCacheException wrap(Throwable e) {
         if (e instanceof Error) {
             throw (Error) e;
         }
@@ -163,11 +163,11 @@ private static BuildCacheException wrap(Throwable e) {
         throw new BuildCacheException(e.getMessage(), e);
     }
 
-    private boolean isHttpSuccess(int statusCode) {
+    static boolean isHttpSuccess(int statusCode) {
         return statusCode >= 200 && statusCode < 300;
     }
 
-    private boolean throwHttpStatusCodeException(int statusCode, String message) {
+    static boolean throwHttpStatusCodeException(int statusCode, String message) {
         if (FATAL_HTTP_ERROR_CODES.contains(statusCode)) {
             throw new UncheckedIOException(message);
         } else {
@@ -186,7 +186,7 @@ public void close() throws IOException {
      * @param uri Original URI
      * @return a new URI with no user info
      */
-    private static URI safeUri(URI uri) {
+    static URI safeUri(URI uri) {
         try {
             return new URI(uri.getScheme(), null, uri.getHost(), uri.getPort(), uri.getPath(), uri.getQuery(), uri.getFragment());
         } catch (URISyntaxException e) {
@@ -200,7 +200,7 @@ private static URI safeUri(URI uri) {
      * @param uri the original URI
      * @return a URI guaranteed to have a trailing slash in the path
      */
-    private static URI withTrailingSlash(URI uri) {
+    static URI withTrailingSlash(URI uri) {
         if (uri.getPath().endsWith("/")) {
             return uri;
         }
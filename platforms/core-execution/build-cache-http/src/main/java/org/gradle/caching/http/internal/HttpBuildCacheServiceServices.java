@@ -25,6 +25,11 @@
 
 public class HttpBuildCacheServiceServices extends AbstractGradleModuleServices {
 
+    @Override
+    public void registerGlobalServices(ServiceRegistration registration) {
+        registration.add(MultiplexingHttpClientFactory.class);
+    }
+
     @Override
     public void registerBuildServices(ServiceRegistration registration) {
         registration.add(BuildCacheServiceRegistration.class, new DefaultBuildCacheServiceRegistration(HttpBuildCache.class, DefaultHttpBuildCacheServiceFactory.class));
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.http.internal;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.message.BasicHttpRequest;
+import org.gradle.caching.BuildCacheEntryReader;
+import org.gradle.caching.BuildCacheEntryWriter;
+import org.gradle.caching.BuildCacheException;
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.BuildCacheService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpResponse;
+
+import static org.gradle.caching.http.internal.HttpBuildCacheService.BUILD_CACHE_CONTENT_TYPE;
+import static org.gradle.caching.http.internal.HttpBuildCacheService.isHttpSuccess;
+import static org.gradle.caching.http.internal.HttpBuildCacheService.safeUri;
+import static org.gradle.caching.http.internal.HttpBuildCacheService.throwHttpStatusCodeException;
+import static org.gradle.caching.http.internal.HttpBuildCacheService.withTrailingSlash;
+import static org.gradle.caching.http.internal.HttpBuildCacheService.wrap;
+
+/**
+ * Build cache implementation that delegates to a service accessible via HTTP/2.
+ *
+ * <p>Concurrent loads and stores share connections, with each request running as a separate stream.
+ * Responses are handled the same way as by {@link HttpBuildCacheService}.</p>
+ */
+public class MultiplexingHttpBuildCacheService implements BuildCacheService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MultiplexingHttpBuildCacheService.class);
+
+    private final MultiplexingHttpClient client;
+    private final URI root;
+    private final HttpBuildCacheRequestCustomizer requestCustomizer;
+    private final boolean useExpectContinue;
+    @Nullable
+    private final String authorization;
+
+    public MultiplexingHttpBuildCacheService(MultiplexingHttpClient client, URI url, HttpBuildCacheRequestCustomizer requestCustomizer, boolean useExpectContinue, @Nullable String authorization) {
+        this.client = client;
+        this.root = withTrailingSlash(url);
+        this.requestCustomizer = requestCustomizer;
+        this.useExpectContinue = useExpectContinue;
+        this.authorization = authorization;
+    }
+
+    @Override
+    public boolean load(BuildCacheKey key, BuildCacheEntryReader reader) throws BuildCacheException {
+        URI uri = root.resolve("./" + key.getHashCode());
+        ListMultimap<String, String> headers = newHeaders("GET", uri);
+        headers.put(HttpHeaders.ACCEPT, BUILD_CACHE_CONTENT_TYPE + ", */*");
+
+        try {
+            HttpResponse<InputStream> response = client.send("GET", uri, headers, null, false);
+            try (InputStream content = response.body()) {
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("Response for GET {}: {} ({})", safeUri(uri), response.statusCode(), response.version());
+                }
+                int statusCode = response.statusCode();
+                if (isHttpSuccess(statusCode)) {
+                    reader.readFrom(content);
+                    return true;
+                } else if (statusCode == HttpStatus.SC_NOT_FOUND) {
+                    return false;
+                } else {
+                    String defaultMessage = String.format("Loading entry from '%s' response status %d", safeUri(uri), statusCode);
+                    return throwHttpStatusCodeException(statusCode, defaultMessage);
+                }
+            }
+        } catch (IOException e) {
+            throw wrap(e);
+        }
+    }
+
+    @Override
+    public void store(BuildCacheKey key, BuildCacheEntryWriter writer) throws BuildCacheException {
+        URI uri = root.resolve(key.getHashCode());
+        ListMultimap<String, String> headers = newHeaders("PUT", uri);
+        headers.put(HttpHeaders.CONTENT_TYPE, BUILD_CACHE_CONTENT_TYPE);
+
+        try {
+            HttpResponse<InputStream> response = client.send("PUT", uri, headers, writer, useExpectContinue);
+            response.body().close();
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Response for PUT {}: {} ({})", safeUri(uri), response.statusCode(), response.version());
+            }
+            int statusCode = response.statusCode();
+            if (!isHttpSuccess(statusCode)) {
+                String defaultMessage = String.format("Storing entry at '%s' response status %d", safeUri(uri), statusCode);
+                throwHttpStatusCodeException(statusCode, defaultMessage);
+            }
+        } catch (IOException e) {
+            throw wrap(e);
+        }
+    }
+
+    private ListMultimap<String, String> newHeaders(String method, URI uri) {
+        ListMultimap<String, String> headers = ArrayListMultimap.create();
+        if (authorization != null) {
+            headers.put(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        // The customizer works on Apache requests, so collect its headers on one and copy them over
+        BasicHttpRequest customizedRequest = new BasicHttpRequest(method, uri.toString());
+        requestCustomizer.customize(customizedRequest);
+        for (Header header : customizedRequest.getAllHeaders()) {
+            headers.put(header.getName(), header.getValue());
+        }
+        return headers;
+    }
+
+    /**
+     * Does not close any connections, as these are shared with other builds via {@link MultiplexingHttpClientFactory}.
+     */
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.http.internal;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import org.apache.http.HttpHeaders;
+import org.gradle.caching.BuildCacheEntryWriter;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.resource.transport.http.HttpSettings;
+import org.gradle.internal.verifier.HttpRedirectVerifier;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.net.ProtocolException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Sends requests of a single build via a JDK client shared by {@link MultiplexingHttpClientFactory}.
+ *
+ * <p>Redirects are followed the same way as by the Apache client based {@link HttpBuildCacheService}:
+ * every redirect location is checked by the {@link HttpSettings#getRedirectVerifier() redirect verifier} before it is followed,
+ * and at most {@link HttpSettings#getMaxRedirects()} redirects are followed. With no redirects allowed, the redirect response is returned as is.</p>
+ */
+public class MultiplexingHttpClient {
+    private static final int PIPE_BUFFER_SIZE = 64 * 1024;
+
+    private final HttpClient client;
+    @Nullable
+    private final Duration requestTimeout;
+    private final int maxRedirects;
+    private final HttpRedirectVerifier redirectVerifier;
+    private final HttpSettings.RedirectMethodHandlingStrategy methodHandlingStrategy;
+
+    MultiplexingHttpClient(HttpClient client, HttpSettings settings) {
+        this.client = client;
+        int socketTimeoutMs = settings.getTimeoutSettings().getSocketTimeoutMs();
+        this.requestTimeout = socketTimeoutMs > 0 ? Duration.ofMillis(socketTimeoutMs) : null;
+        this.maxRedirects = settings.getMaxRedirects();
+        this.redirectVerifier = settings.getRedirectVerifier();
+        this.methodHandlingStrategy = settings.getRedirectMethodHandlingStrategy();
+    }
+
+    /**
+     * Sends a request and returns the response once its headers have been received.
+     * The caller is responsible for closing the body of the response.
+     *
+     * @param body the content to send, written while the request is sent.
+     */
+    public HttpResponse<InputStream> send(String method, URI uri, ListMultimap<String, String> headers, @Nullable BuildCacheEntryWriter body, boolean expectContinue) throws IOException {
+        HttpResponse<InputStream> response = exchange(method, uri, headers, body, expectContinue);
+        if (maxRedirects == 0) {
+            return response;
+        }
+        Set<URI> visited = new HashSet<>();
+        visited.add(uri);
+        int redirects = 0;
+        while (isRedirect(response.statusCode())) {
+            Optional<String> location = response.headers().firstValue(HttpHeaders.LOCATION);
+            if (!location.isPresent()) {
+                return response;
+            }
+            response.body().close();
+            URI target = uri.resolve(location.get());
+            if (redirects++ >= maxRedirects) {
+                throw new ProtocolException("Maximum redirects (" + maxRedirects + ") exceeded");
+            }
+            if (!visited.add(target)) {
+                throw new ProtocolException("Circular redirect to '" + target + "'");
+            }
+            redirectVerifier.validateRedirects(Collections.singletonList(target));
+
+            ListMultimap<String, String> redirectHeaders = ArrayListMultimap.create(headers);
+            if (!sameOrigin(uri, target)) {
+                redirectHeaders.removeAll(HttpHeaders.AUTHORIZATION);
+            }
+            boolean preserveMethod = response.statusCode() == 307 || response.statusCode() == 308
+                || methodHandlingStrategy == HttpSettings.RedirectMethodHandlingStrategy.ALWAYS_FOLLOW_AND_PRESERVE;
+            if (!preserveMethod && !method.equals("HEAD")) {
+                method = "GET";
+                body = null;
+                redirectHeaders.removeAll(HttpHeaders.CONTENT_TYPE);
+            }
+            uri = target;
+            headers = redirectHeaders;
+            response = exchange(method, uri, headers, body, expectContinue);
+        }
+        return response;
+    }
+
+    private HttpResponse<InputStream> exchange(String method, URI uri, ListMultimap<String, String> headers, @Nullable BuildCacheEntryWriter body, boolean expectContinue) throws IOException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri);
+        if (requestTimeout != null) {
+            request.timeout(requestTimeout);
+        }
+        headers.forEach(request::header);
+        try {
+            if (body == null) {
+                return client.send(request.method(method, HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofInputStream());
+            }
+            request.expectContinue(expectContinue);
+            return exchangeWithBody(request, method, body);
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    /**
+     * Sends the request asynchronously, while the calling thread writes the body into a pipe from which the client reads it.
+     * This way, the body is streamed without holding the whole entry in memory.
+     */
+    private HttpResponse<InputStream> exchangeWithBody(HttpRequest.Builder request, String method, BuildCacheEntryWriter body) throws IOException, InterruptedException {
+        PipedInputStream content = new PipedInputStream(PIPE_BUFFER_SIZE);
+        PipedOutputStream output = new PipedOutputStream(content);
+        HttpRequest.BodyPublisher contentPublisher = HttpRequest.BodyPublishers.ofInputStream(() -> content);
+        long size = body.getSize();
+        HttpRequest.BodyPublisher publisher = size > 0
+            ? HttpRequest.BodyPublishers.fromPublisher(contentPublisher, size)
+            : HttpRequest.BodyPublishers.fromPublisher(contentPublisher);
+        CompletableFuture<HttpResponse<InputStream>> response = client.sendAsync(request.method(method, publisher).build(), HttpResponse.BodyHandlers.ofInputStream());
+        // Fails the writer when the exchange ends before the whole body has been sent, instead of blocking it forever
+        response.whenComplete((result, failure) -> closeQuietly(content));
+
+        try (OutputStream bodyOutput = output) {
+            body.writeTo(bodyOutput);
+        } catch (IOException e) {
+            if (!response.isDone()) {
+                response.cancel(true);
+                throw e;
+            }
+            // The server responded before reading the whole body, so report its response
+        }
+        try {
+            return response.get();
+        } catch (InterruptedException e) {
+            response.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        }
+    }
+
+    private static void closeQuietly(InputStream content) {
+        try {
+            content.close();
+        } catch (IOException e) {
+            // Closing a pipe does not fail
+        }
+    }
+
+    private static boolean isRedirect(int statusCode) {
+        switch (statusCode) {
+            case 301:
+            case 302:
+            case 303:
+            case 307:
+            case 308:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean sameOrigin(URI first, URI second) {
+        return first.getScheme().equalsIgnoreCase(second.getScheme())
+            && first.getHost().equalsIgnoreCase(second.getHost())
+            && first.getPort() == second.getPort();
+    }
+}
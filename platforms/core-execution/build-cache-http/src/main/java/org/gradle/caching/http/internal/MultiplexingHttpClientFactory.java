@@ -0,0 +1,122 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.http.internal;
+
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.resource.transport.http.HttpSettings;
+import org.gradle.internal.resource.transport.http.HttpTimeoutSettings;
+import org.gradle.internal.service.scopes.Scope;
+import org.gradle.internal.service.scopes.ServiceScope;
+
+import javax.net.ssl.SSLContext;
+import java.io.Closeable;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Creates HTTP clients that multiplex requests over HTTP/2 connections, using the HTTP client of the JDK.
+ *
+ * <p>Clients with the same connection settings share a single JDK client, and with it its connections,
+ * so that connections to the build cache are reused by all builds that run in the same process.</p>
+ *
+ * <p>The JDK client is only available on Java 11 or later, so this factory must not be used on older JVMs.</p>
+ */
+@ServiceScope(Scope.Global.class)
+public class MultiplexingHttpClientFactory implements Closeable {
+    private static final int MAX_CACHED_CLIENTS = 16;
+
+    private final Cache<ClientKey, HttpClient> clients = CacheBuilder.newBuilder()
+        .maximumSize(MAX_CACHED_CLIENTS)
+        .build();
+
+    /**
+     * Creates a client for the given settings.
+     *
+     * HTTPS servers are offered HTTP/2 via ALPN, and plain HTTP servers are asked to upgrade to HTTP/2.
+     * Both fall back to HTTP/1.1 when the server does not support HTTP/2.
+     * Redirects are followed as configured by the given settings.
+     */
+    public MultiplexingHttpClient create(HttpSettings settings) {
+        return new MultiplexingHttpClient(sharedClientFor(settings), settings);
+    }
+
+    private HttpClient sharedClientFor(HttpSettings settings) {
+        HttpTimeoutSettings timeoutSettings = settings.getTimeoutSettings();
+        SSLContext sslContext = settings.getSslContextFactory().createSslContext();
+        ClientKey key = new ClientKey(timeoutSettings.getConnectionTimeoutMs(), sslContext);
+        try {
+            return clients.get(key, () -> {
+                HttpClient.Builder builder = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .sslContext(sslContext)
+                    .proxy(ProxySelector.getDefault())
+                    // Redirects are followed by MultiplexingHttpClient, which applies the settings of the build
+                    .followRedirects(HttpClient.Redirect.NEVER);
+                if (timeoutSettings.getConnectionTimeoutMs() > 0) {
+                    builder.connectTimeout(Duration.ofMillis(timeoutSettings.getConnectionTimeoutMs()));
+                }
+                return builder.build();
+            });
+        } catch (ExecutionException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        }
+    }
+
+    /**
+     * Drops the shared clients. Their idle connections are closed once the clients are no longer used.
+     */
+    @Override
+    public void close() {
+        clients.invalidateAll();
+    }
+
+    /**
+     * The settings that make up a shared client.
+     */
+    private static class ClientKey {
+        private final int connectionTimeoutMs;
+        private final SSLContext sslContext;
+
+        ClientKey(int connectionTimeoutMs, SSLContext sslContext) {
+            this.connectionTimeoutMs = connectionTimeoutMs;
+            this.sslContext = sslContext;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ClientKey that = (ClientKey) o;
+            return connectionTimeoutMs == that.connectionTimeoutMs
+                && sslContext == that.sslContext;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(connectionTimeoutMs, System.identityHashCode(sslContext));
+        }
+    }
+}
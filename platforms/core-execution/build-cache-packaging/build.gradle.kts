@@ -15,6 +15,7 @@ dependencies {
     api(libs.guava)
 
     implementation(projects.stdlibJavaExtensions)
+    implementation(libs.aircompressor)
     implementation(libs.commonsCompress)
     implementation(libs.commonsIo)
     implementation(libs.jsr305)
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl;
+
+import javax.annotation.Nullable;
+import java.util.Locale;
+
+/**
+ * The compression formats a build cache entry can be stored in.
+ *
+ * <p>Every format starts with a marker, so that entries stored in different formats
+ * can coexist in the same cache and be told apart when they are loaded.</p>
+ */
+public enum BuildCacheEntryFormat {
+    /**
+     * The original format, a GZIP compressed tar stream. The marker is the GZIP magic number.
+     */
+    GZIP(new byte[]{(byte) 0x1f, (byte) 0x8b}),
+
+    /**
+     * A tar stream compressed with LZ4 in independent blocks, see {@link Lz4BuildCacheEntryPacker}.
+     */
+    LZ4(Lz4BuildCacheEntryPacker.MAGIC);
+
+    /**
+     * The maximum length of the marker of any format.
+     */
+    public static final int MAX_MARKER_LENGTH = 4;
+
+    private final byte[] marker;
+
+    BuildCacheEntryFormat(byte[] marker) {
+        this.marker = marker;
+    }
+
+    /**
+     * Returns the format with the given name, ignoring case.
+     */
+    public static BuildCacheEntryFormat forName(String name) {
+        for (BuildCacheEntryFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown build cache entry format '%s', supported formats are 'gzip' and 'lz4'.", name.toLowerCase(Locale.ROOT)));
+    }
+
+    /**
+     * Detects the format of an entry from its first bytes.
+     *
+     * @return the detected format, or {@code null} if the marker is not recognized.
+     */
+    @Nullable
+    public static BuildCacheEntryFormat detect(byte[] header, int length) {
+        for (BuildCacheEntryFormat format : values()) {
+            if (format.matches(header, length)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    private boolean matches(byte[] header, int length) {
+        if (length < marker.length) {
+            return false;
+        }
+        for (int i = 0; i < marker.length; i++) {
+            if (header[i] != marker[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl;
+
+import org.gradle.internal.file.FileMetadata;
+import org.gradle.internal.snapshot.DirectorySnapshot;
+import org.gradle.internal.snapshot.DirectorySnapshotBuilder;
+import org.gradle.internal.snapshot.FileSystemLeafSnapshot;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.MerkleDirectorySnapshotBuilder;
+import org.gradle.internal.snapshot.RegularFileSnapshot;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
+
+/**
+ * A {@link DirectorySnapshotBuilder} that allows unpacking regular files on an {@link Executor}.
+ *
+ * <p>All calls are recorded and replayed in order on a {@link MerkleDirectorySnapshotBuilder}
+ * once {@link #getResult()} is called, after the files unpacked in the background have been written.
+ * The amount of file content that is waiting to be written is bounded, so that unpacking
+ * does not buffer the whole entry in memory when the executor cannot keep up.</p>
+ */
+class ConcurrentUnpackingDirectorySnapshotBuilder implements DirectorySnapshotBuilder, AutoCloseable {
+    private final Executor executor;
+    private final long maxPendingBytes;
+    private final List<Consumer<DirectorySnapshotBuilder>> steps = new ArrayList<>();
+    private final Deque<PendingFile> pendingFiles = new ArrayDeque<>();
+    private long pendingBytes;
+
+    public ConcurrentUnpackingDirectorySnapshotBuilder(Executor executor, long maxPendingBytes) {
+        this.executor = executor;
+        this.maxPendingBytes = maxPendingBytes;
+    }
+
+    @Override
+    public void enterDirectory(FileMetadata.AccessType accessType, String absolutePath, String name, EmptyDirectoryHandlingStrategy emptyDirectoryHandlingStrategy) {
+        steps.add(builder -> builder.enterDirectory(accessType, absolutePath, name, emptyDirectoryHandlingStrategy));
+    }
+
+    @Override
+    public void visitLeafElement(FileSystemLeafSnapshot snapshot) {
+        steps.add(builder -> builder.visitLeafElement(snapshot));
+    }
+
+    /**
+     * Schedules the given action to unpack a regular file of the given size.
+     *
+     * Blocks while the size of files waiting to be unpacked exceeds the configured limit.
+     */
+    public void visitLeafElement(long size, Callable<RegularFileSnapshot> unpackAction) throws IOException {
+        while (pendingBytes + size > maxPendingBytes && !pendingFiles.isEmpty()) {
+            PendingFile oldest = pendingFiles.removeFirst();
+            pendingBytes -= oldest.size;
+            getSnapshot(oldest.task);
+        }
+        FutureTask<RegularFileSnapshot> task = new FutureTask<>(unpackAction);
+        pendingFiles.addLast(new PendingFile(task, size));
+        pendingBytes += size;
+        executor.execute(task);
+        steps.add(builder -> builder.visitLeafElement(getUncheckedSnapshot(task)));
+    }
+
+    @Override
+    public void visitDirectory(DirectorySnapshot directorySnapshot) {
+        steps.add(builder -> builder.visitDirectory(directorySnapshot));
+    }
+
+    /**
+     * Always returns {@code null}, as the snapshot for the directory is only calculated in {@link #getResult()}.
+     */
+    @Nullable
+    @Override
+    public FileSystemLocationSnapshot leaveDirectory() {
+        steps.add(DirectorySnapshotBuilder::leaveDirectory);
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public FileSystemLocationSnapshot getResult() {
+        DirectorySnapshotBuilder builder = MerkleDirectorySnapshotBuilder.noSortingRequired();
+        for (Consumer<DirectorySnapshotBuilder> step : steps) {
+            step.accept(builder);
+        }
+        pendingFiles.clear();
+        pendingBytes = 0;
+        return builder.getResult();
+    }
+
+    /**
+     * Waits for all files that are still being unpacked, ignoring any failures.
+     *
+     * Failures are reported by {@link #getResult()}, this method only makes sure that no files are being written
+     * after unpacking has finished.
+     */
+    @Override
+    public void close() {
+        boolean interrupted = false;
+        while (!pendingFiles.isEmpty()) {
+            FutureTask<RegularFileSnapshot> task = pendingFiles.removeFirst().task;
+            while (true) {
+                try {
+                    task.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException | CancellationException ignored) {
+                    break;
+                }
+            }
+        }
+        pendingBytes = 0;
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static RegularFileSnapshot getUncheckedSnapshot(FutureTask<RegularFileSnapshot> task) {
+        try {
+            return getSnapshot(task);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static RegularFileSnapshot getSnapshot(FutureTask<RegularFileSnapshot> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while unpacking file", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static class PendingFile {
+        private final FutureTask<RegularFileSnapshot> task;
+        private final long size;
+
+        public PendingFile(FutureTask<RegularFileSnapshot> task, long size) {
+            this.task = task;
+            this.size = size;
+        }
+    }
+}
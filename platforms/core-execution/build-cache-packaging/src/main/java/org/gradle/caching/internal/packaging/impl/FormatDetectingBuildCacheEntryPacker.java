@@ -0,0 +1,83 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl;
+
+import com.google.common.collect.ImmutableMap;
+import org.gradle.caching.internal.CacheableEntity;
+import org.gradle.caching.internal.origin.OriginReader;
+import org.gradle.caching.internal.origin.OriginWriter;
+import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
+import org.gradle.internal.snapshot.FileSystemSnapshot;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Packs entries in a configured {@link BuildCacheEntryFormat}, and unpacks entries in any of the supported formats.
+ *
+ * <p>The format of an entry is detected from its marker when it is unpacked.</p>
+ */
+public class FormatDetectingBuildCacheEntryPacker implements BuildCacheEntryPacker {
+    private final BuildCacheEntryFormat packFormat;
+    private final Map<BuildCacheEntryFormat, BuildCacheEntryPacker> packers;
+
+    public FormatDetectingBuildCacheEntryPacker(BuildCacheEntryFormat packFormat, Map<BuildCacheEntryFormat, ? extends BuildCacheEntryPacker> packers) {
+        if (!packers.containsKey(packFormat)) {
+            throw new IllegalArgumentException("No packer registered for format " + packFormat);
+        }
+        this.packFormat = packFormat;
+        this.packers = ImmutableMap.copyOf(packers);
+    }
+
+    @Override
+    public PackResult pack(CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, OutputStream output, OriginWriter writeOrigin) throws IOException {
+        return packers.get(packFormat).pack(entity, snapshots, output, writeOrigin);
+    }
+
+    @Override
+    public UnpackResult unpack(CacheableEntity entity, InputStream input, OriginReader readOrigin) throws IOException {
+        InputStream markableInput = input.markSupported() ? input : new BufferedInputStream(input);
+        BuildCacheEntryFormat format = detectFormat(markableInput);
+        BuildCacheEntryPacker packer = packers.get(format);
+        if (packer == null) {
+            throw new IllegalStateException(String.format("Cached entry format error, format %s is not supported", format));
+        }
+        return packer.unpack(entity, markableInput, readOrigin);
+    }
+
+    private static BuildCacheEntryFormat detectFormat(InputStream input) throws IOException {
+        byte[] header = new byte[BuildCacheEntryFormat.MAX_MARKER_LENGTH];
+        input.mark(header.length);
+        int length = 0;
+        while (length < header.length) {
+            int read = input.read(header, length, header.length - length);
+            if (read < 0) {
+                break;
+            }
+            length += read;
+        }
+        input.reset();
+        BuildCacheEntryFormat format = BuildCacheEntryFormat.detect(header, length);
+        if (format == null) {
+            throw new IllegalStateException("Cached entry format error, unknown entry format marker");
+        }
+        return format;
+    }
+}
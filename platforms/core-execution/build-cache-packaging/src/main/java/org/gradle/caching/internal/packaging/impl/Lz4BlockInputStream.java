@@ -0,0 +1,117 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl;
+
+import io.airlift.compress.MalformedInputException;
+import io.airlift.compress.lz4.Lz4Decompressor;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads a stream written by {@link Lz4BlockOutputStream}.
+ */
+public class Lz4BlockInputStream extends InputStream {
+    private final DataInputStream input;
+    private final Lz4Decompressor decompressor = new Lz4Decompressor();
+    private byte[] block = new byte[0];
+    private byte[] compressed = new byte[0];
+    private int blockLength;
+    private int position;
+    private boolean finished;
+
+    public Lz4BlockInputStream(InputStream input) {
+        this.input = new DataInputStream(input);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        return block[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        int count = Math.min(length, blockLength - position);
+        System.arraycopy(block, position, bytes, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return blockLength - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    private boolean ensureAvailable() throws IOException {
+        while (position == blockLength) {
+            if (finished || !readBlock()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean readBlock() throws IOException {
+        int rawLength = input.readInt();
+        if (rawLength == 0) {
+            finished = true;
+            return false;
+        }
+        int storedLength = input.readInt();
+        if (rawLength < 0 || storedLength <= 0 || storedLength > rawLength) {
+            throw new IOException(String.format("Corrupt LZ4 block: uncompressed length %d, stored length %d", rawLength, storedLength));
+        }
+        if (block.length < rawLength) {
+            block = new byte[rawLength];
+        }
+        if (storedLength == rawLength) {
+            input.readFully(block, 0, rawLength);
+        } else {
+            if (compressed.length < storedLength) {
+                compressed = new byte[storedLength];
+            }
+            input.readFully(compressed, 0, storedLength);
+            int decompressedLength;
+            try {
+                decompressedLength = decompressor.decompress(compressed, 0, storedLength, block, 0, rawLength);
+            } catch (MalformedInputException e) {
+                throw new IOException("Corrupt LZ4 block", e);
+            }
+            if (decompressedLength != rawLength) {
+                throw new IOException(String.format("Corrupt LZ4 block: expected %d bytes, but got %d", rawLength, decompressedLength));
+            }
+        }
+        blockLength = rawLength;
+        position = 0;
+        return true;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl;
+
+import io.airlift.compress.lz4.Lz4Compressor;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Compresses its input with LZ4 in independent blocks.
+ *
+ * <p>Every block is written as the length of the uncompressed data and the length of the stored data, followed by the stored data.
+ * Blocks that do not get smaller when compressed are stored as-is, which is signalled by both lengths being equal.
+ * The stream is terminated by a block with an uncompressed length of zero.</p>
+ *
+ * @see Lz4BlockInputStream
+ */
+public class Lz4BlockOutputStream extends OutputStream {
+    public static final int DEFAULT_BLOCK_SIZE = 256 * 1024;
+
+    private final DataOutputStream output;
+    private final Lz4Compressor compressor = new Lz4Compressor();
+    private final byte[] block;
+    private final byte[] compressed;
+    private int blockLength;
+    private boolean closed;
+
+    public Lz4BlockOutputStream(OutputStream output) {
+        this(output, DEFAULT_BLOCK_SIZE);
+    }
+
+    public Lz4BlockOutputStream(OutputStream output, int blockSize) {
+        this.output = new DataOutputStream(output);
+        this.block = new byte[blockSize];
+        this.compressed = new byte[compressor.maxCompressedLength(blockSize)];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        block[blockLength++] = (byte) b;
+        if (blockLength == block.length) {
+            writeBlock();
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        ensureOpen();
+        while (length > 0) {
+            int count = Math.min(length, block.length - blockLength);
+            System.arraycopy(bytes, offset, block, blockLength, count);
+            blockLength += count;
+            offset += count;
+            length -= count;
+            if (blockLength == block.length) {
+                writeBlock();
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        writeBlock();
+        output.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            writeBlock();
+            output.writeInt(0);
+            output.flush();
+        } finally {
+            closed = true;
+            output.close();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (blockLength == 0) {
+            return;
+        }
+        int compressedLength = compressor.compress(block, 0, blockLength, compressed, 0, compressed.length);
+        output.writeInt(blockLength);
+        if (compressedLength < blockLength) {
+            output.writeInt(compressedLength);
+            output.write(compressed, 0, compressedLength);
+        } else {
+            output.writeInt(blockLength);
+            output.write(block, 0, blockLength);
+        }
+        blockLength = 0;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
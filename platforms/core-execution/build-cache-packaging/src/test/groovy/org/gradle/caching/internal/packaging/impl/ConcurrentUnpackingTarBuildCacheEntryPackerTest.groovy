@@ -0,0 +1,70 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl
+
+import org.gradle.internal.file.BufferProvider
+import org.gradle.internal.snapshot.DirectorySnapshot
+import spock.lang.Shared
+
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+import static org.gradle.internal.file.TreeType.DIRECTORY
+
+class ConcurrentUnpackingTarBuildCacheEntryPackerTest extends TarBuildCacheEntryPackerTest {
+    @Shared
+    ExecutorService executor = Executors.newFixedThreadPool(4)
+
+    def cleanupSpec() {
+        executor.shutdownNow()
+    }
+
+    @Override
+    protected TarBuildCacheEntryPacker createPacker() {
+        new TarBuildCacheEntryPacker(fileSystemSupport, filePermissionAccess, streamHasher, stringInterner, Stub(BufferProvider) {
+            getBuffer() >> new byte[4096]
+        }, executor)
+    }
+
+    def "unpacks many files concurrently with the same snapshot as when unpacking sequentially"() {
+        def sourceOutputDir = temporaryFolder.file("source").createDir()
+        20.times { dirIndex ->
+            def dir = sourceOutputDir.file("dir-$dirIndex").createDir()
+            50.times { fileIndex ->
+                dir.file("file-${fileIndex}.txt") << "content of $dirIndex/$fileIndex\n" * fileIndex
+            }
+        }
+        def output = new ByteArrayOutputStream()
+        pack output, prop(DIRECTORY, sourceOutputDir)
+        def expectedSnapshot = fileSystemAccess.read(sourceOutputDir.absolutePath) as DirectorySnapshot
+
+        def targetOutputDir = temporaryFolder.file("target").createDir()
+
+        when:
+        def result = unpack new ByteArrayInputStream(output.toByteArray()), prop(DIRECTORY, targetOutputDir)
+
+        then:
+        result.entries == 1 + 1 + 20 + 20 * 50
+        def unpackedSnapshot = result.snapshots["test"] as DirectorySnapshot
+        unpackedSnapshot.hash == expectedSnapshot.hash
+        20.times { dirIndex ->
+            50.times { fileIndex ->
+                assert targetOutputDir.file("dir-$dirIndex/file-${fileIndex}.txt").text == "content of $dirIndex/$fileIndex\n" * fileIndex
+            }
+        }
+    }
+}
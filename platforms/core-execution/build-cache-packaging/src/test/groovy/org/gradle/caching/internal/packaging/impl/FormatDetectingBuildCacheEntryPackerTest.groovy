@@ -0,0 +1,113 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl
+
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.internal.file.Deleter
+import org.gradle.internal.nativeintegration.filesystem.FileSystem
+
+import static org.gradle.internal.file.TreeType.DIRECTORY
+
+class FormatDetectingBuildCacheEntryPackerTest extends AbstractTarBuildCacheEntryPackerSpec {
+    @Override
+    protected FilePermissionAccess createFilePermissionAccess() {
+        new FilePermissionAccess() {
+            @Delegate
+            FileSystem fs = TestFiles.fileSystem()
+        }
+    }
+
+    @Override
+    protected Deleter createDeleter() {
+        TestFiles.deleter()
+    }
+
+    def "entry packed as #packFormat can be unpacked when packing as #unpackFormat"() {
+        def sourceOutputDir = temporaryFolder.file("source").createDir()
+        sourceOutputDir.file("subdir/data.txt") << "output"
+        def targetOutputDir = temporaryFolder.file("target").createDir()
+        def output = new ByteArrayOutputStream()
+
+        when:
+        packer = formatDetectingPacker(packFormat)
+        pack output, prop(DIRECTORY, sourceOutputDir)
+
+        then:
+        BuildCacheEntryFormat.detect(output.toByteArray(), output.size()) == packFormat
+
+        when:
+        packer = formatDetectingPacker(unpackFormat)
+        def result = unpack new ByteArrayInputStream(output.toByteArray()), prop(DIRECTORY, targetOutputDir)
+
+        then:
+        result.entries == 4
+        targetOutputDir.file("subdir/data.txt").text == "output"
+
+        where:
+        packFormat                 | unpackFormat
+        BuildCacheEntryFormat.GZIP | BuildCacheEntryFormat.GZIP
+        BuildCacheEntryFormat.GZIP | BuildCacheEntryFormat.LZ4
+        BuildCacheEntryFormat.LZ4  | BuildCacheEntryFormat.GZIP
+        BuildCacheEntryFormat.LZ4  | BuildCacheEntryFormat.LZ4
+    }
+
+    def "fails on unknown entry format"() {
+        packer = formatDetectingPacker(BuildCacheEntryFormat.GZIP)
+
+        when:
+        unpack new ByteArrayInputStream("unknown".bytes), prop(DIRECTORY, temporaryFolder.file("target"))
+
+        then:
+        def ex = thrown(IllegalStateException)
+        ex.message == "Cached entry format error, unknown entry format marker"
+    }
+
+    def "fails on unsupported LZ4 format version"() {
+        packer = formatDetectingPacker(BuildCacheEntryFormat.LZ4)
+        def input = new ByteArrayOutputStream()
+        input.write(Lz4BuildCacheEntryPacker.MAGIC)
+        input.write(99)
+
+        when:
+        unpack new ByteArrayInputStream(input.toByteArray()), prop(DIRECTORY, temporaryFolder.file("target"))
+
+        then:
+        def ex = thrown(IllegalStateException)
+        ex.message == "Cached entry format error, unsupported LZ4 entry format version 99"
+    }
+
+    def "format names are case insensitive"() {
+        expect:
+        BuildCacheEntryFormat.forName("lz4") == BuildCacheEntryFormat.LZ4
+        BuildCacheEntryFormat.forName("GZIP") == BuildCacheEntryFormat.GZIP
+
+        when:
+        BuildCacheEntryFormat.forName("zip")
+
+        then:
+        def ex = thrown(IllegalArgumentException)
+        ex.message == "Unknown build cache entry format 'zip', supported formats are 'gzip' and 'lz4'."
+    }
+
+    private FormatDetectingBuildCacheEntryPacker formatDetectingPacker(BuildCacheEntryFormat format) {
+        def tarPacker = createPacker()
+        new FormatDetectingBuildCacheEntryPacker(format, [
+            (BuildCacheEntryFormat.GZIP): new GZipBuildCacheEntryPacker(tarPacker),
+            (BuildCacheEntryFormat.LZ4): new Lz4BuildCacheEntryPacker(tarPacker)
+        ])
+    }
+}
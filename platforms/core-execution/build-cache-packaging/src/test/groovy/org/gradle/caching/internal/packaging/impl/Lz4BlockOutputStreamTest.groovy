@@ -0,0 +1,70 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl
+
+import spock.lang.Specification
+
+class Lz4BlockOutputStreamTest extends Specification {
+
+    def "can round-trip #description content of #length bytes"() {
+        def content = generator(length)
+        def compressed = new ByteArrayOutputStream()
+
+        when:
+        new Lz4BlockOutputStream(compressed, 1024).withCloseable { output ->
+            output.write(content)
+        }
+        def decompressed = new Lz4BlockInputStream(new ByteArrayInputStream(compressed.toByteArray())).bytes
+
+        then:
+        decompressed == content
+
+        where:
+        description     | length | generator
+        "empty"         | 0      | { int size -> new byte[size] }
+        "repetitive"    | 10000  | { int size -> ("abc" * size).bytes[0..<size] as byte[] }
+        "random"        | 10000  | { int size -> def bytes = new byte[size]; new Random(1234L).nextBytes(bytes); bytes }
+        "single block"  | 1024   | { int size -> ("x" * size).bytes }
+    }
+
+    def "compresses repetitive content"() {
+        def content = ("Hello World! " * 10000).bytes
+        def compressed = new ByteArrayOutputStream()
+
+        when:
+        new Lz4BlockOutputStream(compressed).withCloseable { output ->
+            output.write(content)
+        }
+
+        then:
+        compressed.size() < content.length / 10
+    }
+
+    def "fails on truncated input"() {
+        def compressed = new ByteArrayOutputStream()
+        new Lz4BlockOutputStream(compressed, 1024).withCloseable { output ->
+            output.write(("abc" * 1000).bytes)
+        }
+        def truncated = Arrays.copyOf(compressed.toByteArray(), compressed.size() - 10)
+
+        when:
+        new Lz4BlockInputStream(new ByteArrayInputStream(truncated)).bytes
+
+        then:
+        thrown(EOFException)
+    }
+}
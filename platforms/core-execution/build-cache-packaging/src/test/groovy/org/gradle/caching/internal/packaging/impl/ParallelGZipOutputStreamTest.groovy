@@ -0,0 +1,83 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl
+
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.zip.GZIPInputStream
+
+class ParallelGZipOutputStreamTest extends Specification {
+    @Shared
+    ExecutorService executor = Executors.newFixedThreadPool(4)
+
+    def cleanupSpec() {
+        executor.shutdownNow()
+    }
+
+    def "output of #length bytes with block size #blockSize can be read by GZIPInputStream"() {
+        def random = new Random(1234L)
+        def content = new byte[length]
+        random.nextBytes(content)
+        def compressed = new ByteArrayOutputStream()
+
+        when:
+        new ParallelGZipOutputStream(compressed, executor, blockSize, 2).withCloseable { output ->
+            // Mix single byte and bulk writes
+            if (length > 0) {
+                output.write(content[0])
+                output.write(content, 1, length - 1)
+            }
+        }
+
+        then:
+        new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray())).bytes == content
+
+        where:
+        length | blockSize
+        0      | 16
+        1      | 16
+        16     | 16
+        17     | 16
+        1000   | 16
+        100000 | 4096
+    }
+
+    def "closing closes the underlying stream"() {
+        def output = Mock(OutputStream)
+
+        when:
+        new ParallelGZipOutputStream(output, executor, 16, 2).close()
+
+        then:
+        (1.._) * output.write(_ as byte[])
+        1 * output.close()
+    }
+
+    def "cannot write after close"() {
+        def stream = new ParallelGZipOutputStream(new ByteArrayOutputStream(), executor, 16, 2)
+        stream.close()
+
+        when:
+        stream.write(1)
+
+        then:
+        thrown(IOException)
+    }
+}
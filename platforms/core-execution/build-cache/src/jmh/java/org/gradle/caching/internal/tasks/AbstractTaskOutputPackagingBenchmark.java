@@ -55,6 +55,9 @@ public abstract class AbstractTaskOutputPackagingBenchmark {
         .put("tar.small", new CommonsTarPacker(2))
         .put("tar.large", new CommonsTarPacker(64))
         .put("tar.gz", new GzipPacker(new CommonsTarPacker(4)))
+        .put("tar.gz.parallel", new ParallelGzipPacker(new CommonsTarPacker(4), 1024 * 1024))
+        .put("tar.gz.parallel.small", new ParallelGzipPacker(new CommonsTarPacker(4), 128 * 1024))
+        .put("tar.lz4", new Lz4Packer(new CommonsTarPacker(4)))
         .put("zip", new ZipPacker(4))
         .build();
 
@@ -40,5 +40,14 @@ public interface BuildCacheController extends Closeable {
 
     Optional<BuildCacheLoadResult> load(BuildCacheKey cacheKey, CacheableEntity cacheableEntity);
 
+    /**
+     * Starts loading the entry with the given key from the remote cache in the background.
+     *
+     * <p>A subsequent {@link #load(BuildCacheKey, CacheableEntity)} with the same key uses the prefetched entry
+     * instead of waiting for the remote cache.
+     * The returned handle must be closed once the entry is no longer needed.</p>
+     */
+    BuildCachePrefetch prefetch(BuildCacheKey cacheKey);
+
     void store(BuildCacheKey cacheKey, CacheableEntity entity, Map<String, FileSystemSnapshot> snapshots, Duration executionTime);
 }
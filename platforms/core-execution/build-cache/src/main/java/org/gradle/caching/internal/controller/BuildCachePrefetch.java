@@ -0,0 +1,29 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller;
+
+/**
+ * A handle to an entry being loaded ahead of time via {@link BuildCacheController#prefetch(org.gradle.caching.BuildCacheKey)}.
+ *
+ * <p>Closing the handle waits for the background load to finish, and discards the entry if it has not been loaded.</p>
+ */
+public interface BuildCachePrefetch extends AutoCloseable {
+    BuildCachePrefetch NONE = () -> {};
+
+    @Override
+    void close();
+}
@@ -28,6 +28,8 @@
 import org.gradle.caching.internal.controller.operations.PackOperationResult;
 import org.gradle.caching.internal.controller.operations.UnpackOperationDetails;
 import org.gradle.caching.internal.controller.operations.UnpackOperationResult;
+import org.gradle.caching.internal.controller.service.AsyncRemoteStoreQueue;
+import org.gradle.caching.internal.controller.service.AsyncStoringRemoteBuildCacheServiceHandle;
 import org.gradle.caching.internal.controller.service.BuildCacheLoadResult;
 import org.gradle.caching.internal.controller.service.BuildCacheServiceRole;
 import org.gradle.caching.internal.controller.service.BuildCacheServicesConfiguration;
@@ -36,6 +38,8 @@
 import org.gradle.caching.internal.controller.service.NullRemoteBuildCacheServiceHandle;
 import org.gradle.caching.internal.controller.service.OpFiringLocalBuildCacheServiceHandle;
 import org.gradle.caching.internal.controller.service.OpFiringRemoteBuildCacheServiceHandle;
+import org.gradle.caching.internal.controller.service.RemoteBuildCachePrefetchExecutor;
+import org.gradle.caching.internal.controller.service.RemoteBuildCachePrefetcher;
 import org.gradle.caching.internal.controller.service.RemoteBuildCacheServiceHandle;
 import org.gradle.caching.internal.origin.OriginMetadata;
 import org.gradle.caching.internal.origin.OriginMetadataFactory;
@@ -80,6 +84,8 @@ public class DefaultBuildCacheController implements BuildCacheController {
 
     private final BuildCacheTempFileStore tmp;
     private final PackOperationExecutor packExecutor;
+    @Nullable
+    private final RemoteBuildCachePrefetcher prefetcher;
 
     private boolean closed;
 
@@ -93,10 +99,36 @@ public DefaultBuildCacheController(
         BuildCacheEntryPacker packer,
         OriginMetadataFactory originMetadataFactory,
         Interner<String> stringInterner
+    ) {
+        this(config, buildOperationRunner, buildOperationProgressEventEmitter, temporaryFileFactory, logStackTraces, disableRemoteOnError, packer, originMetadataFactory, stringInterner, null, null);
+    }
+
+    /**
+     * Creates a controller that stores entries to the remote cache in the background when an {@link AsyncRemoteStoreQueue} is given,
+     * and that supports prefetching entries from the remote cache when a prefetch executor is given.
+     */
+    public DefaultBuildCacheController(
+        BuildCacheServicesConfiguration config,
+        BuildOperationRunner buildOperationRunner,
+        BuildOperationProgressEventEmitter buildOperationProgressEventEmitter,
+        TemporaryFileFactory temporaryFileFactory,
+        boolean logStackTraces,
+        boolean disableRemoteOnError,
+        BuildCacheEntryPacker packer,
+        OriginMetadataFactory originMetadataFactory,
+        Interner<String> stringInterner,
+        @Nullable AsyncRemoteStoreQueue remoteStoreQueue,
+        @Nullable RemoteBuildCachePrefetchExecutor prefetchExecutor
     ) {
         this.local = toLocalHandle(config.getLocal(), config.isLocalPush(), buildOperationRunner);
-        this.remote = toRemoteHandle(config.getBuildPath(), config.getRemote(), config.isRemotePush(), buildOperationRunner, buildOperationProgressEventEmitter, logStackTraces, disableRemoteOnError);
+        RemoteBuildCacheServiceHandle remote = toRemoteHandle(config.getBuildPath(), config.getRemote(), config.isRemotePush(), buildOperationRunner, buildOperationProgressEventEmitter, logStackTraces, disableRemoteOnError);
+        this.remote = remoteStoreQueue != null && remote.canStore()
+            ? new AsyncStoringRemoteBuildCacheServiceHandle(remote, remoteStoreQueue, temporaryFileFactory)
+            : remote;
         this.tmp = toTempFileStore(config.getLocal(), temporaryFileFactory);
+        this.prefetcher = prefetchExecutor != null && remote.canLoad()
+            ? new RemoteBuildCachePrefetcher(local, this.remote, temporaryFileFactory, prefetchExecutor)
+            : null;
         this.packExecutor = new PackOperationExecutor(
             buildOperationRunner,
             packer,
@@ -135,7 +167,9 @@ private Optional<BuildCacheLoadResult> loadRemoteAndStoreResultLocally(BuildCach
         tmp.withTempFile(((BuildCacheKeyInternal) key).getHashCodeInternal(), file -> {
             Optional<BuildCacheLoadResult> remoteResult;
             try {
-                remoteResult = remote.maybeLoad(key, file, f -> packExecutor.unpack(key, entity, f));
+                remoteResult = prefetcher != null
+                    ? prefetcher.maybeLoad(key, file, f -> packExecutor.unpack(key, entity, f))
+                    : remote.maybeLoad(key, file, f -> packExecutor.unpack(key, entity, f));
             } catch (Exception e) {
                 throw new BuildCacheOperationException("Could not load from remote cache: " + e.getMessage(), e);
             }
@@ -147,6 +181,13 @@ private Optional<BuildCacheLoadResult> loadRemoteAndStoreResultLocally(BuildCach
         return result.get();
     }
 
+    @Override
+    public BuildCachePrefetch prefetch(BuildCacheKey key) {
+        return prefetcher != null
+            ? prefetcher.prefetch(key)
+            : BuildCachePrefetch.NONE;
+    }
+
     @Override
     public void store(BuildCacheKey key, CacheableEntity entity, Map<String, FileSystemSnapshot> snapshots, Duration executionTime) {
         if (!local.canStore() && !remote.canStore()) {
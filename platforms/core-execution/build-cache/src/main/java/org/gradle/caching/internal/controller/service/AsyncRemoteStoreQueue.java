@@ -0,0 +1,140 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller.service;
+
+import org.gradle.internal.operations.BuildOperationRef;
+import org.gradle.internal.operations.CurrentBuildOperationRef;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs stores to the remote build cache in the background.
+ *
+ * <p>At most {@code capacity} stores can be pending at any time. Submitting a store when the queue is full
+ * blocks the caller until a pending store has finished, which limits the disk space used by entries waiting to be uploaded
+ * and degrades to synchronous stores when the remote cache cannot keep up.</p>
+ *
+ * <p>Stores are run as children of the build operation passed to {@link #start(BuildOperationRef)},
+ * which must outlive all stores. The queue has to be stopped via {@link #stop()} before that operation completes.
+ * Stores submitted while the queue is not started are run synchronously.</p>
+ */
+public class AsyncRemoteStoreQueue implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncRemoteStoreQueue.class);
+
+    private final ExecutorService executor;
+    private final int capacity;
+    private final Semaphore available;
+
+    private volatile BuildOperationRef parentOperation;
+
+    public AsyncRemoteStoreQueue(ExecutorService executor, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive, but was " + capacity);
+        }
+        this.executor = executor;
+        this.capacity = capacity;
+        this.available = new Semaphore(capacity);
+    }
+
+    /**
+     * Starts running stores in the background, as children of the given operation.
+     */
+    public void start(@Nullable BuildOperationRef parentOperation) {
+        this.parentOperation = parentOperation;
+    }
+
+    /**
+     * Submits a store to run in the background.
+     *
+     * Blocks while the queue is full.
+     */
+    public void submit(Runnable store) {
+        BuildOperationRef parent = parentOperation;
+        if (parent == null) {
+            store.run();
+            return;
+        }
+        acquire(1);
+        try {
+            executor.execute(() -> {
+                try {
+                    CurrentBuildOperationRef.instance().with(parent, store);
+                } catch (Throwable t) {
+                    LOGGER.warn("Failed to store entry in remote build cache", t);
+                } finally {
+                    available.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            available.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of stores that are queued or running.
+     */
+    public int getPendingCount() {
+        return capacity - available.availablePermits();
+    }
+
+    /**
+     * Waits for all stores that are pending at this point to finish.
+     */
+    public void drain() {
+        int pending = getPendingCount();
+        if (pending > 0) {
+            LOGGER.info("Waiting for {} pending remote build cache store(s) to finish", pending);
+            acquire(capacity);
+            available.release(capacity);
+        }
+    }
+
+    /**
+     * Waits for all pending stores to finish and runs any further stores synchronously.
+     */
+    public void stop() {
+        parentOperation = null;
+        drain();
+    }
+
+    @Override
+    public void close() {
+        stop();
+        executor.shutdown();
+    }
+
+    private void acquire(int permits) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                available.acquire(permits);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
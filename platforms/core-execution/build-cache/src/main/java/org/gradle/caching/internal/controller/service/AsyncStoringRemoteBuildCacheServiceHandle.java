@@ -0,0 +1,124 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller.service;
+
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.BuildCacheService;
+import org.gradle.caching.local.internal.TemporaryFileFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Stores entries to the remote cache via an {@link AsyncRemoteStoreQueue}, so the caller does not wait for the upload.
+ *
+ * <p>The packed entry is usually moved into the local cache right after it has been stored remotely,
+ * so the queued store works on its own copy of the file, which it deletes when done.</p>
+ */
+public class AsyncStoringRemoteBuildCacheServiceHandle implements RemoteBuildCacheServiceHandle {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncStoringRemoteBuildCacheServiceHandle.class);
+
+    private final RemoteBuildCacheServiceHandle delegate;
+    private final AsyncRemoteStoreQueue queue;
+    private final TemporaryFileFactory temporaryFileFactory;
+
+    public AsyncStoringRemoteBuildCacheServiceHandle(RemoteBuildCacheServiceHandle delegate, AsyncRemoteStoreQueue queue, TemporaryFileFactory temporaryFileFactory) {
+        this.delegate = delegate;
+        this.queue = queue;
+        this.temporaryFileFactory = temporaryFileFactory;
+    }
+
+    @Nullable
+    @Override
+    public BuildCacheService getService() {
+        return delegate.getService();
+    }
+
+    @Override
+    public boolean canLoad() {
+        return delegate.canLoad();
+    }
+
+    @Override
+    public Optional<BuildCacheLoadResult> maybeLoad(BuildCacheKey key, File toFile, Function<File, BuildCacheLoadResult> unpackFunction) {
+        return delegate.maybeLoad(key, toFile, unpackFunction);
+    }
+
+    @Override
+    public boolean canStore() {
+        return delegate.canStore();
+    }
+
+    /**
+     * Queues the store and returns immediately, unless the queue is full.
+     *
+     * Always returns {@code true} when the store has been queued, as the outcome is not known yet.
+     * The outcome is reported by the store build operation when the entry has been uploaded.
+     */
+    @Override
+    public boolean maybeStore(BuildCacheKey key, File file) {
+        if (!canStore()) {
+            return false;
+        }
+        File queuedFile = copyForQueue(key, file);
+        queue.submit(() -> {
+            try {
+                delegate.maybeStore(key, queuedFile);
+            } finally {
+                if (!queuedFile.delete() && queuedFile.exists()) {
+                    LOGGER.debug("Could not delete temporary file {}", queuedFile);
+                }
+            }
+        });
+        return true;
+    }
+
+    private File copyForQueue(BuildCacheKey key, File file) {
+        File queuedFile = temporaryFileFactory.createTemporaryFile("remote-store-" + key.getHashCode(), ".tmp");
+        try {
+            Files.deleteIfExists(queuedFile.toPath());
+            try {
+                Files.createLink(queuedFile.toPath(), file.toPath());
+            } catch (IOException | UnsupportedOperationException e) {
+                Files.copy(file.toPath(), queuedFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not copy build cache entry " + key.getHashCode() + " for uploading", e);
+        }
+        return queuedFile;
+    }
+
+    /**
+     * Waits for all pending stores before closing the remote cache.
+     */
+    @Override
+    public void close() {
+        try {
+            queue.drain();
+        } finally {
+            delegate.close();
+        }
+    }
+}
@@ -23,6 +23,7 @@
 import java.io.File;
 import java.io.IOException;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 
@@ -49,6 +50,13 @@ public Optional<BuildCacheLoadResult> maybeLoad(BuildCacheKey key, Function<File
         return result.get();
     }
 
+    @Override
+    public boolean contains(BuildCacheKey key) {
+        AtomicBoolean found = new AtomicBoolean();
+        service.loadLocally(key, file -> found.set(true));
+        return found.get();
+    }
+
     @Override
     public boolean canStore() {
         return pushEnabled;
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller.service;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Runs the downloads of {@link RemoteBuildCachePrefetcher}.
+ */
+public interface RemoteBuildCachePrefetchExecutor extends Executor {
+    /**
+     * Runs an action that waits for a download to finish.
+     *
+     * <p>Implementations should release what the current thread holds while it waits, such as its worker lease,
+     * so that other ready work can start in the meantime and start downloading its own entries.</p>
+     */
+    void blocking(Runnable action);
+}
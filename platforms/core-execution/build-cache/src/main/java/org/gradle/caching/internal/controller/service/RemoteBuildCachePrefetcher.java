@@ -0,0 +1,192 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller.service;
+
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.internal.controller.BuildCachePrefetch;
+import org.gradle.caching.local.internal.TemporaryFileFactory;
+import org.gradle.internal.operations.BuildOperationRef;
+import org.gradle.internal.operations.CurrentBuildOperationRef;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Downloads entries from the remote cache in the background, ahead of them being loaded.
+ *
+ * <p>Entries that are already in the local cache are not downloaded.
+ * Downloaded entries are staged in temporary files until they are loaded via {@link #maybeLoad(BuildCacheKey, File, Function)},
+ * or until the {@link BuildCachePrefetch} returned when starting the download is closed.</p>
+ *
+ * <p>Waiting for a download that has not finished yet happens via {@link RemoteBuildCachePrefetchExecutor#blocking(Runnable)}.
+ * While one unit of work waits for its entry, other ready work can run, resolve its cache key and start downloading its entry,
+ * so the downloads of all ready work overlap, up to the concurrency of the executor.</p>
+ *
+ * <p>The remote load build operation of a prefetched entry is a child of the operation that started the prefetch.
+ * Closing the {@link BuildCachePrefetch} waits for the download to finish, so callers need to close it before their operation completes.</p>
+ */
+public class RemoteBuildCachePrefetcher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RemoteBuildCachePrefetcher.class);
+
+    private final LocalBuildCacheServiceHandle local;
+    private final RemoteBuildCacheServiceHandle remote;
+    private final TemporaryFileFactory temporaryFileFactory;
+    private final RemoteBuildCachePrefetchExecutor executor;
+    private final ConcurrentMap<BuildCacheKey, PrefetchedEntry> entries = new ConcurrentHashMap<>();
+
+    public RemoteBuildCachePrefetcher(LocalBuildCacheServiceHandle local, RemoteBuildCacheServiceHandle remote, TemporaryFileFactory temporaryFileFactory, RemoteBuildCachePrefetchExecutor executor) {
+        this.local = local;
+        this.remote = remote;
+        this.temporaryFileFactory = temporaryFileFactory;
+        this.executor = executor;
+    }
+
+    /**
+     * Starts downloading the entry with the given key, unless it is already being downloaded.
+     */
+    public BuildCachePrefetch prefetch(BuildCacheKey key) {
+        if (!remote.canLoad()) {
+            return BuildCachePrefetch.NONE;
+        }
+        PrefetchedEntry entry = new PrefetchedEntry(key, CurrentBuildOperationRef.instance().get());
+        if (entries.putIfAbsent(key, entry) != null) {
+            entry.deleteFile();
+            return BuildCachePrefetch.NONE;
+        }
+        try {
+            executor.execute(entry.download);
+        } catch (RejectedExecutionException e) {
+            entries.remove(key, entry);
+            entry.deleteFile();
+            return BuildCachePrefetch.NONE;
+        }
+        return () -> discard(entry);
+    }
+
+    /**
+     * Loads the entry with the given key to the given file, using the prefetched entry if there is one.
+     *
+     * Behaves like {@link RemoteBuildCacheServiceHandle#maybeLoad(BuildCacheKey, File, Function)} when the entry has not been prefetched.
+     */
+    public Optional<BuildCacheLoadResult> maybeLoad(BuildCacheKey key, File toFile, Function<File, BuildCacheLoadResult> unpackFunction) {
+        PrefetchedEntry entry = entries.remove(key);
+        if (entry == null) {
+            return remote.maybeLoad(key, toFile, unpackFunction);
+        }
+        switch (entry.await()) {
+            case DOWNLOADED:
+                try {
+                    Files.move(entry.file.toPath(), toFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not move prefetched build cache entry " + key.getHashCode(), e);
+                }
+                return Optional.ofNullable(unpackFunction.apply(toFile));
+            case NOT_FOUND:
+                return Optional.empty();
+            default:
+                return remote.maybeLoad(key, toFile, unpackFunction);
+        }
+    }
+
+    private void discard(PrefetchedEntry entry) {
+        entries.remove(entry.key, entry);
+        entry.await();
+        entry.deleteFile();
+    }
+
+    private enum Outcome {
+        DOWNLOADED,
+        NOT_FOUND,
+        /**
+         * The entry was found in the local cache, or the download did not run.
+         */
+        SKIPPED
+    }
+
+    private class PrefetchedEntry {
+        private final BuildCacheKey key;
+        private final File file;
+        private final FutureTask<Outcome> download;
+
+        PrefetchedEntry(BuildCacheKey key, BuildOperationRef parentOperation) {
+            this.key = key;
+            this.file = temporaryFileFactory.createTemporaryFile("prefetch-" + key.getHashCode(), ".tmp");
+            this.download = new FutureTask<>(() -> CurrentBuildOperationRef.instance().with(parentOperation, this::download));
+        }
+
+        private Outcome download() {
+            if (local.contains(key)) {
+                return Outcome.SKIPPED;
+            }
+            boolean[] downloaded = new boolean[1];
+            remote.maybeLoad(key, file, downloadedFile -> {
+                downloaded[0] = true;
+                return null;
+            });
+            return downloaded[0] ? Outcome.DOWNLOADED : Outcome.NOT_FOUND;
+        }
+
+        void deleteFile() {
+            if (file.exists() && !file.delete()) {
+                LOGGER.debug("Could not delete prefetched build cache entry {}", file);
+            }
+        }
+
+        Outcome await() {
+            if (download.isDone()) {
+                return waitForDownload();
+            }
+            AtomicReference<Outcome> outcome = new AtomicReference<>();
+            executor.blocking(() -> outcome.set(waitForDownload()));
+            return outcome.get();
+        }
+
+        private Outcome waitForDownload() {
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        return download.get();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    } catch (ExecutionException | CancellationException e) {
+                        LOGGER.debug("Could not prefetch build cache entry {}", key.getHashCode(), e);
+                        return Outcome.SKIPPED;
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller.service
+
+import org.gradle.internal.operations.BuildOperationRef
+import org.gradle.internal.operations.CurrentBuildOperationRef
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class AsyncRemoteStoreQueueTest extends Specification {
+    def executor = Executors.newFixedThreadPool(2)
+    def queue = new AsyncRemoteStoreQueue(executor, 2)
+    def parent = Mock(BuildOperationRef)
+
+    def cleanup() {
+        queue.close()
+    }
+
+    def "runs stores synchronously when not started"() {
+        def thread = null
+
+        when:
+        queue.submit { thread = Thread.currentThread() }
+
+        then:
+        thread == Thread.currentThread()
+        queue.pendingCount == 0
+    }
+
+    def "runs stores in the background as children of the parent operation"() {
+        def release = new CountDownLatch(1)
+        def currentOperation = null
+        queue.start(parent)
+
+        when:
+        queue.submit {
+            release.await(10, TimeUnit.SECONDS)
+            currentOperation = CurrentBuildOperationRef.instance().get()
+        }
+
+        then:
+        queue.pendingCount == 1
+
+        when:
+        release.countDown()
+        queue.drain()
+
+        then:
+        queue.pendingCount == 0
+        currentOperation == parent
+    }
+
+    def "blocks submitting stores when the queue is full"() {
+        def release = new CountDownLatch(1)
+        def submittedThird = new CountDownLatch(1)
+        queue.start(parent)
+        queue.submit { release.await(10, TimeUnit.SECONDS) }
+        queue.submit { release.await(10, TimeUnit.SECONDS) }
+
+        when:
+        def submitter = Thread.start {
+            queue.submit {}
+            submittedThird.countDown()
+        }
+
+        then:
+        !submittedThird.await(100, TimeUnit.MILLISECONDS)
+
+        when:
+        release.countDown()
+
+        then:
+        submittedThird.await(10, TimeUnit.SECONDS)
+
+        cleanup:
+        submitter?.join()
+    }
+
+    def "failing store does not affect other stores"() {
+        def stored = false
+        queue.start(parent)
+
+        when:
+        queue.submit { throw new RuntimeException("broken") }
+        queue.submit { stored = true }
+        queue.drain()
+
+        then:
+        stored
+        queue.pendingCount == 0
+    }
+
+    def "runs stores synchronously after being stopped"() {
+        def thread = null
+        queue.start(parent)
+
+        when:
+        queue.stop()
+        queue.submit { thread = Thread.currentThread() }
+
+        then:
+        thread == Thread.currentThread()
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller.service
+
+import org.gradle.caching.BuildCacheKey
+import org.gradle.caching.local.internal.TemporaryFileFactory
+import org.gradle.internal.operations.BuildOperationRef
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class AsyncStoringRemoteBuildCacheServiceHandleTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+
+    def delegate = Mock(RemoteBuildCacheServiceHandle)
+    def queue = new AsyncRemoteStoreQueue(Executors.newSingleThreadExecutor(), 4)
+    def temporaryFileFactory = { prefix, suffix -> temporaryFolder.file("tmp/$prefix$suffix") } as TemporaryFileFactory
+    def handle = new AsyncStoringRemoteBuildCacheServiceHandle(delegate, queue, temporaryFileFactory)
+    def key = Mock(BuildCacheKey) {
+        getHashCode() >> "0123456789abcdef"
+    }
+
+    def setup() {
+        temporaryFolder.createDir("tmp")
+        queue.start(Mock(BuildOperationRef))
+    }
+
+    def cleanup() {
+        queue.close()
+    }
+
+    def "stores a copy of the entry in the background"() {
+        def entry = temporaryFolder.file("entry") << "content"
+        def release = new CountDownLatch(1)
+        def storedContent = null
+        File storedFile = null
+        delegate.canStore() >> true
+        delegate.maybeStore(key, _) >> { BuildCacheKey k, File file ->
+            release.await(10, TimeUnit.SECONDS)
+            storedFile = file
+            storedContent = file.text
+            true
+        }
+
+        when:
+        def stored = handle.maybeStore(key, entry)
+        entry.delete()
+
+        then:
+        stored
+        queue.pendingCount == 1
+
+        when:
+        release.countDown()
+        handle.close()
+
+        then:
+        storedContent == "content"
+        !storedFile.exists()
+        1 * delegate.close()
+    }
+
+    def "does not queue store when remote cache cannot store"() {
+        def entry = temporaryFolder.file("entry") << "content"
+
+        when:
+        def stored = handle.maybeStore(key, entry)
+
+        then:
+        !stored
+        1 * delegate.canStore() >> false
+        0 * delegate.maybeStore(_, _)
+    }
+
+    def "waits for pending stores before closing the remote cache"() {
+        def entry = temporaryFolder.file("entry") << "content"
+        def events = [].asSynchronized()
+
+        when:
+        handle.maybeStore(key, entry)
+        handle.close()
+
+        then:
+        1 * delegate.canStore() >> true
+        1 * delegate.maybeStore(key, _) >> {
+            Thread.sleep(50)
+            events << "stored"
+            true
+        }
+        1 * delegate.close() >> { events << "closed" }
+        events == ["stored", "closed"]
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller.service
+
+import org.gradle.caching.BuildCacheKey
+import org.gradle.caching.local.internal.TemporaryFileFactory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.function.Function
+
+class RemoteBuildCachePrefetcherTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+
+    def local = Mock(LocalBuildCacheServiceHandle)
+    def remote = Mock(RemoteBuildCacheServiceHandle)
+    def downloads = Executors.newSingleThreadExecutor()
+    def blockingActions = 0
+    def waiting = new CountDownLatch(1)
+    def executor = new RemoteBuildCachePrefetchExecutor() {
+        @Override
+        void execute(Runnable command) {
+            downloads.execute(command)
+        }
+
+        @Override
+        void blocking(Runnable action) {
+            blockingActions++
+            waiting.countDown()
+            action.run()
+        }
+    }
+    def temporaryFileFactory = { prefix, suffix -> temporaryFolder.createFile("tmp/$prefix$suffix") } as TemporaryFileFactory
+    def prefetcher = new RemoteBuildCachePrefetcher(local, remote, temporaryFileFactory, executor)
+    def key = Mock(BuildCacheKey) {
+        getHashCode() >> "0123456789abcdef"
+    }
+    def loadResult = Mock(BuildCacheLoadResult)
+
+    def cleanup() {
+        downloads.shutdownNow()
+    }
+
+    def "loads prefetched entry without going to the remote cache again"() {
+        def target = temporaryFolder.file("target")
+        _ * remote.canLoad() >> true
+        _ * local.contains(key) >> false
+
+        when:
+        def prefetch = prefetcher.prefetch(key)
+        def result = prefetcher.maybeLoad(key, target) { File file ->
+            assert file.text == "content"
+            loadResult
+        }
+        prefetch.close()
+
+        then:
+        1 * remote.maybeLoad(key, _, _) >> { BuildCacheKey k, File file, Function<File, BuildCacheLoadResult> unpack ->
+            file.text = "content"
+            Optional.ofNullable(unpack.apply(file))
+        }
+        result.get() == loadResult
+        temporaryFolder.file("tmp").list().length == 0
+    }
+
+    def "does not go to the remote cache again when prefetched entry was not found"() {
+        _ * remote.canLoad() >> true
+        _ * local.contains(key) >> false
+
+        when:
+        def prefetch = prefetcher.prefetch(key)
+        def result = prefetcher.maybeLoad(key, temporaryFolder.file("target")) { loadResult }
+        prefetch.close()
+
+        then:
+        1 * remote.maybeLoad(key, _, _) >> Optional.empty()
+        !result.present
+        temporaryFolder.file("tmp").list().length == 0
+    }
+
+    def "does not download entries that are in the local cache"() {
+        _ * remote.canLoad() >> true
+
+        when:
+        def prefetch = prefetcher.prefetch(key)
+        prefetch.close()
+
+        then:
+        1 * local.contains(key) >> true
+        0 * remote.maybeLoad(_, _, _)
+        temporaryFolder.file("tmp").list().length == 0
+    }
+
+    def "discards prefetched entry that was not loaded"() {
+        _ * remote.canLoad() >> true
+        _ * local.contains(key) >> false
+
+        when:
+        def prefetch = prefetcher.prefetch(key)
+        prefetch.close()
+
+        then:
+        1 * remote.maybeLoad(key, _, _) >> { BuildCacheKey k, File file, Function<File, BuildCacheLoadResult> unpack ->
+            file.text = "content"
+            Optional.ofNullable(unpack.apply(file))
+        }
+        temporaryFolder.file("tmp").list().length == 0
+    }
+
+    def "releases the current thread while waiting for a download"() {
+        _ * remote.canLoad() >> true
+        _ * local.contains(key) >> false
+        remote.maybeLoad(key, _, _) >> { BuildCacheKey k, File file, Function<File, BuildCacheLoadResult> unpack ->
+            waiting.await()
+            file.text = "content"
+            Optional.ofNullable(unpack.apply(file))
+        }
+
+        when:
+        def prefetch = prefetcher.prefetch(key)
+        def result = prefetcher.maybeLoad(key, temporaryFolder.file("target")) { loadResult }
+        prefetch.close()
+
+        then:
+        result.get() == loadResult
+        blockingActions == 1
+    }
+
+    def "does not release the current thread when download has finished"() {
+        _ * remote.canLoad() >> true
+        _ * local.contains(key) >> false
+        remote.maybeLoad(key, _, _) >> Optional.empty()
+
+        when:
+        def prefetch = prefetcher.prefetch(key)
+        downloads.submit({} as Runnable).get()
+        prefetcher.maybeLoad(key, temporaryFolder.file("target")) { loadResult }
+        prefetch.close()
+
+        then:
+        blockingActions == 0
+    }
+
+    def "loads from the remote cache when entry was not prefetched"() {
+        def target = temporaryFolder.file("target")
+
+        when:
+        def result = prefetcher.maybeLoad(key, target) { loadResult }
+
+        then:
+        1 * remote.maybeLoad(key, target, _) >> Optional.of(loadResult)
+        result.get() == loadResult
+    }
+
+    def "does not prefetch when remote cache cannot be loaded from"() {
+        when:
+        def prefetch = prefetcher.prefetch(key)
+        prefetch.close()
+
+        then:
+        1 * remote.canLoad() >> false
+        0 * local.contains(_)
+        0 * remote.maybeLoad(_, _, _)
+    }
+}
@@ -19,6 +19,7 @@
 import com.google.common.collect.ImmutableList;
 import org.gradle.caching.BuildCacheKey;
 import org.gradle.caching.internal.controller.BuildCacheController;
+import org.gradle.caching.internal.controller.BuildCachePrefetch;
 import org.gradle.internal.execution.UnitOfWork;
 import org.gradle.internal.execution.caching.CachingDisabledReason;
 import org.gradle.internal.execution.caching.CachingDisabledReasonCategory;
@@ -68,10 +69,23 @@ public CachingResult execute(UnitOfWork work, C context) {
             disabled -> logDisabledReasons(disabled.getDisabledReasons(), work)
         );
 
-        UpToDateResult result = executeDelegate(work, context, cachingState);
+        UpToDateResult result;
+        try (BuildCachePrefetch ignored = prefetchIfLoadIsExpected(work, context, cachingState)) {
+            result = executeDelegate(work, context, cachingState);
+        }
         return new CachingResult(result, cachingState);
     }
 
+    /**
+     * Starts downloading the cache entry while the remaining steps before loading from the cache are executed.
+     */
+    private BuildCachePrefetch prefetchIfLoadIsExpected(UnitOfWork work, C context, CachingState cachingState) {
+        return cachingState.whenEnabled()
+            .filter(__ -> !isUpToDate(context) && work.isAllowedToLoadFromCache())
+            .map(enabled -> buildCache.prefetch(enabled.getCacheKeyCalculatedState().getKey()))
+            .orElse(BuildCachePrefetch.NONE);
+    }
+
     private CachingState calculateCachingState(UnitOfWork work, C context, BeforeExecutionState beforeExecutionState) {
         Logger logger = emitDebugLogging
             ? LOGGER
@@ -99,6 +113,11 @@ private CachingState calculateCachingState(UnitOfWork work, C context, BeforeExe
      */
     protected abstract Optional<HashCode> getPreviousCacheKeyIfApplicable(C context);
 
+    /**
+     * Whether the work is already known to be up-to-date, so it will not be loaded from the cache.
+     */
+    protected abstract boolean isUpToDate(C context);
+
     protected abstract UpToDateResult executeDelegate(UnitOfWork work, C context, CachingState cachingState);
 
     private CachingState calculateCachingStateWithNoCapturedInputs(UnitOfWork work) {
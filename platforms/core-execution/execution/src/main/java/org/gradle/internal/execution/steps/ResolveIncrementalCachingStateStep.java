@@ -44,6 +44,11 @@ protected Optional<HashCode> getPreviousCacheKeyIfApplicable(C context) {
                 .map(PreviousExecutionState::getCacheKey));
     }
 
+    @Override
+    protected boolean isUpToDate(C context) {
+        return context.getRebuildReasons().isEmpty();
+    }
+
     @Override
     protected UpToDateResult executeDelegate(UnitOfWork work, C context, CachingState cachingState) {
         return delegate.execute(work, new IncrementalCachingContext(context, cachingState));
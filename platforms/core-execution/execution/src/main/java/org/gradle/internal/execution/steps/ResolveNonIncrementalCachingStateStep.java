@@ -45,6 +45,11 @@ protected Optional<HashCode> getPreviousCacheKeyIfApplicable(C context) {
         return Optional.empty();
     }
 
+    @Override
+    protected boolean isUpToDate(C context) {
+        return false;
+    }
+
     @Override
     protected UpToDateResult executeDelegate(UnitOfWork work, C context, CachingState cachingState) {
         return delegate.execute(work, new NonIncrementalCachingContext(context, cachingState));
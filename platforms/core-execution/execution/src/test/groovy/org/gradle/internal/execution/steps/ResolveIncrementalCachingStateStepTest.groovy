@@ -17,6 +17,7 @@
 package org.gradle.internal.execution.steps
 
 import com.google.common.collect.ImmutableList
+import org.gradle.caching.internal.controller.BuildCachePrefetch
 import org.gradle.internal.execution.history.PreviousExecutionState
 import org.gradle.internal.execution.history.changes.ExecutionStateChanges
 import org.gradle.internal.hash.TestHashCodes
@@ -103,4 +104,53 @@ class ResolveIncrementalCachingStateStepTest extends AbstractResolveCachingState
         where:
         buildCacheEnabled << [true, false]
     }
+
+    def "prefetches cache entry while executing out-of-date work"() {
+        def prefetch = Mock(BuildCachePrefetch)
+        delegateResult.executionReasons >> ImmutableList.of()
+        delegateResult.reusedOutputOriginMetadata >> Optional.empty()
+        delegateResult.afterExecutionOutputState >> Optional.empty()
+        _ * buildCache.enabled >> true
+        _ * context.changes >> Optional.of(executionStateChanges)
+        _ * context.beforeExecutionState >> Optional.of(beforeExecutionState)
+        _ * context.previousExecutionState >> Optional.empty()
+        _ * context.validationProblems >> ImmutableList.of()
+        _ * context.rebuildReasons >> ImmutableList.of("No history is available.")
+        _ * work.allowedToLoadFromCache >> true
+
+        when:
+        step.execute(work, context)
+
+        then:
+        1 * buildCache.prefetch({ it.hashCode != null }) >> prefetch
+
+        then:
+        1 * delegate.execute(work, _ as CachingContext) >> delegateResult
+
+        then:
+        1 * prefetch.close()
+    }
+
+    def "does not prefetch cache entry when work is up-to-date"() {
+        def cacheKey = TestHashCodes.hashCodeFrom(1234)
+        delegateResult.executionReasons >> ImmutableList.of()
+        delegateResult.reusedOutputOriginMetadata >> Optional.empty()
+        delegateResult.afterExecutionOutputState >> Optional.empty()
+
+        when:
+        step.execute(work, context)
+
+        then:
+        _ * buildCache.enabled >> true
+        _ * context.changes >> Optional.of(executionStateChanges)
+        _ * context.beforeExecutionState >> Optional.of(beforeExecutionState)
+        _ * executionStateChanges.changeDescriptions >> ImmutableList.of()
+        _ * context.previousExecutionState >> Optional.of(previousExecutionState)
+        _ * previousExecutionState.cacheKey >> cacheKey
+        _ * context.validationProblems >> ImmutableList.of()
+        _ * context.rebuildReasons >> ImmutableList.of()
+        _ * work.allowedToLoadFromCache >> true
+        0 * buildCache.prefetch(_)
+        1 * delegate.execute(work, _ as CachingContext) >> delegateResult
+    }
 }
@@ -115,5 +115,7 @@ interface FileWatchingStatistics {
         boolean isUnknownEventEncountered();
         int getNumberOfReceivedEvents();
         int getNumberOfWatchedHierarchies();
+        int getNumberOfWatches();
+        int getWatchBudget();
     }
 }
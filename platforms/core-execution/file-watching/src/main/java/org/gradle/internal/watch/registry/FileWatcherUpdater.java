@@ -120,4 +120,14 @@ public interface FileWatcherUpdater {
      * @see FileWatcherUpdater
      */
     FileHierarchySet getWatchedFiles();
+
+    /**
+     * The number of locations registered with the operating system for watching.
+     */
+    int getNumberOfWatches();
+
+    /**
+     * The maximum number of locations to register with the operating system for watching, or {@code -1} if there is no limit.
+     */
+    int getWatchBudget();
 }
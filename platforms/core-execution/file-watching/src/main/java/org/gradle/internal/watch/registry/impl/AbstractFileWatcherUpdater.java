@@ -102,6 +102,7 @@ public SnapshotHierarchy updateVfsBeforeBuildFinished(SnapshotHierarchy root, in
             unsupportedFileSystems,
             createInvalidator()
         );
+        newRoot = removeContentOverWatchBudget(newRoot);
 
         if (root != newRoot) {
             update(newRoot);
@@ -122,6 +123,19 @@ public SnapshotHierarchy updateVfsBeforeAfterFinished(SnapshotHierarchy root) {
         return newRoot;
     }
 
+    /**
+     * Removes content from the virtual file system when watching it would need more resources than the operating system provides.
+     */
+    @CheckReturnValue
+    protected SnapshotHierarchy removeContentOverWatchBudget(SnapshotHierarchy root) {
+        return root;
+    }
+
+    @Override
+    public int getWatchBudget() {
+        return -1;
+    }
+
     @Override
     public FileHierarchySet getWatchedFiles() {
         return watchedFiles;
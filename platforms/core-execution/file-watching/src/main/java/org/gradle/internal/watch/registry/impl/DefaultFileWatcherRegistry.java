@@ -189,6 +189,8 @@ public FileWatchingStatistics getAndResetStatistics() {
         fileWatchingStatistics = new MutableFileWatchingStatistics();
         AtomicInteger numberOfWatchedHierarchies = new AtomicInteger();
         fileWatcherUpdater.getWatchedFiles().visitRoots(root -> numberOfWatchedHierarchies.incrementAndGet());
+        int numberOfWatches = fileWatcherUpdater.getNumberOfWatches();
+        int watchBudget = fileWatcherUpdater.getWatchBudget();
         return new FileWatchingStatistics() {
             @Override
             public Optional<Throwable> getErrorWhileReceivingFileChanges() {
@@ -209,6 +211,16 @@ public int getNumberOfReceivedEvents() {
             public int getNumberOfWatchedHierarchies() {
                 return numberOfWatchedHierarchies.get();
             }
+
+            @Override
+            public int getNumberOfWatches() {
+                return numberOfWatches;
+            }
+
+            @Override
+            public int getWatchBudget() {
+                return watchBudget;
+            }
         };
     }
 
@@ -93,6 +93,11 @@ public SnapshotHierarchy updateVfsBeforeBuildFinished(SnapshotHierarchy root, in
         return newRoot;
     }
 
+    @Override
+    public int getNumberOfWatches() {
+        return watchedHierarchies.size();
+    }
+
     @Override
     protected void updateWatchesOnChangedWatchedFiles(FileHierarchySet newWatchedFiles) {
         ImmutableSet<File> oldWatchedHierarchies = watchedHierarchies;
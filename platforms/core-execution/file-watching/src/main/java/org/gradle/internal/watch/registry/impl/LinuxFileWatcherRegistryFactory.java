@@ -16,6 +16,7 @@
 
 package org.gradle.internal.watch.registry.impl;
 
+import com.google.common.annotations.VisibleForTesting;
 import net.rubygrapefruit.platform.NativeIntegrationUnavailableException;
 import net.rubygrapefruit.platform.file.FileEvents;
 import net.rubygrapefruit.platform.file.FileWatchEvent;
@@ -25,14 +26,28 @@
 import org.gradle.internal.snapshot.SnapshotHierarchy;
 import org.gradle.internal.watch.registry.FileWatcherProbeRegistry;
 import org.gradle.internal.watch.registry.FileWatcherUpdater;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Collection;
 import java.util.concurrent.BlockingQueue;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class LinuxFileWatcherRegistryFactory extends AbstractFileWatcherRegistryFactory<LinuxFileEventFunctions, LinuxFileWatcher> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LinuxFileWatcherRegistryFactory.class);
+    private static final Path MAX_USER_WATCHES = Paths.get("/proc/sys/fs/inotify/max_user_watches");
+
+    /**
+     * The inotify watch limit applies to all processes of the user, so we leave half of it to other processes like IDEs.
+     */
+    private static final int WATCH_BUDGET_DIVISOR = 2;
 
     public LinuxFileWatcherRegistryFactory(Predicate<String> immutableLocationsFilter) throws NativeIntegrationUnavailableException {
         super(FileEvents.get(LinuxFileEventFunctions.class), immutableLocationsFilter);
@@ -46,7 +61,25 @@ protected LinuxFileWatcher createFileWatcher(BlockingQueue<FileWatchEvent> fileE
 
     @Override
     protected FileWatcherUpdater createFileWatcherUpdater(LinuxFileWatcher watcher, FileWatcherProbeRegistry probeRegistry, WatchableHierarchies watchableHierarchies) {
-        return new NonHierarchicalFileWatcherUpdater(watcher, probeRegistry, watchableHierarchies, new LinuxMovedDirectoryHandler(watcher, watchableHierarchies));
+        return new NonHierarchicalFileWatcherUpdater(watcher, probeRegistry, watchableHierarchies, new LinuxMovedDirectoryHandler(watcher, watchableHierarchies), determineWatchBudget(MAX_USER_WATCHES));
+    }
+
+    /**
+     * Determines how many directories Gradle can watch from the inotify watch limit of the user.
+     *
+     * @return the maximum number of directories to watch, or {@code -1} if the limit is unknown.
+     */
+    @VisibleForTesting
+    static int determineWatchBudget(Path maxUserWatchesFile) {
+        try {
+            long maxUserWatches = Long.parseLong(new String(Files.readAllBytes(maxUserWatchesFile), StandardCharsets.UTF_8).trim());
+            int watchBudget = (int) Math.min(Integer.MAX_VALUE, Math.max(1, maxUserWatches / WATCH_BUDGET_DIVISOR));
+            LOGGER.info("Watching at most {} directories (inotify watch limit {})", watchBudget, maxUserWatches);
+            return watchBudget;
+        } catch (IOException | NumberFormatException e) {
+            LOGGER.info("Unable to determine the inotify watch limit from {}: {}", maxUserWatchesFile, e.getMessage());
+            return -1;
+        }
     }
 
     private static class LinuxMovedDirectoryHandler implements AbstractFileWatcherUpdater.MovedDirectoryHandler {
@@ -35,11 +35,15 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.CheckReturnValue;
 import javax.annotation.Nullable;
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Consumer;
@@ -51,15 +55,34 @@ public class NonHierarchicalFileWatcherUpdater extends AbstractFileWatcherUpdate
     private final Multiset<String> watchedDirectories = HashMultiset.create();
     private final Map<String, String> watchedDirectoryForSnapshot = new HashMap<>();
     private final Set<String> watchedWatchableHierarchies = new HashSet<>();
+    private final Set<String> snapshotsOverWatchBudget = new HashSet<>();
+    private final Set<String> locationsOverWatchBudget = new HashSet<>();
+    private final int watchBudget;
 
     public NonHierarchicalFileWatcherUpdater(
         FileWatcher fileWatcher,
         FileWatcherProbeRegistry probeRegistry,
         WatchableHierarchies watchableHierarchies,
         MovedDirectoryHandler movedDirectoryHandler
+    ) {
+        this(fileWatcher, probeRegistry, watchableHierarchies, movedDirectoryHandler, -1);
+    }
+
+    /**
+     * @param watchBudget the maximum number of directories to watch, or {@code -1} if there is no limit.
+     * Once the budget is used up, new locations are not watched anymore, and their state is dropped from the virtual file system at the end of the build.
+     * Then the state of the least used watchable hierarchies is dropped as well to stay within the budget.
+     */
+    public NonHierarchicalFileWatcherUpdater(
+        FileWatcher fileWatcher,
+        FileWatcherProbeRegistry probeRegistry,
+        WatchableHierarchies watchableHierarchies,
+        MovedDirectoryHandler movedDirectoryHandler,
+        int watchBudget
     ) {
         super(probeRegistry, watchableHierarchies, movedDirectoryHandler);
         this.fileWatcher = fileWatcher;
+        this.watchBudget = watchBudget;
     }
 
     @Override
@@ -68,23 +91,35 @@ protected boolean handleVirtualFileSystemContentsChanged(Collection<FileSystemLo
 
         removedSnapshots.stream()
             .filter(watchableHierarchies::shouldWatch)
+            .filter(snapshot -> !snapshotsOverWatchBudget.remove(snapshot.getAbsolutePath()))
             .forEach(snapshot -> {
                 String previousWatchedRoot = watchedDirectoryForSnapshot.remove(snapshot.getAbsolutePath());
                 decrement(previousWatchedRoot, changedWatchedDirectories);
                 snapshot.accept(new SubdirectoriesToWatchVisitor(path -> decrement(path, changedWatchedDirectories)));
             });
-        addedSnapshots.stream()
-            .filter(watchableHierarchies::shouldWatch)
-            .forEach(snapshot -> {
-                File directoryToWatchForRoot = SnapshotWatchedDirectoryFinder.getDirectoryToWatch(snapshot);
-                String pathToWatchForRoot = directoryToWatchForRoot.getAbsolutePath();
-                if (!watchableHierarchies.isInWatchableHierarchy(pathToWatchForRoot)) {
-                    return;
-                }
-                watchedDirectoryForSnapshot.put(snapshot.getAbsolutePath(), pathToWatchForRoot);
-                increment(pathToWatchForRoot, changedWatchedDirectories);
-                snapshot.accept(new SubdirectoriesToWatchVisitor(path -> increment(path, changedWatchedDirectories)));
-            });
+        int newWatches = 0;
+        for (FileSystemLocationSnapshot snapshot : addedSnapshots) {
+            if (!watchableHierarchies.shouldWatch(snapshot)) {
+                continue;
+            }
+            File directoryToWatchForRoot = SnapshotWatchedDirectoryFinder.getDirectoryToWatch(snapshot);
+            String pathToWatchForRoot = directoryToWatchForRoot.getAbsolutePath();
+            if (!watchableHierarchies.isInWatchableHierarchy(pathToWatchForRoot)) {
+                continue;
+            }
+            List<String> directoriesToWatch = new ArrayList<>();
+            directoriesToWatch.add(pathToWatchForRoot);
+            snapshot.accept(new SubdirectoriesToWatchVisitor(directoriesToWatch::add));
+            int newWatchesForSnapshot = countNewWatches(directoriesToWatch, changedWatchedDirectories);
+            if (exceedsWatchBudget(newWatches + newWatchesForSnapshot)) {
+                snapshotsOverWatchBudget.add(snapshot.getAbsolutePath());
+                markOverWatchBudget(snapshot.getAbsolutePath());
+                continue;
+            }
+            newWatches += newWatchesForSnapshot;
+            watchedDirectoryForSnapshot.put(snapshot.getAbsolutePath(), pathToWatchForRoot);
+            directoriesToWatch.forEach(path -> increment(path, changedWatchedDirectories));
+        }
         if (changedWatchedDirectories.isEmpty()) {
             return false;
         }
@@ -99,15 +134,94 @@ protected void updateWatchesOnChangedWatchedFiles(FileHierarchySet newWatchedFil
         Map<String, Integer> changedWatchDirectories = new HashMap<>();
         watchedWatchableHierarchies.forEach(absolutePath -> decrement(absolutePath, changedWatchDirectories));
         watchedWatchableHierarchies.clear();
-        newWatchedFiles.visitRoots(absolutePath -> {
+        List<String> newRoots = new ArrayList<>();
+        newWatchedFiles.visitRoots(newRoots::add);
+        int newWatches = 0;
+        for (String absolutePath : newRoots) {
+            int newWatchesForRoot = countNewWatches(Collections.singletonList(absolutePath), changedWatchDirectories);
+            if (exceedsWatchBudget(newWatches + newWatchesForRoot)) {
+                markOverWatchBudget(absolutePath);
+                continue;
+            }
+            newWatches += newWatchesForRoot;
             watchedWatchableHierarchies.add(absolutePath);
             increment(absolutePath, changedWatchDirectories);
-        });
+        }
         if (!changedWatchDirectories.isEmpty()) {
             updateWatchedDirectories(changedWatchDirectories);
         }
     }
 
+    /**
+     * Counts the directories which are neither watched nor about to be watched.
+     */
+    private int countNewWatches(Collection<String> directoriesToWatch, Map<String, Integer> changedWatchedDirectories) {
+        return (int) directoriesToWatch.stream()
+            .distinct()
+            .filter(path -> !watchedDirectories.contains(path) && !changedWatchedDirectories.containsKey(path))
+            .count();
+    }
+
+    /**
+     * Whether watching the given number of additional directories would exceed the budget.
+     * Watches which are about to be removed are still counted, so the check is on the safe side.
+     */
+    private boolean exceedsWatchBudget(int newWatches) {
+        return watchBudget >= 0 && newWatches > 0 && watchedDirectories.elementSet().size() + newWatches > watchBudget;
+    }
+
+    private void markOverWatchBudget(String location) {
+        if (locationsOverWatchBudget.isEmpty()) {
+            LOGGER.info("Watching too many directories in the file system (watching {}, limit {}), not watching new locations until the end of the build", watchedDirectories.elementSet().size(), watchBudget);
+        }
+        locationsOverWatchBudget.add(location);
+    }
+
+    @Override
+    protected SnapshotHierarchy removeContentOverWatchBudget(SnapshotHierarchy root) {
+        if (watchBudget < 0) {
+            return root;
+        }
+        SnapshotHierarchy newRoot = invalidateLocationsOverWatchBudget(root);
+        return watchableHierarchies.removeHierarchiesOverWatchBudget(newRoot, watchedDirectories.elementSet(), watchBudget, createInvalidator());
+    }
+
+    /**
+     * Drops the state of the locations which are not watched since the budget was used up, since changes to them would go unnoticed.
+     *
+     * <p>Invalidating a location inside a larger snapshot adds snapshots for the rest of its content, which can be over the budget again.
+     * So the locations are invalidated until no new locations over the budget show up.</p>
+     */
+    @CheckReturnValue
+    private SnapshotHierarchy invalidateLocationsOverWatchBudget(SnapshotHierarchy root) {
+        if (locationsOverWatchBudget.isEmpty()) {
+            return root;
+        }
+        LOGGER.info("Dropping the state of {} locations which have not been watched because of the watch budget from the virtual file system", locationsOverWatchBudget.size());
+        WatchableHierarchies.Invalidator invalidator = createInvalidator();
+        SnapshotHierarchy newRoot = root;
+        while (!locationsOverWatchBudget.isEmpty()) {
+            List<String> locationsToInvalidate = new ArrayList<>(locationsOverWatchBudget);
+            locationsOverWatchBudget.clear();
+            for (String location : locationsToInvalidate) {
+                newRoot = invalidator.invalidate(location, newRoot);
+            }
+        }
+        // All snapshots over the budget were inside the invalidated locations, so none of them is in the virtual file system anymore
+        snapshotsOverWatchBudget.clear();
+        return newRoot;
+    }
+
+    @Override
+    public int getNumberOfWatches() {
+        return watchedDirectories.elementSet().size();
+    }
+
+    @Override
+    public int getWatchBudget() {
+        return watchBudget;
+    }
+
     @Override
     protected WatchableHierarchies.Invalidator createInvalidator() {
         return (location, currentRoot) -> {
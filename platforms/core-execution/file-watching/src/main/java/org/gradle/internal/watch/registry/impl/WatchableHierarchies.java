@@ -33,11 +33,15 @@
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.gradle.internal.Combiners.nonCombining;
@@ -47,6 +51,11 @@ public class WatchableHierarchies {
 
     public static final String INVALIDATING_HIERARCHY_MESSAGE = "Invalidating hierarchy because watch probe hasn't been triggered";
 
+    /**
+     * How much the usage of a hierarchy in a build still counts in the next build.
+     */
+    private static final double USAGE_SCORE_DECAY = 0.5;
+
     private final FileWatcherProbeRegistry probeRegistry;
     private final Predicate<String> immutableLocationsFilter;
 
@@ -70,6 +79,13 @@ public class WatchableHierarchies {
     private final Deque<File> hierarchies = new ArrayDeque<>();
     private final List<File> watchableHierarchiesSinceLastBuildFinish = new ArrayList<>();
 
+    /**
+     * How recently and how frequently the hierarchies have been used by builds.
+     *
+     * A hierarchy used by every build approaches a score of 2, a hierarchy used by the last build only has a score of 1.
+     */
+    private final Map<File, Double> usageScores = new HashMap<>();
+
     public WatchableHierarchies(
         FileWatcherProbeRegistry probeRegistry,
         Predicate<String> immutableLocationsFilter
@@ -115,6 +131,7 @@ public SnapshotHierarchy removeUnwatchableContentBeforeBuildFinished(
         List<File> unsupportedFileSystems,
         Invalidator invalidator
     ) {
+        updateUsageScores();
         SnapshotHierarchy newRoot = root;
         newRoot = removeWatchedHierarchiesOverLimit(newRoot, isWatchedHierarchy, maximumNumberOfWatchedHierarchies, invalidator);
         newRoot = removeUnwatchableFileSystems(newRoot, unsupportedFileSystems, invalidator);
@@ -194,6 +211,83 @@ private SnapshotHierarchy removeWatchedHierarchiesOverLimit(SnapshotHierarchy ro
         return result;
     }
 
+    /**
+     * Removes the content of the least used hierarchies from the virtual file system, so the watched directories of the remaining hierarchies fit into the watch budget.
+     *
+     * Each watched directory is attributed to the most used hierarchy containing it.
+     * Hierarchies are kept in the order of their usage as long as their watched directories fit into the budget.
+     *
+     * @param watchedDirectories the directories currently watched individually
+     * @param watchBudget the maximum number of directories to watch
+     */
+    @CheckReturnValue
+    public SnapshotHierarchy removeHierarchiesOverWatchBudget(SnapshotHierarchy root, Collection<String> watchedDirectories, int watchBudget, Invalidator invalidator) {
+        if (watchedDirectories.size() <= watchBudget) {
+            return root;
+        }
+        List<File> hierarchiesByUsage = getHierarchiesByUsage();
+        List<FileHierarchySet> hierarchySets = hierarchiesByUsage.stream()
+            .map(hierarchy -> FileHierarchySet.empty().plus(hierarchy))
+            .collect(Collectors.toList());
+        int[] watchesPerHierarchy = new int[hierarchiesByUsage.size()];
+        for (String watchedDirectory : watchedDirectories) {
+            for (int i = 0; i < hierarchySets.size(); i++) {
+                if (hierarchySets.get(i).contains(watchedDirectory)) {
+                    watchesPerHierarchy[i]++;
+                    break;
+                }
+            }
+        }
+
+        List<File> hierarchiesToRemove = new ArrayList<>();
+        int keptWatches = 0;
+        for (int i = 0; i < hierarchiesByUsage.size(); i++) {
+            if (keptWatches + watchesPerHierarchy[i] <= watchBudget) {
+                keptWatches += watchesPerHierarchy[i];
+            } else {
+                hierarchiesToRemove.add(hierarchiesByUsage.get(i));
+            }
+        }
+        if (hierarchiesToRemove.isEmpty()) {
+            return root;
+        }
+
+        LOGGER.info(
+            "Watching too many directories in the file system (watching {}, limit {}), dropping the state of {} from the virtual file system",
+            watchedDirectories.size(),
+            watchBudget,
+            hierarchiesToRemove
+        );
+        SnapshotHierarchy result = root;
+        for (File hierarchyToRemove : hierarchiesToRemove) {
+            hierarchies.remove(hierarchyToRemove);
+            usageScores.remove(hierarchyToRemove);
+            result = invalidator.invalidate(hierarchyToRemove.getAbsolutePath(), result);
+        }
+        watchableFiles = buildWatchableFilesFromHierarchies(hierarchies);
+        return result;
+    }
+
+    private void updateUsageScores() {
+        Set<File> usedHierarchies = new HashSet<>(watchableHierarchiesSinceLastBuildFinish);
+        Map<File, Double> previousUsageScores = new HashMap<>(usageScores);
+        usageScores.clear();
+        for (File hierarchy : hierarchies) {
+            double previousScore = previousUsageScores.getOrDefault(hierarchy, 0d);
+            usageScores.put(hierarchy, previousScore * USAGE_SCORE_DECAY + (usedHierarchies.contains(hierarchy) ? 1 : 0));
+        }
+    }
+
+    /**
+     * Hierarchies ordered by how recently and how frequently they have been used, most valuable first.
+     */
+    private List<File> getHierarchiesByUsage() {
+        // The sort is stable, so hierarchies with the same score stay in usage order
+        return hierarchies.stream()
+            .sorted(Comparator.comparingDouble((File hierarchy) -> usageScores.getOrDefault(hierarchy, 0d)).reversed())
+            .collect(Collectors.toList());
+    }
+
     private static FileHierarchySet buildWatchableFilesFromHierarchies(Collection<File> hierarchies) {
         return hierarchies.stream()
             .reduce(FileHierarchySet.empty(), FileHierarchySet::plus, nonCombining());
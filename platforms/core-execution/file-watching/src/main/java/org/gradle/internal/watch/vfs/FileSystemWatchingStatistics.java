@@ -20,6 +20,18 @@ public interface FileSystemWatchingStatistics {
     int getNumberOfReceivedEvents();
     int getNumberOfWatchedHierarchies();
 
+    /**
+     * The number of locations registered with the operating system for watching.
+     *
+     * On Linux each watched directory is registered, on other operating systems each watched hierarchy.
+     */
+    int getNumberOfWatches();
+
+    /**
+     * The maximum number of locations to register with the operating system for watching, or {@code -1} if there is no limit.
+     */
+    int getWatchBudget();
+
     int getRetainedRegularFiles();
     int getRetainedDirectories();
     int getRetainedMissingFiles();
@@ -47,6 +47,16 @@ public int getNumberOfWatchedHierarchies() {
         return fileWatchingStatistics.getNumberOfWatchedHierarchies();
     }
 
+    @Override
+    public int getNumberOfWatches() {
+        return fileWatchingStatistics.getNumberOfWatches();
+    }
+
+    @Override
+    public int getWatchBudget() {
+        return fileWatchingStatistics.getWatchBudget();
+    }
+
     @Override
     public int getRetainedRegularFiles() {
         return vfsStatistics.getRetained(FileType.RegularFile);
@@ -154,6 +154,7 @@ public SnapshotHierarchy call(BuildOperationContext context) {
                             LOGGER.warn("Received {} file system events since last build while watching {} locations",
                                 statisticsSinceLastBuild.getNumberOfReceivedEvents(),
                                 statisticsSinceLastBuild.getNumberOfWatchedHierarchies());
+                            logWatchUsage(statisticsSinceLastBuild);
                             LOGGER.warn("Virtual file system retained information about {} files, {} directories and {} missing files since last build",
                                 statisticsSinceLastBuild.getRetainedRegularFiles(),
                                 statisticsSinceLastBuild.getRetainedDirectories(),
@@ -251,6 +252,7 @@ public SnapshotHierarchy call(BuildOperationContext context) {
                             LOGGER.warn("Received {} file system events during the current build while watching {} locations",
                                 statisticsDuringBuild.getNumberOfReceivedEvents(),
                                 statisticsDuringBuild.getNumberOfWatchedHierarchies());
+                            logWatchUsage(statisticsDuringBuild);
                             LOGGER.warn("Virtual file system retains information about {} files, {} directories and {} missing files until next build",
                                 statisticsDuringBuild.getRetainedRegularFiles(),
                                 statisticsDuringBuild.getRetainedDirectories(),
@@ -504,6 +506,14 @@ private SnapshotHierarchy stopWatchingAndInvalidateHierarchy(SnapshotHierarchy c
         return currentRoot.empty();
     }
 
+    private static void logWatchUsage(FileSystemWatchingStatistics statistics) {
+        if (statistics.getWatchBudget() >= 0) {
+            LOGGER.warn("Using {} of {} file system watches", statistics.getNumberOfWatches(), statistics.getWatchBudget());
+        } else {
+            LOGGER.warn("Using {} file system watches", statistics.getNumberOfWatches());
+        }
+    }
+
     private boolean hasDroppedStateBecauseOfErrorsReceivedWhileWatching(FileWatcherRegistry.FileWatchingStatistics statistics) {
         if (statistics.isUnknownEventEncountered()) {
             warningLogger.warn("Dropped VFS state due to lost state");
@@ -18,6 +18,7 @@ package org.gradle.internal.watch.registry.impl
 
 import net.rubygrapefruit.platform.file.FileWatcher
 import org.gradle.internal.watch.registry.FileWatcherUpdater
+import org.gradle.test.fixtures.file.TestFile
 
 class NonHierarchicalFileWatcherUpdaterTest extends AbstractFileWatcherUpdaterTest {
 
@@ -89,6 +90,103 @@ class NonHierarchicalFileWatcherUpdaterTest extends AbstractFileWatcherUpdaterTe
         0 * _
     }
 
+    def "drops the state of the least used hierarchies when the watch budget is exceeded"() {
+        updater = new NonHierarchicalFileWatcherUpdater(watcher, probeRegistry, watchableHierarchies, movedWatchedDirectoriesSupplier, 6)
+        def frequentlyUsedHierarchy = file("frequent").createDir()
+        def newHierarchy = file("new").createDir()
+
+        when:
+        registerWatchableHierarchies([frequentlyUsedHierarchy])
+        addSnapshotsInDirectories(frequentlyUsedHierarchy, ["a", "b", "c"])
+        buildFinished()
+        registerWatchableHierarchies([frequentlyUsedHierarchy])
+        buildFinished()
+        then:
+        vfsHasSnapshotsAt(frequentlyUsedHierarchy)
+        updater.watchBudget == 6
+
+        when:
+        registerWatchableHierarchies([frequentlyUsedHierarchy, newHierarchy])
+        addSnapshotsInDirectories(newHierarchy, ["a", "b", "c"])
+        buildFinished()
+        then:
+        vfsHasSnapshotsAt(frequentlyUsedHierarchy)
+        !vfsHasSnapshotsAt(newHierarchy)
+        updater.numberOfWatches <= 6
+    }
+
+    def "does not watch new directories over the watch budget and drops their state at the end of the build"() {
+        updater = new NonHierarchicalFileWatcherUpdater(watcher, probeRegistry, watchableHierarchies, movedWatchedDirectoriesSupplier, 3)
+        def watchableHierarchy = file("watchable").createDir()
+        def watchedFile = watchableHierarchy.file("a/file.txt").createFile()
+        def fileOverBudget = watchableHierarchy.file("b/file.txt").createFile()
+
+        when:
+        registerWatchableHierarchies([watchableHierarchy])
+        addSnapshot(snapshotRegularFile(watchedFile))
+        then:
+        // The parent directory, the hierarchy and the probe directory
+        updater.numberOfWatches == 3
+
+        when:
+        addSnapshot(snapshotRegularFile(fileOverBudget))
+        then:
+        0 * watcher.startWatching(_)
+        updater.numberOfWatches == 3
+        vfsHasSnapshotsAt(fileOverBudget)
+
+        when:
+        buildFinished()
+        then:
+        0 * watcher.startWatching(_)
+        0 * watcher.stopWatching(_)
+        updater.numberOfWatches == 3
+        vfsHasSnapshotsAt(watchedFile)
+        !vfsHasSnapshotsAt(fileOverBudget)
+    }
+
+    def "drops the state of a location over the watch budget inside a watched directory snapshot"() {
+        updater = new NonHierarchicalFileWatcherUpdater(watcher, probeRegistry, watchableHierarchies, movedWatchedDirectoriesSupplier, 3)
+        def watchableHierarchy = file("watchable").createDir()
+        def watchedFile = watchableHierarchy.file("a/file.txt").createFile()
+        def directory = watchableHierarchy.file("b").createDir()
+        def fileOverBudget = directory.file("file.txt").createFile()
+        def otherFile = directory.file("other.txt").createFile()
+
+        when:
+        registerWatchableHierarchies([watchableHierarchy])
+        addSnapshot(snapshotRegularFile(watchedFile))
+        addSnapshot(snapshotRegularFile(fileOverBudget))
+        then:
+        updater.numberOfWatches == 3
+
+        when:
+        invalidate(watchedFile.absolutePath)
+        addSnapshot(snapshotDirectory(directory))
+        then:
+        // The directory, the hierarchy and the probe directory
+        updater.numberOfWatches == 3
+        vfsHasSnapshotsAt(fileOverBudget)
+        vfsHasSnapshotsAt(otherFile)
+
+        when:
+        buildFinished()
+        then:
+        0 * watcher.startWatching(_)
+        0 * watcher.stopWatching(_)
+        updater.numberOfWatches == 3
+        !vfsHasSnapshotsAt(fileOverBudget)
+        vfsHasSnapshotsAt(otherFile)
+
+        when:
+        buildFinished()
+        then:
+        0 * watcher.startWatching(_)
+        0 * watcher.stopWatching(_)
+        updater.numberOfWatches == 3
+        vfsHasSnapshotsAt(otherFile)
+    }
+
     def "removes content on unsupported file systems at the end of the build"() {
         def watchableHierarchy = file("watchable").createDir()
         def watchableContent = watchableHierarchy.file("some/dir/file.txt").createFile()
@@ -120,4 +218,10 @@ class NonHierarchicalFileWatcherUpdaterTest extends AbstractFileWatcherUpdaterTe
         1 * watcher.stopWatching({ equalIgnoringOrder(it, [unwatchableContent.parentFile]) })
         0 * _
     }
+
+    private void addSnapshotsInDirectories(TestFile hierarchy, List<String> directories) {
+        directories.each { directory ->
+            addSnapshot(snapshotRegularFile(hierarchy.file(directory, "file.txt").createFile()))
+        }
+    }
 }
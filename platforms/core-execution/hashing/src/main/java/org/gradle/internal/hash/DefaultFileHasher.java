@@ -21,12 +21,26 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
 
 public class DefaultFileHasher implements FileHasher {
+    /**
+     * Files of at least this size are read via a {@link FileChannel} instead of a stream.
+     */
+    public static final long DEFAULT_CHANNEL_READ_THRESHOLD = 1024 * 1024;
+
     private final StreamHasher streamHasher;
+    private final long channelReadThreshold;
 
     public DefaultFileHasher(StreamHasher streamHasher) {
+        this(streamHasher, DEFAULT_CHANNEL_READ_THRESHOLD);
+    }
+
+    public DefaultFileHasher(StreamHasher streamHasher, long channelReadThreshold) {
         this.streamHasher = streamHasher;
+        this.channelReadThreshold = channelReadThreshold;
     }
 
     @Override
@@ -48,8 +62,23 @@ public HashCode hash(File file) {
         }
     }
 
+    /**
+     * Uses the length of the file to read large files via a {@link FileChannel}.
+     *
+     * Files are not memory mapped, as a mapped file cannot be deleted on Windows until the mapping is garbage collected,
+     * and a file truncated while it is mapped crashes the JVM on access.
+     */
     @Override
     public HashCode hash(File file, long length, long lastModified) {
-        return hash(file);
+        if (length < channelReadThreshold) {
+            return hash(file);
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return streamHasher.hash(channel);
+        } catch (NoSuchFileException e) {
+            throw new UncheckedIOException(String.format("Failed to create MD5 hash for file '%s' as it does not exist.", file), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Failed to create MD5 hash for file '%s'.", file), e);
+        }
     }
 }
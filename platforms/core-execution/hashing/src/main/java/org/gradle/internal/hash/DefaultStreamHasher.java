@@ -21,6 +21,9 @@
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
 import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 
@@ -43,6 +46,27 @@ public HashCode hashCopy(InputStream inputStream, OutputStream outputStream) thr
         return doHash(inputStream, outputStream);
     }
 
+    /**
+     * Reads the channel into the same pooled heap buffers as streams.
+     * Direct buffers would not help here, since the message digest copies their content to a heap array anyway.
+     */
+    @Override
+    public HashCode hash(ReadableByteChannel channel) throws IOException {
+        byte[] buffer = takeBuffer();
+        try {
+            ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+            PrimitiveHasher hasher = Hashing.newPrimitiveHasher();
+            hasher.putHash(SIGNATURE);
+            while (channel.read(byteBuffer) >= 0) {
+                hasher.putBytes(buffer, 0, byteBuffer.position());
+                castBuffer(byteBuffer).clear();
+            }
+            return hasher.hash();
+        } finally {
+            returnBuffer(buffer);
+        }
+    }
+
     private HashCode doHash(InputStream inputStream, OutputStream outputStream) throws IOException {
         byte[] buffer = takeBuffer();
         try {
@@ -67,6 +91,15 @@ private void returnBuffer(byte[] buffer) {
         buffers.offer(buffer);
     }
 
+    /**
+     * Without this cast, when the code compiled by Java 9+ is executed on Java 8, it will throw
+     * java.lang.NoSuchMethodError: Method flip()Ljava/nio/ByteBuffer; does not exist in class java.nio.ByteBuffer
+     */
+    @SuppressWarnings("RedundantCast")
+    private static <T extends Buffer> Buffer castBuffer(T byteBuffer) {
+        return (Buffer) byteBuffer;
+    }
+
     private byte[] takeBuffer() {
         byte[] buffer = buffers.poll();
         if (buffer == null) {
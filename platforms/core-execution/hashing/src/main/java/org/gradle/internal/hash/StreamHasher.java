@@ -21,6 +21,7 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.ReadableByteChannel;
 
 @ServiceScope(Scope.Global.class)
 public interface StreamHasher {
@@ -34,4 +35,10 @@ public interface StreamHasher {
      * The method will not close either stream.
      */
     HashCode hashCopy(InputStream inputStream, OutputStream outputStream) throws IOException;
+
+    /**
+     * Returns the hash of the remaining content of the given channel, which is the same as the hash of a stream with that content.
+     * The channel will not be closed by the method.
+     */
+    HashCode hash(ReadableByteChannel channel) throws IOException;
 }
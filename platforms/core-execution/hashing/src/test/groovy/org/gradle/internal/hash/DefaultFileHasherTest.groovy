@@ -0,0 +1,56 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+class DefaultFileHasherTest extends Specification {
+    @TempDir
+    File tmpDir
+
+    def streamHasher = new DefaultStreamHasher()
+
+    def "hashes large files via channel the same as via stream"() {
+        def file = new File(tmpDir, "large.bin")
+        def content = new byte[3 * 1024 * 1024 + 5]
+        new Random(1234L).nextBytes(content)
+        file.bytes = content
+
+        expect:
+        new DefaultFileHasher(streamHasher, 1024).hash(file, file.length(), file.lastModified()) == streamHasher.hash(new ByteArrayInputStream(content))
+    }
+
+    def "hashes small files via stream"() {
+        def file = new File(tmpDir, "small.txt")
+        file.text = "hello"
+
+        expect:
+        new DefaultFileHasher(streamHasher).hash(file, file.length(), file.lastModified()).toString() == "af67a92e9f73b51572e9b94e343d2840"
+    }
+
+    def "reports missing file when reading via channel"() {
+        def file = new File(tmpDir, "missing.bin")
+
+        when:
+        new DefaultFileHasher(streamHasher, 0).hash(file, 4096, 0)
+
+        then:
+        def e = thrown(UncheckedIOException)
+        e.message == "Failed to create MD5 hash for file '${file}' as it does not exist."
+    }
+}
@@ -1,6 +1,7 @@
 plugins {
     id("gradlebuild.distribution.api-java")
     id("gradlebuild.publish-public-libraries")
+    id("gradlebuild.jmh")
 }
 
 description = """Persistent caches on disk and cross process locking.
@@ -17,6 +18,7 @@ dependencies {
 
     api(libs.jsr305)
 
+    implementation(projects.baseServices)
     implementation(projects.io)
     implementation(projects.time)
 
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree;
+
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Compares random reads and writes of a {@link BTreePersistentIndexedCache} backed by a {@link FileBackedBlockStore} and a {@link MemoryMappedBlockStore}.
+ */
+@Fork(1)
+@Threads(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class BlockStoreBenchmark {
+    private static final short MAX_CHILD_INDEX_ENTRIES = 512;
+    private static final int MAX_FREE_LIST_ENTRIES = 512;
+
+    @Param({"10000", "1000000"})
+    int entries;
+
+    @Param({"file", "mapped"})
+    String store;
+
+    File cacheFile;
+    BTreePersistentIndexedCache<String, byte[]> cache;
+    Random random;
+    byte[] value;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        cacheFile = File.createTempFile("block-store", ".bin");
+        Files.delete(cacheFile.toPath());
+        cache = createCache();
+        random = new Random(1234L);
+        value = new byte[200];
+        for (int i = 0; i < entries; i++) {
+            random.nextBytes(value);
+            cache.put(keyFor(i), value);
+        }
+        // Start reading from a freshly opened file, like a new build does
+        cache.close();
+        cache = createCache();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        cache.close();
+        Files.delete(cacheFile.toPath());
+    }
+
+    @Benchmark
+    public void get(Blackhole blackhole) {
+        blackhole.consume(cache.get(keyFor(random.nextInt(entries))));
+    }
+
+    @Benchmark
+    public void put() {
+        random.nextBytes(value);
+        cache.put(keyFor(random.nextInt(entries)), value);
+    }
+
+    private BTreePersistentIndexedCache<String, byte[]> createCache() {
+        BlockStore blockStore = store.equals("mapped") ? new MemoryMappedBlockStore(cacheFile) : new FileBackedBlockStore(cacheFile);
+        return new BTreePersistentIndexedCache<>(cacheFile, BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.BYTE_ARRAY_SERIALIZER, MAX_CHILD_INDEX_ENTRIES, MAX_FREE_LIST_ENTRIES, blockStore);
+    }
+
+    private static String keyFor(int index) {
+        return "key-" + index;
+    }
+}
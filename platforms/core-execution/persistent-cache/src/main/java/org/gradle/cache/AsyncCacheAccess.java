@@ -26,6 +26,14 @@ public interface AsyncCacheAccess {
      */
     void enqueue(Runnable task);
 
+    /**
+     * Submits an update of the cache entry identified by the given key for execution without waiting for the result.
+     *
+     * Behaves like {@link #enqueue(Runnable)}, except that an implementation may skip an update that has not started yet when a later update of the same entry is submitted.
+     * The completion action of each submitted update is run exactly once, after the update has been applied or skipped.
+     */
+    void enqueueUpdate(Object key, Runnable update, Runnable completion);
+
     /**
      * Runs the given action, blocking until the result is available.
      *
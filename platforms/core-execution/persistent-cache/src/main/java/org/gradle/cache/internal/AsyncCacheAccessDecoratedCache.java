@@ -51,13 +51,7 @@ public V get(K key, Function<? super K, ? extends V> producer, Runnable completi
     @Override
     public void putLater(final K key, final V value, final Runnable completion) {
         try {
-            asyncCacheAccess.enqueue(() -> {
-                try {
-                    indexedCache.put(key, value);
-                } finally {
-                    completion.run();
-                }
-            });
+            asyncCacheAccess.enqueueUpdate(new EntryKey(indexedCache, key), () -> indexedCache.put(key, value), completion);
         } catch (RuntimeException e) {
             completion.run();
             throw e;
@@ -67,13 +61,7 @@ public void putLater(final K key, final V value, final Runnable completion) {
     @Override
     public void removeLater(final K key, final Runnable completion) {
         try {
-            asyncCacheAccess.enqueue(() -> {
-                try {
-                    indexedCache.remove(key);
-                } finally {
-                    completion.run();
-                }
-            });
+            asyncCacheAccess.enqueueUpdate(new EntryKey(indexedCache, key), () -> indexedCache.remove(key), completion);
         } catch (RuntimeException e) {
             completion.run();
             throw e;
@@ -94,4 +82,34 @@ public void finishWork() {
     public void beforeLockRelease(FileLock.State currentCacheState) {
         indexedCache.beforeLockRelease(currentCacheState);
     }
+
+    /**
+     * Identifies an entry of a particular cache, so updates of the same entry can be coalesced.
+     */
+    private static final class EntryKey {
+        private final Object cache;
+        private final Object key;
+
+        EntryKey(Object cache, Object key) {
+            this.cache = cache;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            EntryKey other = (EntryKey) o;
+            return cache == other.cache && key.equals(other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(cache) + key.hashCode();
+        }
+    }
 }
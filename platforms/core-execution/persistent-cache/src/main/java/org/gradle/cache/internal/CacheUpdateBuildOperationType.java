@@ -0,0 +1,60 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+import org.gradle.internal.operations.BuildOperationType;
+
+/**
+ * A batch of queued operations applied to a cache while holding the cache lock.
+ *
+ * <p>The batch runs on the worker thread of the cache and has no parent operation.
+ * Its operations are submitted by many build operations, which have usually completed by the time the batch runs,
+ * and a cache can outlive the build which submitted them. So there is no single operation that the batch belongs to.</p>
+ */
+public final class CacheUpdateBuildOperationType implements BuildOperationType<CacheUpdateBuildOperationType.Details, CacheUpdateBuildOperationType.Result> {
+
+    public interface Details {
+
+        /**
+         * Returns the display name of the cache.
+         */
+        String getCacheDisplayName();
+
+        /**
+         * The number of operations waiting in the queue when the batch started.
+         */
+        int getQueueDepth();
+    }
+
+    public interface Result {
+
+        /**
+         * The number of operations applied in this batch.
+         */
+        int getOperationCount();
+
+        /**
+         * The number of updates skipped since the previous batch, because a later update of the same entry had been submitted before they were applied.
+         */
+        int getCoalescedUpdateCount();
+
+        /**
+         * The longest time an operation of this batch waited in the queue before it was applied, in milliseconds.
+         */
+        long getFlushLatencyMillis();
+    }
+}
@@ -21,25 +21,63 @@
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.concurrent.ExecutorPolicy;
 import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationRunner;
+import org.gradle.internal.operations.RunnableBuildOperation;
 import org.gradle.internal.time.CountdownTimer;
 import org.gradle.internal.time.Time;
 
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 
+/**
+ * Runs the operations submitted to a cache on a single thread, applying them in batches while holding the cache lock.
+ *
+ * <p>Updates of the same entry that are still waiting in the queue are coalesced, so only the latest of them is applied.
+ * The queue starts with a capacity proportional to the heap size and grows up to a maximum capacity instead of blocking producers.
+ * While holding the cache lock, the worker waits for further operations for a batch window that follows the rate at which operations are submitted, up to a maximum.</p>
+ *
+ * <p>Each batch is reported as a top-level {@link CacheUpdateBuildOperationType} build operation, when a build operation runner is available.</p>
+ */
 public class ExclusiveCacheAccessingWorker implements Runnable, Stoppable, AsyncCacheAccess {
-    private final BlockingQueue<Runnable> workQueue;
+    private static final long MINIMUM_BATCH_WINDOW_MILLIS = 10;
+    /**
+     * The batch window is this multiple of the average time between submitted operations.
+     */
+    private static final int BATCH_WINDOW_ARRIVAL_GAPS = 4;
+
     private final String displayName;
     private final ExclusiveCacheAccessCoordinator cacheAccess;
-    private final long batchWindowMillis;
+    @Nullable
+    private final BuildOperationRunner buildOperationRunner;
+    private final long maximumBatchWindowMillis;
     private final long maximumLockingTimeMillis;
+    private final int maximumQueueCapacity;
+
+    private final Lock queueLock = new ReentrantLock(true); // protects the following state
+    private final Condition workAvailable = queueLock.newCondition();
+    private final Condition spaceAvailable = queueLock.newCondition();
+    private final Deque<QueuedOperation> workQueue = new ArrayDeque<QueuedOperation>();
+    private final Map<Object, CoalescingUpdate> pendingUpdates = new HashMap<Object, CoalescingUpdate>();
+    private int queueCapacity;
+    private int coalescedUpdates;
+    private long lastSubmissionNanos;
+    private long averageSubmissionGapNanos = TimeUnit.MILLISECONDS.toNanos(MINIMUM_BATCH_WINDOW_MILLIS);
+
     private boolean closed;
     private boolean workerCompleted;
     private boolean stopSeen;
@@ -47,13 +85,36 @@ public class ExclusiveCacheAccessingWorker implements Runnable, Stoppable, Async
     private final ExecutorPolicy.CatchAndRecordFailures failureHandler = new ExecutorPolicy.CatchAndRecordFailures();
 
     public ExclusiveCacheAccessingWorker(String displayName, ExclusiveCacheAccessCoordinator cacheAccess) {
+        this(displayName, cacheAccess, null);
+    }
+
+    public ExclusiveCacheAccessingWorker(String displayName, ExclusiveCacheAccessCoordinator cacheAccess, @Nullable BuildOperationRunner buildOperationRunner) {
+        this(displayName, cacheAccess, buildOperationRunner, initialQueueCapacity(), maximumQueueCapacity(), 200);
+    }
+
+    public ExclusiveCacheAccessingWorker(
+        String displayName,
+        ExclusiveCacheAccessCoordinator cacheAccess,
+        @Nullable BuildOperationRunner buildOperationRunner,
+        int initialQueueCapacity,
+        int maximumQueueCapacity,
+        long maximumBatchWindowMillis
+    ) {
         this.displayName = displayName;
         this.cacheAccess = cacheAccess;
-        this.batchWindowMillis = 200;
+        this.buildOperationRunner = buildOperationRunner;
+        this.queueCapacity = initialQueueCapacity;
+        this.maximumQueueCapacity = Math.max(initialQueueCapacity, maximumQueueCapacity);
+        this.maximumBatchWindowMillis = maximumBatchWindowMillis;
         this.maximumLockingTimeMillis = 5000;
-        HeapProportionalCacheSizer heapProportionalCacheSizer = new HeapProportionalCacheSizer();
-        int queueCapacity = Math.min(4000, heapProportionalCacheSizer.scaleCacheSize(40000));
-        workQueue = new ArrayBlockingQueue<Runnable>(queueCapacity, true);
+    }
+
+    private static int initialQueueCapacity() {
+        return Math.min(4000, new HeapProportionalCacheSizer().scaleCacheSize(40000));
+    }
+
+    private static int maximumQueueCapacity() {
+        return new HeapProportionalCacheSizer().scaleCacheSize(40000);
     }
 
     @Override
@@ -61,14 +122,164 @@ public void enqueue(Runnable task) {
         addToQueue(task);
     }
 
+    @Override
+    public void enqueueUpdate(Object key, Runnable update, Runnable completion) {
+        Runnable skippedCompletion;
+        queueLock.lock();
+        try {
+            while (true) {
+                assertNotClosed();
+                CoalescingUpdate pendingUpdate = pendingUpdates.get(key);
+                if (pendingUpdate != null) {
+                    skippedCompletion = pendingUpdate.replace(update, completion);
+                    coalescedUpdates++;
+                    break;
+                }
+                if (hasSpace()) {
+                    pendingUpdate = new CoalescingUpdate(key, update, completion);
+                    pendingUpdates.put(key, pendingUpdate);
+                    add(pendingUpdate);
+                    return;
+                }
+                spaceAvailable.await();
+            }
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            queueLock.unlock();
+        }
+        skippedCompletion.run();
+    }
+
     private void addToQueue(Runnable task) {
+        queueLock.lock();
+        try {
+            assertNotClosed();
+            putInQueue(task);
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    private void assertNotClosed() {
         if (closed) {
             throw new IllegalStateException("The worker has already been closed. Cannot add more work to queue.");
         }
+    }
+
+    private void putInQueue(Runnable task) throws InterruptedException {
+        queueLock.lock();
         try {
-            workQueue.put(task);
-        } catch (InterruptedException e) {
-            throw UncheckedException.throwAsUncheckedException(e);
+            while (!hasSpace()) {
+                spaceAvailable.await();
+            }
+            add(task);
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    private boolean hasSpace() {
+        if (workQueue.size() < queueCapacity) {
+            return true;
+        }
+        if (queueCapacity < maximumQueueCapacity) {
+            // Grow the queue instead of blocking the producer
+            queueCapacity = (int) Math.min(maximumQueueCapacity, 2L * queueCapacity);
+            return true;
+        }
+        return false;
+    }
+
+    private void add(Runnable task) {
+        long now = System.nanoTime();
+        if (lastSubmissionNanos != 0) {
+            averageSubmissionGapNanos = (7 * averageSubmissionGapNanos + (now - lastSubmissionNanos)) / 8;
+        }
+        lastSubmissionNanos = now;
+        workQueue.add(new QueuedOperation(task, now));
+        workAvailable.signal();
+    }
+
+    private QueuedOperation takeFromQueue() throws InterruptedException {
+        queueLock.lock();
+        try {
+            while (workQueue.isEmpty()) {
+                workAvailable.await();
+            }
+            return remove();
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    @Nullable
+    private QueuedOperation pollFromQueue(long timeoutMillis) throws InterruptedException {
+        queueLock.lock();
+        try {
+            long remainingNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            while (workQueue.isEmpty()) {
+                if (remainingNanos <= 0) {
+                    return null;
+                }
+                remainingNanos = workAvailable.awaitNanos(remainingNanos);
+            }
+            return remove();
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    private QueuedOperation remove() {
+        QueuedOperation operation = workQueue.removeFirst();
+        spaceAvailable.signal();
+        return operation;
+    }
+
+    private List<QueuedOperation> drainQueue() {
+        queueLock.lock();
+        try {
+            List<QueuedOperation> operations = new ArrayList<QueuedOperation>(workQueue);
+            workQueue.clear();
+            spaceAvailable.signalAll();
+            return operations;
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    private int getQueueDepth() {
+        queueLock.lock();
+        try {
+            return workQueue.size();
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    private int takeCoalescedUpdates() {
+        queueLock.lock();
+        try {
+            int count = coalescedUpdates;
+            coalescedUpdates = 0;
+            return count;
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    /**
+     * Returns how long to wait for further operations while holding the cache lock.
+     */
+    private long getBatchWindowMillis() {
+        queueLock.lock();
+        try {
+            long windowMillis = TimeUnit.NANOSECONDS.toMillis(BATCH_WINDOW_ARRIVAL_GAPS * averageSubmissionGapNanos);
+            return Math.min(maximumBatchWindowMillis, Math.max(MINIMUM_BATCH_WINDOW_MILLIS, windowMillis));
+        } finally {
+            queueLock.unlock();
         }
     }
 
@@ -124,19 +335,19 @@ public void run() {
         try {
             while (!Thread.currentThread().isInterrupted() && !stopSeen) {
                 try {
-                    Runnable runnable = takeFromQueue();
-                    Class<? extends Runnable> runnableClass = runnable.getClass();
+                    QueuedOperation operation = takeFromQueue();
+                    Class<? extends Runnable> runnableClass = operation.runnable.getClass();
                     if (runnableClass == ShutdownOperationsCommand.class) {
                         // not holding the cache lock, can stop now
                         stopSeen = true;
                         break;
                     } else if (runnableClass == FlushOperationsCommand.class) {
                         // not holding the cache lock, flush is done so notify flush thread and continue
-                        FlushOperationsCommand flushOperationsCommand = (FlushOperationsCommand) runnable;
+                        FlushOperationsCommand flushOperationsCommand = (FlushOperationsCommand) operation.runnable;
                         flushOperationsCommand.completed();
                     } else {
                         // need to run operation under cache lock
-                        flushOperations(runnable);
+                        flushOperations(operation);
                     }
                 } catch (InterruptedException e) {
                     throw UncheckedException.throwAsUncheckedException(e);
@@ -146,11 +357,9 @@ public void run() {
             failureHandler.onFailure("Failed to execute cache operations on " + displayName, t);
         } finally {
             // Notify any waiting flush threads that the worker is done, possibly with a failure
-            List<Runnable> runnables = new ArrayList<Runnable>();
-            workQueue.drainTo(runnables);
-            for (Runnable runnable : runnables) {
-                if (runnable instanceof FlushOperationsCommand) {
-                    FlushOperationsCommand flushOperationsCommand = (FlushOperationsCommand) runnable;
+            for (QueuedOperation operation : drainQueue()) {
+                if (operation.runnable instanceof FlushOperationsCommand) {
+                    FlushOperationsCommand flushOperationsCommand = (FlushOperationsCommand) operation.runnable;
                     flushOperationsCommand.completed();
                 }
             }
@@ -159,42 +368,26 @@ public void run() {
         }
     }
 
-    private Runnable takeFromQueue() throws InterruptedException {
-        return workQueue.take();
-    }
-
-    private void flushOperations(final Runnable updateOperation) {
+    private void flushOperations(final QueuedOperation updateOperation) {
         final List<FlushOperationsCommand> flushOperations = new ArrayList<FlushOperationsCommand>();
         try {
-            cacheAccess.useCache(new Runnable() {
-                @Override
-                public void run() {
-                    CountdownTimer timer = Time.startCountdownTimer(maximumLockingTimeMillis, TimeUnit.MILLISECONDS);
-                    if (updateOperation != null) {
-                        failureHandler.onExecute(updateOperation);
+            if (buildOperationRunner == null) {
+                applyBatch(updateOperation, flushOperations);
+            } else {
+                final int queueDepth = getQueueDepth() + 1;
+                buildOperationRunner.run(new RunnableBuildOperation() {
+                    @Override
+                    public void run(BuildOperationContext context) {
+                        context.setResult(applyBatch(updateOperation, flushOperations));
                     }
-                    Runnable otherOperation;
-                    try {
-                        while ((otherOperation = workQueue.poll(batchWindowMillis, TimeUnit.MILLISECONDS)) != null) {
-                            failureHandler.onExecute(otherOperation);
-                            final Class<? extends Runnable> runnableClass = otherOperation.getClass();
-                            if (runnableClass == FlushOperationsCommand.class) {
-                                flushOperations.add((FlushOperationsCommand) otherOperation);
-                            }
-                            if (runnableClass == ShutdownOperationsCommand.class) {
-                                stopSeen = true;
-                            }
-                            if (runnableClass == ShutdownOperationsCommand.class
-                                    || runnableClass == FlushOperationsCommand.class
-                                    || timer.hasExpired()) {
-                                break;
-                            }
-                        }
-                    } catch (InterruptedException e) {
-                        throw UncheckedException.throwAsUncheckedException(e);
+
+                    @Override
+                    public BuildOperationDescriptor.Builder description() {
+                        return BuildOperationDescriptor.displayName("Update " + displayName)
+                            .details(new BatchDetails(displayName, queueDepth));
                     }
-                }
-            });
+                });
+            }
         } finally {
             for (FlushOperationsCommand flushOperation : flushOperations) {
                 flushOperation.completed();
@@ -202,14 +395,50 @@ public void run() {
         }
     }
 
+    private BatchResult applyBatch(final QueuedOperation updateOperation, final List<FlushOperationsCommand> flushOperations) {
+        final BatchResult result = new BatchResult();
+        cacheAccess.useCache(new Runnable() {
+            @Override
+            public void run() {
+                CountdownTimer timer = Time.startCountdownTimer(maximumLockingTimeMillis, TimeUnit.MILLISECONDS);
+                result.execute(updateOperation);
+                QueuedOperation otherOperation;
+                try {
+                    while ((otherOperation = pollFromQueue(getBatchWindowMillis())) != null) {
+                        result.execute(otherOperation);
+                        final Class<? extends Runnable> runnableClass = otherOperation.runnable.getClass();
+                        if (runnableClass == FlushOperationsCommand.class) {
+                            flushOperations.add((FlushOperationsCommand) otherOperation.runnable);
+                        }
+                        if (runnableClass == ShutdownOperationsCommand.class) {
+                            stopSeen = true;
+                        }
+                        if (runnableClass == ShutdownOperationsCommand.class
+                                || runnableClass == FlushOperationsCommand.class
+                                || timer.hasExpired()) {
+                            break;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+        });
+        result.coalescedUpdateCount = takeCoalescedUpdates();
+        return result;
+    }
+
     @Override
     public synchronized void stop() {
         if (!closed && !workerCompleted) {
-            closed = true;
+            queueLock.lock();
             try {
-                workQueue.put(new ShutdownOperationsCommand());
+                closed = true;
+                putInQueue(new ShutdownOperationsCommand());
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
+            } finally {
+                queueLock.unlock();
             }
             try {
                 doneSignal.await();
@@ -226,4 +455,109 @@ public void run() {
             // do nothing
         }
     }
+
+    private static class QueuedOperation {
+        final Runnable runnable;
+        final long submittedNanos;
+
+        QueuedOperation(Runnable runnable, long submittedNanos) {
+            this.runnable = runnable;
+            this.submittedNanos = submittedNanos;
+        }
+    }
+
+    /**
+     * An update of a cache entry that is waiting in the queue, which is replaced by later updates of the same entry.
+     */
+    private class CoalescingUpdate implements Runnable {
+        private final Object key;
+        private Runnable update;
+        private Runnable completion;
+
+        CoalescingUpdate(Object key, Runnable update, Runnable completion) {
+            this.key = key;
+            this.update = update;
+            this.completion = completion;
+        }
+
+        /**
+         * Replaces the update, returning the completion of the replaced update. Must be called while holding the queue lock.
+         */
+        Runnable replace(Runnable update, Runnable completion) {
+            Runnable replacedCompletion = this.completion;
+            this.update = update;
+            this.completion = completion;
+            return replacedCompletion;
+        }
+
+        @Override
+        public void run() {
+            Runnable update;
+            Runnable completion;
+            queueLock.lock();
+            try {
+                // Later updates of the entry are queued separately from now on
+                pendingUpdates.remove(key);
+                update = this.update;
+                completion = this.completion;
+            } finally {
+                queueLock.unlock();
+            }
+            try {
+                update.run();
+            } finally {
+                completion.run();
+            }
+        }
+    }
+
+    private class BatchResult implements CacheUpdateBuildOperationType.Result {
+        private int operationCount;
+        private int coalescedUpdateCount;
+        private long maximumLatencyNanos;
+
+        void execute(QueuedOperation operation) {
+            failureHandler.onExecute(operation.runnable);
+            Class<? extends Runnable> runnableClass = operation.runnable.getClass();
+            if (runnableClass != FlushOperationsCommand.class && runnableClass != ShutdownOperationsCommand.class) {
+                operationCount++;
+                maximumLatencyNanos = Math.max(maximumLatencyNanos, System.nanoTime() - operation.submittedNanos);
+            }
+        }
+
+        @Override
+        public int getOperationCount() {
+            return operationCount;
+        }
+
+        @Override
+        public int getCoalescedUpdateCount() {
+            return coalescedUpdateCount;
+        }
+
+        @Override
+        public long getFlushLatencyMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maximumLatencyNanos);
+        }
+    }
+
+    private static class BatchDetails implements CacheUpdateBuildOperationType.Details {
+        private final String cacheDisplayName;
+        private final int queueDepth;
+
+        BatchDetails(String cacheDisplayName, int queueDepth) {
+            this.cacheDisplayName = cacheDisplayName;
+            this.queueDepth = queueDepth;
+        }
+
+        @Override
+        public String getCacheDisplayName() {
+            return cacheDisplayName;
+        }
+
+        @Override
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+    }
 }
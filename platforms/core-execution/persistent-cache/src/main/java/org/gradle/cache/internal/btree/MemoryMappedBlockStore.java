@@ -0,0 +1,466 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.os.OperatingSystem;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * A {@link BlockStore} that reads and writes blocks through memory mappings of the cache file, using the same file format as {@link FileBackedBlockStore}.
+ *
+ * <p>The file is mapped in regions of a fixed size, which are created on first access and kept until the store is closed.
+ * Mapping a region for writing grows the file to the end of the region, so the file is truncated to the end of the last block when the store is closed.
+ * When the process stops without closing the store, the padding is removed the next time the store is opened.</p>
+ *
+ * <p>Reads do not modify any shared state apart from lazily adding regions, so they can run concurrently without locking.
+ * Writes and the other operations must not run concurrently with any other operation, which is guaranteed by the exclusive access to the enclosing cache.</p>
+ *
+ * <p>Truncating a mapped file is not supported on Windows, so this store is only used on other operating systems.</p>
+ */
+public class MemoryMappedBlockStore implements BlockStore {
+    /**
+     * Set this system property to {@code true} to use memory mapped block stores for the {@link BTreePersistentIndexedCache}.
+     */
+    public static final String MEMORY_MAPPED_BLOCK_STORE_PROPERTY = "org.gradle.internal.cache.memory-mapped-block-store";
+    static final int DEFAULT_REGION_SIZE = 16 * 1024 * 1024;
+    private static final MappedByteBuffer[] NO_REGIONS = new MappedByteBuffer[0];
+
+    private final File cacheFile;
+    private final int regionSize;
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private boolean writable;
+    private volatile MappedByteBuffer[] regions = NO_REGIONS;
+    private volatile long currentFileSize;
+    private long nextBlock;
+    private Factory factory;
+
+    public MemoryMappedBlockStore(File cacheFile) {
+        this(cacheFile, DEFAULT_REGION_SIZE);
+    }
+
+    MemoryMappedBlockStore(File cacheFile, int regionSize) {
+        this.cacheFile = cacheFile;
+        this.regionSize = regionSize;
+    }
+
+    /**
+     * Whether memory mapped block stores should be used in this process.
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(MEMORY_MAPPED_BLOCK_STORE_PROPERTY)
+            && !OperatingSystem.current().isWindows();
+    }
+
+    @Override
+    public String toString() {
+        return "cache '" + cacheFile + "'";
+    }
+
+    @Override
+    public void open(Runnable runnable, Factory factory) {
+        this.factory = factory;
+        try {
+            cacheFile.getParentFile().mkdirs();
+            openFile();
+            channel = file.getChannel();
+            currentFileSize = channel.size();
+            if (hasRegionPadding(currentFileSize)) {
+                currentFileSize = findEndOfBlocks(currentFileSize);
+                if (writable) {
+                    channel.truncate(currentFileSize);
+                }
+            }
+            nextBlock = currentFileSize;
+            if (currentFileSize == 0) {
+                runnable.run();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void openFile() throws IOException {
+        try {
+            file = new RandomAccessFile(cacheFile, "rw");
+            writable = true;
+        } catch (IOException e) {
+            file = new RandomAccessFile(cacheFile, "r");
+            writable = false;
+        }
+    }
+
+    /**
+     * Whether the file may end with the padding of a region that was mapped for writing, because the store was not closed.
+     * Such a file ends at a region boundary with zeros, where a complete file ends with the byte count of its last block.
+     */
+    private boolean hasRegionPadding(long fileSize) throws IOException {
+        if (fileSize == 0 || fileSize % regionSize != 0) {
+            return false;
+        }
+        ByteBuffer tail = ByteBuffer.allocate(Block.INT_SIZE);
+        readFully(tail, fileSize - Block.INT_SIZE);
+        return tail.getInt(0) == 0;
+    }
+
+    /**
+     * Finds the end of the last block by following the block sizes from the start of the file, stopping at the first position that holds no block.
+     */
+    private long findEndOfBlocks(long fileSize) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(BlockImpl.HEADER_SIZE);
+        long pos = 0;
+        while (pos + BlockImpl.HEADER_SIZE <= fileSize) {
+            readFully(header, pos);
+            byte type = header.get(0);
+            int payloadSize = header.getInt(1);
+            long end = pos + BlockImpl.HEADER_SIZE + payloadSize + BlockImpl.TAIL_SIZE;
+            if (type == 0 || payloadSize < 0 || end > fileSize) {
+                break;
+            }
+            pos = end;
+        }
+        return pos;
+    }
+
+    private void readFully(ByteBuffer buffer, long pos) throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, pos + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of " + cacheFile);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        regions = NO_REGIONS;
+        try {
+            try {
+                if (writable && channel.size() > currentFileSize) {
+                    // Remove the padding added by mapping the last region
+                    channel.truncate(currentFileSize);
+                }
+            } finally {
+                file.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void clear() {
+        regions = NO_REGIONS;
+        try {
+            channel.truncate(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        currentFileSize = 0;
+        nextBlock = 0;
+    }
+
+    @Override
+    public void attach(BlockPayload block) {
+        if (block.getBlock() == null) {
+            block.setBlock(new BlockImpl(block));
+        }
+    }
+
+    @Override
+    public void remove(BlockPayload block) {
+        BlockImpl blockImpl = (BlockImpl) block.getBlock();
+        blockImpl.detach();
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public <T extends BlockPayload> T readFirst(Class<T> payloadType) {
+        return read(BlockPointer.pos(0), payloadType);
+    }
+
+    @Override
+    public <T extends BlockPayload> T read(BlockPointer pos, Class<T> payloadType) {
+        assert !pos.isNull();
+        try {
+            T payload = payloadType.cast(factory.create(payloadType));
+            BlockImpl block = new BlockImpl(payload, pos);
+            block.read();
+            return payload;
+        } catch (CorruptedCacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void write(BlockPayload block) {
+        BlockImpl blockImpl = (BlockImpl) block.getBlock();
+        try {
+            blockImpl.write();
+        } catch (CorruptedCacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long alloc(long length) {
+        long pos = nextBlock;
+        nextBlock += length;
+        return pos;
+    }
+
+    private MappedByteBuffer region(int index) throws IOException {
+        MappedByteBuffer[] current = regions;
+        if (index < current.length && current[index] != null) {
+            return current[index];
+        }
+        return mapRegion(index);
+    }
+
+    private synchronized MappedByteBuffer mapRegion(int index) throws IOException {
+        MappedByteBuffer[] current = regions;
+        if (index < current.length && current[index] != null) {
+            return current[index];
+        }
+        long start = (long) index * regionSize;
+        MappedByteBuffer region = writable
+            ? channel.map(FileChannel.MapMode.READ_WRITE, start, regionSize)
+            : channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(regionSize, Math.max(0, channel.size() - start)));
+        MappedByteBuffer[] updated = Arrays.copyOf(current, Math.max(current.length, index + 1));
+        updated[index] = region;
+        regions = updated;
+        return region;
+    }
+
+    private final class BlockImpl extends Block {
+        private static final int HEADER_SIZE = 1 + INT_SIZE; // type, payload size
+        private static final int TAIL_SIZE = INT_SIZE;
+
+        private BlockPointer pos;
+        private int payloadSize;
+
+        private BlockImpl(BlockPayload payload, BlockPointer pos) {
+            this(payload);
+            setPos(pos);
+        }
+
+        public BlockImpl(BlockPayload payload) {
+            super(payload);
+            pos = null;
+            payloadSize = -1;
+        }
+
+        @Override
+        public boolean hasPos() {
+            return pos != null;
+        }
+
+        @Override
+        public BlockPointer getPos() {
+            if (pos == null) {
+                pos = BlockPointer.pos(alloc(getSize()));
+            }
+            return pos;
+        }
+
+        @Override
+        public void setPos(BlockPointer pos) {
+            assert this.pos == null && !pos.isNull();
+            this.pos = pos;
+        }
+
+        @Override
+        public int getSize() {
+            if (payloadSize < 0) {
+                payloadSize = getPayload().getSize();
+            }
+            return payloadSize + HEADER_SIZE + TAIL_SIZE;
+        }
+
+        @Override
+        public void setSize(int size) {
+            int newPayloadSize = size - HEADER_SIZE - TAIL_SIZE;
+            assert newPayloadSize >= payloadSize;
+            payloadSize = newPayloadSize;
+        }
+
+        public void write() throws Exception {
+            long pos = getPos().getPos();
+
+            MappedOutputStream output = new MappedOutputStream(pos);
+            DataOutputStream outputStream = new DataOutputStream(output);
+
+            BlockPayload payload = getPayload();
+
+            // Write header
+            outputStream.writeByte(payload.getType());
+            outputStream.writeInt(payloadSize);
+            long finalSize = pos + HEADER_SIZE + TAIL_SIZE + payloadSize;
+
+            // Write body
+            payload.write(outputStream);
+
+            // Write count
+            long bytesWritten = output.getPosition() - pos;
+            if (bytesWritten > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Block payload exceeds maximum size");
+            }
+            outputStream.writeInt((int) bytesWritten);
+
+            // Extend the logical end of the file, the mapped region already covers the block
+            if (currentFileSize < finalSize) {
+                currentFileSize = finalSize;
+            }
+        }
+
+        public void read() throws Exception {
+            long pos = getPos().getPos();
+            assert pos >= 0;
+            long fileSize = currentFileSize;
+            if (pos + HEADER_SIZE >= fileSize) {
+                throw blockCorruptedException();
+            }
+
+            MappedInputStream input = new MappedInputStream(pos);
+            DataInputStream inputStream = new DataInputStream(input);
+
+            BlockPayload payload = getPayload();
+
+            // Read header
+            byte type = inputStream.readByte();
+            if (type != payload.getType()) {
+                throw blockCorruptedException();
+            }
+
+            // Read body
+            payloadSize = inputStream.readInt();
+            if (pos + HEADER_SIZE + TAIL_SIZE + payloadSize > fileSize) {
+                throw blockCorruptedException();
+            }
+            payload.read(inputStream);
+
+            // Read and verify count
+            long actualCount = input.getPosition() - pos;
+            long count = inputStream.readInt();
+            if (actualCount != count) {
+                throw blockCorruptedException();
+            }
+        }
+
+        @Override
+        public RuntimeException blockCorruptedException() {
+            return new CorruptedCacheException(String.format("Corrupted %s found in %s.", this,
+                    MemoryMappedBlockStore.this));
+        }
+    }
+
+    /**
+     * Reads from the mapped regions, starting at a given position. Does not modify the regions, so multiple streams can read concurrently.
+     */
+    private final class MappedInputStream extends InputStream {
+        private long position;
+
+        MappedInputStream(long position) {
+            this.position = position;
+        }
+
+        long getPosition() {
+            return position;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position >= currentFileSize) {
+                return -1;
+            }
+            int value = region((int) (position / regionSize)).get((int) (position % regionSize)) & 0xff;
+            position++;
+            return value;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            long available = currentFileSize - position;
+            if (available <= 0) {
+                return -1;
+            }
+            int offsetInRegion = (int) (position % regionSize);
+            int count = (int) Math.min(Math.min(len, available), regionSize - offsetInRegion);
+            ByteBuffer view = region((int) (position / regionSize)).duplicate();
+            view.position(offsetInRegion);
+            view.get(b, off, count);
+            position += count;
+            return count;
+        }
+    }
+
+    /**
+     * Writes to the mapped regions, starting at a given position and mapping new regions as required.
+     */
+    private final class MappedOutputStream extends OutputStream {
+        private long position;
+
+        MappedOutputStream(long position) {
+            this.position = position;
+        }
+
+        long getPosition() {
+            return position;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            region((int) (position / regionSize)).put((int) (position % regionSize), (byte) b);
+            position++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                int offsetInRegion = (int) (position % regionSize);
+                int count = Math.min(len, regionSize - offsetInRegion);
+                ByteBuffer view = region((int) (position / regionSize)).duplicate();
+                view.position(offsetInRegion);
+                view.put(b, off, count);
+                position += count;
+                off += count;
+                len -= count;
+            }
+        }
+    }
+}
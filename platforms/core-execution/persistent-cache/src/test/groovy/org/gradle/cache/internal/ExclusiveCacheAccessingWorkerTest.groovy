@@ -18,6 +18,7 @@ package org.gradle.cache.internal
 
 
 import org.gradle.cache.ExclusiveCacheAccessCoordinator
+import org.gradle.internal.operations.TestBuildOperationRunner
 import org.gradle.test.fixtures.concurrent.ConcurrentSpec
 
 class ExclusiveCacheAccessingWorkerTest extends ConcurrentSpec {
@@ -199,4 +200,91 @@ class ExclusiveCacheAccessingWorkerTest extends ConcurrentSpec {
         def e = thrown(RuntimeException)
         e == failure
     }
+
+    def "applies only the latest queued update of an entry"() {
+        given:
+        def values = [:]
+        def completed = 0
+        cacheAccessWorker.enqueueUpdate("a", { values.a = 1 }, { completed++ })
+        cacheAccessWorker.enqueueUpdate("b", { values.b = 1 }, { completed++ })
+        cacheAccessWorker.enqueueUpdate("a", { values.a = 2 }, { completed++ })
+
+        expect:
+        completed == 1
+
+        when:
+        start(cacheAccessWorker)
+        cacheAccessWorker.flush()
+
+        then:
+        values == [a: 2, b: 1]
+        completed == 3
+
+        cleanup:
+        cacheAccessWorker?.stop()
+    }
+
+    def "queues later update of an entry separately once the earlier update has started"() {
+        given:
+        def values = []
+        start(cacheAccessWorker)
+
+        when:
+        async {
+            cacheAccessWorker.enqueueUpdate("a", {
+                instant.running
+                thread.block()
+                values << 1
+            }, {})
+            thread.blockUntil.running
+            cacheAccessWorker.enqueueUpdate("a", { values << 2 }, {})
+        }
+        cacheAccessWorker.flush()
+
+        then:
+        values == [1, 2]
+
+        cleanup:
+        cacheAccessWorker?.stop()
+    }
+
+    def "grows queue up to maximum capacity"() {
+        given:
+        def worker = new ExclusiveCacheAccessingWorker("<cache>", cacheAccess, null, 1, 4, 200)
+        def counter = 0
+
+        when:
+        4.times { worker.enqueue { counter++ } }
+        start(worker)
+        worker.flush()
+
+        then:
+        counter == 4
+
+        cleanup:
+        worker?.stop()
+    }
+
+    def "reports batches as build operations"() {
+        given:
+        def buildOperationRunner = new TestBuildOperationRunner()
+        def worker = new ExclusiveCacheAccessingWorker("<cache>", cacheAccess, buildOperationRunner)
+        worker.enqueueUpdate("a", {}, {})
+        worker.enqueueUpdate("a", {}, {})
+        worker.enqueueUpdate("b", {}, {})
+
+        when:
+        start(worker)
+        worker.flush()
+
+        then:
+        def record = buildOperationRunner.log.mostRecent(CacheUpdateBuildOperationType)
+        record.details.cacheDisplayName == "<cache>"
+        record.details.queueDepth >= 2
+        record.result.operationCount == 2
+        record.result.coalescedUpdateCount == 1
+
+        cleanup:
+        worker?.stop()
+    }
 }
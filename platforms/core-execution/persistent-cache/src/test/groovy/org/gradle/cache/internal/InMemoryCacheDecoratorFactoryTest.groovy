@@ -146,7 +146,7 @@ class InMemoryCacheDecoratorFactoryTest extends Specification {
 
         then:
         1 * crossProcessCacheAccess.acquireFileLock() >> lock
-        1 * asyncCacheAccess.enqueue(_) >> { Runnable action -> action.run() }
+        1 * asyncCacheAccess.enqueueUpdate(_, _, _) >> { k, Runnable update, Runnable completion -> update.run(); completion.run() }
         1 * target.put("key", "new value")
         1 * lock.run()
         0 * _._
@@ -185,7 +185,7 @@ class InMemoryCacheDecoratorFactoryTest extends Specification {
 
         then:
         1 * crossProcessCacheAccess.acquireFileLock() >> lock
-        1 * asyncCacheAccess.enqueue(_) >> { Runnable action -> action.run() }
+        1 * asyncCacheAccess.enqueueUpdate(_, _, _) >> { k, Runnable update, Runnable completion -> update.run(); completion.run() }
         1 * target.remove("key")
         1 * lock.run()
         0 * _._
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree
+
+import org.gradle.internal.serialize.BaseSerializerFactory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.test.precondition.Requires
+import org.gradle.test.preconditions.UnitTestPreconditions
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+@Requires(UnitTestPreconditions.NotWindows)
+class MemoryMappedBlockStoreTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    def "writes same file as file backed store"() {
+        def mappedFile = tmpDir.file("mapped.bin")
+        def fileBackedFile = tmpDir.file("file-backed.bin")
+
+        when:
+        fill(createCache(mappedFile, new MemoryMappedBlockStore(mappedFile, 1024)))
+        fill(createCache(fileBackedFile, new FileBackedBlockStore(fileBackedFile)))
+
+        then:
+        mappedFile.bytes == fileBackedFile.bytes
+    }
+
+    def "reads file written by file backed store"() {
+        def file = tmpDir.file("cache.bin")
+        fill(createCache(file, new FileBackedBlockStore(file)))
+
+        when:
+        def cache = createCache(file, new MemoryMappedBlockStore(file, 1024))
+
+        then:
+        (0..<500).every { cache.get("key$it") == valueFor(it) }
+        cache.verify()
+
+        cleanup:
+        cache?.close()
+    }
+
+    def "truncates padding of mapped region on close"() {
+        def file = tmpDir.file("cache.bin")
+        def cache = createCache(file, new MemoryMappedBlockStore(file, 1024 * 1024))
+        cache.put("key", "value")
+
+        expect:
+        file.length() == 1024 * 1024
+
+        when:
+        cache.close()
+
+        then:
+        file.length() < 64 * 1024
+    }
+
+    def "removes padding left by a store that was not closed when opened"() {
+        def file = tmpDir.file("cache.bin")
+        fill(createCache(file, new MemoryMappedBlockStore(file, 1024 * 1024)))
+        def length = file.length()
+        // The padding of a mapped region, as left behind when the process stops without closing the store
+        new RandomAccessFile(file, "rw").withCloseable { it.length = 1024 * 1024 }
+
+        when:
+        def cache = createCache(file, new MemoryMappedBlockStore(file, 1024 * 1024))
+        def values = (0..<500).collect { cache.get("key$it") }
+        cache.close()
+
+        then:
+        values == (0..<500).collect { valueFor(it) }
+        file.length() == length
+
+        when:
+        cache = createCache(file, new MemoryMappedBlockStore(file, 1024 * 1024))
+        cache.put("new key", "new value")
+        cache.close()
+        def lengthAfterPut = file.length()
+        cache = createCache(file, new MemoryMappedBlockStore(file, 1024 * 1024))
+
+        then:
+        lengthAfterPut > length
+        lengthAfterPut < 2 * length
+        cache.get("new key") == "new value"
+        cache.verify()
+
+        cleanup:
+        cache?.close()
+    }
+
+    def "can read blocks concurrently"() {
+        def store = new MemoryMappedBlockStore(tmpDir.file("blocks.bin"), 1024)
+        store.open({}, { new StringPayload() })
+        def positions = (0..<500).collect { index ->
+            def payload = new StringPayload(value: valueFor(index))
+            store.attach(payload)
+            store.write(payload)
+            payload.pos
+        }
+        def executor = Executors.newFixedThreadPool(4)
+
+        when:
+        def results = executor.invokeAll((0..<4).collect {
+            { -> positions.withIndex().every { pos, index -> store.read(pos, StringPayload).value == valueFor(index) } } as Callable<Boolean>
+        })*.get()
+
+        then:
+        results.every()
+
+        cleanup:
+        executor.shutdownNow()
+        store.close()
+    }
+
+    private static BTreePersistentIndexedCache<String, String> createCache(File file, BlockStore store) {
+        return new BTreePersistentIndexedCache<String, String>(file, BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.STRING_SERIALIZER, (short) 4, 100, store)
+    }
+
+    private static void fill(BTreePersistentIndexedCache<String, String> cache) {
+        (0..<500).each { cache.put("key$it", valueFor(it)) }
+        (0..<500).step(3) { cache.remove("key$it") }
+        (0..<500).step(3) { cache.put("key$it", valueFor(it)) }
+        cache.close()
+    }
+
+    private static String valueFor(int index) {
+        return "value $index " + ("x" * (index % 200))
+    }
+
+    private static class StringPayload extends BlockPayload {
+        String value
+
+        @Override
+        protected int getSize() {
+            return Block.INT_SIZE + value.length() * 3
+        }
+
+        @Override
+        protected byte getType() {
+            return 0x55
+        }
+
+        @Override
+        protected void read(DataInputStream inputStream) throws Exception {
+            value = inputStream.readUTF()
+        }
+
+        @Override
+        protected void write(DataOutputStream outputStream) throws Exception {
+            outputStream.writeUTF(value)
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package org.gradle.internal.snapshot.impl;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Interner;
@@ -56,6 +57,9 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
@@ -64,6 +68,9 @@
 
 /**
  * For creating {@link DirectorySnapshot}s of directories.
+ *
+ * <p>When a {@link ForkJoinPool} is given, subdirectories are walked and regular files are hashed as separate fork-join tasks.
+ * The results are joined before leaving the parent directory, so the snapshots are the same as when walking the directory on a single thread.</p>
  */
 public class DirectorySnapshotter {
     private static final EnumSet<FileVisitOption> DONT_FOLLOW_SYMLINKS = EnumSet.noneOf(FileVisitOption.class);
@@ -89,12 +96,25 @@ public Iterable<String> getRemappedSegments(Iterable<String> segments) {
     private final Interner<String> stringInterner;
     private final DefaultExcludes defaultExcludes;
     private final DirectorySnapshotterStatistics.Collector collector;
+    @Nullable
+    private final ForkJoinPool forkJoinPool;
 
     public DirectorySnapshotter(FileHasher hasher, Interner<String> stringInterner, Collection<String> defaultExcludes, DirectorySnapshotterStatistics.Collector collector) {
+        this(hasher, stringInterner, defaultExcludes, collector, null);
+    }
+
+    public DirectorySnapshotter(
+        FileHasher hasher,
+        Interner<String> stringInterner,
+        Collection<String> defaultExcludes,
+        DirectorySnapshotterStatistics.Collector collector,
+        @Nullable ForkJoinPool forkJoinPool
+    ) {
         this.hasher = hasher;
         this.stringInterner = stringInterner;
         this.defaultExcludes = new DefaultExcludes(defaultExcludes);
         this.collector = collector;
+        this.forkJoinPool = forkJoinPool;
     }
 
     /**
@@ -122,8 +142,19 @@ public FileSystemLocationSnapshot snapshot(
         try {
             AtomicBoolean hasBeenFiltered = new AtomicBoolean();
             Path rootPath = Paths.get(absolutePath);
-            PathVisitor visitor = new PathVisitor(predicate, hasBeenFiltered, hasher, stringInterner, defaultExcludes, collector, EMPTY_SYMBOLIC_LINK_MAPPING, previouslyKnownSnapshots, unfilteredSnapshotRecorder);
-            Files.walkFileTree(rootPath, DONT_FOLLOW_SYMLINKS, Integer.MAX_VALUE, visitor);
+            PathVisitor visitor = new PathVisitor(predicate, hasBeenFiltered, hasher, stringInterner, defaultExcludes, collector, EMPTY_SYMBOLIC_LINK_MAPPING, previouslyKnownSnapshots, unfilteredSnapshotRecorder, forkJoinPool != null);
+            if (forkJoinPool == null) {
+                Files.walkFileTree(rootPath, DONT_FOLLOW_SYMLINKS, Integer.MAX_VALUE, visitor);
+            } else {
+                long startTime = System.nanoTime();
+                try {
+                    SnapshottingTask<Path> walk = new SnapshottingTask<>(() -> Files.walkFileTree(rootPath, DONT_FOLLOW_SYMLINKS, Integer.MAX_VALUE, visitor));
+                    forkJoinPool.invoke(walk);
+                    walk.getResult();
+                } finally {
+                    collector.recordParallelSnapshot(System.nanoTime() - startTime);
+                }
+            }
             FileSystemLocationSnapshot result = visitor.getResult();
             if (!hasBeenFiltered.get()) {
                 unfilteredSnapshotRecorder.accept(result);
@@ -180,6 +211,81 @@ public Iterable<String> getRemappedSegments(Iterable<String> segments) {
         }
     }
 
+    /**
+     * Maps the paths of a subtree that is walked separately from its parent directory, so that the relative paths are the same as when walking the parent.
+     */
+    private static class SubtreeSymbolicLinkMapping implements SymbolicLinkMapping {
+        private final SymbolicLinkMapping parentMapping;
+        private final Iterable<String> prefixRelativePath;
+
+        public SubtreeSymbolicLinkMapping(SymbolicLinkMapping parentMapping, Iterable<String> prefixRelativePath) {
+            this.parentMapping = parentMapping;
+            this.prefixRelativePath = prefixRelativePath;
+        }
+
+        @Override
+        public String remapAbsolutePath(Path path) {
+            return parentMapping.remapAbsolutePath(path);
+        }
+
+        @Override
+        public SymbolicLinkMapping withNewMapping(String source, String target, RelativePathTracker currentPathTracker) {
+            return new DefaultSymbolicLinkMapping(parentMapping.remapAbsolutePath(Paths.get(source)), target, getRemappedSegments(currentPathTracker.getSegments()));
+        }
+
+        @Override
+        public Iterable<String> getRemappedSegments(Iterable<String> segments) {
+            return parentMapping.getRemappedSegments(Iterables.concat(prefixRelativePath, segments));
+        }
+    }
+
+    /**
+     * A fork-join task that keeps the failure of the action, so it can be rethrown as is when joining the task.
+     */
+    private static class SnapshottingTask<T> extends RecursiveAction {
+        private final Callable<T> action;
+        private T result;
+        private Throwable failure;
+
+        public SnapshottingTask(Callable<T> action) {
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                result = action.call();
+            } catch (Throwable t) {
+                failure = t;
+            }
+        }
+
+        public T getResult() throws IOException {
+            join();
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            if (failure != null) {
+                throw new RuntimeException(failure);
+            }
+            return result;
+        }
+
+        public T getUncheckedResult() {
+            try {
+                return getResult();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
     @VisibleForTesting
     static class DefaultExcludes {
         private final ImmutableSet<String> excludeFileNames;
@@ -266,6 +372,11 @@ private static class PathVisitor extends DirectorySnapshotterStatistics.Collecti
         private final Set<FileSystemLocationSnapshot> filteredDirectorySnapshots = new HashSet<>();
         private final ImmutableMap<String, ? extends FileSystemLocationSnapshot> previouslyKnownSnapshots;
         private final Consumer<FileSystemLocationSnapshot> unfilteredSnapshotRecorder;
+        private final boolean parallel;
+        /**
+         * Actions adding the results of forked tasks to the builder, one list per directory that is currently visited.
+         */
+        private final Deque<List<Runnable>> pendingChildren = new ArrayDeque<>();
 
         public PathVisitor(
             @Nullable SnapshottingFilter.DirectoryWalkerPredicate predicate,
@@ -276,9 +387,26 @@ public PathVisitor(
             DirectorySnapshotterStatistics.Collector statisticsCollector,
             SymbolicLinkMapping symbolicLinkMapping,
             Map<String, ? extends FileSystemLocationSnapshot> previouslyKnownSnapshots,
-            Consumer<FileSystemLocationSnapshot> unfilteredSnapshotRecorder
+            Consumer<FileSystemLocationSnapshot> unfilteredSnapshotRecorder,
+            boolean parallel
         ) {
-            super(statisticsCollector);
+            this(predicate, hasBeenFiltered, hasher, stringInterner, defaultExcludes, statisticsCollector, symbolicLinkMapping, previouslyKnownSnapshots, unfilteredSnapshotRecorder, parallel, false);
+        }
+
+        private PathVisitor(
+            @Nullable SnapshottingFilter.DirectoryWalkerPredicate predicate,
+            AtomicBoolean hasBeenFiltered,
+            FileHasher hasher,
+            Interner<String> stringInterner,
+            DefaultExcludes defaultExcludes,
+            DirectorySnapshotterStatistics.Collector statisticsCollector,
+            SymbolicLinkMapping symbolicLinkMapping,
+            Map<String, ? extends FileSystemLocationSnapshot> previouslyKnownSnapshots,
+            Consumer<FileSystemLocationSnapshot> unfilteredSnapshotRecorder,
+            boolean parallel,
+            boolean continuesParentHierarchy
+        ) {
+            super(statisticsCollector, continuesParentHierarchy);
             this.builder = FilteredTrackingMerkleDirectorySnapshotBuilder.sortingRequired(this::recordUnfilteredSnapshot);
             this.predicate = predicate;
             this.hasBeenFiltered = hasBeenFiltered;
@@ -288,6 +416,7 @@ public PathVisitor(
             this.symbolicLinkMapping = symbolicLinkMapping;
             this.previouslyKnownSnapshots = ImmutableMap.copyOf(previouslyKnownSnapshots);
             this.unfilteredSnapshotRecorder = unfilteredSnapshotRecorder;
+            this.parallel = parallel;
         }
 
         private void recordUnfilteredSnapshot(FileSystemLocationSnapshot snapshot) {
@@ -315,8 +444,17 @@ protected FileVisitResult doPreVisitDirectory(Path dir, BasicFileAttributes attr
                     }
                 }
 
+                if (parallel && !pathTracker.isRoot()) {
+                    forkSubtree(dir);
+                    pathTracker.leave();
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+
                 builder.enterDirectory(AccessType.DIRECT, internedRemappedAbsolutePath, fileName, INCLUDE_EMPTY_DIRS);
                 parentDirectories.addFirst(dir.toString());
+                if (parallel) {
+                    pendingChildren.addFirst(new ArrayList<>());
+                }
                 return FileVisitResult.CONTINUE;
             } else {
                 pathTracker.leave();
@@ -333,6 +471,9 @@ protected FileVisitResult doPostVisitDirectory(Path dir, IOException exc) {
             if (isNotFileSystemLoopException(exc)) {
                 throw new UncheckedIOException(String.format("Could not read directory path '%s'.", dir), exc);
             }
+            if (parallel) {
+                pendingChildren.removeFirst().forEach(Runnable::run);
+            }
             boolean currentLevelComplete = builder.isCurrentLevelUnfiltered();
             FileSystemLocationSnapshot currentLevel = builder.leaveDirectory();
             if (!currentLevelComplete) {
@@ -380,6 +521,54 @@ protected FileVisitResult doVisitFile(Path file, BasicFileAttributes attrs) {
             }
         }
 
+        /**
+         * Walks the given directory in a separate task, with a visitor that continues the walk of this visitor.
+         *
+         * Unfiltered snapshots found by the task are recorded when the task is joined, so that they are recorded by the thread of the root visitor.
+         */
+        private void forkSubtree(Path dir) {
+            AtomicBoolean subtreeHasBeenFiltered = new AtomicBoolean();
+            List<FileSystemLocationSnapshot> subtreeUnfilteredSnapshots = new ArrayList<>();
+            PathVisitor subtreeVisitor = new PathVisitor(
+                predicate,
+                subtreeHasBeenFiltered,
+                hasher,
+                stringInterner,
+                defaultExcludes,
+                collector,
+                new SubtreeSymbolicLinkMapping(symbolicLinkMapping, ImmutableList.copyOf(pathTracker.getSegments())),
+                previouslyKnownSnapshots,
+                subtreeUnfilteredSnapshots::add,
+                true,
+                true
+            );
+            subtreeVisitor.parentDirectories.addAll(parentDirectories);
+            SnapshottingTask<FileSystemLocationSnapshot> task = new SnapshottingTask<>(() -> {
+                try {
+                    Files.walkFileTree(dir, DONT_FOLLOW_SYMLINKS, Integer.MAX_VALUE, subtreeVisitor);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(String.format("Could not list contents of directory '%s'.", dir), e);
+                }
+                return subtreeVisitor.getResult();
+            });
+            task.fork();
+            collector.recordParallelTask();
+            pendingChildren.getFirst().add(() -> {
+                FileSystemLocationSnapshot subtreeSnapshot = task.getUncheckedResult();
+                subtreeUnfilteredSnapshots.forEach(unfilteredSnapshotRecorder);
+                if (subtreeSnapshot != null) {
+                    builder.visitDirectory((DirectorySnapshot) subtreeSnapshot);
+                    if (subtreeHasBeenFiltered.get()) {
+                        filteredDirectorySnapshots.add(subtreeSnapshot);
+                    }
+                }
+                if (subtreeHasBeenFiltered.get()) {
+                    builder.markCurrentLevelAsFiltered();
+                    hasBeenFiltered.set(true);
+                }
+            });
+        }
+
         @Nullable
         private DirectorySnapshot followSymlink(Path file, String internedFileName, AtomicBoolean symlinkHasBeenFiltered) {
             try {
@@ -395,7 +584,8 @@ private DirectorySnapshot followSymlink(Path file, String internedFileName, Atom
                         collector,
                         symbolicLinkMapping.withNewMapping(file.toString(), targetDirString, pathTracker),
                         previouslyKnownSnapshots,
-                        unfilteredSnapshotRecorder);
+                        unfilteredSnapshotRecorder,
+                        parallel);
                     Files.walkFileTree(targetDir, EnumSet.noneOf(FileVisitOption.class), Integer.MAX_VALUE, subtreeVisitor);
                     return (DirectorySnapshot) subtreeVisitor.getResult();
                 } else {
@@ -413,7 +603,14 @@ private boolean introducesCycle(String targetDirString) {
         private void visitResolvedFile(Path file, BasicFileAttributes targetAttributes, AccessType accessType) {
             String internedName = intern(file.getFileName().toString());
             if (shouldVisitFile(file, internedName)) {
-                builder.visitLeafElement(snapshotFile(file, internedName, targetAttributes, accessType));
+                if (parallel && targetAttributes.isRegularFile() && !pendingChildren.isEmpty()) {
+                    SnapshottingTask<FileSystemLeafSnapshot> task = new SnapshottingTask<>(() -> snapshotFile(file, internedName, targetAttributes, accessType));
+                    task.fork();
+                    collector.recordParallelTask();
+                    pendingChildren.getFirst().add(() -> builder.visitLeafElement(task.getUncheckedResult()));
+                } else {
+                    builder.visitLeafElement(snapshotFile(file, internedName, targetAttributes, accessType));
+                }
             }
         }
 
@@ -452,7 +649,14 @@ private FileSystemLeafSnapshot snapshotFile(Path absoluteFilePath, String intern
             long lastModified = attrs.lastModifiedTime().toMillis();
             long fileLength = attrs.size();
             FileMetadata metadata = DefaultFileMetadata.file(lastModified, fileLength, accessType);
-            HashCode hash = hasher.hash(absoluteFilePath.toFile(), fileLength, lastModified);
+            HashCode hash;
+            if (parallel) {
+                long startTime = System.nanoTime();
+                hash = hasher.hash(absoluteFilePath.toFile(), fileLength, lastModified);
+                collector.recordHashingTime(System.nanoTime() - startTime);
+            } else {
+                hash = hasher.hash(absoluteFilePath.toFile(), fileLength, lastModified);
+            }
             return new RegularFileSnapshot(internedRemappedAbsoluteFilePath, internedName, hash, metadata);
         }
 
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot.impl;
+
+import org.gradle.internal.service.scopes.Scope;
+import org.gradle.internal.service.scopes.ServiceScope;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Owns the pool used by {@link DirectorySnapshotter} to snapshot directories in parallel.
+ *
+ * <p>Parallel snapshotting is enabled by setting the {@value #PARALLELISM_PROPERTY} system property
+ * to the number of threads to use.</p>
+ */
+@ServiceScope(Scope.Global.class)
+public class DirectorySnapshotterPool implements Closeable {
+    public static final String PARALLELISM_PROPERTY = "org.gradle.vfs.snapshot.parallelism";
+
+    @Nullable
+    private final ForkJoinPool forkJoinPool;
+
+    public DirectorySnapshotterPool(int parallelism) {
+        this.forkJoinPool = parallelism > 0 ? new ForkJoinPool(parallelism) : null;
+    }
+
+    public static DirectorySnapshotterPool fromSystemProperties() {
+        return new DirectorySnapshotterPool(Integer.getInteger(PARALLELISM_PROPERTY, 0));
+    }
+
+    /**
+     * Returns the pool to snapshot directories with, or {@code null} when directories should be snapshotted on the calling thread.
+     */
+    @Nullable
+    public ForkJoinPool getForkJoinPool() {
+        return forkJoinPool;
+    }
+
+    @Override
+    public void close() {
+        if (forkJoinPool != null) {
+            forkJoinPool.shutdownNow();
+        }
+    }
+}
@@ -48,12 +48,25 @@ public interface DirectorySnapshotterStatistics {
      */
     long getFailedFiles();
 
+    /**
+     * The number of subtrees and files that were snapshotted in separate tasks when snapshotting in parallel.
+     */
+    long getParallelTaskCount();
+
+    /**
+     * The average number of files that were hashed at the same time while snapshotting in parallel.
+     */
+    double getHashingParallelism();
+
     @ServiceScope(Scope.Global.class)
     class Collector {
         private final AtomicLong hierarchyCount = new AtomicLong();
         private final AtomicLong directoryCount = new AtomicLong();
         private final AtomicLong fileCount = new AtomicLong();
         private final AtomicLong failedFileCount = new AtomicLong();
+        private final AtomicLong parallelTaskCount = new AtomicLong();
+        private final AtomicLong hashingTime = new AtomicLong();
+        private final AtomicLong parallelSnapshotTime = new AtomicLong();
 
         public void recordVisitHierarchy() {
             hierarchyCount.incrementAndGet();
@@ -71,11 +84,27 @@ public void recordVisitFileFailed() {
             failedFileCount.incrementAndGet();
         }
 
+        public void recordParallelTask() {
+            parallelTaskCount.incrementAndGet();
+        }
+
+        public void recordHashingTime(long nanos) {
+            hashingTime.addAndGet(nanos);
+        }
+
+        public void recordParallelSnapshot(long nanos) {
+            parallelSnapshotTime.addAndGet(nanos);
+        }
+
         public DirectorySnapshotterStatistics collect() {
             long hierarchyCount = this.hierarchyCount.getAndSet(0);
             long directoryCount = this.directoryCount.getAndSet(0);
             long fileCount = this.fileCount.getAndSet(0);
             long failedFileCount = this.failedFileCount.getAndSet(0);
+            long parallelTaskCount = this.parallelTaskCount.getAndSet(0);
+            long hashingTime = this.hashingTime.getAndSet(0);
+            long parallelSnapshotTime = this.parallelSnapshotTime.getAndSet(0);
+            double hashingParallelism = parallelSnapshotTime == 0 ? 0 : (double) hashingTime / parallelSnapshotTime;
 
             return new DirectorySnapshotterStatistics() {
                 @Override
@@ -98,10 +127,25 @@ public long getFailedFiles() {
                     return failedFileCount;
                 }
 
+                @Override
+                public long getParallelTaskCount() {
+                    return parallelTaskCount;
+                }
+
+                @Override
+                public double getHashingParallelism() {
+                    return hashingParallelism;
+                }
+
                 @Override
                 public String toString() {
-                    return MessageFormat.format("Snapshot {0,number,integer} directory hierarchies (visited {1,number,integer} directories, {2,number,integer} files and {3,number,integer} failed files)",
+                    String summary = MessageFormat.format("Snapshot {0,number,integer} directory hierarchies (visited {1,number,integer} directories, {2,number,integer} files and {3,number,integer} failed files)",
                         hierarchyCount, directoryCount, fileCount, failedFileCount);
+                    if (parallelTaskCount == 0) {
+                        return summary;
+                    }
+                    return summary + MessageFormat.format(", ran {0,number,integer} tasks in parallel with a hashing parallelism of {1,number,#.##}",
+                        parallelTaskCount, hashingParallelism);
                 }
             };
         }
@@ -109,15 +153,31 @@ public String toString() {
 
     abstract class CollectingFileVisitor implements FileVisitor<Path> {
         protected final Collector collector;
+        private boolean skipRecordingNextDirectory;
 
         public CollectingFileVisitor(Collector collector) {
+            this(collector, false);
+        }
+
+        /**
+         * @param continuesParentHierarchy whether this visitor walks a directory already visited as part of another hierarchy.
+         * The hierarchy and its root directory are then not recorded again.
+         */
+        public CollectingFileVisitor(Collector collector, boolean continuesParentHierarchy) {
             this.collector = collector;
-            collector.recordVisitHierarchy();
+            this.skipRecordingNextDirectory = continuesParentHierarchy;
+            if (!continuesParentHierarchy) {
+                collector.recordVisitHierarchy();
+            }
         }
 
         @Override
         public final FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
-            collector.recordVisitDirectory();
+            if (skipRecordingNextDirectory) {
+                skipRecordingNextDirectory = false;
+            } else {
+                collector.recordVisitDirectory();
+            }
             return doPreVisitDirectory(dir, attrs);
         }
 
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot.impl;
+
+import org.gradle.internal.file.FileMetadata;
+import org.gradle.internal.file.FileMetadata.AccessType;
+import org.gradle.internal.file.FileMetadataAccessor;
+import org.gradle.internal.file.FileType;
+import org.gradle.internal.snapshot.DirectorySnapshot;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.MissingFileSnapshot;
+import org.gradle.internal.snapshot.RegularFileSnapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Checks whether snapshots taken earlier still match the file system, without hashing the contents of any files.
+ *
+ * <p>Regular files are unchanged when their length and modification time are the same as when they were snapshotted.
+ * Directories are unchanged when they contain the same entries, ignoring entries matched by the default excludes, and all of their children are unchanged.</p>
+ *
+ * <p>Files modified at or after the given modification time are considered changed, since further modifications
+ * within the resolution of the file system timestamps would go unnoticed.
+ * Snapshots accessed via symbolic links are always considered changed, as the targets of the links are not recorded.</p>
+ */
+public class FileSystemSnapshotValidator {
+    private final FileMetadataAccessor stat;
+    private final DirectorySnapshotter.DefaultExcludes defaultExcludes;
+    private final long unreliableModificationTime;
+
+    public FileSystemSnapshotValidator(FileMetadataAccessor stat, Collection<String> defaultExcludes, long unreliableModificationTime) {
+        this.stat = stat;
+        this.defaultExcludes = new DirectorySnapshotter.DefaultExcludes(defaultExcludes);
+        this.unreliableModificationTime = unreliableModificationTime;
+    }
+
+    /**
+     * Reports the unchanged parts of the snapshot.
+     *
+     * When the snapshot is unchanged, only the snapshot itself is reported.
+     * Otherwise, the largest unchanged snapshots below a changed directory are reported.
+     */
+    public void collectUnchanged(FileSystemLocationSnapshot snapshot, Consumer<FileSystemLocationSnapshot> unchangedSnapshots) {
+        if (isUnchanged(snapshot, unchangedSnapshots)) {
+            unchangedSnapshots.accept(snapshot);
+        }
+    }
+
+    private boolean isUnchanged(FileSystemLocationSnapshot snapshot, Consumer<FileSystemLocationSnapshot> unchangedSnapshots) {
+        if (snapshot.getAccessType() != AccessType.DIRECT) {
+            return false;
+        }
+        return snapshot.accept(new FileSystemLocationSnapshot.FileSystemLocationSnapshotTransformer<Boolean>() {
+            @Override
+            public Boolean visitDirectory(DirectorySnapshot directorySnapshot) {
+                return isUnchangedDirectory(directorySnapshot, unchangedSnapshots);
+            }
+
+            @Override
+            public Boolean visitRegularFile(RegularFileSnapshot fileSnapshot) {
+                FileMetadata metadata = stat.stat(new File(fileSnapshot.getAbsolutePath()));
+                return metadata.getType() == FileType.RegularFile
+                    && metadata.getAccessType() == AccessType.DIRECT
+                    && metadata.getLength() == fileSnapshot.getMetadata().getLength()
+                    && metadata.getLastModified() == fileSnapshot.getMetadata().getLastModified()
+                    && metadata.getLastModified() < unreliableModificationTime;
+            }
+
+            @Override
+            public Boolean visitMissing(MissingFileSnapshot missingSnapshot) {
+                FileMetadata metadata = stat.stat(new File(missingSnapshot.getAbsolutePath()));
+                return metadata.getType() == FileType.Missing
+                    && metadata.getAccessType() == AccessType.DIRECT;
+            }
+        });
+    }
+
+    private boolean isUnchangedDirectory(DirectorySnapshot directorySnapshot, Consumer<FileSystemLocationSnapshot> unchangedSnapshots) {
+        FileMetadata metadata = stat.stat(new File(directorySnapshot.getAbsolutePath()));
+        if (metadata.getType() != FileType.Directory || metadata.getAccessType() != AccessType.DIRECT) {
+            return false;
+        }
+        boolean unchanged = hasSameEntries(directorySnapshot);
+        List<FileSystemLocationSnapshot> unchangedChildren = new ArrayList<>();
+        for (FileSystemLocationSnapshot child : directorySnapshot.getChildren()) {
+            if (isUnchanged(child, unchangedSnapshots)) {
+                unchangedChildren.add(child);
+            } else {
+                unchanged = false;
+            }
+        }
+        if (!unchanged) {
+            unchangedChildren.forEach(unchangedSnapshots);
+        }
+        return unchanged;
+    }
+
+    private boolean hasSameEntries(DirectorySnapshot directorySnapshot) {
+        Set<String> childNames = new HashSet<>();
+        for (FileSystemLocationSnapshot child : directorySnapshot.getChildren()) {
+            childNames.add(child.getName());
+        }
+        int foundChildren = 0;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(Paths.get(directorySnapshot.getAbsolutePath()))) {
+            for (Path entry : entries) {
+                String name = entry.getFileName().toString();
+                if (childNames.contains(name)) {
+                    foundChildren++;
+                } else if (!isExcluded(entry, name)) {
+                    return false;
+                }
+            }
+        } catch (IOException e) {
+            return false;
+        }
+        return foundChildren == childNames.size();
+    }
+
+    private boolean isExcluded(Path entry, String name) {
+        return Files.isDirectory(entry)
+            ? defaultExcludes.excludeDir(name)
+            : defaultExcludes.excludeFile(name);
+    }
+}
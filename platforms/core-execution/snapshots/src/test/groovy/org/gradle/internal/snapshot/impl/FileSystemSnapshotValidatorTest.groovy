@@ -0,0 +1,134 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot.impl
+
+import org.apache.tools.ant.DirectoryScanner
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot
+import org.gradle.internal.vfs.FileSystemAccess
+import org.gradle.test.fixtures.file.CleanupTestDirectory
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+@CleanupTestDirectory
+class FileSystemSnapshotValidatorTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider temporaryFolder = TestNameTestDirectoryProvider.newInstance(getClass())
+
+    FileSystemAccess fileSystemAccess = TestFiles.fileSystemAccess()
+    def validator = new FileSystemSnapshotValidator(TestFiles.fileSystem(), DirectoryScanner.getDefaultExcludes() as List, Long.MAX_VALUE)
+
+    TestFile root
+    TestFile dir1
+    TestFile dir2
+
+    def setup() {
+        root = temporaryFolder.createDir("root")
+        dir1 = root.createDir("dir1")
+        dir1.file("file1.txt").text = "file1"
+        dir2 = root.createDir("dir2")
+        dir2.file("file2.txt").text = "file2"
+        root.file("rootFile.txt").text = "root"
+    }
+
+    def "reports unchanged snapshot"() {
+        def snapshot = snapshot(root)
+
+        expect:
+        unchangedPaths(snapshot) == [root.absolutePath]
+    }
+
+    def "reports unchanged children of directory with modified file"() {
+        def snapshot = snapshot(root)
+        dir1.file("file1.txt").text = "modified"
+
+        expect:
+        unchangedPaths(snapshot) == [dir2, root.file("rootFile.txt")]*.absolutePath
+    }
+
+    def "directory with #description is changed"() {
+        def snapshot = snapshot(root)
+        change(dir1)
+
+        expect:
+        unchangedPaths(snapshot) == [dir1.file("file1.txt"), dir2, root.file("rootFile.txt")]*.absolutePath
+
+        where:
+        description  | change
+        "added file" | { TestFile dir -> dir.file("added.txt").text = "added" }
+        "added dir"  | { TestFile dir -> dir.createDir("added") }
+    }
+
+    def "ignores entries matching the default excludes"() {
+        def snapshot = snapshot(root)
+        root.file(".gitignore").text = "build"
+        dir1.createDir(".git")
+
+        expect:
+        unchangedPaths(snapshot) == [root.absolutePath]
+    }
+
+    def "file replaced by directory is changed"() {
+        def snapshot = snapshot(root)
+        root.file("rootFile.txt").delete()
+        root.createDir("rootFile.txt")
+
+        expect:
+        unchangedPaths(snapshot) == [dir1, dir2]*.absolutePath
+    }
+
+    def "files modified within the unreliable modification time are changed"() {
+        def file = dir1.file("file1.txt")
+        def snapshot = snapshot(root)
+        def validator = new FileSystemSnapshotValidator(TestFiles.fileSystem(), DirectoryScanner.getDefaultExcludes() as List, file.lastModified())
+
+        when:
+        def unchanged = []
+        validator.collectUnchanged(snapshot) { unchanged.add(it.absolutePath) }
+
+        then:
+        !unchanged.contains(root.absolutePath)
+        !unchanged.contains(dir1.absolutePath)
+        !unchanged.contains(file.absolutePath)
+    }
+
+    def "reports missing file when it is still missing"() {
+        def missingFile = root.file("missing.txt")
+        def snapshot = snapshot(missingFile)
+
+        expect:
+        unchangedPaths(snapshot) == [missingFile.absolutePath]
+
+        when:
+        missingFile.text = "created"
+
+        then:
+        unchangedPaths(snapshot).empty
+    }
+
+    private FileSystemLocationSnapshot snapshot(File location) {
+        fileSystemAccess.read(location.absolutePath)
+    }
+
+    private List<String> unchangedPaths(FileSystemLocationSnapshot snapshot) {
+        def unchanged = []
+        validator.collectUnchanged(snapshot) { unchanged.add(it.absolutePath) }
+        return unchanged.sort()
+    }
+}
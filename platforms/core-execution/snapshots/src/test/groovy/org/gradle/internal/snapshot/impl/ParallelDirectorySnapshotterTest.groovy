@@ -0,0 +1,76 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot.impl
+
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.internal.hash.FileHasher
+import org.gradle.internal.snapshot.DirectorySnapshot
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+
+import java.util.concurrent.ForkJoinPool
+
+class ParallelDirectorySnapshotterTest extends DirectorySnapshotterTest {
+    @Shared
+    @AutoCleanup("shutdownNow")
+    ForkJoinPool forkJoinPool = new ForkJoinPool(4)
+
+    def "creates the same snapshot as a sequential walk"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        (1..5).each { dirIndex ->
+            (1..5).each { fileIndex ->
+                rootDir.file("dir$dirIndex/sub$fileIndex/file${fileIndex}.txt").text = "content $dirIndex $fileIndex"
+            }
+            rootDir.file("dir$dirIndex/file.txt").text = "content $dirIndex"
+        }
+        def sequentialSnapshotter = new DirectorySnapshotter(fileHasher, new StringInterner(), [], new DirectorySnapshotterStatistics.Collector())
+
+        when:
+        def parallelSnapshot = directorySnapshotter.snapshot(rootDir.absolutePath, null, [:], unfilteredSubSnapshotsCollector) as DirectorySnapshot
+        def sequentialSnapshot = sequentialSnapshotter.snapshot(rootDir.absolutePath, null, [:], {}) as DirectorySnapshot
+
+        then:
+        parallelSnapshot.hash == sequentialSnapshot.hash
+        parallelSnapshot.children*.name == sequentialSnapshot.children*.name
+        unfilteredSubsnapshots == [parallelSnapshot]
+    }
+
+    def "records parallel tasks in statistics"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        rootDir.file("dir1/file1.txt").text = "content 1"
+        rootDir.file("dir2/file2.txt").text = "content 2"
+        def collector = new DirectorySnapshotterStatistics.Collector()
+        def snapshotter = new DirectorySnapshotter(fileHasher, new StringInterner(), [], collector, forkJoinPool)
+
+        when:
+        snapshotter.snapshot(rootDir.absolutePath, null, [:], {})
+        def statistics = collector.collect()
+
+        then:
+        statistics.visitedDirectoryCount == 3
+        statistics.visitedFiles == 2
+        statistics.parallelTaskCount > 0
+        statistics.toString().contains("in parallel")
+    }
+
+    @Override
+    DirectorySnapshotter createDirectorySnapshotter(FileHasher fileHasher, DirectorySnapshotterStatistics.Collector statisticsCollector) {
+        new DirectorySnapshotter(fileHasher, new StringInterner(), [], statisticsCollector, forkJoinPool)
+    }
+}
@@ -61,7 +61,7 @@ packageCycles {
     excludePatterns.add("org/gradle/util/GradleVersion**")
 }
 
-jmh.includes = listOf("HashingAlgorithmsBenchmark")
+jmh.includes = listOf("HashingAlgorithmsBenchmark", "FileHashingBenchmark")
 tasks.isolatedProjectsIntegTest {
     enabled = false
 }
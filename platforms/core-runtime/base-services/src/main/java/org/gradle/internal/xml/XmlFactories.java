@@ -24,6 +24,8 @@
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.xpath.XPathFactory;
@@ -59,6 +61,28 @@ public static SAXParserFactory newSAXParserFactory() {
         }
     }
 
+    /**
+     * StAX factories do not support {@link XMLConstants#FEATURE_SECURE_PROCESSING}, so the same restrictions on external entities
+     * and DTDs are applied explicitly. The processing limits of the JDK implementation are enforced by default.
+     */
+    public static XMLInputFactory newXMLInputFactory() {
+        try {
+            XMLInputFactory xif = XMLInputFactory.newInstance();
+            xif.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+            xif.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            return xif;
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException(errorMessageFor("XMLInputFactory"), e);
+        }
+    }
+
+    /**
+     * Output factories do not read any documents, so no restrictions need to be applied.
+     */
+    public static XMLOutputFactory newXMLOutputFactory() {
+        return XMLOutputFactory.newInstance();
+    }
+
     public static XPathFactory newXPathFactory() {
         try {
             XPathFactory xpf = XPathFactory.newInstance();
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations.trace;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The binary build operation trace format, which is written compressed with GZIP.
+ *
+ * <p>The file starts with {@link #MAGIC} and {@link #VERSION}, followed by a sequence of records, each starting with its type.
+ * Numbers are written as variable length integers, and strings are written once in a {@link #STRING} record and then referred to by index.</p>
+ *
+ * <ul>
+ * <li>{@link #STRING}: index, value</li>
+ * <li>{@link #START}: id, parent id + 1 or 0, start time, display name, details class name + 1 or 0, thread name</li>
+ * <li>{@link #PROGRESS}: id, time, details class name + 1 or 0</li>
+ * <li>{@link #FINISH}: id, end time, result class name + 1 or 0, whether the operation failed</li>
+ * <li>{@link #END}: number of events dropped because the buffer was full</li>
+ * </ul>
+ */
+final class BinaryBuildOperationTraceFormat {
+    static final int MAGIC = 0x47424f54; // GBOT
+    static final int VERSION = 1;
+
+    static final byte STRING = 0;
+    static final byte START = 1;
+    static final byte PROGRESS = 2;
+    static final byte FINISH = 3;
+    static final byte END = 4;
+
+    private BinaryBuildOperationTraceFormat() {
+    }
+
+    static void writeVarLong(DataOutput output, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            output.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        output.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInput input) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = input.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable length integer.");
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations.trace;
+
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationListener;
+import org.gradle.internal.operations.OperationFinishEvent;
+import org.gradle.internal.operations.OperationIdentifier;
+import org.gradle.internal.operations.OperationProgressEvent;
+import org.gradle.internal.operations.OperationStartEvent;
+
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import static org.gradle.internal.operations.trace.BinaryBuildOperationTraceFormat.writeVarLong;
+
+/**
+ * Writes the build operation events to a file in the {@link BinaryBuildOperationTraceFormat binary trace format}.
+ *
+ * <p>The listener only captures the identity, timing and types of operations into a bounded buffer, which is drained by a background thread that encodes and compresses the events.
+ * When the buffer is full, events are dropped instead of slowing down the build, and the number of dropped events is recorded at the end of the trace.
+ * When writing the trace fails, the remaining events are discarded and the failure is reported on {@link #close()}.</p>
+ */
+class BinaryBuildOperationTraceWriter implements BuildOperationListener {
+    private static final Object END_OF_TRACE = new Object();
+
+    private final File traceFile;
+    private final BlockingQueue<Object> buffer;
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final ManagedExecutor executor;
+    private volatile Throwable failure;
+
+    BinaryBuildOperationTraceWriter(File traceFile, int bufferSize, ExecutorFactory executorFactory) {
+        this(traceFile, openTraceFile(traceFile), bufferSize, executorFactory);
+    }
+
+    BinaryBuildOperationTraceWriter(File traceFile, OutputStream traceOutput, int bufferSize, ExecutorFactory executorFactory) {
+        this.traceFile = traceFile;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        DataOutputStream output;
+        try {
+            output = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(traceOutput, 64 * 1024)));
+            output.writeInt(BinaryBuildOperationTraceFormat.MAGIC);
+            output.writeInt(BinaryBuildOperationTraceFormat.VERSION);
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        this.executor = executorFactory.create("Build operation trace writer", 1);
+        executor.execute(new Encoder(output));
+    }
+
+    private static OutputStream openTraceFile(File traceFile) {
+        try {
+            return new FileOutputStream(traceFile);
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    @Override
+    public void started(BuildOperationDescriptor buildOperation, OperationStartEvent startEvent) {
+        OperationIdentifier parentId = buildOperation.getParentId();
+        enqueue(new Start(
+            buildOperation.getId().getId(),
+            parentId == null ? 0 : parentId.getId() + 1,
+            startEvent.getStartTime(),
+            buildOperation.getDisplayName(),
+            typeOf(buildOperation.getDetails()),
+            Thread.currentThread().getName()
+        ));
+    }
+
+    @Override
+    public void progress(OperationIdentifier buildOperationId, OperationProgressEvent progressEvent) {
+        enqueue(new Progress(buildOperationId.getId(), progressEvent.getTime(), typeOf(progressEvent.getDetails())));
+    }
+
+    @Override
+    public void finished(BuildOperationDescriptor buildOperation, OperationFinishEvent finishEvent) {
+        enqueue(new Finish(buildOperation.getId().getId(), finishEvent.getEndTime(), typeOf(finishEvent.getResult()), finishEvent.getFailure() != null));
+    }
+
+    @Nullable
+    private static Class<?> typeOf(@Nullable Object value) {
+        return value == null ? null : value.getClass();
+    }
+
+    private void enqueue(Object event) {
+        if (failure != null) {
+            return;
+        }
+        if (!buffer.offer(event)) {
+            droppedEvents.incrementAndGet();
+        }
+    }
+
+    /**
+     * Writes the remaining events and closes the trace file.
+     */
+    public void close() {
+        try {
+            // The encoder keeps taking events until the end of the trace, even when writing has failed
+            buffer.put(END_OF_TRACE);
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        executor.stop();
+        if (failure != null) {
+            throw new IllegalStateException("Could not write build operation trace to " + traceFile + ".", failure);
+        }
+    }
+
+    private class Encoder implements Runnable {
+        private final DataOutputStream output;
+        private final Map<Object, Integer> strings = new HashMap<>();
+
+        Encoder(DataOutputStream output) {
+            this.output = output;
+        }
+
+        @Override
+        public void run() {
+            try {
+                try {
+                    Object event;
+                    while ((event = buffer.take()) != END_OF_TRACE) {
+                        write(event);
+                    }
+                    output.writeByte(BinaryBuildOperationTraceFormat.END);
+                    writeVarLong(output, droppedEvents.get());
+                } finally {
+                    output.close();
+                }
+            } catch (Throwable t) {
+                failure = t;
+                discardRemainingEvents();
+            }
+        }
+
+        /**
+         * Takes events until the end of the trace, so that neither the build nor {@link #close()} wait for a full buffer.
+         */
+        private void discardRemainingEvents() {
+            try {
+                while (buffer.take() != END_OF_TRACE) {
+                    // Discard
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void write(Object event) throws IOException {
+            if (event instanceof Start) {
+                Start start = (Start) event;
+                int displayName = string(start.displayName);
+                int detailsType = optionalType(start.detailsType);
+                int threadName = string(start.threadName);
+                output.writeByte(BinaryBuildOperationTraceFormat.START);
+                writeVarLong(output, start.id);
+                writeVarLong(output, start.parentId);
+                writeVarLong(output, start.startTime);
+                writeVarLong(output, displayName);
+                writeVarLong(output, detailsType);
+                writeVarLong(output, threadName);
+            } else if (event instanceof Progress) {
+                Progress progress = (Progress) event;
+                int detailsType = optionalType(progress.detailsType);
+                output.writeByte(BinaryBuildOperationTraceFormat.PROGRESS);
+                writeVarLong(output, progress.id);
+                writeVarLong(output, progress.time);
+                writeVarLong(output, detailsType);
+            } else {
+                Finish finish = (Finish) event;
+                int resultType = optionalType(finish.resultType);
+                output.writeByte(BinaryBuildOperationTraceFormat.FINISH);
+                writeVarLong(output, finish.id);
+                writeVarLong(output, finish.endTime);
+                writeVarLong(output, resultType);
+                output.writeBoolean(finish.failed);
+            }
+        }
+
+        private int optionalType(@Nullable Class<?> type) throws IOException {
+            return type == null ? 0 : string(type) + 1;
+        }
+
+        /**
+         * Returns the index of the given string or class name, writing its value when it has not been written before.
+         */
+        private int string(Object value) throws IOException {
+            Integer index = strings.get(value);
+            if (index == null) {
+                index = strings.size();
+                strings.put(value, index);
+                String string = value instanceof Class ? ((Class<?>) value).getName() : (String) value;
+                output.writeByte(BinaryBuildOperationTraceFormat.STRING);
+                writeVarLong(output, index);
+                output.writeUTF(string.length() > 0x3FFF ? string.substring(0, 0x3FFF) : string);
+            }
+            return index;
+        }
+    }
+
+    private static class Start {
+        final long id;
+        final long parentId;
+        final long startTime;
+        final String displayName;
+        final Class<?> detailsType;
+        final String threadName;
+
+        Start(long id, long parentId, long startTime, String displayName, @Nullable Class<?> detailsType, String threadName) {
+            this.id = id;
+            this.parentId = parentId;
+            this.startTime = startTime;
+            this.displayName = displayName;
+            this.detailsType = detailsType;
+            this.threadName = threadName;
+        }
+    }
+
+    private static class Progress {
+        final long id;
+        final long time;
+        final Class<?> detailsType;
+
+        Progress(long id, long time, @Nullable Class<?> detailsType) {
+            this.id = id;
+            this.time = time;
+            this.detailsType = detailsType;
+        }
+    }
+
+    private static class Finish {
+        final long id;
+        final long endTime;
+        final Class<?> resultType;
+        final boolean failed;
+
+        Finish(long id, long endTime, @Nullable Class<?> resultType, boolean failed) {
+            this.id = id;
+            this.endTime = endTime;
+            this.resultType = resultType;
+            this.failed = failed;
+        }
+    }
+}
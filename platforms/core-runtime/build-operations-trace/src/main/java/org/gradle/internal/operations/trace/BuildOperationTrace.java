@@ -32,6 +32,7 @@
 import org.gradle.internal.buildoption.InternalFlag;
 import org.gradle.internal.buildoption.InternalOptions;
 import org.gradle.internal.buildoption.StringInternalOption;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.operations.BuildOperationDescriptor;
 import org.gradle.internal.operations.BuildOperationListener;
@@ -92,6 +93,10 @@
  * <p>
  * The generation of trees can be very memory hungry and thus can be disabled with
  * {@code -Dorg.gradle.internal.operations.trace.tree=false}.
+ * <p>
+ * For large builds, a compact trace can be written instead with {@code -Dorg.gradle.internal.operations.trace.format=binary}.
+ * This creates a single «path-base»-trace.bin file containing the structure and timing of the operations, but not their details or results.
+ * It can be converted into the Chrome trace event format with {@link ChromeTraceConverter}.
  * </p>
  * The “trace” produced here is different to the trace produced by Gradle Profiler.
  * There, the focus is analyzing the performance profile.
@@ -127,6 +132,18 @@ public class BuildOperationTrace implements Stoppable {
 
     private static final InternalFlag TRACE_TREE_OPTION = new InternalFlag(TREE_SYSPROP, true);
 
+    /**
+     * The format of the trace, either {@code json} (the default) or {@code binary}.
+     * The binary format only contains the log and is not supported by BuildOperationFixture.
+     */
+    public static final String FORMAT_SYSPROP = SYSPROP + ".format";
+
+    private static final StringInternalOption FORMAT_OPTION = new StringInternalOption(FORMAT_SYSPROP, "json");
+
+    private static final String BINARY_FORMAT = "binary";
+
+    private static final int BINARY_TRACE_BUFFER_SIZE = 64 * 1024;
+
     /**
      * Delimiter for entries in {@link #FILTER_SYSPROP}.
      */
@@ -139,22 +156,36 @@ public class BuildOperationTrace implements Stoppable {
     private final String basePath;
 
     private final OutputStream logOutputStream;
+    private final BinaryBuildOperationTraceWriter binaryTraceWriter;
     private final JsonGenerator jsonGenerator = createJsonGenerator();
     private final BuildOperationListenerManager buildOperationListenerManager;
 
-    public BuildOperationTrace(StartParameter startParameter, BuildOperationListenerManager buildOperationListenerManager) {
+    public BuildOperationTrace(StartParameter startParameter, BuildOperationListenerManager buildOperationListenerManager, ExecutorFactory executorFactory) {
         this.buildOperationListenerManager = buildOperationListenerManager;
 
         InternalOptions internalOptions = new DefaultInternalOptions(startParameter.getSystemPropertiesArgs());
         this.basePath = internalOptions.getOption(TRACE_OPTION).get();
         if (this.basePath == null || basePath.equals(Boolean.FALSE.toString())) {
             this.logOutputStream = null;
+            this.binaryTraceWriter = null;
             this.outputTree = false;
             this.listener = null;
             return;
         }
 
         Set<String> filter = getFilter(internalOptions);
+        if (BINARY_FORMAT.equals(internalOptions.getOption(FORMAT_OPTION).get())) {
+            File traceFile = binaryTraceFile(basePath);
+            GFileUtils.mkdirs(traceFile.getParentFile());
+            this.logOutputStream = null;
+            this.outputTree = false;
+            this.binaryTraceWriter = new BinaryBuildOperationTraceWriter(traceFile, BINARY_TRACE_BUFFER_SIZE, executorFactory);
+            this.listener = filter == null ? binaryTraceWriter : new FilteringBuildOperationListener(binaryTraceWriter, filter);
+            buildOperationListenerManager.addListener(listener);
+            return;
+        }
+
+        this.binaryTraceWriter = null;
         if (filter != null) {
             this.outputTree = false;
             this.listener = new FilteringBuildOperationListener(new SerializingBuildOperationListener(this::write), filter);
@@ -193,6 +224,9 @@ private static Set<String> getFilter(InternalOptions internalOptions) {
     @Override
     public void stop() {
         buildOperationListenerManager.removeListener(listener);
+        if (binaryTraceWriter != null) {
+            binaryTraceWriter.close();
+        }
         if (logOutputStream != null) {
             try {
                 synchronized (logOutputStream) {
@@ -468,6 +502,10 @@ private static File logFile(String basePath) {
         return file(basePath, "-log.txt");
     }
 
+    private static File binaryTraceFile(String basePath) {
+        return file(basePath, "-trace.bin");
+    }
+
     private static File file(String base, String suffix) {
         return new File((base == null || base.trim().isEmpty() ? "operations" : base) + suffix).getAbsoluteFile();
     }
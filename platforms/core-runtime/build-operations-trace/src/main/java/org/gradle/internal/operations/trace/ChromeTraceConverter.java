@@ -0,0 +1,259 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations.trace;
+
+import org.gradle.internal.UncheckedException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.gradle.internal.operations.trace.BinaryBuildOperationTraceFormat.readVarLong;
+
+/**
+ * Converts a binary build operation trace, see {@link BuildOperationTrace#FORMAT_SYSPROP}, into the Chrome trace event format.
+ *
+ * <p>The result can be opened in {@code chrome://tracing} or Perfetto.
+ * Each build operation becomes a complete event on the track of the thread that started it, and progress events become instant events.
+ * Operations that did not finish are ignored.</p>
+ */
+public class ChromeTraceConverter {
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: ChromeTraceConverter <binary trace file> <output json file>");
+            System.exit(1);
+        }
+        convert(new File(args[0]), new File(args[1]));
+    }
+
+    public static void convert(File binaryTrace, File chromeTrace) {
+        try (
+            DataInputStream input = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(binaryTrace), 64 * 1024)));
+            Writer output = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(chromeTrace.toPath()), StandardCharsets.UTF_8))
+        ) {
+            new Conversion(input, output).run();
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private static class Conversion {
+        private final DataInputStream input;
+        private final Writer output;
+        private final List<String> strings = new ArrayList<>();
+        private final Map<Long, StartedOperation> running = new HashMap<>();
+        private final Map<Integer, Integer> threads = new LinkedHashMap<>();
+        private boolean firstEvent = true;
+
+        Conversion(DataInputStream input, Writer output) {
+            this.input = input;
+            this.output = output;
+        }
+
+        void run() throws IOException {
+            if (input.readInt() != BinaryBuildOperationTraceFormat.MAGIC) {
+                throw new IOException("Not a binary build operation trace.");
+            }
+            int version = input.readInt();
+            if (version != BinaryBuildOperationTraceFormat.VERSION) {
+                throw new IOException("Unsupported binary build operation trace version " + version + ".");
+            }
+
+            output.write("{\"traceEvents\":[");
+            long droppedEvents = readRecords();
+            for (Map.Entry<Integer, Integer> thread : threads.entrySet()) {
+                beginEvent();
+                output.write("{\"ph\":\"M\",\"name\":\"thread_name\",\"pid\":1,\"tid\":");
+                output.write(Integer.toString(thread.getValue()));
+                output.write(",\"args\":{\"name\":");
+                writeString(strings.get(thread.getKey()));
+                output.write("}}");
+            }
+            output.write("],\"displayTimeUnit\":\"ms\",\"otherData\":{\"droppedEvents\":");
+            output.write(Long.toString(droppedEvents));
+            output.write("}}\n");
+        }
+
+        /**
+         * Reads all records and returns the number of dropped events, if the trace is complete.
+         */
+        private long readRecords() throws IOException {
+            while (true) {
+                int type;
+                try {
+                    type = input.readByte();
+                } catch (EOFException e) {
+                    // Trace of a build that did not finish
+                    return 0;
+                }
+                switch (type) {
+                    case BinaryBuildOperationTraceFormat.STRING:
+                        readVarLong(input);
+                        strings.add(input.readUTF());
+                        break;
+                    case BinaryBuildOperationTraceFormat.START:
+                        long id = readVarLong(input);
+                        long parentId = readVarLong(input) - 1;
+                        long startTime = readVarLong(input);
+                        int displayName = (int) readVarLong(input);
+                        int detailsType = (int) readVarLong(input) - 1;
+                        int threadName = (int) readVarLong(input);
+                        running.put(id, new StartedOperation(parentId, startTime, displayName, detailsType, thread(threadName)));
+                        break;
+                    case BinaryBuildOperationTraceFormat.PROGRESS:
+                        writeProgress(readVarLong(input), readVarLong(input), (int) readVarLong(input) - 1);
+                        break;
+                    case BinaryBuildOperationTraceFormat.FINISH:
+                        long finishedId = readVarLong(input);
+                        long endTime = readVarLong(input);
+                        int resultType = (int) readVarLong(input) - 1;
+                        boolean failed = input.readBoolean();
+                        StartedOperation operation = running.remove(finishedId);
+                        if (operation != null) {
+                            writeOperation(finishedId, operation, endTime, resultType, failed);
+                        }
+                        break;
+                    case BinaryBuildOperationTraceFormat.END:
+                        return readVarLong(input);
+                    default:
+                        throw new IOException("Unexpected record type " + type + ".");
+                }
+            }
+        }
+
+        private int thread(int threadName) {
+            return threads.computeIfAbsent(threadName, name -> threads.size() + 1);
+        }
+
+        private void writeOperation(long id, StartedOperation operation, long endTime, int resultType, boolean failed) throws IOException {
+            beginEvent();
+            output.write("{\"ph\":\"X\",\"pid\":1,\"tid\":");
+            output.write(Integer.toString(operation.thread));
+            output.write(",\"ts\":");
+            output.write(Long.toString(operation.startTime * 1000));
+            output.write(",\"dur\":");
+            output.write(Long.toString(Math.max(0, endTime - operation.startTime) * 1000));
+            output.write(",\"name\":");
+            writeString(strings.get(operation.displayName));
+            if (operation.detailsType >= 0) {
+                output.write(",\"cat\":");
+                writeString(strings.get(operation.detailsType));
+            }
+            output.write(",\"args\":{\"id\":");
+            output.write(Long.toString(id));
+            if (operation.parentId >= 0) {
+                output.write(",\"parentId\":");
+                output.write(Long.toString(operation.parentId));
+            }
+            if (resultType >= 0) {
+                output.write(",\"result\":");
+                writeString(strings.get(resultType));
+            }
+            if (failed) {
+                output.write(",\"failed\":true");
+            }
+            output.write("}}");
+        }
+
+        private void writeProgress(long id, long time, int detailsType) throws IOException {
+            StartedOperation operation = running.get(id);
+            if (operation == null || detailsType < 0) {
+                return;
+            }
+            beginEvent();
+            output.write("{\"ph\":\"i\",\"s\":\"t\",\"pid\":1,\"tid\":");
+            output.write(Integer.toString(operation.thread));
+            output.write(",\"ts\":");
+            output.write(Long.toString(time * 1000));
+            output.write(",\"name\":");
+            writeString(strings.get(detailsType));
+            output.write(",\"args\":{\"id\":");
+            output.write(Long.toString(id));
+            output.write("}}");
+        }
+
+        private void beginEvent() throws IOException {
+            if (firstEvent) {
+                firstEvent = false;
+            } else {
+                output.write(",\n");
+            }
+        }
+
+        private void writeString(String value) throws IOException {
+            output.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"':
+                        output.write("\\\"");
+                        break;
+                    case '\\':
+                        output.write("\\\\");
+                        break;
+                    case '\n':
+                        output.write("\\n");
+                        break;
+                    case '\r':
+                        output.write("\\r");
+                        break;
+                    case '\t':
+                        output.write("\\t");
+                        break;
+                    default:
+                        if (c < 0x20) {
+                            output.write(String.format("\\u%04x", (int) c));
+                        } else {
+                            output.write(c);
+                        }
+                }
+            }
+            output.write('"');
+        }
+    }
+
+    private static class StartedOperation {
+        final long parentId;
+        final long startTime;
+        final int displayName;
+        final int detailsType;
+        final int thread;
+
+        StartedOperation(long parentId, long startTime, int displayName, int detailsType, int thread) {
+            this.parentId = parentId;
+            this.startTime = startTime;
+            this.displayName = displayName;
+            this.detailsType = detailsType;
+            this.thread = thread;
+        }
+    }
+}
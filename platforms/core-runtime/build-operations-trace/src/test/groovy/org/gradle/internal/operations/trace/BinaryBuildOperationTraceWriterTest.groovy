@@ -0,0 +1,150 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations.trace
+
+import groovy.json.JsonSlurper
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.operations.BuildOperationDescriptor
+import org.gradle.internal.operations.OperationFinishEvent
+import org.gradle.internal.operations.OperationIdentifier
+import org.gradle.internal.operations.OperationProgressEvent
+import org.gradle.internal.operations.OperationStartEvent
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Timeout
+
+class BinaryBuildOperationTraceWriterTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    def executorFactory = new DefaultExecutorFactory()
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "converts written trace to Chrome trace events"() {
+        def traceFile = tmpDir.file("trace.bin")
+        def chromeTraceFile = tmpDir.file("trace.json")
+        def writer = new BinaryBuildOperationTraceWriter(traceFile, 100, executorFactory)
+        def root = descriptor(1, null, "Root \"operation\"", null)
+        def child = descriptor(2, 1, "Child operation", new Details())
+
+        when:
+        writer.started(root, new OperationStartEvent(10))
+        writer.started(child, new OperationStartEvent(12))
+        writer.progress(child.id, new OperationProgressEvent(13, new Progress()))
+        writer.finished(child, new OperationFinishEvent(12, 15, null, new Result()))
+        writer.finished(root, new OperationFinishEvent(10, 20, new RuntimeException("broken"), null))
+        writer.close()
+        ChromeTraceConverter.convert(traceFile, chromeTraceFile)
+        def trace = new JsonSlurper().parse(chromeTraceFile)
+        def events = trace.traceEvents
+
+        then:
+        trace.otherData.droppedEvents == 0
+        events.size() == 4
+
+        def progress = events[0]
+        progress.ph == "i"
+        progress.name == Progress.name
+        progress.ts == 13000
+        progress.args.id == 2
+
+        def childEvent = events[1]
+        childEvent.ph == "X"
+        childEvent.name == "Child operation"
+        childEvent.cat == Details.name
+        childEvent.ts == 12000
+        childEvent.dur == 3000
+        childEvent.args == [id: 2, parentId: 1, result: Result.name]
+
+        def rootEvent = events[2]
+        rootEvent.ph == "X"
+        rootEvent.name == "Root \"operation\""
+        rootEvent.cat == null
+        rootEvent.ts == 10000
+        rootEvent.dur == 10000
+        rootEvent.args == [id: 1, failed: true]
+
+        def thread = events[3]
+        thread.ph == "M"
+        thread.args.name == Thread.currentThread().name
+        [progress, childEvent, rootEvent].every { it.tid == thread.tid }
+    }
+
+    @Timeout(30)
+    def "discards events and reports failure on close when writing the trace fails"() {
+        def traceFile = tmpDir.file("trace.bin")
+        def output = new FailingOutputStream()
+        def writer = new BinaryBuildOperationTraceWriter(traceFile, output, 8, executorFactory)
+        def random = new Random(42)
+
+        when:
+        def id = 1
+        // Incompressible display names, so that the compressed trace reaches the output stream
+        while (!output.failed) {
+            def name = new String((0..<1000).collect { (char) (0x20 + random.nextInt(0x5e)) } as char[])
+            writer.started(descriptor(id++, null, name, null), new OperationStartEvent(id))
+        }
+        // Fill the buffer beyond its capacity after the failure
+        100.times {
+            writer.started(descriptor(id++, null, "operation", null), new OperationStartEvent(id))
+        }
+        writer.close()
+
+        then:
+        def e = thrown(IllegalStateException)
+        e.message == "Could not write build operation trace to ${traceFile}."
+        e.cause instanceof IOException
+    }
+
+    private static BuildOperationDescriptor descriptor(long id, Long parentId, String displayName, Object details) {
+        def builder = BuildOperationDescriptor.displayName(displayName)
+        if (details != null) {
+            builder.details(details)
+        }
+        return builder.build(new OperationIdentifier(id), parentId == null ? null : new OperationIdentifier(parentId))
+    }
+
+    private static class FailingOutputStream extends OutputStream {
+        private static final int GZIP_HEADER_SIZE = 10
+        private int written
+        volatile boolean failed
+
+        @Override
+        void write(int b) throws IOException {
+            write([(byte) b] as byte[], 0, 1)
+        }
+
+        @Override
+        void write(byte[] b, int off, int len) throws IOException {
+            if (written + len > GZIP_HEADER_SIZE) {
+                failed = true
+                throw new IOException("No space left on device")
+            }
+            written += len
+        }
+    }
+
+    private static class Details {}
+
+    private static class Progress {}
+
+    private static class Result {}
+}
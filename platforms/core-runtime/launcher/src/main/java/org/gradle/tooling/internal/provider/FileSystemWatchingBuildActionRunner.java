@@ -18,6 +18,7 @@
 
 import org.gradle.api.internal.StartParameterInternal;
 import org.gradle.api.internal.changedetection.state.FileHasherStatistics;
+import org.gradle.api.internal.changedetection.state.VirtualFileSystemImage;
 import org.gradle.deployment.internal.DeploymentRegistryInternal;
 import org.gradle.initialization.StartParameterBuildOptions;
 import org.gradle.internal.buildoption.InternalOptions;
@@ -42,6 +43,7 @@ public class FileSystemWatchingBuildActionRunner implements BuildActionRunner {
 
     private final BuildOperationProgressEventEmitter eventEmitter;
     private final BuildLifecycleAwareVirtualFileSystem virtualFileSystem;
+    private final VirtualFileSystemImage virtualFileSystemImage;
     private final DeploymentRegistryInternal deploymentRegistry;
     private final StatStatistics.Collector statStatisticsCollector;
     private final FileHasherStatistics.Collector fileHasherStatisticsCollector;
@@ -53,6 +55,7 @@ public class FileSystemWatchingBuildActionRunner implements BuildActionRunner {
     public FileSystemWatchingBuildActionRunner(
         BuildOperationProgressEventEmitter eventEmitter,
         BuildLifecycleAwareVirtualFileSystem virtualFileSystem,
+        VirtualFileSystemImage virtualFileSystemImage,
         DeploymentRegistryInternal deploymentRegistry,
         StatStatistics.Collector statStatisticsCollector,
         FileHasherStatistics.Collector fileHasherStatisticsCollector,
@@ -63,6 +66,7 @@ public FileSystemWatchingBuildActionRunner(
     ) {
         this.eventEmitter = eventEmitter;
         this.virtualFileSystem = virtualFileSystem;
+        this.virtualFileSystemImage = virtualFileSystemImage;
         this.deploymentRegistry = deploymentRegistry;
         this.statStatisticsCollector = statStatisticsCollector;
         this.fileHasherStatisticsCollector = fileHasherStatisticsCollector;
@@ -135,6 +139,10 @@ public boolean isEnabled() {
                 throw new IllegalStateException("Continuous build does not work when file system watching is disabled");
             }
         }
+        boolean persistVirtualFileSystem = actuallyWatching && VirtualFileSystemServices.isPersistVfs(options);
+        if (persistVirtualFileSystem) {
+            virtualFileSystemImage.restoreInto(virtualFileSystem);
+        }
 
         try {
             return delegate.run(action, buildController);
@@ -147,6 +155,10 @@ public boolean isEnabled() {
                 buildOperationRunner,
                 maximumNumberOfWatchedHierarchies
             );
+            // Only the retained state of a watched file system is known to be up-to-date
+            if (persistVirtualFileSystem && virtualFileSystem.isWatchingAnyLocations()) {
+                virtualFileSystemImage.writeFrom(virtualFileSystem);
+            }
             if (verboseVfsLogging == VfsLogging.VERBOSE) {
                 logVfsStatistics("during current build", statStatisticsCollector, fileHasherStatisticsCollector, directorySnapshotterStatisticsCollector);
             }
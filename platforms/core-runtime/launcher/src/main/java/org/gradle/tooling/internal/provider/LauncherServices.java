@@ -18,6 +18,7 @@
 
 import org.gradle.StartParameter;
 import org.gradle.api.internal.changedetection.state.FileHasherStatistics;
+import org.gradle.api.internal.changedetection.state.VirtualFileSystemImage;
 import org.gradle.api.internal.tasks.userinput.BuildScanUserInputHandler;
 import org.gradle.api.internal.tasks.userinput.DefaultBuildScanUserInputHandler;
 import org.gradle.api.internal.tasks.userinput.DefaultUserInputHandler;
@@ -198,6 +199,7 @@ BuildTreeActionExecutor createActionExecutor(
             BuildRequestMetaData buildRequestMetaData,
             GradleEnterprisePluginManager gradleEnterprisePluginManager,
             BuildLifecycleAwareVirtualFileSystem virtualFileSystem,
+            VirtualFileSystemImage virtualFileSystemImage,
             DeploymentRegistryInternal deploymentRegistry,
             StatStatistics.Collector statStatisticsCollector,
             FileHasherStatistics.Collector fileHasherStatisticsCollector,
@@ -220,6 +222,7 @@ BuildTreeActionExecutor createActionExecutor(
                             new FileSystemWatchingBuildActionRunner(
                                 eventEmitter,
                                 virtualFileSystem,
+                                virtualFileSystemImage,
                                 deploymentRegistry,
                                 statStatisticsCollector,
                                 fileHasherStatisticsCollector,
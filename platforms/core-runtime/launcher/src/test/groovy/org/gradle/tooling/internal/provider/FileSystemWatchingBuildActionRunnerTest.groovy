@@ -18,6 +18,7 @@ package org.gradle.tooling.internal.provider
 
 import org.gradle.api.internal.StartParameterInternal
 import org.gradle.api.internal.changedetection.state.FileHasherStatistics
+import org.gradle.api.internal.changedetection.state.VirtualFileSystemImage
 import org.gradle.deployment.internal.Deployment
 import org.gradle.deployment.internal.DeploymentRegistryInternal
 import org.gradle.internal.buildoption.DefaultInternalOptions
@@ -52,6 +53,7 @@ class FileSystemWatchingBuildActionRunnerTest extends Specification {
     def runner = new FileSystemWatchingBuildActionRunner(
         buildOperationProgressEventEmitter,
         watchingHandler,
+        Stub(VirtualFileSystemImage),
         deploymentRegistry,
         Stub(StatStatistics.Collector),
         Stub(FileHasherStatistics.Collector),
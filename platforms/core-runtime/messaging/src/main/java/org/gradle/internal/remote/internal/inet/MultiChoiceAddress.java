@@ -18,25 +18,41 @@
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 
+import javax.annotation.Nullable;
+import java.io.File;
 import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 
+/**
+ * The address of a server socket, which can be reached using any of the candidate addresses.
+ *
+ * <p>Local servers can also be reachable via a Unix domain socket, which clients use in preference to TCP when they support it.</p>
+ */
 public class MultiChoiceAddress implements InetEndpoint {
     private final UUID canonicalAddress;
     private final int port;
     private final List<InetAddress> candidates;
+    @Nullable
+    private final File unixDomainSocket;
 
     public MultiChoiceAddress(UUID canonicalAddress, int port, List<InetAddress> candidates) {
+        this(canonicalAddress, port, candidates, null);
+    }
+
+    public MultiChoiceAddress(UUID canonicalAddress, int port, List<InetAddress> candidates, @Nullable File unixDomainSocket) {
         this.canonicalAddress = canonicalAddress;
         this.port = port;
         this.candidates = new ArrayList<InetAddress>(candidates);
+        this.unixDomainSocket = unixDomainSocket;
     }
 
     @Override
     public String getDisplayName() {
-        return "[" + canonicalAddress + " port:" + port + ", addresses:" + candidates + "]";
+        String unixDomainSocketDisplayName = unixDomainSocket == null ? "" : ", socket:" + unixDomainSocket;
+        return "[" + canonicalAddress + " port:" + port + ", addresses:" + candidates + unixDomainSocketDisplayName + "]";
     }
 
     public UUID getCanonicalAddress() {
@@ -53,6 +69,14 @@ public int getPort() {
         return port;
     }
 
+    /**
+     * The socket file of the Unix domain socket the server also listens on, if any.
+     */
+    @Nullable
+    public File getUnixDomainSocket() {
+        return unixDomainSocket;
+    }
+
     @Override
     public String toString() {
         return getDisplayName();
@@ -67,7 +91,7 @@ public boolean equals(Object o) {
             return false;
         }
         MultiChoiceAddress other = (MultiChoiceAddress) o;
-        return other.canonicalAddress.equals(canonicalAddress) && port == other.port && candidates.equals(other.candidates);
+        return other.canonicalAddress.equals(canonicalAddress) && port == other.port && candidates.equals(other.candidates) && Objects.equals(unixDomainSocket, other.unixDomainSocket);
     }
 
     @Override
@@ -76,6 +100,6 @@ public int hashCode() {
     }
 
     public MultiChoiceAddress addAddresses(Iterable<InetAddress> candidates) {
-        return new MultiChoiceAddress(canonicalAddress, port, Lists.newArrayList(Iterables.concat(candidates, this.candidates)));
+        return new MultiChoiceAddress(canonicalAddress, port, Lists.newArrayList(Iterables.concat(candidates, this.candidates)), unixDomainSocket);
     }
 }
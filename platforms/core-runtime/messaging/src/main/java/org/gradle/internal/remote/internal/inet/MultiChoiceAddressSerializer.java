@@ -20,6 +20,7 @@
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.internal.serialize.Serializer;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.util.ArrayList;
@@ -37,7 +38,8 @@ public MultiChoiceAddress read(Decoder decoder) throws IOException {
             InetAddress address = InetAddress.getByAddress(decoder.readBinary());
             addresses.add(address);
         }
-        return new MultiChoiceAddress(canonicalAddress, port, addresses);
+        File unixDomainSocket = decoder.readBoolean() ? new File(decoder.readString()) : null;
+        return new MultiChoiceAddress(canonicalAddress, port, addresses, unixDomainSocket);
     }
 
     @Override
@@ -50,5 +52,10 @@ public void write(Encoder encoder, MultiChoiceAddress address) throws IOExceptio
         for (InetAddress inetAddress : address.getCandidates()) {
             encoder.writeBinary(inetAddress.getAddress());
         }
+        File unixDomainSocket = address.getUnixDomainSocket();
+        encoder.writeBoolean(unixDomainSocket != null);
+        if (unixDomainSocket != null) {
+            encoder.writeString(unixDomainSocket.getPath());
+        }
     }
 }
@@ -38,6 +38,7 @@
 import java.io.ObjectStreamException;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedSelectorException;
 import java.nio.channels.SelectionKey;
@@ -47,8 +48,8 @@
 public class SocketConnection<T> implements RemoteConnection<T> {
     private static final Logger LOGGER = LoggerFactory.getLogger(SocketConnection.class);
     private final SocketChannel socket;
-    private final SocketInetAddress localAddress;
-    private final SocketInetAddress remoteAddress;
+    private final String localAddress;
+    private final String remoteAddress;
     private final ObjectWriter<T> objectWriter;
     private final ObjectReader<T> objectReader;
     private final InputStream instr;
@@ -66,10 +67,12 @@ public SocketConnection(SocketChannel socket, MessageSerializer streamSerializer
         } catch (IOException e) {
             throw UncheckedException.throwAsUncheckedException(e);
         }
-        InetSocketAddress localSocketAddress = (InetSocketAddress) socket.socket().getLocalSocketAddress();
-        localAddress = new SocketInetAddress(localSocketAddress.getAddress(), localSocketAddress.getPort());
-        InetSocketAddress remoteSocketAddress = (InetSocketAddress) socket.socket().getRemoteSocketAddress();
-        remoteAddress = new SocketInetAddress(remoteSocketAddress.getAddress(), remoteSocketAddress.getPort());
+        try {
+            localAddress = displayNameOf(socket.getLocalAddress());
+            remoteAddress = displayNameOf(socket.getRemoteAddress());
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
         objectReader = messageSerializer.newReader(streamSerializer.newDecoder(instr));
         encoder = streamSerializer.newEncoder(outstr);
         objectWriter = messageSerializer.newWriter(encoder);
@@ -80,6 +83,16 @@ public String toString() {
         return "socket connection from " + localAddress + " to " + remoteAddress;
     }
 
+    private static String displayNameOf(SocketAddress socketAddress) {
+        if (socketAddress instanceof InetSocketAddress) {
+            InetSocketAddress inetSocketAddress = (InetSocketAddress) socketAddress;
+            return new SocketInetAddress(inetSocketAddress.getAddress(), inetSocketAddress.getPort()).getDisplayName();
+        }
+        // An unnamed client end of a Unix domain socket has an empty path
+        String displayName = String.valueOf(socketAddress);
+        return displayName.isEmpty() ? "unix domain socket" : displayName;
+    }
+
     @Override
     public T receive() throws MessageIOException {
         try {
@@ -29,6 +29,8 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+import java.io.File;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.nio.channels.ClosedChannelException;
@@ -38,6 +40,12 @@
 import java.util.List;
 import java.util.UUID;
 
+/**
+ * Accepts connections on a TCP server socket.
+ *
+ * <p>Connections that must not come from remote machines are also accepted on a Unix domain socket when
+ * this process supports them, see {@link UnixDomainSockets}.</p>
+ */
 public class TcpIncomingConnector implements IncomingConnector {
     private static final Logger LOGGER = LoggerFactory.getLogger(TcpIncomingConnector.class);
     private final ExecutorFactory executorFactory;
@@ -62,13 +70,19 @@ public ConnectionAcceptor accept(Action<ConnectCompletion> action, boolean allow
             throw UncheckedException.throwAsUncheckedException(e);
         }
 
+        final UnixDomainSockets.BoundServerSocket unixDomainSocket = allowRemote ? null : maybeBindUnixDomainSocket();
+        final File unixDomainSocketFile = unixDomainSocket == null ? null : unixDomainSocket.getSocketFile();
+
         UUID id = idGenerator.generateId();
         List<InetAddress> addresses = Collections.singletonList(addressFactory.getLocalBindingAddress());
-        final Address address = new MultiChoiceAddress(id, localPort, addresses);
+        final Address address = new MultiChoiceAddress(id, localPort, addresses, unixDomainSocketFile);
         LOGGER.debug("Listening on {}.", address);
 
         final ManagedExecutor executor = executorFactory.create("Incoming " + (allowRemote ? "remote" : "local")+ " TCP Connector on port " + localPort);
         executor.execute(new Receiver(serverSocket, action, allowRemote));
+        if (unixDomainSocket != null) {
+            executor.execute(new Receiver(unixDomainSocket.getServerSocket(), action, true));
+        }
 
         return new ConnectionAcceptor() {
             @Override
@@ -79,6 +93,10 @@ public Address getAddress() {
             @Override
             public void requestStop() {
                 CompositeStoppable.stoppable(serverSocket).stop();
+                if (unixDomainSocket != null) {
+                    CompositeStoppable.stoppable(unixDomainSocket.getServerSocket()).stop();
+                    UnixDomainSockets.delete(unixDomainSocketFile);
+                }
             }
 
             @Override
@@ -89,9 +107,23 @@ public void stop() {
         };
     }
 
+    @Nullable
+    private static UnixDomainSockets.BoundServerSocket maybeBindUnixDomainSocket() {
+        if (!UnixDomainSockets.isAvailable()) {
+            return null;
+        }
+        try {
+            return UnixDomainSockets.bind();
+        } catch (Exception e) {
+            LOGGER.debug("Could not listen on a Unix domain socket, using TCP only.", e);
+            return null;
+        }
+    }
+
     private class Receiver implements Runnable {
         private final ServerSocketChannel serverSocket;
         private final Action<ConnectCompletion> action;
+        // Connections to Unix domain sockets always come from the local machine, so they are accepted like remote connections without checking the address
         private final boolean allowRemote;
 
         public Receiver(ServerSocketChannel serverSocket, Action<ConnectCompletion> action, boolean allowRemote) {
@@ -106,14 +138,16 @@ public void run() {
                 try {
                     while (true) {
                         final SocketChannel socket = serverSocket.accept();
-                        InetSocketAddress remoteSocketAddress = (InetSocketAddress) socket.socket().getRemoteSocketAddress();
-                        InetAddress remoteInetAddress = remoteSocketAddress.getAddress();
-                        if (!allowRemote && !addressFactory.isCommunicationAddress(remoteInetAddress)) {
-                            LOGGER.error("Cannot accept connection from remote address {}.", remoteInetAddress);
-                            socket.close();
-                            continue;
+                        if (!allowRemote) {
+                            InetSocketAddress remoteSocketAddress = (InetSocketAddress) socket.getRemoteAddress();
+                            InetAddress remoteInetAddress = remoteSocketAddress.getAddress();
+                            if (!addressFactory.isCommunicationAddress(remoteInetAddress)) {
+                                LOGGER.error("Cannot accept connection from remote address {}.", remoteInetAddress);
+                                socket.close();
+                                continue;
+                            }
                         }
-                        LOGGER.debug("Accepted connection from {} to {}.", socket.socket().getRemoteSocketAddress(), socket.socket().getLocalSocketAddress());
+                        LOGGER.debug("Accepted connection from {} to {}.", socket.getRemoteAddress(), socket.getLocalAddress());
                         try {
                             action.execute(new SocketConnectCompletion(socket));
                         } catch (Throwable t) {
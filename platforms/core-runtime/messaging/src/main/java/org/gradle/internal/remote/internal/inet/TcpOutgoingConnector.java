@@ -23,6 +23,8 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+import java.io.File;
 import java.io.IOException;
 import java.net.*;
 import java.nio.channels.SocketChannel;
@@ -40,6 +42,13 @@ public ConnectCompletion connect(Address destinationAddress) throws org.gradle.i
         InetEndpoint address = (InetEndpoint) destinationAddress;
         LOGGER.debug("Attempting to connect to {}.", address);
 
+        if (address instanceof MultiChoiceAddress) {
+            SocketChannel socketChannel = maybeConnectToUnixDomainSocket((MultiChoiceAddress) address);
+            if (socketChannel != null) {
+                return new SocketConnectCompletion(socketChannel);
+            }
+        }
+
         // Try each address in turn. Not all of them are necessarily reachable (eg when socket option IPV6_V6ONLY
         // is on - the default for debian and others), so we will try each of them until we can connect
         List<InetAddress> candidateAddresses = address.getCandidates();
@@ -74,6 +83,23 @@ public ConnectCompletion connect(Address destinationAddress) throws org.gradle.i
         }
     }
 
+    @Nullable
+    private static SocketChannel maybeConnectToUnixDomainSocket(MultiChoiceAddress address) {
+        File socketFile = address.getUnixDomainSocket();
+        if (socketFile == null || !UnixDomainSockets.isAvailable()) {
+            return null;
+        }
+        try {
+            SocketChannel socketChannel = UnixDomainSockets.connect(socketFile);
+            LOGGER.debug("Connected to Unix domain socket {}.", socketFile);
+            return socketChannel;
+        } catch (IOException e) {
+            // The server may not be able to listen on the socket anymore, e.g. when the temporary directory has been cleaned
+            LOGGER.debug("Cannot connect to Unix domain socket {}, falling back to TCP.", socketFile, e);
+            return null;
+        }
+    }
+
     private SocketChannel tryConnect(InetEndpoint address, InetAddress candidate) throws IOException {
         SocketChannel socketChannel = SocketChannel.open();
 
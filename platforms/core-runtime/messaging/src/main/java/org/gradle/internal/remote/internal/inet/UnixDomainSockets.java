@@ -0,0 +1,161 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.inet;
+
+import org.gradle.internal.os.OperatingSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+/**
+ * Support for {@code AF_UNIX} sockets, which are available from Java 16 on.
+ *
+ * <p>The APIs are accessed reflectively, as this code also runs in processes using older Java versions.
+ * Unix domain sockets can be disabled by setting the system property {@value #UNIX_DOMAIN_SOCKETS_PROPERTY} to {@code false}.</p>
+ */
+class UnixDomainSockets {
+    static final String UNIX_DOMAIN_SOCKETS_PROPERTY = "org.gradle.internal.remote.unix-domain-sockets";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UnixDomainSockets.class);
+    /**
+     * The smallest limit on the length of a socket path in bytes on the supported platforms, which is 104 on macOS.
+     */
+    private static final int MAX_SOCKET_PATH_LENGTH = 100;
+    private static final Api API = Api.load();
+
+    private UnixDomainSockets() {
+    }
+
+    /**
+     * Whether this process can use Unix domain sockets.
+     */
+    static boolean isAvailable() {
+        return API != null
+            && !OperatingSystem.current().isWindows()
+            && !"false".equals(System.getProperty(UNIX_DOMAIN_SOCKETS_PROPERTY));
+    }
+
+    /**
+     * Creates a server socket bound to a new socket file in a new private temporary directory, or returns null when the path of the socket file would be too long.
+     */
+    @Nullable
+    static BoundServerSocket bind() throws IOException {
+        File directory = Files.createTempDirectory("gradle-").toFile();
+        File socketFile = new File(directory, "socket");
+        if (socketFile.getAbsolutePath().getBytes(Charset.defaultCharset()).length > MAX_SOCKET_PATH_LENGTH) {
+            LOGGER.debug("Not using Unix domain socket as the path {} is too long.", socketFile);
+            delete(socketFile);
+            return null;
+        }
+        ServerSocketChannel serverSocket = openServerSocket();
+        try {
+            serverSocket.bind(addressOf(socketFile));
+        } catch (IOException e) {
+            serverSocket.close();
+            delete(socketFile);
+            throw e;
+        }
+        return new BoundServerSocket(serverSocket, socketFile);
+    }
+
+    static SocketChannel connect(File socketFile) throws IOException {
+        return SocketChannel.open(addressOf(socketFile));
+    }
+
+    /**
+     * Deletes the socket file and its directory.
+     */
+    static void delete(File socketFile) {
+        File directory = socketFile.getParentFile();
+        if ((socketFile.exists() && !socketFile.delete()) || (directory.exists() && !directory.delete())) {
+            LOGGER.debug("Could not delete Unix domain socket {}.", socketFile);
+        }
+    }
+
+    private static ServerSocketChannel openServerSocket() throws IOException {
+        return (ServerSocketChannel) invoke(API.openServerSocketChannel, StandardProtocolFamily.valueOf("UNIX"));
+    }
+
+    private static SocketAddress addressOf(File socketFile) throws IOException {
+        return (SocketAddress) invoke(API.addressOf, socketFile.getAbsolutePath());
+    }
+
+    private static Object invoke(Method method, Object argument) throws IOException {
+        try {
+            return method.invoke(null, argument);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IOException(e);
+        }
+    }
+
+    static class BoundServerSocket {
+        private final ServerSocketChannel serverSocket;
+        private final File socketFile;
+
+        private BoundServerSocket(ServerSocketChannel serverSocket, File socketFile) {
+            this.serverSocket = serverSocket;
+            this.socketFile = socketFile;
+        }
+
+        public ServerSocketChannel getServerSocket() {
+            return serverSocket;
+        }
+
+        public File getSocketFile() {
+            return socketFile;
+        }
+    }
+
+    private static class Api {
+        private final Method openServerSocketChannel;
+        private final Method addressOf;
+
+        private Api(Method openServerSocketChannel, Method addressOf) {
+            this.openServerSocketChannel = openServerSocketChannel;
+            this.addressOf = addressOf;
+        }
+
+        @Nullable
+        static Api load() {
+            try {
+                StandardProtocolFamily.valueOf("UNIX");
+                Method openServerSocketChannel = ServerSocketChannel.class.getMethod("open", ProtocolFamily.class);
+                Method addressOf = Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", String.class);
+                return new Api(openServerSocketChannel, addressOf);
+            } catch (Exception e) {
+                return null;
+            }
+        }
+    }
+}
@@ -76,6 +76,64 @@ class TcpConnectorTest extends ConcurrentSpec {
         connection?.stop()
     }
 
+    @Requires(UnitTestPreconditions.NotWindows)
+    def "client connects to local server using Unix domain socket when available"() {
+        Action action = Mock()
+
+        when:
+        def acceptor = incomingConnector.accept(action, false)
+        def connection = outgoingConnector.connect(acceptor.address).create(serializer)
+
+        then:
+        connection != null
+        def socketFile = (acceptor.address as MultiChoiceAddress).unixDomainSocket
+        UnixDomainSockets.isAvailable() ? socketFile.exists() : socketFile == null
+        def remoteAddress = (connection as SocketConnection).socket.remoteAddress
+        UnixDomainSockets.isAvailable() ? remoteAddress.class.name == "java.net.UnixDomainSocketAddress" : remoteAddress instanceof InetSocketAddress
+        !UnixDomainSockets.isAvailable() || remoteAddress.path.toString() == socketFile.absolutePath
+
+        when:
+        acceptor.stop()
+
+        then:
+        socketFile == null || !socketFile.exists()
+
+        cleanup:
+        acceptor?.stop()
+        connection?.stop()
+    }
+
+    @Requires(UnitTestPreconditions.NotWindows)
+    def "client falls back to TCP when Unix domain socket is not reachable"() {
+        Action action = Mock()
+        def acceptor = incomingConnector.accept(action, false)
+        def address = acceptor.address as MultiChoiceAddress
+        def unreachable = new MultiChoiceAddress(address.canonicalAddress, address.port, address.candidates, new File("/gradle-missing-socket-dir/socket"))
+
+        when:
+        def connection = outgoingConnector.connect(unreachable).create(serializer)
+
+        then:
+        connection != null
+
+        cleanup:
+        acceptor?.stop()
+        connection?.stop()
+    }
+
+    def "does not listen on Unix domain socket for remote connections"() {
+        Action action = Mock()
+
+        when:
+        def acceptor = incomingConnector.accept(action, true)
+
+        then:
+        (acceptor.address as MultiChoiceAddress).unixDomainSocket == null
+
+        cleanup:
+        acceptor?.stop()
+    }
+
     def "server executes action when incoming connection received"() {
         Action action = Mock()
 
@@ -266,6 +266,56 @@ class CheckstylePluginVersionIntegrationTest extends MultiVersionIntegrationSpec
         executedAndNotSkipped(":checkstyleMain")
     }
 
+    @Requires(IntegTestPreconditions.NotParallelExecutor)
+    def "reuses the results of unchanged source files with incremental analysis"() {
+        given:
+        badCode()
+        buildFile << """
+            checkstyle {
+                ignoreFailures = true
+            }
+            tasks.withType(Checkstyle).configureEach {
+                incrementalAnalysis = true
+            }
+        """
+        succeeds("checkstyleMain")
+
+        when:
+        file("src/main/java/org/gradle/class1.java").text = "package org.gradle; class class1 { int field; }"
+        executer.withArgument("-i")
+        succeeds("checkstyleMain")
+
+        then:
+        executedAndNotSkipped(":checkstyleMain")
+        outputContains("Running Checkstyle for 1 of 2 source files, reusing the previous results for the others.")
+        output.contains("Checkstyle files with violations: 2")
+        file("build/reports/checkstyle/main.xml").assertContents(containsClass("org.gradle.class1"))
+        file("build/reports/checkstyle/main.xml").assertContents(containsClass("org.gradle.class2"))
+        file("build/reports/checkstyle/main.html").assertContents(containsClass("org.gradle.class2"))
+    }
+
+    def "analyses all source files without incremental analysis"() {
+        given:
+        badCode()
+        buildFile << """
+            checkstyle {
+                ignoreFailures = true
+            }
+        """
+        succeeds("checkstyleMain")
+
+        when:
+        file("src/main/java/org/gradle/class1.java").text = "package org.gradle; class class1 { int field; }"
+        executer.withArgument("-i")
+        succeeds("checkstyleMain")
+
+        then:
+        executedAndNotSkipped(":checkstyleMain")
+        outputDoesNotContain("reusing the previous results")
+        file("build/reports/checkstyle/main.xml").assertContents(containsClass("org.gradle.class1"))
+        file("build/reports/checkstyle/main.xml").assertContents(containsClass("org.gradle.class2"))
+    }
+
     def "can configure sarif reporting"() {
         given:
         Assume.assumeTrue(isSarifSupported())
@@ -22,6 +22,8 @@
 import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.file.FileTree;
+import org.gradle.api.file.FileType;
+import org.gradle.api.internal.file.temp.TemporaryFileProvider;
 import org.gradle.api.plugins.quality.internal.CheckstyleAction;
 import org.gradle.api.plugins.quality.internal.CheckstyleActionParameters;
 import org.gradle.api.plugins.quality.internal.CheckstyleReportsImpl;
@@ -31,23 +33,31 @@
 import org.gradle.api.tasks.CacheableTask;
 import org.gradle.api.tasks.Classpath;
 import org.gradle.api.tasks.Console;
+import org.gradle.api.tasks.IgnoreEmptyDirectories;
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.InputFiles;
 import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.Nested;
 import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputFile;
 import org.gradle.api.tasks.PathSensitive;
 import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.SkipWhenEmpty;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.internal.Describables;
 import org.gradle.internal.instrumentation.api.annotations.ToBeReplacedByLazyProperty;
 import org.gradle.util.internal.ClosureBackedAction;
+import org.gradle.util.internal.GFileUtils;
+import org.gradle.work.ChangeType;
+import org.gradle.work.FileChange;
+import org.gradle.work.InputChanges;
 import org.gradle.workers.WorkQueue;
 
 import javax.annotation.Nullable;
 import java.io.File;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 /**
  * Runs Checkstyle against some source files.
@@ -64,12 +74,16 @@ public abstract class Checkstyle extends AbstractCodeQualityTask implements Repo
     private boolean showViolations = true;
     private final DirectoryProperty configDirectory;
     private final Property<Boolean> enableExternalDtdLoad;
+    private final Property<Boolean> incrementalAnalysis;
+    private final FileCollection stableSources = getProject().files((Callable<FileTree>) this::getSource);
+    private File resultCacheFile;
 
     public Checkstyle() {
         super();
         this.configDirectory = getObjectFactory().directoryProperty();
         this.reports = getObjectFactory().newInstance(CheckstyleReportsImpl.class, Describables.quoted("Task", getIdentityPath()));
         this.enableExternalDtdLoad = getObjectFactory().property(Boolean.class).convention(false);
+        this.incrementalAnalysis = getObjectFactory().property(Boolean.class).convention(false);
     }
 
     /**
@@ -137,17 +151,49 @@ public CheckstyleReports reports(Action<? super CheckstyleReports> configureActi
         return reports;
     }
 
-    @TaskAction
+    /**
+     * Runs Checkstyle against all source files.
+     */
     public void run() {
-        runWithProcessIsolation();
+        runWithProcessIsolation(parameters -> parameters.getIncremental().set(false));
+    }
+
+    /**
+     * Runs Checkstyle against all source files or, when {@link #getIncrementalAnalysis() incremental analysis} is enabled,
+     * against the source files which changed since the previous execution, reusing the previous results for the other source files.
+     *
+     * @since 8.11
+     */
+    @Incubating
+    @TaskAction
+    public void run(InputChanges inputChanges) {
+        if (!incrementalAnalysis.get()) {
+            GFileUtils.deleteQuietly(getResultCache());
+            run();
+            return;
+        }
+        runWithProcessIsolation(parameters -> {
+            parameters.getResultCache().set(getResultCache());
+            parameters.getIncremental().set(inputChanges.isIncremental());
+            if (inputChanges.isIncremental()) {
+                for (FileChange change : inputChanges.getFileChanges(getStableSources())) {
+                    if (change.getFileType() == FileType.FILE && change.getChangeType() != ChangeType.REMOVED) {
+                        parameters.getChangedSource().from(change.getFile());
+                    }
+                }
+            }
+        });
     }
 
-    private void runWithProcessIsolation() {
+    private void runWithProcessIsolation(Action<CheckstyleActionParameters> configureChanges) {
         WorkQueue workQueue = getWorkerExecutor().processIsolation(spec -> {
             configureForkOptions(spec.getForkOptions());
             spec.getForkOptions().getSystemProperties().put("checkstyle.enableExternalDtdLoad", enableExternalDtdLoad.get().toString());
         });
-        workQueue.submit(CheckstyleAction.class, this::setupParameters);
+        workQueue.submit(CheckstyleAction.class, parameters -> {
+            setupParameters(parameters);
+            configureChanges.execute(parameters);
+        });
     }
 
     private void setupParameters(CheckstyleActionParameters parameters) {
@@ -183,12 +229,42 @@ private void setupParameters(CheckstyleActionParameters parameters) {
      * executed.</p>
      */
     @Override
+    @Internal("tracked via stableSources")
     @ToBeReplacedByLazyProperty
-    @PathSensitive(PathSensitivity.RELATIVE)
     public FileTree getSource() {
         return super.getSource();
     }
 
+    /**
+     * The sources for incremental change detection.
+     *
+     * @since 8.11
+     */
+    @Incubating
+    @SkipWhenEmpty
+    @IgnoreEmptyDirectories
+    @PathSensitive(PathSensitivity.RELATIVE)
+    @InputFiles
+    protected FileCollection getStableSources() {
+        return stableSources;
+    }
+
+    /**
+     * The Checkstyle results of the individual source files from the previous execution. Internal use only.
+     *
+     * <p>The results refer to the source files by their relative paths, so they can be reused when the task output is loaded from the build cache.</p>
+     *
+     * @since 8.11
+     */
+    @Incubating
+    @OutputFile
+    protected File getResultCache() {
+        if (resultCacheFile == null) {
+            resultCacheFile = new File(getServices().get(TemporaryFileProvider.class).newTemporaryFile(getName()), "checkstyle-results.bin");
+        }
+        return resultCacheFile;
+    }
+
     /**
      * The class path containing the Checkstyle library to be used.
      */
@@ -361,6 +437,23 @@ public Property<Boolean> getEnableExternalDtdLoad() {
         return enableExternalDtdLoad;
     }
 
+    /**
+     * Analyse only the source files which changed since the previous execution, and reuse the previous results for the other source files.
+     * <strong>Disabled by default</strong>, because checks that look across files, such as {@code JavadocPackage} or {@code Translation},
+     * only see the changed files. This is the same limitation as the {@code cacheFile} option of Checkstyle.
+     *
+     * <p>All source files are analysed when the SARIF report is enabled, or when anything other than the source files changed.</p>
+     *
+     * @return property to enable incremental analysis
+     *
+     * @since 8.11
+     */
+    @Incubating
+    @Input
+    public Property<Boolean> getIncrementalAnalysis() {
+        return incrementalAnalysis;
+    }
+
     /**
      * Whether the build should break when the verifications performed by this task fail.
      *
@@ -54,4 +54,10 @@ public interface CheckstyleActionParameters extends AntWorkParameters {
     MapProperty<String, Object> getConfigProperties();
 
     Property<String> getStylesheetString();
+
+    RegularFileProperty getResultCache();
+
+    Property<Boolean> getIncremental();
+
+    ConfigurableFileCollection getChangedSource();
 }
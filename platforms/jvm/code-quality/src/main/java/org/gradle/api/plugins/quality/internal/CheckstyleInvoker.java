@@ -32,7 +32,11 @@
 import org.gradle.api.internal.project.antbuilder.AntBuilderDelegate;
 import org.gradle.api.plugins.quality.Checkstyle;
 import org.gradle.api.provider.Property;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
 import org.gradle.internal.logging.ConsoleRenderer;
+import org.gradle.internal.xml.XmlFactories;
 import org.gradle.util.GradleVersion;
 import org.gradle.util.internal.GFileUtils;
 import org.gradle.util.internal.VersionNumber;
@@ -42,13 +46,23 @@
 
 import javax.annotation.Nullable;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -108,43 +122,47 @@ public void execute(AntBuilderDelegate ant) {
             ));
         }
 
-        try {
-            ant.invokeMethod("checkstyle",
-                ImmutableMap.of(
-                    "config", config.getAsFile(),
-                    "failOnViolation", false,
-                    "maxErrors", maxErrors,
-                    "maxWarnings", maxWarnings,
-                    "failureProperty", FAILURE_PROPERTY_NAME
-                ), () -> {
-                    source.addToAntBuilder(ant, "fileset", FileCollection.AntType.FileSet);
-
-                    if (showViolations) {
-                        ant.invokeMethod("formatter", ImmutableMap.of("type", "plain", "useFile", false));
-                    }
-
-                    if (isXmlRequired || isHtmlRequired) {
-                        ant.invokeMethod("formatter", ImmutableMap.of(
-                            "type", "xml",
-                            "toFile", checkNotNull(xmlOutputLocation, "Xml report output location is required when xml or html report is requested."))
-                        );
-                    }
-
-                    if (isSarifRequired) {
-                        ant.invokeMethod("formatter", ImmutableMap.of(
-                            "type", "sarif",
-                            "toFile", checkNotNull(sarifOutputLocation, "SARIF report output location is required when SARIF report is requested."))
-                        );
-                    }
-
-                    configProperties.forEach((key, value) ->
-                        ant.invokeMethod("property", ImmutableMap.of("key", key, "value", value.toString()))
-                    );
-
-                    ant.invokeMethod("property", ImmutableMap.of("key", CONFIG_LOC_PROPERTY, "value", configDir.toString()));
-                });
-        } catch (Exception e) {
-            throw new CheckstyleInvocationException("An unexpected error occurred configuring and executing Checkstyle.", e);
+        File resultCacheFile = parameters.getResultCache().getAsFile().getOrNull();
+        boolean hasAFailure;
+        if (resultCacheFile != null && !isSarifRequired) {
+            // The SARIF report cannot be assembled from the results of individual files
+            hasAFailure = runIncrementally(ant, source, resultCacheFile, config.getAsFile(), configDir, configProperties, currentToolVersion, showViolations, maxErrors, maxWarnings, isXmlRequired || isHtmlRequired ? xmlOutputLocation : null);
+        } else {
+            try {
+                ant.invokeMethod("checkstyle",
+                    ImmutableMap.of(
+                        "config", config.getAsFile(),
+                        "failOnViolation", false,
+                        "maxErrors", maxErrors,
+                        "maxWarnings", maxWarnings,
+                        "failureProperty", FAILURE_PROPERTY_NAME
+                    ), () -> {
+                        source.addToAntBuilder(ant, "fileset", FileCollection.AntType.FileSet);
+
+                        if (showViolations) {
+                            ant.invokeMethod("formatter", ImmutableMap.of("type", "plain", "useFile", false));
+                        }
+
+                        if (isXmlRequired || isHtmlRequired) {
+                            ant.invokeMethod("formatter", ImmutableMap.of(
+                                "type", "xml",
+                                "toFile", checkNotNull(xmlOutputLocation, "Xml report output location is required when xml or html report is requested."))
+                            );
+                        }
+
+                        if (isSarifRequired) {
+                            ant.invokeMethod("formatter", ImmutableMap.of(
+                                "type", "sarif",
+                                "toFile", checkNotNull(sarifOutputLocation, "SARIF report output location is required when SARIF report is requested."))
+                            );
+                        }
+
+                        addConfigProperties(ant, configProperties, configDir);
+                    });
+            } catch (Exception e) {
+                throw new CheckstyleInvocationException("An unexpected error occurred configuring and executing Checkstyle.", e);
+            }
+            hasAFailure = ant.getProjectProperties().get(FAILURE_PROPERTY_NAME) != null;
         }
 
         if (isHtmlRequired) {
@@ -165,7 +183,6 @@ public void execute(AntBuilderDelegate ant) {
 
         Node reportXml = parseCheckstyleXml(isXmlRequired, xmlOutputLocation);
         String message = getMessage(isXmlRequired, xmlOutputLocation, isHtmlRequired, htmlOutputLocation, isSarifRequired, sarifOutputLocation, reportXml);
-        boolean hasAFailure = ant.getProjectProperties().get(FAILURE_PROPERTY_NAME) != null;
         if (hasAFailure && !ignoreFailures) {
             throw new MarkedVerificationException(message);
         } else {
@@ -175,6 +192,219 @@ public void execute(AntBuilderDelegate ant) {
         }
     }
 
+    private static void addConfigProperties(AntBuilderDelegate ant, Map<String, Object> configProperties, File configDir) {
+        configProperties.forEach((key, value) ->
+            ant.invokeMethod("property", ImmutableMap.of("key", key, "value", value.toString()))
+        );
+
+        ant.invokeMethod("property", ImmutableMap.of("key", CONFIG_LOC_PROPERTY, "value", configDir.toString()));
+    }
+
+    /**
+     * Runs Checkstyle only for the source files without a previous result, and assembles the reports from the results of all source files.
+     *
+     * @return whether more errors or warnings than allowed have been found
+     */
+    private boolean runIncrementally(
+        AntBuilderDelegate ant,
+        FileTree source,
+        File resultCacheFile,
+        File configFile,
+        File configDir,
+        Map<String, Object> configProperties,
+        VersionNumber toolVersion,
+        boolean showViolations,
+        int maxErrors,
+        int maxWarnings,
+        @Nullable File xmlOutputLocation
+    ) {
+        HashCode configHash = hashConfiguration(toolVersion, configFile, configProperties);
+        boolean incremental = parameters.getIncremental().get();
+        // The execution is not incremental when any other input of the task changed, such as the configuration directory or the Checkstyle classpath
+        CheckstyleResultCache previousResults = incremental ? CheckstyleResultCache.load(resultCacheFile, configHash) : CheckstyleResultCache.empty();
+        Set<File> changedFiles = incremental ? parameters.getChangedSource().getFiles() : Collections.emptySet();
+
+        List<SourceFile> sourceFiles = new ArrayList<>();
+        Map<File, SourceFile> filesToAnalyse = new LinkedHashMap<>();
+        source.visit(details -> {
+            if (!details.isDirectory()) {
+                SourceFile sourceFile = new SourceFile(details.getFile(), details.getRelativePath().getPathString());
+                sourceFile.result = previousResults.find(sourceFile.relativePath, incremental && !changedFiles.contains(sourceFile.file), sourceFile::getContentHash);
+                if (sourceFile.result == null) {
+                    filesToAnalyse.put(sourceFile.file.getAbsoluteFile(), sourceFile);
+                }
+                sourceFiles.add(sourceFile);
+            }
+        });
+        LOGGER.info("Running Checkstyle for {} of {} source files, reusing the previous results for the others.", filesToAnalyse.size(), sourceFiles.size());
+        if (!filesToAnalyse.isEmpty()) {
+            analyse(ant, filesToAnalyse, configFile, configDir, configProperties);
+        }
+
+        List<CheckstyleResultCache.FileResult> results = sourceFiles.stream().map(sourceFile -> sourceFile.result).collect(Collectors.toList());
+        CheckstyleResultCache.store(resultCacheFile, configHash, results);
+
+        if (showViolations) {
+            logViolations(sourceFiles);
+        }
+        if (xmlOutputLocation != null) {
+            writeXmlReport(xmlOutputLocation, toolVersion, sourceFiles);
+        }
+
+        int errors = 0;
+        int warnings = 0;
+        for (CheckstyleResultCache.FileResult result : results) {
+            for (CheckstyleResultCache.Violation violation : result.getViolations()) {
+                if (violation.getSeverity().equals("error")) {
+                    errors++;
+                } else if (violation.getSeverity().equals("warning")) {
+                    warnings++;
+                }
+            }
+        }
+        return errors > maxErrors || warnings > maxWarnings;
+    }
+
+    private void analyse(AntBuilderDelegate ant, Map<File, SourceFile> filesToAnalyse, File configFile, File configDir, Map<String, Object> configProperties) {
+        File analysisReport = new File(parameters.getTemporaryDir().getAsFile().get(), "checkstyle-analysed-files.xml");
+        try {
+            ant.invokeMethod("checkstyle",
+                ImmutableMap.of(
+                    "config", configFile,
+                    "failOnViolation", false
+                ), () -> {
+                    for (File file : filesToAnalyse.keySet()) {
+                        ant.invokeMethod("fileset", ImmutableMap.of("file", file));
+                    }
+                    ant.invokeMethod("formatter", ImmutableMap.of("type", "xml", "toFile", analysisReport));
+                    addConfigProperties(ant, configProperties, configDir);
+                });
+        } catch (Exception e) {
+            throw new CheckstyleInvocationException("An unexpected error occurred configuring and executing Checkstyle.", e);
+        }
+
+        Node reportXml = parseCheckstyleXml(true, analysisReport);
+        for (Object node : checkNotNull(reportXml).getAt(QName.valueOf("file"))) {
+            Node fileNode = (Node) node;
+            SourceFile sourceFile = filesToAnalyse.get(new File((String) fileNode.attribute("name")).getAbsoluteFile());
+            if (sourceFile == null) {
+                continue;
+            }
+            List<CheckstyleResultCache.Violation> violations = new ArrayList<>();
+            for (Object error : fileNode.getAt(QName.valueOf("error"))) {
+                Node errorNode = (Node) error;
+                violations.add(new CheckstyleResultCache.Violation(
+                    intAttribute(errorNode, "line"),
+                    intAttribute(errorNode, "column"),
+                    stringAttribute(errorNode, "severity"),
+                    stringAttribute(errorNode, "message"),
+                    stringAttribute(errorNode, "source")
+                ));
+            }
+            sourceFile.result = new CheckstyleResultCache.FileResult(sourceFile.relativePath, sourceFile.getContentHash(), true, violations);
+        }
+        for (SourceFile sourceFile : filesToAnalyse.values()) {
+            if (sourceFile.result == null) {
+                sourceFile.result = new CheckstyleResultCache.FileResult(sourceFile.relativePath, sourceFile.getContentHash(), false, Collections.emptyList());
+            }
+        }
+        GFileUtils.deleteQuietly(analysisReport);
+    }
+
+    /**
+     * Identifies the configuration the stored results were created with. Changes to the other inputs of the task,
+     * like the files in the configuration directory, make the execution non-incremental, so the stored results are not used.
+     */
+    private static HashCode hashConfiguration(VersionNumber toolVersion, File configFile, Map<String, Object> configProperties) {
+        Hasher hasher = Hashing.newHasher();
+        hasher.putString(toolVersion.toString());
+        try {
+            hasher.putHash(Hashing.hashFile(configFile));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        new TreeMap<>(configProperties).forEach((key, value) -> {
+            hasher.putString(key);
+            hasher.putString(value.toString());
+        });
+        return hasher.hash();
+    }
+
+    /**
+     * Logs the violations in the same format as the plain formatter of Checkstyle.
+     */
+    private static void logViolations(List<SourceFile> sourceFiles) {
+        for (SourceFile sourceFile : sourceFiles) {
+            for (CheckstyleResultCache.Violation violation : sourceFile.result.getViolations()) {
+                String severity = violation.getSeverity().equals("warning") ? "WARN" : violation.getSeverity().toUpperCase(Locale.ROOT);
+                String location = sourceFile.file.getAbsolutePath() + ":" + violation.getLine() + (violation.getColumn() > 0 ? ":" + violation.getColumn() : "");
+                LOGGER.error("[ant:checkstyle] [{}] {}: {} [{}]", severity, location, violation.getMessage(), getCheckShortName(violation.getSource()));
+            }
+        }
+    }
+
+    private static String getCheckShortName(String source) {
+        int lastDot = source.lastIndexOf('.');
+        if (lastDot < 0) {
+            // The id of the module
+            return source;
+        }
+        String className = source.substring(lastDot + 1);
+        return className.endsWith("Check") ? className.substring(0, className.length() - "Check".length()) : className;
+    }
+
+    private static void writeXmlReport(File xmlOutputLocation, VersionNumber toolVersion, List<SourceFile> sourceFiles) {
+        try {
+            Files.createDirectories(xmlOutputLocation.getParentFile().toPath());
+            try (OutputStream output = Files.newOutputStream(xmlOutputLocation.toPath())) {
+                XMLStreamWriter writer = XmlFactories.newXMLOutputFactory().createXMLStreamWriter(output, "UTF-8");
+                writer.writeStartDocument("UTF-8", "1.0");
+                writer.writeCharacters("\n");
+                writer.writeStartElement("checkstyle");
+                writer.writeAttribute("version", toolVersion.toString());
+                writer.writeCharacters("\n");
+                for (SourceFile sourceFile : sourceFiles) {
+                    if (!sourceFile.result.isAudited()) {
+                        continue;
+                    }
+                    writer.writeStartElement("file");
+                    writer.writeAttribute("name", sourceFile.file.getAbsolutePath());
+                    writer.writeCharacters("\n");
+                    for (CheckstyleResultCache.Violation violation : sourceFile.result.getViolations()) {
+                        writer.writeEmptyElement("error");
+                        writer.writeAttribute("line", String.valueOf(violation.getLine()));
+                        if (violation.getColumn() > 0) {
+                            writer.writeAttribute("column", String.valueOf(violation.getColumn()));
+                        }
+                        writer.writeAttribute("severity", violation.getSeverity());
+                        writer.writeAttribute("message", violation.getMessage());
+                        writer.writeAttribute("source", violation.getSource());
+                        writer.writeCharacters("\n");
+                    }
+                    writer.writeEndElement();
+                    writer.writeCharacters("\n");
+                }
+                writer.writeEndElement();
+                writer.writeEndDocument();
+                writer.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (XMLStreamException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static int intAttribute(Node node, String name) {
+        Object value = node.attribute(name);
+        return value == null ? 0 : Integer.parseInt((String) value);
+    }
+
+    private static String stringAttribute(Node node, String name) {
+        Object value = node.attribute(name);
+        return value == null ? "" : (String) value;
+    }
+
     @Nullable
     private File getXmlOutputLocation(boolean isXmlRequired, boolean isHtmlRequired) {
         File xmlOutputLocation = parameters.getXmlOutputLocation().getAsFile().getOrNull();
@@ -288,4 +518,27 @@ private static int getErrorFileCount(Node reportXml) {
     private static boolean isHtmlReportEnabledOnly(boolean isXmlRequired, boolean isHtmlRequired) {
         return !isXmlRequired && isHtmlRequired;
     }
+
+    private static class SourceFile {
+        private final File file;
+        private final String relativePath;
+        private HashCode contentHash;
+        private CheckstyleResultCache.FileResult result;
+
+        SourceFile(File file, String relativePath) {
+            this.file = file;
+            this.relativePath = relativePath;
+        }
+
+        HashCode getContentHash() {
+            if (contentHash == null) {
+                try {
+                    contentHash = Hashing.hashFile(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return contentHash;
+        }
+    }
 }
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.plugins.quality.internal;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.internal.hash.HashCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * The Checkstyle results of individual source files, stored between executions of a Checkstyle task.
+ *
+ * <p>Results are keyed by the path of the source file relative to its source root and by the hash of its content,
+ * so the cache can be relocated together with the other outputs of the task.
+ * All results are discarded when the Checkstyle configuration changes.</p>
+ */
+class CheckstyleResultCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CheckstyleResultCache.class);
+    private static final int FORMAT_VERSION = 1;
+
+    private final Map<String, List<FileResult>> resultsByPath;
+
+    private CheckstyleResultCache(Map<String, List<FileResult>> resultsByPath) {
+        this.resultsByPath = resultsByPath;
+    }
+
+    /**
+     * Returns a cache without results, for executions which analyse all source files.
+     */
+    static CheckstyleResultCache empty() {
+        return new CheckstyleResultCache(new HashMap<>());
+    }
+
+    /**
+     * Loads the results stored in the given file, ignoring them when they have been created with a different configuration.
+     */
+    static CheckstyleResultCache load(File cacheFile, HashCode configHash) {
+        Map<String, List<FileResult>> resultsByPath = new HashMap<>();
+        if (cacheFile.isFile()) {
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile.toPath())))) {
+                if (input.readInt() == FORMAT_VERSION && input.readUTF().equals(configHash.toString())) {
+                    int fileCount = input.readInt();
+                    for (int i = 0; i < fileCount; i++) {
+                        FileResult result = readFileResult(input);
+                        resultsByPath.computeIfAbsent(result.getRelativePath(), key -> new ArrayList<>(1)).add(result);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                LOGGER.info("Could not read Checkstyle results from {}, analysing all source files.", cacheFile, e);
+                resultsByPath.clear();
+            }
+        }
+        return new CheckstyleResultCache(resultsByPath);
+    }
+
+    /**
+     * Replaces the contents of the given file with the given results.
+     */
+    static void store(File cacheFile, HashCode configHash, List<FileResult> results) {
+        try {
+            Files.createDirectories(cacheFile.getParentFile().toPath());
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(cacheFile.toPath())))) {
+                output.writeInt(FORMAT_VERSION);
+                output.writeUTF(configHash.toString());
+                output.writeInt(results.size());
+                for (FileResult result : results) {
+                    writeFileResult(output, result);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Finds the previous result for the source file with the given relative path.
+     *
+     * @param unchanged whether the file is known to be unchanged since the previous execution, so its content does not need to be hashed
+     */
+    @Nullable
+    FileResult find(String relativePath, boolean unchanged, Supplier<HashCode> contentHash) {
+        List<FileResult> candidates = resultsByPath.get(relativePath);
+        if (candidates == null) {
+            return null;
+        }
+        // Several source roots can contain a file with the same relative path
+        if (unchanged && candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        HashCode hash = contentHash.get();
+        for (FileResult candidate : candidates) {
+            if (candidate.getContentHash().equals(hash)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static FileResult readFileResult(DataInputStream input) throws IOException {
+        String relativePath = input.readUTF();
+        HashCode contentHash = HashCode.fromString(input.readUTF());
+        boolean audited = input.readBoolean();
+        int violationCount = input.readInt();
+        ImmutableList.Builder<Violation> violations = ImmutableList.builderWithExpectedSize(violationCount);
+        for (int i = 0; i < violationCount; i++) {
+            violations.add(new Violation(input.readInt(), input.readInt(), input.readUTF(), input.readUTF(), input.readUTF()));
+        }
+        return new FileResult(relativePath, contentHash, audited, violations.build());
+    }
+
+    private static void writeFileResult(DataOutputStream output, FileResult result) throws IOException {
+        output.writeUTF(result.getRelativePath());
+        output.writeUTF(result.getContentHash().toString());
+        output.writeBoolean(result.isAudited());
+        output.writeInt(result.getViolations().size());
+        for (Violation violation : result.getViolations()) {
+            output.writeInt(violation.getLine());
+            output.writeInt(violation.getColumn());
+            output.writeUTF(violation.getSeverity());
+            output.writeUTF(violation.getMessage());
+            output.writeUTF(violation.getSource());
+        }
+    }
+
+    static class FileResult {
+        private final String relativePath;
+        private final HashCode contentHash;
+        private final boolean audited;
+        private final List<Violation> violations;
+
+        /**
+         * @param audited whether Checkstyle reported the file at all, which it does not do for files with extensions it is not configured to check
+         */
+        FileResult(String relativePath, HashCode contentHash, boolean audited, List<Violation> violations) {
+            this.relativePath = relativePath;
+            this.contentHash = contentHash;
+            this.audited = audited;
+            this.violations = violations;
+        }
+
+        String getRelativePath() {
+            return relativePath;
+        }
+
+        HashCode getContentHash() {
+            return contentHash;
+        }
+
+        boolean isAudited() {
+            return audited;
+        }
+
+        List<Violation> getViolations() {
+            return violations;
+        }
+    }
+
+    /**
+     * A single violation, as reported in the XML report of Checkstyle.
+     */
+    static class Violation {
+        private final int line;
+        private final int column;
+        private final String severity;
+        private final String message;
+        private final String source;
+
+        /**
+         * @param column the column of the violation, or 0 when Checkstyle did not report a column
+         */
+        Violation(int line, int column, String severity, String message, String source) {
+            this.line = line;
+            this.column = column;
+            this.severity = severity;
+            this.message = message;
+            this.source = source;
+        }
+
+        int getLine() {
+            return line;
+        }
+
+        int getColumn() {
+            return column;
+        }
+
+        String getSeverity() {
+            return severity;
+        }
+
+        String getMessage() {
+            return message;
+        }
+
+        String getSource() {
+            return source;
+        }
+    }
+}
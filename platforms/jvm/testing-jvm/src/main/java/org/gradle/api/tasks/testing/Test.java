@@ -69,6 +69,7 @@
 import org.gradle.internal.Cast;
 import org.gradle.internal.Factory;
 import org.gradle.internal.actor.ActorFactory;
+import org.gradle.internal.buildoption.InternalOptions;
 import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.deprecation.DeprecationLogger;
 import org.gradle.internal.instrumentation.api.annotations.ToBeReplacedByLazyProperty;
@@ -95,6 +96,7 @@
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -675,7 +677,7 @@ protected JvmTestExecutionSpec createTestExecutionSpec() {
         boolean testIsModule = javaModuleDetector.isModule(modularity.getInferModulePath().get(), getTestClassesDirs());
         FileCollection classpath = javaModuleDetector.inferClasspath(testIsModule, stableClasspath);
         FileCollection modulePath = javaModuleDetector.inferModulePath(testIsModule, stableClasspath);
-        return new JvmTestExecutionSpec(getTestFramework(), classpath, modulePath, getCandidateClassFiles(), isScanForTestClasses(), getTestClassesDirs(), getPath(), getIdentityPath(), getForkEvery(), javaForkOptions, getMaxParallelForks(), getPreviousFailedTestClasses(), testIsModule);
+        return new JvmTestExecutionSpec(getTestFramework(), classpath, modulePath, getCandidateClassFiles(), isScanForTestClasses(), getTestClassesDirs(), getPath(), getIdentityPath(), getForkEvery(), javaForkOptions, getMaxParallelForks(), getPreviousFailedTestClasses(), getPreviousTestClassDurations(), testIsModule);
     }
 
     private void validateExecutableMatchesToolchain() {
@@ -704,6 +706,25 @@ public void execute(TestClassResult testClassResult) {
         }
     }
 
+    private Map<String, Long> getPreviousTestClassDurations() {
+        if (!getServices().get(InternalOptions.class).getOption(DefaultTestExecuter.BALANCE_FORKS_BY_DURATION).get()) {
+            return Collections.emptyMap();
+        }
+        TestResultSerializer serializer = new TestResultSerializer(getBinaryResultsDirectory().getAsFile().get());
+        if (serializer.isHasResults()) {
+            final Map<String, Long> previousTestClassDurations = new HashMap<String, Long>();
+            serializer.read(new Action<TestClassResult>() {
+                @Override
+                public void execute(TestClassResult testClassResult) {
+                    previousTestClassDurations.put(testClassResult.getClassName(), testClassResult.getDuration());
+                }
+            });
+            return previousTestClassDurations;
+        } else {
+            return Collections.emptyMap();
+        }
+    }
+
     @Override
     @TaskAction
     public void executeTests() {
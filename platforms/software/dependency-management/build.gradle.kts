@@ -1,5 +1,6 @@
 plugins {
     id("gradlebuild.distribution.implementation-java")
+    id("gradlebuild.jmh")
 }
 
 description = """This project contains most of the dependency management logic of Gradle:
@@ -172,6 +173,10 @@ dependencies {
     }
     crossVersionTestDistributionRuntimeOnly(projects.distributionsCore)
     crossVersionTestImplementation(libs.jettyWebApp)
+
+    jmhImplementation(projects.baseServices)
+    jmhImplementation(libs.commonsIo)
+    jmhImplementation(libs.ivy)
 }
 
 packageCycles {
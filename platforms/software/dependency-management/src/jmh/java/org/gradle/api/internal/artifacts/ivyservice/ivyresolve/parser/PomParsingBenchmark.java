@@ -0,0 +1,103 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.gradle.internal.xml.XmlFactories;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Compares parsing POMs into a DOM tree, as {@link PomReader} used to do, with the {@link PomStreamingParser}.
+ *
+ * <p>The corpus is read from the {@code corpusDir} parameter, which defaults to the module cache of the Gradle user home.
+ * Run a build resolving some Maven dependencies first to populate it, or point it at a local Maven repository:
+ * {@code -p corpusDir=$HOME/.m2/repository}.</p>
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class PomParsingBenchmark {
+    @Param({""})
+    String corpusDir;
+
+    private final List<byte[]> poms = new ArrayList<>();
+    private final List<String> systemIds = new ArrayList<>();
+    private byte[] m2Entities;
+    private DocumentBuilderFactory documentBuilderFactory;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        File corpus = corpusDir.isEmpty()
+            ? new File(System.getProperty("user.home"), ".gradle/caches/modules-2/files-2.1")
+            : new File(corpusDir);
+        Collection<File> files = corpus.isDirectory()
+            ? FileUtils.listFiles(corpus, new String[]{"pom"}, true)
+            : new ArrayList<>();
+        if (files.isEmpty()) {
+            throw new IllegalStateException("No POMs found in " + corpus + ", set the corpusDir parameter to a directory containing POMs.");
+        }
+        for (File file : files) {
+            poms.add(FileUtils.readFileToByteArray(file));
+            systemIds.add(file.toURI().toASCIIString());
+        }
+        m2Entities = IOUtils.toByteArray(org.apache.ivy.plugins.parser.m2.PomReader.class.getResourceAsStream("m2-entities.ent"));
+        documentBuilderFactory = XmlFactories.newDocumentBuilderFactory();
+        documentBuilderFactory.setValidating(false);
+    }
+
+    @Benchmark
+    public void dom(Blackhole blackhole) throws Exception {
+        for (int i = 0; i < poms.size(); i++) {
+            DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
+            documentBuilder.setEntityResolver((publicId, systemId) -> {
+                if ((systemId != null) && systemId.endsWith("m2-entities.ent")) {
+                    return new InputSource(new ByteArrayInputStream(m2Entities));
+                }
+                return null;
+            });
+            blackhole.consume(documentBuilder.parse(new PomStreamingParser.AddDTDFilterInputStream(new ByteArrayInputStream(poms.get(i))), systemIds.get(i)));
+        }
+    }
+
+    @Benchmark
+    public void streaming(Blackhole blackhole) throws Exception {
+        for (int i = 0; i < poms.size(); i++) {
+            blackhole.consume(PomStreamingParser.parse(new ByteArrayInputStream(poms.get(i)), systemIds.get(i)));
+        }
+    }
+}
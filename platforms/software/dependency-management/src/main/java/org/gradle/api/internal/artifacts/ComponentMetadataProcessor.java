@@ -18,6 +18,8 @@
 import org.gradle.api.artifacts.ComponentMetadata;
 import org.gradle.internal.component.external.model.ModuleComponentResolveMetadata;
 
+import javax.annotation.Nullable;
+
 public interface ComponentMetadataProcessor {
     ComponentMetadataProcessor NO_OP = new ComponentMetadataProcessor() {
         @Override
@@ -34,6 +36,11 @@ public ComponentMetadata processMetadata(ComponentMetadata metadata) {
         public int getRulesHash() {
             return 0;
         };
+
+        @Override
+        public String getStableRulesKey() {
+            return "";
+        }
     };
 
     ModuleComponentResolveMetadata processMetadata(ModuleComponentResolveMetadata metadata);
@@ -47,4 +54,11 @@ public int getRulesHash() {
     ComponentMetadata processMetadata(ComponentMetadata metadata);
 
     int getRulesHash();
+
+    /**
+     * Returns a key identifying the processing done by this processor that is stable across builds,
+     * or {@code null} when the processor applies rules that cannot be identified this way.
+     */
+    @Nullable
+    String getStableRulesKey();
 }
@@ -74,6 +74,7 @@
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.AdhocHandlingComponentResultSerializer;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.AttributeContainerSerializer;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentSelectionDescriptorFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.CrossBuildResolutionResultCache;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ResolutionResultsStoreFactory;
 import org.gradle.api.internal.artifacts.mvnsettings.LocalMavenRepositoryLocator;
 import org.gradle.api.internal.artifacts.query.ArtifactResolutionQueryFactory;
@@ -638,6 +639,7 @@ ConfigurationResolver createDependencyResolver(
             ExternalModuleComponentResolverFactory moduleDependencyResolverFactory,
             ProjectDependencyResolver projectDependencyResolver,
             DependencyLockingProvider dependencyLockingProvider,
+            CrossBuildResolutionResultCache resolutionResultCache,
             AttributeDesugaring attributeDesugaring
         ) {
             DefaultConfigurationResolver defaultResolver = new DefaultConfigurationResolver(
@@ -664,7 +666,8 @@ ConfigurationResolver createDependencyResolver(
                 resolverFactories,
                 moduleDependencyResolverFactory,
                 projectDependencyResolver,
-                dependencyLockingProvider
+                dependencyLockingProvider,
+                resolutionResultCache
             );
 
             return new ShortCircuitEmptyConfigurationResolver(
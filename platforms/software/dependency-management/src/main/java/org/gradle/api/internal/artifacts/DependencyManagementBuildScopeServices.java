@@ -47,6 +47,9 @@
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvedVariantCache;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusions;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.AttributeContainerSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.CompleteComponentResultSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentSelectionDescriptorFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.CrossBuildResolutionResultCache;
 import org.gradle.api.internal.artifacts.mvnsettings.DefaultLocalMavenRepositoryLocator;
 import org.gradle.api.internal.artifacts.mvnsettings.DefaultMavenFileLocations;
 import org.gradle.api.internal.artifacts.mvnsettings.DefaultMavenSettingsProvider;
@@ -87,6 +90,7 @@
 import org.gradle.initialization.DependenciesAccessors;
 import org.gradle.internal.build.BuildModelLifecycleListener;
 import org.gradle.internal.buildoption.FeatureFlags;
+import org.gradle.internal.buildoption.InternalOptions;
 import org.gradle.internal.classpath.ClasspathBuilder;
 import org.gradle.internal.classpath.ClasspathWalker;
 import org.gradle.internal.code.UserCodeApplicationContext;
@@ -366,6 +370,34 @@ ComponentMetadataRuleExecutor createComponentMetadataRuleExecutor(
         return new ComponentMetadataRuleExecutor(cacheBuilderFactory, cacheDecoratorFactory, valueSnapshotter, timeProvider, serializer);
     }
 
+    @Provides
+    CrossBuildResolutionResultCache createCrossBuildResolutionResultCache(
+        GlobalScopedCacheBuilderFactory cacheBuilderFactory,
+        InMemoryCacheDecoratorFactory cacheDecoratorFactory,
+        ValueSnapshotter valueSnapshotter,
+        DependencyVerificationOverride dependencyVerificationOverride,
+        AttributeContainerSerializer attributeContainerSerializer,
+        CompleteComponentResultSerializer componentResultSerializer,
+        ComponentSelectionDescriptorFactory componentSelectionDescriptorFactory,
+        VersionSelectorScheme versionSelectorScheme,
+        BuildCommencedTimeProvider timeProvider,
+        InternalOptions internalOptions
+    ) {
+        boolean enabled = internalOptions.getOption(CrossBuildResolutionResultCache.ENABLED).get();
+        return new CrossBuildResolutionResultCache(
+            enabled,
+            cacheBuilderFactory,
+            cacheDecoratorFactory,
+            valueSnapshotter,
+            dependencyVerificationOverride,
+            attributeContainerSerializer,
+            componentResultSerializer,
+            componentSelectionDescriptorFactory,
+            versionSelectorScheme,
+            timeProvider
+        );
+    }
+
     @Provides
     ComponentMetadataSupplierRuleExecutor createComponentMetadataSupplierRuleExecutor(
         ValueSnapshotter snapshotter,
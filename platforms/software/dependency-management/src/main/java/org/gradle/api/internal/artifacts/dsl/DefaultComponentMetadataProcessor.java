@@ -57,6 +57,7 @@
 import org.gradle.internal.serialize.Serializer;
 import org.gradle.internal.typeconversion.NotationParser;
 
+import javax.annotation.Nullable;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -213,6 +214,15 @@ public int getRulesHash() {
         return metadataRuleContainer.getRulesHash();
     }
 
+    @Nullable
+    @Override
+    public String getStableRulesKey() {
+        if (!metadataRuleContainer.isEmpty()) {
+            return null;
+        }
+        return metadataRuleContainer.getVariantDerivationStrategy().getClass().getName();
+    }
+
     private void processAllRules(ModuleComponentResolveMetadata metadata, ComponentMetadataDetails details, ModuleVersionIdentifier id) {
         for (MetadataRuleWrapper wrapper : metadataRuleContainer) {
             if (wrapper.isClassBased()) {
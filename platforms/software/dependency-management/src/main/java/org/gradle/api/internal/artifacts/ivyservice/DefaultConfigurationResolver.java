@@ -22,6 +22,7 @@
 import org.gradle.api.InvalidUserCodeException;
 import org.gradle.api.artifacts.ResolutionStrategy;
 import org.gradle.api.artifacts.ResolveException;
+import org.gradle.api.artifacts.ResolvedConfiguration;
 import org.gradle.api.artifacts.UnresolvedDependency;
 import org.gradle.api.artifacts.component.BuildIdentifier;
 import org.gradle.api.artifacts.component.ProjectComponentSelector;
@@ -39,6 +40,7 @@
 import org.gradle.api.internal.artifacts.configurations.ConflictResolution;
 import org.gradle.api.internal.artifacts.configurations.ResolutionHost;
 import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal;
+import org.gradle.api.internal.artifacts.configurations.dynamicversion.CachePolicy;
 import org.gradle.api.internal.artifacts.dsl.dependencies.DependencyLockingProvider;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ComponentResolvers;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ExternalModuleComponentResolverFactory;
@@ -49,12 +51,14 @@
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.ComponentResolversChain;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.DependencyGraphResolver;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ArtifactSelectionSpec;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ArtifactVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DefaultResolvedArtifactsBuilder;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DefaultVisitedArtifactSet;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvedArtifactSetResolver;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvedArtifactsGraphVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvedVariantCache;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.SelectedArtifactSet;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.VisitedArtifactResults;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.VisitedArtifactSet;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.VisitedFileDependencyResults;
@@ -77,6 +81,7 @@
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.AdhocHandlingComponentResultSerializer;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.AttributeContainerSerializer;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentSelectionDescriptorFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.CrossBuildResolutionResultCache;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.FileDependencyCollectingGraphVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.StreamingResolutionResultBuilder;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ResolutionResultsStoreFactory;
@@ -91,6 +96,7 @@
 import org.gradle.api.internal.attributes.ImmutableAttributes;
 import org.gradle.api.internal.attributes.immutable.ImmutableAttributesSchema;
 import org.gradle.api.internal.project.ProjectStateRegistry;
+import org.gradle.api.internal.tasks.TaskDependencyResolveContext;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.specs.Specs;
 import org.gradle.cache.internal.BinaryStore;
@@ -98,6 +104,8 @@
 import org.gradle.internal.build.BuildState;
 import org.gradle.internal.component.model.DependencyMetadata;
 import org.gradle.internal.component.model.GraphVariantSelector;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.lazy.Lazy;
 import org.gradle.internal.locking.DependencyLockingGraphVisitor;
 import org.gradle.internal.model.CalculatedValueContainerFactory;
 import org.gradle.internal.operations.BuildOperationExecutor;
@@ -109,6 +117,7 @@
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class DefaultConfigurationResolver implements ConfigurationResolver {
@@ -137,6 +146,7 @@ public class DefaultConfigurationResolver implements ConfigurationResolver {
     private final ExternalModuleComponentResolverFactory externalResolverFactory;
     private final ProjectDependencyResolver projectDependencyResolver;
     private final DependencyLockingProvider dependencyLockingProvider;
+    private final CrossBuildResolutionResultCache resolutionResultCache;
 
     public DefaultConfigurationResolver(
         DependencyGraphResolver dependencyGraphResolver,
@@ -162,7 +172,8 @@ public DefaultConfigurationResolver(
         List<ResolverProviderFactory> resolverFactories,
         ExternalModuleComponentResolverFactory externalResolverFactory,
         ProjectDependencyResolver projectDependencyResolver,
-        DependencyLockingProvider dependencyLockingProvider
+        DependencyLockingProvider dependencyLockingProvider,
+        CrossBuildResolutionResultCache resolutionResultCache
     ) {
         this.dependencyGraphResolver = dependencyGraphResolver;
         this.repositoriesSupplier = repositoriesSupplier;
@@ -188,6 +199,7 @@ public DefaultConfigurationResolver(
         this.externalResolverFactory = externalResolverFactory;
         this.projectDependencyResolver = projectDependencyResolver;
         this.dependencyLockingProvider = dependencyLockingProvider;
+        this.resolutionResultCache = resolutionResultCache;
     }
 
     @Override
@@ -228,6 +240,85 @@ public ResolverResults resolveBuildDependencies(ResolveContext resolveContext) {
 
     @Override
     public ResolverResults resolveGraph(ResolveContext resolveContext) {
+        RootComponentMetadataBuilder.RootComponentState rootComponent = resolveContext.toRootComponent();
+        List<ResolutionAwareRepository> repositories = getFilteredRepositories(resolveContext);
+
+        HashCode resultKey = resolutionResultCache.createKey(resolveContext, rootComponent, repositories, metadataHandler);
+        if (resultKey != null) {
+            ResolverResults cachedResults = loadCachedResults(resolveContext, rootComponent, repositories, resultKey);
+            if (cachedResults != null) {
+                return cachedResults;
+            }
+        }
+        return resolveGraph(resolveContext, rootComponent, repositories, resultKey);
+    }
+
+    /**
+     * Creates results from a resolution result stored by a previous build.
+     *
+     * The artifacts are selected from the metadata of the resolved components, which is not stored with the resolution result,
+     * so the graph is resolved again when the artifacts or the legacy results are used. Such use is recorded, so that later
+     * builds resolve the configuration without the cache instead of resolving it twice.
+     */
+    @Nullable
+    private ResolverResults loadCachedResults(
+        ResolveContext resolveContext,
+        RootComponentMetadataBuilder.RootComponentState rootComponent,
+        List<ResolutionAwareRepository> repositories,
+        HashCode resultKey
+    ) {
+        Store<ResolvedComponentResultInternal> newModelCache = storeFactory.createStoreSet().newModelCache();
+        CachePolicy cachePolicy = resolveContext.getResolutionStrategy().getCachePolicy();
+        MinimalResolutionResult resolutionResult = resolutionResultCache.load(resultKey, cachePolicy, rootComponent.getRootVariant().getAttributes(), newModelCache);
+        if (resolutionResult == null) {
+            return null;
+        }
+        dependencyLockingProvider.confirmNotLocked(resolveContext.getDependencyLockingId());
+
+        VisitedGraphResults graphResults = new DefaultVisitedGraphResults(resolutionResult, Collections.emptySet(), null);
+        Lazy<ResolverResults> fullResults = Lazy.locking().of(() -> resolveGraph(resolveContext, rootComponent, repositories, null));
+        return recordingArtifactUse(resultKey, graphResults, () -> fullResults.get().getVisitedArtifacts(), () -> fullResults.get().getLegacyResults());
+    }
+
+    /**
+     * Creates results that record the use of their artifacts in the resolution result cache, as the cache only serves consumers of the resolution result.
+     * Selecting the artifacts for any file collection counts as use, including the calculation of its task dependencies.
+     */
+    private ResolverResults recordingArtifactUse(
+        HashCode resultKey,
+        VisitedGraphResults graphResults,
+        Supplier<VisitedArtifactSet> artifacts,
+        Supplier<ResolverResults.LegacyResolverResults> legacyResults
+    ) {
+        VisitedArtifactSet visitedArtifacts = spec -> new DeferredSelectedArtifactSet(() -> {
+            resolutionResultCache.artifactsUsed(resultKey);
+            return artifacts.get().select(spec);
+        });
+        ResolverResults.LegacyResolverResults legacyResolverResults = new ResolverResults.LegacyResolverResults() {
+            @Override
+            public LegacyVisitedArtifactSet getLegacyVisitedArtifactSet() {
+                return dependencySpec -> new DeferredSelectedArtifactSet(() -> {
+                    resolutionResultCache.artifactsUsed(resultKey);
+                    return legacyResults.get().getLegacyVisitedArtifactSet().select(dependencySpec);
+                });
+            }
+
+            @Override
+            public ResolvedConfiguration getResolvedConfiguration() {
+                resolutionResultCache.artifactsUsed(resultKey);
+                return legacyResults.get().getResolvedConfiguration();
+            }
+        };
+
+        return DefaultResolverResults.graphResolved(graphResults, visitedArtifacts, legacyResolverResults);
+    }
+
+    private ResolverResults resolveGraph(
+        ResolveContext resolveContext,
+        RootComponentMetadataBuilder.RootComponentState rootComponent,
+        List<ResolutionAwareRepository> repositories,
+        @Nullable HashCode resultKey
+    ) {
         ResolutionHost resolutionHost = resolveContext.getResolutionHost();
 
         StoreSet stores = storeFactory.createStoreSet();
@@ -268,10 +359,15 @@ public ResolverResults resolveGraph(ResolveContext resolveContext) {
             dependencyLockingProvider.confirmNotLocked(resolveContext.getDependencyLockingId());
         }
 
-        RootComponentMetadataBuilder.RootComponentState rootComponent = resolveContext.toRootComponent();
+        CrossBuildResolutionResultCache.Recorder resultRecorder = null;
+        if (resultKey != null) {
+            resultRecorder = resolutionResultCache.createRecorder(resultKey, newModelCache);
+            graphVisitors.add(resultRecorder);
+        }
+
         ImmutableAttributesSchema consumerSchema = rootComponent.getRootComponent().getMetadata().getAttributesSchema();
 
-        ComponentResolvers resolvers = getResolvers(resolveContext, getFilteredRepositories(resolveContext), consumerSchema);
+        ComponentResolvers resolvers = getResolvers(resolveContext, repositories, consumerSchema);
         CompositeDependencyArtifactsVisitor artifactVisitors = new CompositeDependencyArtifactsVisitor(ImmutableList.of(
             oldModelVisitor, fileDependencyVisitor, artifactsBuilder
         ));
@@ -309,6 +405,9 @@ public ResolverResults resolveGraph(ResolveContext resolveContext) {
         if (lockingVisitor != null && !graphResults.hasAnyFailure()) {
             lockingVisitor.writeLocks();
         }
+        if (resultRecorder != null) {
+            resultRecorder.storeIfSuccessful(graphResults);
+        }
 
         ArtifactVariantSelector artifactVariantSelector = artifactVariantSelectorFor(consumerSchema, resolveContext);
         VisitedArtifactSet visitedArtifacts = new DefaultVisitedArtifactSet(graphResults, resolutionHost, artifactsResults, artifactSetResolver, artifactVariantSelector);
@@ -330,6 +429,9 @@ public ResolverResults resolveGraph(ResolveContext resolveContext) {
             new DefaultResolvedConfiguration(graphResults, resolutionHost, visitedArtifacts, lenientConfiguration)
         );
 
+        if (resultKey != null) {
+            return recordingArtifactUse(resultKey, graphResults, () -> visitedArtifacts, () -> legacyResolverResults);
+        }
         return DefaultResolverResults.graphResolved(graphResults, visitedArtifacts, legacyResolverResults);
     }
 
@@ -504,4 +606,25 @@ private static boolean hasNonRequiredAttribute(
 
         return false;
     }
+
+    /**
+     * An artifact set that is selected when it is first used.
+     */
+    private static class DeferredSelectedArtifactSet implements SelectedArtifactSet {
+        private final Lazy<SelectedArtifactSet> delegate;
+
+        DeferredSelectedArtifactSet(Supplier<SelectedArtifactSet> delegate) {
+            this.delegate = Lazy.locking().of(delegate);
+        }
+
+        @Override
+        public void visitDependencies(TaskDependencyResolveContext context) {
+            delegate.get().visitDependencies(context);
+        }
+
+        @Override
+        public void visitArtifacts(ArtifactVisitor visitor, boolean continueOnSelectionFailure) {
+            delegate.get().visitArtifacts(visitor, continueOnSelectionFailure);
+        }
+    }
 }
@@ -0,0 +1,343 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.commons.io.IOUtils;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.classloader.ClassLoaderUtils;
+import org.gradle.internal.xml.XmlFactories;
+
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.LineNumberReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a POM with a streaming XML parser, keeping only the elements that are needed to build the module metadata.
+ *
+ * <p>Elements such as the build, reporting, developers or licenses sections are skipped while parsing, so no memory is allocated for them.
+ * The retained elements have the same names, order and text content as in a DOM tree of the POM.</p>
+ */
+public final class PomStreamingParser {
+    private static final byte[] M2_ENTITIES_RESOURCE;
+    private static final XMLInputFactory XML_INPUT_FACTORY;
+
+    private static final RetainedElements PROFILE = RetainedElements.of(ImmutableMap.of(
+        "id", RetainedElements.ALL,
+        "activation", RetainedElements.ALL,
+        "properties", RetainedElements.ALL,
+        "dependencies", RetainedElements.ALL,
+        "dependencyManagement", RetainedElements.ALL
+    ));
+
+    private static final RetainedElements PROJECT = RetainedElements.of(ImmutableMap.<String, RetainedElements>builder()
+        .put("groupId", RetainedElements.ALL)
+        .put("artifactId", RetainedElements.ALL)
+        .put("version", RetainedElements.ALL)
+        .put("packaging", RetainedElements.ALL)
+        .put("parent", RetainedElements.ALL)
+        .put("distributionManagement", RetainedElements.of(ImmutableMap.of("relocation", RetainedElements.ALL)))
+        .put("properties", RetainedElements.ALL)
+        .put("dependencies", RetainedElements.ALL)
+        .put("dependencyManagement", RetainedElements.ALL)
+        .put("profiles", RetainedElements.of(ImmutableMap.of("profile", PROFILE)))
+        .build()
+    );
+
+    static {
+        byte[] bytes;
+        try {
+            bytes = IOUtils.toByteArray(org.apache.ivy.plugins.parser.m2.PomReader.class.getResourceAsStream("m2-entities.ent"));
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        M2_ENTITIES_RESOURCE = bytes;
+
+        // Set the context classloader the bootstrap classloader, to work around the way that JAXP locates implementation classes
+        // This should ensure that the JAXP classes provided by the JVM are used, rather than some other implementation
+        ClassLoader original = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(ClassLoaderUtils.getPlatformClassLoader());
+        try {
+            XML_INPUT_FACTORY = XmlFactories.newXMLInputFactory();
+            // Element names are matched including their prefix, as the POM is not parsed as a namespace aware document
+            XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+            XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_VALIDATING, false);
+            XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, true);
+            XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, true);
+            XML_INPUT_FACTORY.setXMLResolver(PomStreamingParser::resolveEntity);
+        } finally {
+            Thread.currentThread().setContextClassLoader(original);
+        }
+    }
+
+    private PomStreamingParser() {}
+
+    @Nullable
+    private static Object resolveEntity(String publicId, String systemId, String baseUri, String namespace) {
+        if ((systemId != null) && systemId.endsWith("m2-entities.ent")) {
+            return new ByteArrayInputStream(M2_ENTITIES_RESOURCE);
+        }
+        return null;
+    }
+
+    /**
+     * Parses the given POM and returns its root element.
+     *
+     * The whole document is parsed, so that malformed POMs are rejected even when the malformed parts are not retained.
+     */
+    public static PomElement parse(InputStream stream, String systemId) throws IOException, XMLStreamException {
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(systemId, new AddDTDFilterInputStream(stream));
+        try {
+            return readRootElement(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static PomElement readRootElement(XMLStreamReader reader) throws XMLStreamException {
+        PomElement root = null;
+        List<OpenElement> openElements = new ArrayList<>();
+        int skippedDepth = 0;
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    if (skippedDepth > 0) {
+                        skippedDepth++;
+                        break;
+                    }
+                    String name = reader.getLocalName();
+                    RetainedElements retained;
+                    PomElement element = new PomElement(name);
+                    if (openElements.isEmpty()) {
+                        retained = PROJECT;
+                        root = element;
+                    } else {
+                        OpenElement parent = openElements.get(openElements.size() - 1);
+                        retained = parent.retained.child(name);
+                        if (retained == null) {
+                            skippedDepth = 1;
+                            break;
+                        }
+                        parent.element.addChild(element);
+                    }
+                    openElements.add(new OpenElement(element, retained));
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    if (skippedDepth > 0) {
+                        skippedDepth--;
+                    } else {
+                        openElements.remove(openElements.size() - 1).finish();
+                    }
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    if (skippedDepth == 0 && !openElements.isEmpty()) {
+                        openElements.get(openElements.size() - 1).appendText(reader.getText());
+                    }
+                    break;
+                case XMLStreamConstants.COMMENT:
+                    if (skippedDepth == 0 && !openElements.isEmpty()) {
+                        openElements.get(openElements.size() - 1).element.addComment(reader.getText());
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (root == null) {
+            throw new XMLStreamException("Premature end of file.", reader.getLocation());
+        }
+        return root;
+    }
+
+    public static String getTextContent(PomElement element) {
+        return element.getTextContent();
+    }
+
+    @Nullable
+    public static String getFirstChildText(@Nullable PomElement parentElem, String name) {
+        PomElement node = getFirstChildElement(parentElem, name);
+        if (node != null) {
+            return getTextContent(node);
+        } else {
+            return null;
+        }
+    }
+
+    @Nullable
+    public static PomElement getFirstChildElement(@Nullable PomElement parentElem, String name) {
+        if (parentElem == null) {
+            return null;
+        }
+        return parentElem.getFirstChild(name);
+    }
+
+    public static List<PomElement> getAllChilds(@Nullable PomElement parent) {
+        if (parent == null) {
+            return Collections.emptyList();
+        }
+        return parent.getChildren();
+    }
+
+    private static final class OpenElement {
+        private final PomElement element;
+        private final RetainedElements retained;
+        private String text;
+        private StringBuilder textBuilder;
+
+        OpenElement(PomElement element, RetainedElements retained) {
+            this.element = element;
+            this.retained = retained;
+        }
+
+        void appendText(String chunk) {
+            // Most elements have a single text chunk, so avoid copying it
+            if (textBuilder != null) {
+                textBuilder.append(chunk);
+            } else if (text == null) {
+                text = chunk;
+            } else {
+                textBuilder = new StringBuilder(text).append(chunk);
+            }
+        }
+
+        void finish() {
+            if (textBuilder != null) {
+                element.setTextContent(textBuilder.toString());
+            } else if (text != null) {
+                element.setTextContent(text);
+            }
+        }
+    }
+
+    /**
+     * The child elements to retain for an element, or all of them.
+     */
+    private static final class RetainedElements {
+        static final RetainedElements ALL = new RetainedElements(null);
+
+        private final Map<String, RetainedElements> children;
+
+        private RetainedElements(@Nullable Map<String, RetainedElements> children) {
+            this.children = children;
+        }
+
+        static RetainedElements of(Map<String, RetainedElements> children) {
+            return new RetainedElements(children);
+        }
+
+        @Nullable
+        RetainedElements child(String name) {
+            return children == null ? ALL : children.get(name);
+        }
+    }
+
+    public static final class AddDTDFilterInputStream extends FilterInputStream {
+        private static final int MARK = 10000;
+        private static final String DOCTYPE = "<!DOCTYPE project SYSTEM \"m2-entities.ent\">\n";
+
+        private int count;
+        private byte[] prefix = DOCTYPE.getBytes();
+
+        public AddDTDFilterInputStream(InputStream in) throws IOException {
+            super(new BufferedInputStream(in));
+
+            this.in.mark(MARK);
+
+            // TODO: we should really find a better solution for this...
+            // maybe we could use a FilterReader instead of a FilterInputStream?
+            int byte1 = this.in.read();
+            int byte2 = this.in.read();
+            int byte3 = this.in.read();
+
+            if (byte1 == 239 && byte2 == 187 && byte3 == 191) {
+                // skip the UTF-8 BOM
+                this.in.mark(MARK);
+            } else {
+                this.in.reset();
+            }
+
+            int bytesToSkip = 0;
+            LineNumberReader reader = new LineNumberReader(new InputStreamReader(this.in, "UTF-8"), 100);
+            String firstLine = reader.readLine();
+            if (firstLine != null) {
+                String trimmed = firstLine.trim();
+                if (trimmed.startsWith("<?xml ")) {
+                    int endIndex = trimmed.indexOf("?>");
+                    String xmlDecl = trimmed.substring(0, endIndex + 2);
+                    prefix = (xmlDecl + "\n" + DOCTYPE).getBytes();
+                    bytesToSkip = xmlDecl.getBytes().length;
+                }
+            }
+
+            this.in.reset();
+            for (int i = 0; i < bytesToSkip; i++) {
+                this.in.read();
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (count < prefix.length) {
+                return prefix[count++];
+            }
+
+            return super.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (b == null) {
+                throw new NullPointerException();
+            } else if ((off < 0) || (off > b.length) || (len < 0)
+                    || ((off + len) > b.length) || ((off + len) < 0)) {
+                throw new IndexOutOfBoundsException();
+            } else if (len == 0) {
+                return 0;
+            }
+
+            int nbrBytesCopied = 0;
+
+            if (count < prefix.length) {
+                int nbrBytesFromPrefix = Math.min(prefix.length - count, len);
+                System.arraycopy(prefix, count, b, off, nbrBytesFromPrefix);
+                nbrBytesCopied = nbrBytesFromPrefix;
+            }
+
+            if (nbrBytesCopied < len) {
+                nbrBytesCopied += in.read(b, off + nbrBytesCopied, len - nbrBytesCopied);
+            }
+
+            count += nbrBytesCopied;
+            return nbrBytesCopied;
+        }
+    }
+}
@@ -0,0 +1,425 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.result;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
+import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier;
+import org.gradle.api.internal.artifacts.GlobalDependencyResolutionRules;
+import org.gradle.api.internal.artifacts.ResolveContext;
+import org.gradle.api.internal.artifacts.configurations.dynamicversion.CachePolicy;
+import org.gradle.api.internal.artifacts.dependencies.DefaultResolvedVersionConstraint;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.verification.DependencyVerificationOverride;
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.dynamicversions.DefaultResolvedModuleVersion;
+import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.RootComponentMetadataBuilder;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphComponent;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphSelector;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.RootGraphNode;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.results.VisitedGraphResults;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.InMemoryBinaryStore;
+import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository;
+import org.gradle.api.internal.artifacts.result.MinimalResolutionResult;
+import org.gradle.api.internal.artifacts.result.ResolvedComponentResultInternal;
+import org.gradle.api.internal.attributes.ImmutableAttributes;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.cache.FileLockManager;
+import org.gradle.cache.IndexedCache;
+import org.gradle.cache.IndexedCacheParameters;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.internal.InMemoryCacheDecoratorFactory;
+import org.gradle.cache.internal.Store;
+import org.gradle.cache.scopes.GlobalScopedCacheBuilderFactory;
+import org.gradle.internal.buildoption.InternalFlag;
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
+import org.gradle.internal.component.model.ComponentGraphResolveMetadata;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.serialize.AbstractSerializer;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.HashCodeSerializer;
+import org.gradle.internal.service.scopes.Scope;
+import org.gradle.internal.service.scopes.ServiceScope;
+import org.gradle.internal.snapshot.ValueSnapshotter;
+import org.gradle.util.internal.BuildCommencedTimeProvider;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores the resolution results of configurations across builds, keyed by a fingerprint of the inputs of the graph resolution.
+ *
+ * <p>The results are stored in the format written by {@link StreamingResolutionResultBuilder}, using the {@link CompleteComponentResultSerializer},
+ * so they can be loaded without resolving the graph. Entries are invalidated by the cache policy of the configuration,
+ * just like the cached metadata they were resolved from: the version lists of modules requested with dynamic versions
+ * and the metadata of changing modules expire after their usual timeouts, and all entries expire when dependencies are refreshed.</p>
+ *
+ * <p>Only graphs resolved without failures are stored, and only for configurations supported by {@link ResolutionInputsFingerprinter}.</p>
+ *
+ * <p>The cache only serves consumers of the resolution result, such as dependency reports and queries of {@code incoming.resolutionResult}.
+ * Consumers of artifacts are out of scope: the artifacts are selected from the metadata of the resolved components and transformed by the
+ * registered transforms, none of which is stored, so they always require a full resolution. This includes classpaths and every other file
+ * collection of a configuration, whose task dependencies are already calculated from the artifacts when the task graph is built.
+ * Once the artifacts of a configuration are used, its entry is replaced with a marker, and later builds resolve the configuration without the cache.</p>
+ */
+@ServiceScope(Scope.Build.class)
+public class CrossBuildResolutionResultCache implements Closeable {
+    /**
+     * Enables the cache. The cache is disabled by default.
+     */
+    public static final InternalFlag ENABLED = new InternalFlag("org.gradle.internal.dependency-resolution.result-cache");
+
+    private static final Logger LOGGER = Logging.getLogger(CrossBuildResolutionResultCache.class);
+    private static final String CACHE_NAME = "dependency-resolution-results";
+
+    private final ResolutionInputsFingerprinter fingerprinter;
+    private final AttributeContainerSerializer attributeContainerSerializer;
+    private final CompleteComponentResultSerializer componentResultSerializer;
+    private final ComponentSelectionDescriptorFactory componentSelectionDescriptorFactory;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final BuildCommencedTimeProvider timeProvider;
+    @Nullable
+    private final PersistentCache cache;
+    @Nullable
+    private final IndexedCache<HashCode, CachedResult> store;
+    private final Set<HashCode> artifactConsumers = ConcurrentHashMap.newKeySet();
+
+    public CrossBuildResolutionResultCache(
+        boolean enabled,
+        GlobalScopedCacheBuilderFactory cacheBuilderFactory,
+        InMemoryCacheDecoratorFactory cacheDecoratorFactory,
+        ValueSnapshotter snapshotter,
+        DependencyVerificationOverride dependencyVerificationOverride,
+        AttributeContainerSerializer attributeContainerSerializer,
+        CompleteComponentResultSerializer componentResultSerializer,
+        ComponentSelectionDescriptorFactory componentSelectionDescriptorFactory,
+        VersionSelectorScheme versionSelectorScheme,
+        BuildCommencedTimeProvider timeProvider
+    ) {
+        this.fingerprinter = new ResolutionInputsFingerprinter(snapshotter, dependencyVerificationOverride);
+        this.attributeContainerSerializer = attributeContainerSerializer;
+        this.componentResultSerializer = componentResultSerializer;
+        this.componentSelectionDescriptorFactory = componentSelectionDescriptorFactory;
+        this.versionSelectorScheme = versionSelectorScheme;
+        this.timeProvider = timeProvider;
+        if (enabled) {
+            this.cache = cacheBuilderFactory
+                .createCacheBuilder(CACHE_NAME)
+                .withInitialLockMode(FileLockManager.LockMode.OnDemand)
+                .open();
+            this.store = cache.createIndexedCache(
+                IndexedCacheParameters.of(CACHE_NAME, new HashCodeSerializer(), new CachedResultSerializer())
+                    .withCacheDecorator(cacheDecoratorFactory.decorator(500, true))
+            );
+        } else {
+            this.cache = null;
+            this.store = null;
+        }
+    }
+
+    /**
+     * Returns the key of the resolution result of the given configuration, or {@code null} when the result cannot be cached.
+     * The result cannot be cached when the configuration is not supported, or when its artifacts were used by a previous build.
+     */
+    @Nullable
+    public HashCode createKey(
+        ResolveContext resolveContext,
+        RootComponentMetadataBuilder.RootComponentState rootComponent,
+        List<ResolutionAwareRepository> repositories,
+        GlobalDependencyResolutionRules metadataHandler
+    ) {
+        if (store == null) {
+            return null;
+        }
+        HashCode key = fingerprinter.fingerprint(resolveContext, rootComponent, repositories, metadataHandler);
+        if (key == null || artifactConsumers.contains(key)) {
+            return null;
+        }
+        CachedResult entry = store.getIfPresent(key);
+        if (entry != null && entry.artifactsUsed) {
+            artifactConsumers.add(key);
+            return null;
+        }
+        return key;
+    }
+
+    /**
+     * Loads the resolution result stored for the given key, when it is still valid according to the cache policy.
+     */
+    @Nullable
+    public MinimalResolutionResult load(HashCode key, CachePolicy cachePolicy, ImmutableAttributes rootAttributes, Store<ResolvedComponentResultInternal> resultCache) {
+        CachedResult entry = getStore().getIfPresent(key);
+        if (entry == null || entry.artifactsUsed) {
+            return null;
+        }
+        if (!isValid(entry, cachePolicy)) {
+            LOGGER.debug("Ignoring expired resolution result for key {}", key);
+            return null;
+        }
+        LOGGER.debug("Using cached resolution result for key {}", key);
+        return StreamingResolutionResultBuilder.loadResolutionResult(
+            new InMemoryBinaryStore.InMemoryBinaryData(entry.data),
+            entry.rootVariantId,
+            rootAttributes,
+            resultCache,
+            attributeContainerSerializer,
+            componentResultSerializer,
+            componentSelectionDescriptorFactory
+        );
+    }
+
+    /**
+     * Creates a graph visitor that records the resolution result, so it can be stored for the given key once the graph has been resolved.
+     */
+    public Recorder createRecorder(HashCode key, Store<ResolvedComponentResultInternal> resultCache) {
+        return new Recorder(key, resultCache);
+    }
+
+    /**
+     * Records that the artifacts of the configuration with the given key are used, so that later builds do not use the cached result for it.
+     */
+    public void artifactsUsed(HashCode key) {
+        if (artifactConsumers.add(key)) {
+            LOGGER.debug("Not caching the resolution result for key {} as its artifacts are used", key);
+            getStore().put(key, CachedResult.ARTIFACTS_USED);
+        }
+    }
+
+    private boolean isValid(CachedResult entry, CachePolicy cachePolicy) {
+        Duration age = Duration.ofMillis(timeProvider.getCurrentTime() - entry.timestamp);
+        Map<ModuleIdentifier, Set<ModuleVersionIdentifier>> versionsByModule = new HashMap<>();
+        for (CachedComponent component : entry.components) {
+            ModuleComponentIdentifier componentId = DefaultModuleComponentIdentifier.newId(component.id);
+            DefaultResolvedModuleVersion resolvedVersion = new DefaultResolvedModuleVersion(component.id);
+            boolean mustCheck = component.changing
+                ? cachePolicy.changingModuleExpiry(componentId, resolvedVersion, age).isMustCheck()
+                : cachePolicy.moduleExpiry(componentId, resolvedVersion, age).isMustCheck();
+            if (mustCheck) {
+                return false;
+            }
+            versionsByModule.computeIfAbsent(component.id.getModule(), module -> new HashSet<>()).add(component.id);
+        }
+        for (ModuleIdentifier dynamicModule : entry.dynamicModules) {
+            Set<ModuleVersionIdentifier> versions = versionsByModule.getOrDefault(dynamicModule, ImmutableSet.of());
+            if (cachePolicy.versionListExpiry(dynamicModule, versions, age).isMustCheck()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private IndexedCache<HashCode, CachedResult> getStore() {
+        if (store == null) {
+            throw new IllegalStateException("The resolution result cache is disabled.");
+        }
+        return store;
+    }
+
+    @Override
+    public void close() {
+        if (cache != null) {
+            cache.close();
+        }
+    }
+
+    /**
+     * Writes the resolution result in the cached format, and collects the modules that determine how long the result remains valid.
+     */
+    public class Recorder implements DependencyGraphVisitor {
+        private final HashCode key;
+        private final InMemoryBinaryStore binaryStore = new InMemoryBinaryStore();
+        private final StreamingResolutionResultBuilder resultBuilder;
+        private final Map<ModuleVersionIdentifier, Boolean> components = new LinkedHashMap<>();
+        private final Set<ModuleIdentifier> dynamicModules = new HashSet<>();
+        private long rootVariantId;
+        private boolean cacheable = true;
+
+        private Recorder(HashCode key, Store<ResolvedComponentResultInternal> resultCache) {
+            this.key = key;
+            this.resultBuilder = new StreamingResolutionResultBuilder(binaryStore, resultCache, attributeContainerSerializer, componentResultSerializer, componentSelectionDescriptorFactory, false);
+        }
+
+        @Override
+        public void start(RootGraphNode root) {
+            rootVariantId = root.getNodeId();
+            resultBuilder.start(root);
+        }
+
+        @Override
+        public void visitNode(DependencyGraphNode node) {
+            if (!cacheable) {
+                return;
+            }
+            DependencyGraphComponent component = node.getOwner();
+            ComponentIdentifier componentId = component.getComponentId();
+            if (componentId instanceof ModuleComponentIdentifier) {
+                ComponentGraphResolveMetadata metadata = component.getMetadataOrNull();
+                boolean changing = metadata != null && metadata.isChanging();
+                components.merge(component.getModuleVersion(), changing, Boolean::logicalOr);
+            } else if (!node.isRoot()) {
+                // Only the root variant of the root component is part of the fingerprint
+                cacheable = false;
+                return;
+            }
+            resultBuilder.visitNode(node);
+        }
+
+        @Override
+        public void visitSelector(DependencyGraphSelector selector) {
+            if (!cacheable) {
+                return;
+            }
+            ComponentSelector requested = selector.getRequested();
+            if (requested instanceof ModuleComponentSelector) {
+                ModuleComponentSelector moduleSelector = (ModuleComponentSelector) requested;
+                if (new DefaultResolvedVersionConstraint(moduleSelector.getVersionConstraint(), versionSelectorScheme).isDynamic()) {
+                    dynamicModules.add(moduleSelector.getModuleIdentifier());
+                }
+            }
+            resultBuilder.visitSelector(selector);
+        }
+
+        @Override
+        public void visitEdges(DependencyGraphNode node) {
+            if (cacheable) {
+                resultBuilder.visitEdges(node);
+            }
+        }
+
+        @Override
+        public void finish(RootGraphNode root) {
+            if (cacheable) {
+                resultBuilder.finish(root);
+            }
+        }
+
+        /**
+         * Stores the recorded result, unless the graph could not be resolved completely.
+         */
+        public void storeIfSuccessful(VisitedGraphResults graphResults) {
+            if (!cacheable || graphResults.hasAnyFailure()) {
+                return;
+            }
+            ImmutableList.Builder<CachedComponent> cachedComponents = ImmutableList.builderWithExpectedSize(components.size());
+            components.forEach((id, changing) -> cachedComponents.add(new CachedComponent(id, changing)));
+            byte[] data = binaryStore.done().getBytes();
+            getStore().put(key, new CachedResult(timeProvider.getCurrentTime(), rootVariantId, data, cachedComponents.build(), ImmutableSet.copyOf(dynamicModules)));
+        }
+    }
+
+    private static class CachedComponent {
+        private final ModuleVersionIdentifier id;
+        private final boolean changing;
+
+        CachedComponent(ModuleVersionIdentifier id, boolean changing) {
+            this.id = id;
+            this.changing = changing;
+        }
+    }
+
+    private static class CachedResult {
+        /**
+         * Marks a configuration whose artifacts are used.
+         */
+        private static final CachedResult ARTIFACTS_USED = new CachedResult(true, 0, 0, new byte[0], ImmutableList.of(), ImmutableSet.of());
+
+        private final boolean artifactsUsed;
+        private final long timestamp;
+        private final long rootVariantId;
+        private final byte[] data;
+        private final List<CachedComponent> components;
+        private final Set<ModuleIdentifier> dynamicModules;
+
+        CachedResult(long timestamp, long rootVariantId, byte[] data, List<CachedComponent> components, Set<ModuleIdentifier> dynamicModules) {
+            this(false, timestamp, rootVariantId, data, components, dynamicModules);
+        }
+
+        private CachedResult(boolean artifactsUsed, long timestamp, long rootVariantId, byte[] data, List<CachedComponent> components, Set<ModuleIdentifier> dynamicModules) {
+            this.artifactsUsed = artifactsUsed;
+            this.timestamp = timestamp;
+            this.rootVariantId = rootVariantId;
+            this.data = data;
+            this.components = components;
+            this.dynamicModules = dynamicModules;
+        }
+    }
+
+    private static class CachedResultSerializer extends AbstractSerializer<CachedResult> {
+        @Override
+        public CachedResult read(Decoder decoder) throws Exception {
+            if (decoder.readBoolean()) {
+                return CachedResult.ARTIFACTS_USED;
+            }
+            long timestamp = decoder.readLong();
+            long rootVariantId = decoder.readSmallLong();
+            byte[] data = decoder.readBinary();
+            int componentCount = decoder.readSmallInt();
+            ImmutableList.Builder<CachedComponent> components = ImmutableList.builderWithExpectedSize(componentCount);
+            for (int i = 0; i < componentCount; i++) {
+                ModuleVersionIdentifier id = DefaultModuleVersionIdentifier.newId(decoder.readString(), decoder.readString(), decoder.readString());
+                components.add(new CachedComponent(id, decoder.readBoolean()));
+            }
+            int dynamicModuleCount = decoder.readSmallInt();
+            ImmutableSet.Builder<ModuleIdentifier> dynamicModules = ImmutableSet.builderWithExpectedSize(dynamicModuleCount);
+            for (int i = 0; i < dynamicModuleCount; i++) {
+                dynamicModules.add(DefaultModuleIdentifier.newId(decoder.readString(), decoder.readString()));
+            }
+            return new CachedResult(timestamp, rootVariantId, data, components.build(), dynamicModules.build());
+        }
+
+        @Override
+        public void write(Encoder encoder, CachedResult value) throws Exception {
+            encoder.writeBoolean(value.artifactsUsed);
+            if (value.artifactsUsed) {
+                return;
+            }
+            encoder.writeLong(value.timestamp);
+            encoder.writeSmallLong(value.rootVariantId);
+            encoder.writeBinary(value.data);
+            encoder.writeSmallInt(value.components.size());
+            for (CachedComponent component : value.components) {
+                encoder.writeString(component.id.getGroup());
+                encoder.writeString(component.id.getName());
+                encoder.writeString(component.id.getVersion());
+                encoder.writeBoolean(component.changing);
+            }
+            encoder.writeSmallInt(value.dynamicModules.size());
+            for (ModuleIdentifier module : value.dynamicModules) {
+                encoder.writeString(module.getGroup());
+                encoder.writeString(module.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,427 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.result;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.api.Action;
+import org.gradle.api.Named;
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.VersionConstraint;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.attributes.Attribute;
+import org.gradle.api.attributes.AttributeContainer;
+import org.gradle.api.capabilities.Capability;
+import org.gradle.api.internal.artifacts.ComponentMetadataProcessor;
+import org.gradle.api.internal.artifacts.GlobalDependencyResolutionRules;
+import org.gradle.api.internal.artifacts.MetadataResolutionContext;
+import org.gradle.api.internal.artifacts.ResolveContext;
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal;
+import org.gradle.api.internal.artifacts.configurations.dynamicversion.CachePolicy;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.verification.DependencyVerificationOverride;
+import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.RootComponentMetadataBuilder;
+import org.gradle.api.internal.artifacts.repositories.AbstractArtifactRepository;
+import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository;
+import org.gradle.api.internal.artifacts.repositories.descriptor.RepositoryDescriptor;
+import org.gradle.api.internal.artifacts.repositories.descriptor.UrlRepositoryDescriptor;
+import org.gradle.api.internal.artifacts.repositories.resolver.ResourcePattern;
+import org.gradle.api.internal.attributes.DefaultOrderedCompatibilityRule;
+import org.gradle.api.internal.attributes.DefaultOrderedDisambiguationRule;
+import org.gradle.api.internal.attributes.immutable.ImmutableAttributesSchema;
+import org.gradle.internal.Actions;
+import org.gradle.internal.action.ConfigurableRule;
+import org.gradle.internal.action.InstantiatingAction;
+import org.gradle.internal.component.external.model.ImmutableCapability;
+import org.gradle.internal.component.model.DefaultComponentOverrideMetadata;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.component.model.Exclude;
+import org.gradle.internal.component.model.ExcludeMetadata;
+import org.gradle.internal.component.model.IvyArtifactName;
+import org.gradle.internal.component.model.LocalOriginDependencyMetadata;
+import org.gradle.internal.component.model.VariantGraphResolveMetadata;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.reflect.Instantiator;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.internal.snapshot.ValueSnapshotter;
+import org.gradle.internal.snapshot.ValueSnapshottingException;
+import org.gradle.util.GradleVersion;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URI;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Computes a fingerprint of everything that can influence the graph resolved for a configuration.
+ *
+ * <p>Only configurations whose inputs can be captured completely are fingerprinted: configurations that only depend on
+ * external modules from remote repositories, without dependency locking, substitution, component selection, capability resolution
+ * or component metadata rules, and whose attribute schema only uses rules that can be identified across builds.</p>
+ */
+class ResolutionInputsFingerprinter {
+    private static final int FORMAT_VERSION = 1;
+
+    private final ValueSnapshotter snapshotter;
+    private final DependencyVerificationOverride dependencyVerificationOverride;
+    private final ComponentIdentifierSerializer componentIdSerializer = new ComponentIdentifierSerializer();
+
+    ResolutionInputsFingerprinter(ValueSnapshotter snapshotter, DependencyVerificationOverride dependencyVerificationOverride) {
+        this.snapshotter = snapshotter;
+        this.dependencyVerificationOverride = dependencyVerificationOverride;
+    }
+
+    /**
+     * Returns the fingerprint of the inputs of the graph resolution, or {@code null} when the inputs cannot be fingerprinted.
+     */
+    @Nullable
+    HashCode fingerprint(
+        ResolveContext resolveContext,
+        RootComponentMetadataBuilder.RootComponentState rootComponent,
+        List<ResolutionAwareRepository> repositories,
+        GlobalDependencyResolutionRules metadataHandler
+    ) {
+        ResolutionStrategyInternal resolutionStrategy = resolveContext.getResolutionStrategy();
+        if (!hasCacheableStrategy(resolveContext, resolutionStrategy, metadataHandler)) {
+            return null;
+        }
+        String metadataRulesKey = metadataHandler.getComponentMetadataProcessorFactory()
+            .createComponentMetadataProcessor(new KeyOnlyResolutionContext(resolutionStrategy.getCachePolicy()))
+            .getStableRulesKey();
+        if (metadataRulesKey == null) {
+            return null;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (KryoBackedEncoder encoder = new KryoBackedEncoder(bytes)) {
+            encoder.writeSmallInt(FORMAT_VERSION);
+            encoder.writeString(GradleVersion.current().getVersion());
+            encoder.writeString(metadataRulesKey);
+            encoder.writeString(resolutionStrategy.getConflictResolution().name());
+            encoder.writeBoolean(resolutionStrategy.isFailingOnDynamicVersions());
+            encoder.writeBoolean(resolutionStrategy.isFailingOnChangingVersions());
+            encoder.writeBoolean(resolutionStrategy.isDependencyVerificationEnabled());
+            if (!writeAttributes(encoder, resolveContext.getAttributes())
+                || !writeRoot(encoder, rootComponent)
+                || !writeRepositories(encoder, repositories)
+                || !writeSchema(encoder, rootComponent.getRootComponent().getMetadata().getAttributesSchema())) {
+                return null;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Hashing.hashBytes(bytes.toByteArray());
+    }
+
+    private boolean hasCacheableStrategy(ResolveContext resolveContext, ResolutionStrategyInternal resolutionStrategy, GlobalDependencyResolutionRules metadataHandler) {
+        return !resolutionStrategy.isDependencyLockingEnabled()
+            && !resolutionStrategy.getIncludeAllSelectableVariantResults()
+            && !resolutionStrategy.resolveGraphToDetermineTaskDependencies()
+            && resolutionStrategy.getDependencySubstitutionRule().isEmpty()
+            && resolutionStrategy.getComponentSelection().getRules().isEmpty()
+            && resolutionStrategy.getCapabilitiesResolutionRules().isEmpty()
+            && metadataHandler.getModuleMetadataProcessor().getModuleReplacements().isEmpty()
+            && (dependencyVerificationOverride == DependencyVerificationOverride.NO_VERIFICATION || !resolutionStrategy.isDependencyVerificationEnabled())
+            && resolveContext.getSyntheticDependencies().isEmpty();
+    }
+
+    private boolean writeRoot(Encoder encoder, RootComponentMetadataBuilder.RootComponentState rootComponent) throws IOException {
+        componentIdSerializer.write(encoder, rootComponent.getComponentIdentifier());
+        writeModuleVersion(encoder, rootComponent.getModuleVersionIdentifier());
+
+        VariantGraphResolveMetadata rootVariant = rootComponent.getRootVariant().getMetadata();
+        encoder.writeString(rootVariant.getName());
+        encoder.writeBoolean(rootVariant.isTransitive());
+        writeCapabilities(encoder, rootVariant.getCapabilities().asSet());
+        writeExcludes(encoder, rootVariant.getExcludes());
+        if (!writeAttributes(encoder, rootVariant.getAttributes())) {
+            return false;
+        }
+
+        List<? extends DependencyMetadata> dependencies = rootVariant.getDependencies();
+        encoder.writeSmallInt(dependencies.size());
+        for (DependencyMetadata dependency : dependencies) {
+            if (!writeDependency(encoder, dependency)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("deprecation")
+    private boolean writeDependency(Encoder encoder, DependencyMetadata dependency) throws IOException {
+        if (!(dependency instanceof LocalOriginDependencyMetadata)
+            || !(dependency.getSelector() instanceof ModuleComponentSelector)
+            || DefaultComponentOverrideMetadata.extractClientModule(dependency) != null) {
+            return false;
+        }
+        LocalOriginDependencyMetadata localDependency = (LocalOriginDependencyMetadata) dependency;
+        ModuleComponentSelector selector = (ModuleComponentSelector) dependency.getSelector();
+        encoder.writeString(selector.getGroup());
+        encoder.writeString(selector.getModule());
+        writeVersionConstraint(encoder, selector.getVersionConstraint());
+        writeCapabilities(encoder, selector.getRequestedCapabilities());
+        if (!writeAttributes(encoder, selector.getAttributes())) {
+            return false;
+        }
+        encoder.writeNullableString(localDependency.getDependencyConfiguration());
+        writeExcludes(encoder, dependency.getExcludes());
+        writeArtifacts(encoder, dependency.getArtifacts());
+        encoder.writeBoolean(localDependency.isForce());
+        encoder.writeBoolean(localDependency.isFromLock());
+        encoder.writeBoolean(dependency.isChanging());
+        encoder.writeBoolean(dependency.isTransitive());
+        encoder.writeBoolean(dependency.isConstraint());
+        encoder.writeBoolean(dependency.isEndorsingStrictVersions());
+        encoder.writeNullableString(dependency.getReason());
+        return true;
+    }
+
+    private static void writeVersionConstraint(Encoder encoder, VersionConstraint versionConstraint) throws IOException {
+        encoder.writeString(versionConstraint.getRequiredVersion());
+        encoder.writeString(versionConstraint.getPreferredVersion());
+        encoder.writeString(versionConstraint.getStrictVersion());
+        encoder.writeNullableString(versionConstraint.getBranch());
+        List<String> rejectedVersions = versionConstraint.getRejectedVersions();
+        encoder.writeSmallInt(rejectedVersions.size());
+        for (String rejectedVersion : rejectedVersions) {
+            encoder.writeString(rejectedVersion);
+        }
+    }
+
+    private static void writeExcludes(Encoder encoder, List<? extends ExcludeMetadata> excludes) throws IOException {
+        encoder.writeSmallInt(excludes.size());
+        for (ExcludeMetadata exclude : excludes) {
+            ModuleIdentifier moduleId = exclude.getModuleId();
+            encoder.writeString(moduleId.getGroup());
+            encoder.writeString(moduleId.getName());
+            encoder.writeNullableString(exclude.getMatcher());
+            IvyArtifactName artifact = exclude.getArtifact();
+            encoder.writeBoolean(artifact != null);
+            if (artifact != null) {
+                writeArtifact(encoder, artifact);
+            }
+            Set<String> configurations = exclude instanceof Exclude ? new TreeSet<>(((Exclude) exclude).getConfigurations()) : new TreeSet<>();
+            encoder.writeSmallInt(configurations.size());
+            for (String configuration : configurations) {
+                encoder.writeString(configuration);
+            }
+        }
+    }
+
+    private static void writeArtifacts(Encoder encoder, List<IvyArtifactName> artifacts) throws IOException {
+        encoder.writeSmallInt(artifacts.size());
+        for (IvyArtifactName artifact : artifacts) {
+            writeArtifact(encoder, artifact);
+        }
+    }
+
+    private static void writeArtifact(Encoder encoder, IvyArtifactName artifact) throws IOException {
+        encoder.writeString(artifact.getName());
+        encoder.writeString(artifact.getType());
+        encoder.writeNullableString(artifact.getExtension());
+        encoder.writeNullableString(artifact.getClassifier());
+    }
+
+    private static void writeCapabilities(Encoder encoder, Iterable<? extends Capability> capabilities) throws IOException {
+        Set<String> sortedCapabilities = new TreeSet<>();
+        for (Capability capability : capabilities) {
+            sortedCapabilities.add(capability.getGroup() + ":" + capability.getName() + ":" + capability.getVersion());
+        }
+        encoder.writeSmallInt(sortedCapabilities.size());
+        for (String capability : sortedCapabilities) {
+            encoder.writeString(capability);
+        }
+    }
+
+    private static void writeModuleVersion(Encoder encoder, ModuleVersionIdentifier id) throws IOException {
+        encoder.writeString(id.getGroup());
+        encoder.writeString(id.getName());
+        encoder.writeString(id.getVersion());
+    }
+
+    /**
+     * Writes attributes sorted by name. Returns false for attribute values that do not have a stable representation.
+     */
+    private static boolean writeAttributes(Encoder encoder, AttributeContainer attributes) throws IOException {
+        List<Attribute<?>> sortedAttributes = ImmutableList.sortedCopyOf(Comparator.comparing(Attribute::getName), attributes.keySet());
+        encoder.writeSmallInt(sortedAttributes.size());
+        for (Attribute<?> attribute : sortedAttributes) {
+            Object value = attributes.getAttribute(attribute);
+            String stringValue;
+            if (value instanceof Named) {
+                stringValue = ((Named) value).getName();
+            } else if (value instanceof String || value instanceof Boolean || value instanceof Integer || value instanceof Enum) {
+                stringValue = value.toString();
+            } else {
+                return false;
+            }
+            encoder.writeString(attribute.getName());
+            encoder.writeString(attribute.getType().getName());
+            encoder.writeString(stringValue);
+        }
+        return true;
+    }
+
+    private static boolean writeRepositories(Encoder encoder, List<ResolutionAwareRepository> repositories) throws IOException {
+        encoder.writeSmallInt(repositories.size());
+        for (ResolutionAwareRepository repository : repositories) {
+            if (!(repository instanceof AbstractArtifactRepository)) {
+                return false;
+            }
+            AbstractArtifactRepository artifactRepository = (AbstractArtifactRepository) repository;
+            RepositoryDescriptor descriptor = repository.getDescriptor();
+            if (artifactRepository.getContentFilter() != Actions.doNothing()
+                || artifactRepository.hasCustomMetadataRules()
+                || !isRemote(descriptor)) {
+                return false;
+            }
+            // The id is a hash of the repository configuration
+            encoder.writeString(descriptor.getId());
+            encoder.writeString(descriptor.getName());
+        }
+        return true;
+    }
+
+    /**
+     * Local repositories are not cached by Gradle, so their contents may change between builds without being noticed.
+     */
+    private static boolean isRemote(RepositoryDescriptor descriptor) {
+        if (!(descriptor instanceof UrlRepositoryDescriptor)) {
+            return false;
+        }
+        UrlRepositoryDescriptor urlDescriptor = (UrlRepositoryDescriptor) descriptor;
+        URI url = urlDescriptor.url;
+        if (url == null || "file".equals(url.getScheme())) {
+            return false;
+        }
+        for (ResourcePattern pattern : urlDescriptor.getMetadataResources()) {
+            if (pattern.getPattern().startsWith("file:")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean writeSchema(Encoder encoder, ImmutableAttributesSchema schema) throws IOException {
+        List<Attribute<?>> sortedAttributes = ImmutableList.sortedCopyOf(Comparator.comparing(Attribute::getName), schema.getAttributes());
+        encoder.writeSmallInt(sortedAttributes.size());
+        for (Attribute<?> attribute : sortedAttributes) {
+            encoder.writeString(attribute.getName());
+            encoder.writeString(attribute.getType().getName());
+            ImmutableList<Action<?>> rules = schema.getRuleActions(attribute);
+            encoder.writeSmallInt(rules.size());
+            for (Action<?> rule : rules) {
+                if (!writeRule(encoder, rule)) {
+                    return false;
+                }
+            }
+        }
+        List<Attribute<?>> precedence = schema.getAttributeDisambiguationPrecedence();
+        encoder.writeSmallInt(precedence.size());
+        for (Attribute<?> attribute : precedence) {
+            encoder.writeString(attribute.getName());
+        }
+        return true;
+    }
+
+    private boolean writeRule(Encoder encoder, Action<?> rule) throws IOException {
+        if (rule instanceof InstantiatingAction) {
+            List<? extends ConfigurableRule<?>> configurableRules = ((InstantiatingAction<?>) rule).getRules().getConfigurableRules();
+            encoder.writeSmallInt(configurableRules.size());
+            for (ConfigurableRule<?> configurableRule : configurableRules) {
+                HashCode ruleHash = hashImplementation(ImmutableList.of(configurableRule.getRuleClass(), configurableRule.getRuleParams()));
+                if (ruleHash == null) {
+                    return false;
+                }
+                encoder.writeBinary(ruleHash.toByteArray());
+            }
+            return true;
+        }
+        if (rule instanceof DefaultOrderedCompatibilityRule) {
+            DefaultOrderedCompatibilityRule<?> orderedRule = (DefaultOrderedCompatibilityRule<?>) rule;
+            encoder.writeBoolean(orderedRule.isReverse());
+            return writeComparator(encoder, orderedRule.getComparator());
+        }
+        if (rule instanceof DefaultOrderedDisambiguationRule) {
+            DefaultOrderedDisambiguationRule<?> orderedRule = (DefaultOrderedDisambiguationRule<?>) rule;
+            encoder.writeBoolean(orderedRule.isPickFirst());
+            return writeComparator(encoder, orderedRule.getComparator());
+        }
+        return false;
+    }
+
+    /**
+     * Comparators are identified by their implementation, so only comparators without state can be fingerprinted.
+     */
+    private boolean writeComparator(Encoder encoder, Comparator<?> comparator) throws IOException {
+        Class<?> comparatorClass = comparator.getClass();
+        if (comparatorClass.isSynthetic()) {
+            return false;
+        }
+        for (Field field : comparatorClass.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers())) {
+                return false;
+            }
+        }
+        HashCode comparatorHash = hashImplementation(comparatorClass);
+        if (comparatorHash == null) {
+            return false;
+        }
+        encoder.writeBinary(comparatorHash.toByteArray());
+        return true;
+    }
+
+    @Nullable
+    private HashCode hashImplementation(Object value) {
+        try {
+            return Hashing.hashHashable(snapshotter.snapshot(value));
+        } catch (ValueSnapshottingException | UnsupportedOperationException e) {
+            // Values that cannot be snapshotted, or implementations loaded by an unknown class loader
+            return null;
+        }
+    }
+
+    /**
+     * Used to ask the component metadata processor for its rules key, which does not instantiate any rules.
+     */
+    private static class KeyOnlyResolutionContext implements MetadataResolutionContext {
+        private final CachePolicy cachePolicy;
+
+        KeyOnlyResolutionContext(CachePolicy cachePolicy) {
+            this.cachePolicy = cachePolicy;
+        }
+
+        @Override
+        public CachePolicy getCachePolicy() {
+            return cachePolicy;
+        }
+
+        @Override
+        public Instantiator getInjectingInstantiator() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -41,6 +41,7 @@
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -58,7 +59,7 @@ public class StreamingResolutionResultBuilder implements DependencyGraphVisitor
 
     private final Map<ComponentSelector, ModuleVersionResolveException> failures = new HashMap<>();
     private final BinaryStore store;
-    private final AdhocHandlingComponentResultSerializer componentResultSerializer;
+    private final ComponentResultSerializer componentResultSerializer;
     private final Store<ResolvedComponentResultInternal> cache;
     private final ComponentSelectorSerializer componentSelectorSerializer;
     private final boolean includeAllSelectableVariantResults;
@@ -73,7 +74,7 @@ public StreamingResolutionResultBuilder(
         BinaryStore store,
         Store<ResolvedComponentResultInternal> cache,
         AttributeContainerSerializer attributeContainerSerializer,
-        AdhocHandlingComponentResultSerializer componentResultSerializer,
+        ComponentResultSerializer componentResultSerializer,
         ComponentSelectionDescriptorFactory componentSelectionDescriptorFactory,
         boolean includeAllSelectableVariantResults
     ) {
@@ -91,6 +92,30 @@ public MinimalResolutionResult getResolutionResult(Set<UnresolvedDependency> dep
         return new MinimalResolutionResult(rootVariantId, rootSource::create, rootAttributes);
     }
 
+    /**
+     * Creates a resolution result from the data of a graph without failures, which has been written by another builder.
+     */
+    public static MinimalResolutionResult loadResolutionResult(
+        BinaryStore.BinaryData data,
+        long rootVariantId,
+        ImmutableAttributes rootAttributes,
+        Store<ResolvedComponentResultInternal> cache,
+        AttributeContainerSerializer attributeContainerSerializer,
+        ComponentResultSerializer componentResultSerializer,
+        ComponentSelectionDescriptorFactory componentSelectionDescriptorFactory
+    ) {
+        RootFactory rootSource = new RootFactory(
+            data,
+            Collections.emptyMap(),
+            cache,
+            new ComponentSelectorSerializer(attributeContainerSerializer),
+            new DependencyResultSerializer(componentSelectionDescriptorFactory),
+            componentResultSerializer,
+            Collections.emptySet()
+        );
+        return new MinimalResolutionResult(rootVariantId, rootSource::create, rootAttributes);
+    }
+
     @Override
     public void start(final RootGraphNode root) {
         this.rootVariantId = root.getNodeId();
@@ -154,7 +179,7 @@ public void visitEdges(DependencyGraphNode node) {
     private static class RootFactory implements Factory<ResolvedComponentResultInternal> {
 
         private final static Logger LOG = Logging.getLogger(RootFactory.class);
-        private final AdhocHandlingComponentResultSerializer componentResultSerializer;
+        private final ComponentResultSerializer componentResultSerializer;
 
         private final BinaryStore.BinaryData data;
         private final Map<ComponentSelector, ModuleVersionResolveException> failures;
@@ -164,7 +189,7 @@ private static class RootFactory implements Factory<ResolvedComponentResultInter
         private final DependencyResultSerializer dependencyResultSerializer;
         private final Set<UnresolvedDependency> dependencyLockingFailures;
 
-        RootFactory(BinaryStore.BinaryData data, Map<ComponentSelector, ModuleVersionResolveException> failures, Store<ResolvedComponentResultInternal> cache, ComponentSelectorSerializer componentSelectorSerializer, DependencyResultSerializer dependencyResultSerializer, AdhocHandlingComponentResultSerializer componentResultSerializer, Set<UnresolvedDependency> dependencyLockingFailures) {
+        RootFactory(BinaryStore.BinaryData data, Map<ComponentSelector, ModuleVersionResolveException> failures, Store<ResolvedComponentResultInternal> cache, ComponentSelectorSerializer componentSelectorSerializer, DependencyResultSerializer dependencyResultSerializer, ComponentResultSerializer componentResultSerializer, Set<UnresolvedDependency> dependencyLockingFailures) {
             this.data = data;
             this.failures = failures;
             this.cache = cache;
@@ -114,6 +114,13 @@ public void setComponentVersionsLister(Class<? extends ComponentMetadataVersionL
         this.componentMetadataListerRuleConfiguration = configureAction;
     }
 
+    /**
+     * Returns true when a custom metadata supplier or component versions lister has been configured for this repository.
+     */
+    public boolean hasCustomMetadataRules() {
+        return componentMetadataSupplierRuleClass != null || componentMetadataListerRuleClass != null;
+    }
+
     @Override
     public RepositoryContentDescriptorInternal createRepositoryDescriptor(VersionParser versionParser) {
         return new DefaultRepositoryContentDescriptor(this::getDisplayName, versionParser);
@@ -117,6 +117,20 @@ public <T> CompatibilityRule<T> compatibilityRules(Attribute<T> attribute) {
         return CompatibilityRule.doNothing();
     }
 
+    /**
+     * Get the actions of the compatibility and disambiguation rules for the given attribute, in the order they are applied.
+     */
+    public ImmutableList<Action<?>> getRuleActions(Attribute<?> attribute) {
+        ImmutableAttributeMatchingStrategy<?> matchingStrategy = getStrategy(attribute);
+        if (matchingStrategy == null) {
+            return ImmutableList.of();
+        }
+        return ImmutableList.<Action<?>>builder()
+            .addAll(matchingStrategy.compatibilityRules.rules)
+            .addAll(matchingStrategy.disambiguationRules.rules)
+            .build();
+    }
+
     /**
      * Get an attribute by name.
      */
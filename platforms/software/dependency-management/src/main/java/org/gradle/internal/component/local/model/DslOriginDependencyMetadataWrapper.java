@@ -22,6 +22,7 @@
 import org.gradle.internal.component.model.IvyArtifactName;
 import org.gradle.internal.component.model.LocalOriginDependencyMetadata;
 
+import javax.annotation.Nullable;
 import java.util.List;
 
 public class DslOriginDependencyMetadataWrapper extends DelegatingDependencyMetadata implements DslOriginDependencyMetadata, LocalOriginDependencyMetadata {
@@ -63,6 +64,12 @@ public boolean isFromLock() {
         return delegate.isFromLock();
     }
 
+    @Nullable
+    @Override
+    public String getDependencyConfiguration() {
+        return delegate.getDependencyConfiguration();
+    }
+
     @Override
     public List<IvyArtifactName> getArtifacts() {
         return artifacts;
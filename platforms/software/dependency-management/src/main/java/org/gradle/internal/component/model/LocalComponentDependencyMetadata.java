@@ -190,6 +190,12 @@ public boolean isFromLock() {
         return fromLock;
     }
 
+    @Nullable
+    @Override
+    public String getDependencyConfiguration() {
+        return dependencyConfiguration;
+    }
+
     @Override
     public DependencyMetadata withReason(String reason) {
         if (Objects.equal(reason, this.reason)) {
@@ -18,6 +18,7 @@
 
 import org.gradle.api.artifacts.component.ComponentSelector;
 
+import javax.annotation.Nullable;
 import java.util.List;
 
 /**
@@ -39,4 +40,10 @@ public interface LocalOriginDependencyMetadata extends ForcingDependencyMetadata
      * Is this a dependency constraint created for a dependency lock?
      */
     boolean isFromLock();
+
+    /**
+     * The name of the configuration to select in the target component, or {@code null} when the variant is selected using attributes.
+     */
+    @Nullable
+    String getDependencyConfiguration();
 }
@@ -128,6 +128,52 @@ class PomReaderTest extends AbstractPomReaderTest {
         !pomReader.hasGradleMetadataMarker()
     }
 
+    def "ignores elements nested in sections that are not used"() {
+        when:
+        pomFile << """
+<project>
+    <modelVersion>4.0.0</modelVersion>
+    <groupId>group-one</groupId>
+    <artifactId>artifact-one</artifactId>
+    <version>version-one</version>
+    <build>
+        <plugins>
+            <plugin>
+                <groupId>plugin-group</groupId>
+                <artifactId>plugin-artifact</artifactId>
+                <dependencies>
+                    <dependency>
+                        <groupId>plugin-dependency-group</groupId>
+                        <artifactId>plugin-dependency-artifact</artifactId>
+                        <version>1.0</version>
+                    </dependency>
+                </dependencies>
+            </plugin>
+        </plugins>
+    </build>
+    <properties>
+        <my.property>some<![CDATA[<value>]]>&amp;more</my.property>
+    </properties>
+    <dependencies>
+        <dependency>
+            <groupId>group-two</groupId>
+            <artifactId>artifact-two</artifactId>
+            <version>version-two</version>
+        </dependency>
+    </dependencies>
+</project>
+"""
+        pomReader = new PomReader(locallyAvailableExternalResource, moduleIdentifierFactory)
+        MavenDependencyKey key = new MavenDependencyKey('group-two', 'artifact-two', 'jar', null)
+
+        then:
+        pomReader.groupId == 'group-one'
+        pomReader.artifactId == 'artifact-one'
+        pomReader.properties['my.property'] == 'some<value>&more'
+        pomReader.getDependencies().size() == 1
+        assertResolvedPomDependency(key, 'version-two')
+    }
+
     def "use custom properties in POM project coordinates"() {
         when:
         pomFile << """
@@ -0,0 +1,342 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.result
+
+import org.gradle.api.artifacts.component.ComponentIdentifier
+import org.gradle.api.artifacts.component.ProjectComponentIdentifier
+import org.gradle.api.internal.artifacts.DefaultImmutableModuleIdentifierFactory
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
+import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier
+import org.gradle.api.internal.artifacts.DependencyManagementTestUtil
+import org.gradle.api.internal.artifacts.configurations.dynamicversion.DefaultCachePolicy
+import org.gradle.api.internal.artifacts.dependencies.DefaultMutableVersionConstraint
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionComparator
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionParser
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.verification.DependencyVerificationOverride
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphComponent
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphEdge
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphSelector
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ResolvedGraphVariant
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.RootGraphNode
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.results.VisitedGraphResults
+import org.gradle.api.internal.artifacts.result.DefaultResolvedVariantResult
+import org.gradle.api.internal.artifacts.result.ResolvedComponentResultInternal
+import org.gradle.cache.CacheBuilder
+import org.gradle.cache.CacheDecorator
+import org.gradle.cache.FileLockManager
+import org.gradle.cache.IndexedCache
+import org.gradle.cache.IndexedCacheParameters
+import org.gradle.cache.PersistentCache
+import org.gradle.cache.internal.InMemoryCacheDecoratorFactory
+import org.gradle.cache.internal.Store
+import org.gradle.cache.scopes.GlobalScopedCacheBuilderFactory
+import org.gradle.internal.Describables
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector
+import org.gradle.internal.component.external.model.ImmutableCapabilities
+import org.gradle.internal.component.local.model.LocalVariantGraphResolveMetadata
+import org.gradle.internal.component.model.ComponentGraphResolveMetadata
+import org.gradle.internal.component.model.ComponentGraphResolveState
+import org.gradle.internal.hash.TestHashCodes
+import org.gradle.internal.serialize.InputStreamBackedDecoder
+import org.gradle.internal.serialize.OutputStreamBackedEncoder
+import org.gradle.internal.serialize.Serializer
+import org.gradle.util.AttributeTestUtil
+import org.gradle.util.SnapshotTestUtil
+import org.gradle.util.TestUtil
+import org.gradle.util.internal.BuildCommencedTimeProvider
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.TimeUnit
+import java.util.function.Supplier
+
+import static org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentSelectionReasons.requested
+import static org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentSelectionReasons.root
+import static org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ResolutionResultPrinter.printGraph
+
+class CrossBuildResolutionResultCacheTest extends Specification {
+    // The persistent store, shared by the caches of all builds
+    def entries = [:]
+    def now = 0L
+    def key = TestHashCodes.hashCodeFrom(12)
+    def cachePolicy = new DefaultCachePolicy()
+    def successful = Stub(VisitedGraphResults) {
+        hasAnyFailure() >> false
+    }
+
+    def cache = newCache()
+
+    def "loads stored result"() {
+        given:
+        record(cache, "1.0")
+
+        when:
+        def result = cache.load(key, cachePolicy, AttributeTestUtil.attributes([:]), new DummyStore())
+
+        then:
+        result.rootVariantId == 1
+        printGraph(result.rootSource.get()) == """org:root:1.0
+  org:dep:1.0 [root]
+"""
+    }
+
+    def "loads stored result in a later build"() {
+        given:
+        record(cache, "1.0")
+        cache.close()
+
+        expect:
+        newCache().load(key, cachePolicy, AttributeTestUtil.attributes([:]), new DummyStore()) != null
+    }
+
+    def "does not store result of graph with failures"() {
+        when:
+        record(cache, "1.0", Stub(VisitedGraphResults) { hasAnyFailure() >> true })
+
+        then:
+        cache.load(key, cachePolicy, AttributeTestUtil.attributes([:]), new DummyStore()) == null
+    }
+
+    def "does not store result of graph with project components"() {
+        when:
+        record(cache, "1.0", successful, false, Stub(ProjectComponentIdentifier))
+
+        then:
+        cache.load(key, cachePolicy, AttributeTestUtil.attributes([:]), new DummyStore()) == null
+    }
+
+    def "result with fixed versions does not expire"() {
+        given:
+        record(cache, "1.0")
+
+        when:
+        now += Duration.ofDays(30).toMillis()
+
+        then:
+        cache.load(key, cachePolicy, AttributeTestUtil.attributes([:]), new DummyStore()) != null
+    }
+
+    def "result with dynamic version expires with the version list"() {
+        given:
+        cachePolicy.cacheDynamicVersionsFor(10, TimeUnit.MINUTES)
+        record(cache, "1.+")
+
+        when:
+        now += Duration.ofMinutes(5).toMillis()
+
+        then:
+        cache.load(key, cachePolicy, AttributeTestUtil.attributes([:]), new DummyStore()) != null
+
+        when:
+        now += Duration.ofMinutes(10).toMillis()
+
+        then:
+        cache.load(key, cachePolicy, AttributeTestUtil.attributes([:]), new DummyStore()) == null
+    }
+
+    def "result with changing module expires with the module"() {
+        given:
+        cachePolicy.cacheChangingModulesFor(10, TimeUnit.MINUTES)
+        record(cache, "1.0-SNAPSHOT", successful, true)
+
+        when:
+        now += Duration.ofMinutes(5).toMillis()
+
+        then:
+        cache.load(key, cachePolicy, AttributeTestUtil.attributes([:]), new DummyStore()) != null
+
+        when:
+        now += Duration.ofMinutes(10).toMillis()
+
+        then:
+        cache.load(key, cachePolicy, AttributeTestUtil.attributes([:]), new DummyStore()) == null
+    }
+
+    def "result is not used when dependencies are refreshed"() {
+        given:
+        record(cache, "1.0")
+
+        when:
+        cachePolicy.setRefreshDependencies()
+
+        then:
+        cache.load(key, cachePolicy, AttributeTestUtil.attributes([:]), new DummyStore()) == null
+    }
+
+    def "result is not used once the artifacts of the configuration are used"() {
+        given:
+        record(cache, "1.0")
+
+        when:
+        cache.artifactsUsed(key)
+
+        then:
+        cache.load(key, cachePolicy, AttributeTestUtil.attributes([:]), new DummyStore()) == null
+
+        when:
+        cache.close()
+        def laterBuildCache = newCache()
+
+        then:
+        laterBuildCache.load(key, cachePolicy, AttributeTestUtil.attributes([:]), new DummyStore()) == null
+    }
+
+    private void record(CrossBuildResolutionResultCache cache, String version, VisitedGraphResults graphResults = successful, boolean changing = false, ComponentIdentifier depId = null) {
+        def root = rootNode()
+        def selector = selector(1, "org", "dep", version)
+        def dep = node(2, "org", "dep", version.replace("+", "0"), changing, depId)
+        root.outgoingEdges >> [edge(selector, 1, 2)]
+
+        def recorder = cache.createRecorder(key, new DummyStore())
+        recorder.start(root)
+        recorder.visitNode(root)
+        recorder.visitNode(dep)
+        recorder.visitSelector(selector)
+        recorder.visitEdges(root)
+        recorder.finish(root)
+        recorder.storeIfSuccessful(graphResults)
+    }
+
+    private CrossBuildResolutionResultCache newCache() {
+        def timeProvider = Stub(BuildCommencedTimeProvider) {
+            getCurrentTime() >> { now }
+        }
+        CacheBuilder cacheBuilder
+        cacheBuilder = Stub(CacheBuilder) {
+            withInitialLockMode(_ as FileLockManager.LockMode) >> { cacheBuilder }
+            open() >> Stub(PersistentCache) {
+                createIndexedCache(_ as IndexedCacheParameters) >> { IndexedCacheParameters parameters -> inMemoryCache(parameters.valueSerializer) }
+            }
+        }
+        def cacheBuilderFactory = Stub(GlobalScopedCacheBuilderFactory) {
+            createCacheBuilder(_ as String) >> cacheBuilder
+        }
+        def cacheDecoratorFactory = Stub(InMemoryCacheDecoratorFactory) {
+            decorator(_ as int, _ as boolean) >> Stub(CacheDecorator)
+        }
+        return new CrossBuildResolutionResultCache(
+            true,
+            cacheBuilderFactory,
+            cacheDecoratorFactory,
+            SnapshotTestUtil.valueSnapshotter(),
+            DependencyVerificationOverride.NO_VERIFICATION,
+            new DesugaredAttributeContainerSerializer(AttributeTestUtil.attributesFactory(), TestUtil.objectInstantiator()),
+            new CompleteComponentResultSerializer(
+                DependencyManagementTestUtil.componentSelectionDescriptorFactory(),
+                new DefaultImmutableModuleIdentifierFactory(),
+                AttributeTestUtil.attributesFactory(),
+                TestUtil.objectInstantiator()
+            ),
+            DependencyManagementTestUtil.componentSelectionDescriptorFactory(),
+            new DefaultVersionSelectorScheme(new DefaultVersionComparator(), new VersionParser()),
+            timeProvider
+        )
+    }
+
+    /**
+     * An indexed cache that keeps the serialized entries in memory.
+     */
+    private IndexedCache inMemoryCache(Serializer serializer) {
+        return Stub(IndexedCache) {
+            getIfPresent(_) >> { args ->
+                byte[] bytes = entries[args[0]]
+                bytes == null ? null : serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(bytes)))
+            }
+            put(_, _) >> { args ->
+                def bytes = new ByteArrayOutputStream()
+                def encoder = new OutputStreamBackedEncoder(bytes)
+                serializer.write(encoder, args[1])
+                encoder.flush()
+                entries[args[0]] = bytes.toByteArray()
+            }
+        }
+    }
+
+    class DummyStore implements Store<ResolvedComponentResultInternal> {
+        ResolvedComponentResultInternal load(Supplier<ResolvedComponentResultInternal> createIfNotPresent) {
+            return createIfNotPresent.get()
+        }
+    }
+
+    private DependencyGraphEdge edge(DependencyGraphSelector selector, Long fromVariant, Long selectedId) {
+        def edge = Stub(DependencyGraphEdge)
+        _ * edge.selector >> selector
+        _ * edge.selected >> selectedId
+        _ * edge.failure >> null
+        _ * edge.fromVariant >> fromVariant
+        _ * edge.selectedVariant >> selectedId
+        return edge
+    }
+
+    private DependencyGraphNode node(Long resultId, String org, String name, String ver, boolean changing, ComponentIdentifier id) {
+        def moduleVersionId = DefaultModuleVersionIdentifier.newId(DefaultModuleIdentifier.newId(org, name), ver)
+        def componentId = id ?: DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId(org, name), ver)
+        def component = component(resultId, componentId, moduleVersionId, changing)
+        def node = Stub(DependencyGraphNode)
+        _ * node.owner >> component
+        _ * node.root >> false
+        return node
+    }
+
+    private RootGraphNode rootNode() {
+        def moduleVersionId = DefaultModuleVersionIdentifier.newId(DefaultModuleIdentifier.newId("org", "root"), "1.0")
+        def componentId = DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId("org", "root"), "1.0")
+        def component = component(1, componentId, moduleVersionId, false)
+        def node = Stub(RootGraphNode)
+        _ * node.owner >> component
+        _ * node.root >> true
+        _ * node.nodeId >> 1
+        _ * node.metadata >> Stub(LocalVariantGraphResolveMetadata) {
+            getAttributes() >> AttributeTestUtil.attributes([:])
+        }
+        return node
+    }
+
+    private DependencyGraphComponent component(Long resultId, ComponentIdentifier componentId, DefaultModuleVersionIdentifier moduleVersionId, boolean changing) {
+        def componentMetadata = Stub(ComponentGraphResolveMetadata)
+        _ * componentMetadata.moduleVersionId >> moduleVersionId
+        _ * componentMetadata.changing >> changing
+
+        def componentState = Stub(ComponentGraphResolveState)
+        _ * componentState.id >> componentId
+        _ * componentState.metadata >> componentMetadata
+        _ * componentState.getPublicViewFor(_, _) >> new DefaultResolvedVariantResult(componentId, Describables.of("runtime"), AttributeTestUtil.attributes([:]), ImmutableCapabilities.EMPTY, null)
+
+        def variant = Stub(ResolvedGraphVariant)
+        variant.nodeId >> resultId
+
+        def component = Stub(DependencyGraphComponent)
+        _ * component.resultId >> resultId
+        _ * component.componentId >> componentId
+        _ * component.moduleVersion >> moduleVersionId
+        _ * component.metadataOrNull >> componentMetadata
+        _ * component.selectionReason >> (resultId == 1 ? root() : requested())
+        _ * component.resolveState >> componentState
+        _ * component.selectedVariants >> [variant]
+        return component
+    }
+
+    private DependencyGraphSelector selector(Long resultId, String org, String name, String ver) {
+        def selector = Stub(DependencyGraphSelector)
+        selector.resultId >> resultId
+        selector.requested >> DefaultModuleComponentSelector.newSelector(DefaultModuleIdentifier.newId(org, name), new DefaultMutableVersionConstraint(ver))
+        return selector
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.result
+
+import org.gradle.api.Action
+import org.gradle.api.artifacts.component.ProjectComponentSelector
+import org.gradle.api.attributes.Attribute
+import org.gradle.api.attributes.AttributeCompatibilityRule
+import org.gradle.api.attributes.CompatibilityCheckDetails
+import org.gradle.api.internal.artifacts.ComponentMetadataProcessor
+import org.gradle.api.internal.artifacts.ComponentMetadataProcessorFactory
+import org.gradle.api.internal.artifacts.ComponentModuleMetadataProcessor
+import org.gradle.api.internal.artifacts.ComponentSelectionRulesInternal
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
+import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier
+import org.gradle.api.internal.artifacts.DependencySubstitutionInternal
+import org.gradle.api.internal.artifacts.GlobalDependencyResolutionRules
+import org.gradle.api.internal.artifacts.ResolveContext
+import org.gradle.api.internal.artifacts.configurations.ConflictResolution
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal
+import org.gradle.api.internal.artifacts.configurations.dynamicversion.DefaultCachePolicy
+import org.gradle.api.internal.artifacts.dependencies.DefaultMutableVersionConstraint
+import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.verification.DependencyVerificationOverride
+import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.RootComponentMetadataBuilder
+import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.CapabilitiesResolutionInternal
+import org.gradle.api.internal.artifacts.repositories.AbstractResolutionAwareArtifactRepository
+import org.gradle.api.internal.artifacts.repositories.descriptor.MavenRepositoryDescriptor
+import org.gradle.api.internal.attributes.immutable.ImmutableAttributesSchema
+import org.gradle.internal.Actions
+import org.gradle.internal.ImmutableActionSet
+import org.gradle.internal.component.external.descriptor.DefaultExclude
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector
+import org.gradle.internal.component.external.model.ImmutableCapabilities
+import org.gradle.internal.component.local.model.LocalComponentGraphResolveMetadata
+import org.gradle.internal.component.local.model.LocalComponentGraphResolveState
+import org.gradle.internal.component.model.ExcludeMetadata
+import org.gradle.internal.component.model.LocalComponentDependencyMetadata
+import org.gradle.internal.component.model.VariantGraphResolveMetadata
+import org.gradle.internal.component.model.VariantGraphResolveState
+import org.gradle.util.AttributeTestUtil
+import org.gradle.util.SnapshotTestUtil
+import spock.lang.Specification
+
+class ResolutionInputsFingerprinterTest extends Specification {
+    def fingerprinter = new ResolutionInputsFingerprinter(SnapshotTestUtil.valueSnapshotter(), DependencyVerificationOverride.NO_VERIFICATION)
+
+    def requestedAttributes = AttributeTestUtil.attributes(["org.usage": "runtime"])
+    def dependencies = [dependency("org", "lib", "1.0")]
+    def excludes = [] as List<ExcludeMetadata>
+    def repositories = [repository("maven", "https://repo.example.com/maven")]
+    def schema = ImmutableAttributesSchema.EMPTY
+    def lockingEnabled = false
+    def substitutionRules = ImmutableActionSet.<DependencySubstitutionInternal> empty()
+
+    def "creates the same key for the same inputs"() {
+        expect:
+        def key = fingerprint()
+        key != null
+        fingerprint() == key
+    }
+
+    def "creates a different key when the requested attributes change"() {
+        def key = fingerprint()
+
+        when:
+        requestedAttributes = AttributeTestUtil.attributes(["org.usage": "api"])
+
+        then:
+        fingerprint() != key
+
+        when:
+        requestedAttributes = AttributeTestUtil.attributes(["org.usage": "runtime"])
+
+        then:
+        fingerprint() == key
+    }
+
+    def "creates a different key when the dependencies change"() {
+        def key = fingerprint()
+
+        when:
+        dependencies = [dependency("org", "lib", "2.0")]
+
+        then:
+        fingerprint() != key
+
+        when:
+        dependencies = [dependency("org", "lib", "1.0")]
+
+        then:
+        fingerprint() == key
+    }
+
+    def "creates a different key when the repositories change"() {
+        def key = fingerprint()
+
+        when:
+        repositories = [repository("maven", "https://other.example.com/maven")]
+
+        then:
+        fingerprint() != key
+
+        when:
+        repositories = [repository("maven", "https://repo.example.com/maven"), repository("other", "https://other.example.com/maven")]
+
+        then:
+        fingerprint() != key
+
+        when:
+        repositories = [repository("maven", "https://repo.example.com/maven")]
+
+        then:
+        fingerprint() == key
+    }
+
+    def "creates a different key when the attribute schema rules change"() {
+        def attribute = Attribute.of("org.usage", String)
+        schema = AttributeTestUtil.immutableSchema {
+            attribute(attribute).compatibilityRules.add(AcceptAllRule)
+        }
+        def key = fingerprint()
+
+        when:
+        schema = AttributeTestUtil.immutableSchema {
+            attribute(attribute).compatibilityRules.add(RejectAllRule)
+        }
+
+        then:
+        key != null
+        fingerprint() != key
+
+        when:
+        schema = AttributeTestUtil.immutableSchema {
+            attribute(attribute).compatibilityRules.add(AcceptAllRule)
+        }
+
+        then:
+        fingerprint() == key
+    }
+
+    def "creates a different key when the excludes change"() {
+        def key = fingerprint()
+
+        when:
+        excludes = [new DefaultExclude(DefaultModuleIdentifier.newId("org", "excluded"))]
+
+        then:
+        fingerprint() != key
+
+        when:
+        excludes = []
+
+        then:
+        fingerprint() == key
+    }
+
+    def "does not fingerprint configurations with project dependencies"() {
+        when:
+        dependencies = [dependency("org", "lib", "1.0"), new LocalComponentDependencyMetadata(Stub(ProjectComponentSelector), null, [], [], false, false, true, false, false, null)]
+
+        then:
+        fingerprint() == null
+    }
+
+    def "does not fingerprint configurations with dependency substitution"() {
+        when:
+        substitutionRules = substitutionRules.add({ it.useTarget("org:other:1.0") } as Action<DependencySubstitutionInternal>)
+
+        then:
+        fingerprint() == null
+    }
+
+    def "does not fingerprint configurations with dependency locking"() {
+        when:
+        lockingEnabled = true
+
+        then:
+        fingerprint() == null
+    }
+
+    def "does not fingerprint configurations resolved from local repositories"() {
+        when:
+        repositories = [repository("local", "file:/tmp/repo")]
+
+        then:
+        fingerprint() == null
+    }
+
+    def "does not fingerprint attribute schema rules that cannot be identified"() {
+        def attribute = Attribute.of("org.usage", String)
+
+        when:
+        schema = AttributeTestUtil.immutableSchema {
+            attribute(attribute).compatibilityRules.ordered({ a, b -> a <=> b } as Comparator<String>)
+        }
+
+        then:
+        fingerprint() == null
+    }
+
+    private def fingerprint() {
+        def resolutionStrategy = Stub(ResolutionStrategyInternal) {
+            isDependencyLockingEnabled() >> lockingEnabled
+            getDependencySubstitutionRule() >> substitutionRules
+            getComponentSelection() >> Stub(ComponentSelectionRulesInternal) {
+                getRules() >> []
+            }
+            getCapabilitiesResolutionRules() >> Stub(CapabilitiesResolutionInternal) {
+                isEmpty() >> true
+            }
+            getConflictResolution() >> ConflictResolution.latest
+            getCachePolicy() >> new DefaultCachePolicy()
+        }
+        def resolveContext = Stub(ResolveContext) {
+            getResolutionStrategy() >> resolutionStrategy
+            getAttributes() >> requestedAttributes
+            getSyntheticDependencies() >> []
+        }
+        def metadataHandler = Stub(GlobalDependencyResolutionRules) {
+            getComponentMetadataProcessorFactory() >> Stub(ComponentMetadataProcessorFactory) {
+                createComponentMetadataProcessor(_) >> Stub(ComponentMetadataProcessor) {
+                    getStableRulesKey() >> "no-rules"
+                }
+            }
+            getModuleMetadataProcessor() >> Stub(ComponentModuleMetadataProcessor) {
+                getModuleReplacements() >> Stub(ModuleReplacementsData) {
+                    isEmpty() >> true
+                }
+            }
+        }
+        def rootVariantMetadata = Stub(VariantGraphResolveMetadata) {
+            getName() >> "runtimeClasspath"
+            isTransitive() >> true
+            getCapabilities() >> ImmutableCapabilities.EMPTY
+            getExcludes() >> excludes
+            getAttributes() >> requestedAttributes
+            getDependencies() >> dependencies
+        }
+        def rootId = DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId("org", "root"), "1.0")
+        def rootModuleVersion = DefaultModuleVersionIdentifier.newId("org", "root", "1.0")
+        def rootComponentMetadata = new LocalComponentGraphResolveMetadata(rootModuleVersion, rootId, "integration", schema)
+        def rootComponent = Stub(RootComponentMetadataBuilder.RootComponentState) {
+            getComponentIdentifier() >> rootId
+            getModuleVersionIdentifier() >> rootModuleVersion
+            getRootVariant() >> Stub(VariantGraphResolveState) {
+                getMetadata() >> rootVariantMetadata
+            }
+            getRootComponent() >> Stub(LocalComponentGraphResolveState) {
+                getMetadata() >> rootComponentMetadata
+            }
+        }
+        return fingerprinter.fingerprint(resolveContext, rootComponent, repositories, metadataHandler)
+    }
+
+    private static LocalComponentDependencyMetadata dependency(String group, String module, String version) {
+        def selector = DefaultModuleComponentSelector.newSelector(DefaultModuleIdentifier.newId(group, module), new DefaultMutableVersionConstraint(version))
+        return new LocalComponentDependencyMetadata(selector, null, [], [], false, false, true, false, false, null)
+    }
+
+    private AbstractResolutionAwareArtifactRepository repository(String name, String url) {
+        def builder = new MavenRepositoryDescriptor.Builder(name, new URI(url))
+        builder.metadataSources = []
+        builder.authenticated = false
+        builder.authenticationSchemes = []
+        builder.artifactUrls = []
+        def descriptor = builder.create()
+        return Stub(AbstractResolutionAwareArtifactRepository) {
+            getDescriptor() >> descriptor
+            getContentFilter() >> Actions.doNothing()
+            hasCustomMetadataRules() >> false
+        }
+    }
+
+    static class AcceptAllRule implements AttributeCompatibilityRule<String> {
+        @Override
+        void execute(CompatibilityCheckDetails<String> details) {
+            details.compatible()
+        }
+    }
+
+    static class RejectAllRule implements AttributeCompatibilityRule<String> {
+        @Override
+        void execute(CompatibilityCheckDetails<String> details) {
+            details.incompatible()
+        }
+    }
+}
@@ -30,6 +30,7 @@ import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.Dependen
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphSelector
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ResolvedGraphVariant
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.RootGraphNode
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.InMemoryBinaryStore
 import org.gradle.cache.internal.Store
 import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
 import org.gradle.internal.component.external.model.DefaultModuleComponentSelector
@@ -126,6 +127,47 @@ class StreamingResolutionResultBuilderTest extends Specification {
 """
     }
 
+    def "result can be loaded from data written by another builder"() {
+        def binaryStore = new InMemoryBinaryStore()
+        def writer = new StreamingResolutionResultBuilder(
+            binaryStore,
+            new DummyStore(),
+            new DesugaredAttributeContainerSerializer(AttributeTestUtil.attributesFactory(), TestUtil.objectInstantiator()),
+            componentResultSerializer,
+            DependencyManagementTestUtil.componentSelectionDescriptorFactory(),
+            false
+        )
+        def root = rootNode(1, "org", "root", "1.0")
+        def selector1 = selector(1, "org", "dep1", "2.0")
+        def dep1 = node(2, "org", "dep1", "2.0")
+        root.outgoingEdges >> [dep(selector1, 1, 2)]
+
+        writer.start(root)
+        writer.visitNode(root)
+        writer.visitNode(dep1)
+        writer.visitSelector(selector1)
+        writer.visitEdges(root)
+        writer.finish(root)
+
+        when:
+        def data = new InMemoryBinaryStore.InMemoryBinaryData(binaryStore.done().bytes)
+        def result = StreamingResolutionResultBuilder.loadResolutionResult(
+            data,
+            1,
+            AttributeTestUtil.attributes(["org.foo": "v1"]),
+            new DummyStore(),
+            new DesugaredAttributeContainerSerializer(AttributeTestUtil.attributesFactory(), TestUtil.objectInstantiator()),
+            componentResultSerializer,
+            DependencyManagementTestUtil.componentSelectionDescriptorFactory()
+        )
+
+        then:
+        result.rootVariantId == 1
+        printGraph(result.rootSource.get()) == """org:root:1.0
+  org:dep1:2.0 [root]
+"""
+    }
+
     def "visiting resolved module version again has no effect"() {
         def root = rootNode(1, "org", "root", "1.0")
         def selector = selector(7, "org", "dep1", "2.0")
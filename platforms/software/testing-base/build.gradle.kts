@@ -42,6 +42,7 @@ dependencies {
     api(libs.inject)
 
     implementation(projects.baseServicesGroovy)
+    implementation(projects.buildOption)
     implementation(projects.concurrent)
     implementation(projects.files)
     implementation(projects.modelCore)
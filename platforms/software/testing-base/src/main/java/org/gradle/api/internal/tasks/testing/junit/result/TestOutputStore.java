@@ -16,37 +16,70 @@
 
 package org.gradle.api.internal.tasks.testing.junit.result;
 
-import com.esotericsoftware.kryo.io.Input;
-import com.esotericsoftware.kryo.io.Output;
-import com.google.common.collect.ImmutableMap;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.tasks.testing.TestOutputEvent;
-import org.gradle.internal.UncheckedException;
-import org.gradle.internal.file.RandomAccessFileInputStream;
+import org.gradle.internal.buildoption.IntegerInternalOption;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.os.OperatingSystem;
 import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
 import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
 
 import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
 import java.io.Closeable;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
-import java.io.UnsupportedEncodingException;
-import java.nio.charset.Charset;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Stores the output of tests on disk while they execute, so it does not need to be held in memory.
+ *
+ * <p>The output is written in chunks, where each chunk contains consecutive output of a single test or test class to a single destination.
+ * The outputs file contains the bytes of the chunks, and the index file contains the class id, test id, destination, position and length of each chunk in the order they were written.
+ * Both files are only appended to, so the output of a test can be read without scanning the output of other tests, and without waiting for the writer to be closed.</p>
+ */
 public class TestOutputStore {
 
+    public static final long UNLIMITED_OUTPUT = Long.MAX_VALUE;
+
+    /**
+     * Limits the number of bytes of output retained per test and per test class. A negative value means the output is not limited.
+     */
+    public static final IntegerInternalOption MAX_OUTPUT_BYTES_PER_TEST = new IntegerInternalOption("org.gradle.internal.testing.output.max-bytes-per-test", -1);
+
+    /**
+     * The size at which a chunk is written, even when the test continues to produce output.
+     */
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    /**
+     * The maximum number of test classes for which output is buffered.
+     */
+    private static final int MAX_OPEN_CHUNKS = 64;
+
     private final File resultsDir;
-    private final Charset messageStorageCharset;
+    private final long maxOutputBytesPerTest;
 
     public TestOutputStore(File resultsDir) {
+        this(resultsDir, UNLIMITED_OUTPUT);
+    }
+
+    public TestOutputStore(File resultsDir, long maxOutputBytesPerTest) {
         this.resultsDir = resultsDir;
-        this.messageStorageCharset = Charset.forName("UTF-8");
+        this.maxOutputBytesPerTest = maxOutputBytesPerTest;
     }
 
     File getOutputsFile() {
@@ -57,34 +90,34 @@ File getIndexFile() {
         return new File(resultsDir, getOutputsFile().getName() + ".idx");
     }
 
-    private static class Region {
-        long start;
-        long stop;
-
-        private Region() {
-            start = -1;
-            stop = -1;
-        }
-
-        private Region(long start, long stop) {
-            this.start = start;
-            this.stop = stop;
-        }
-    }
-
-    private static class TestCaseRegion {
-        Region stdOutRegion = new Region();
-        Region stdErrRegion = new Region();
-    }
-
     public class Writer implements Closeable {
         private final KryoBackedEncoder output;
-
-        private final Map<Long, Map<Long, TestCaseRegion>> index = new LinkedHashMap<Long, Map<Long, TestCaseRegion>>();
+        private final KryoBackedEncoder indexOutput;
+
+        /**
+         * The chunk currently being written for each test class, least recently used first.
+         * There is at most one open chunk per class, so the chunks of a class are written in the order the output was produced.
+         */
+        private final Map<Long, OpenChunk> openChunks = new LinkedHashMap<Long, OpenChunk>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, OpenChunk> eldest) {
+                if (size() > MAX_OPEN_CHUNKS) {
+                    writeChunk(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+        /**
+         * The number of bytes retained for each test that has not completed yet. Only tracked when the output is limited.
+         */
+        private final Map<TestKey, Long> retainedBytes = new HashMap<TestKey, Long>();
+        private boolean unflushed;
 
         public Writer() {
             try {
                 output = new KryoBackedEncoder(new FileOutputStream(getOutputsFile()));
+                indexOutput = new KryoBackedEncoder(new FileOutputStream(getIndexFile()));
             } catch (FileNotFoundException e) {
                 throw new UncheckedIOException(e);
             }
@@ -92,8 +125,39 @@ public Writer() {
 
         @Override
         public void close() {
-            output.close();
-            writeIndex();
+            try {
+                writeOpenChunks();
+            } finally {
+                output.close();
+                indexOutput.close();
+            }
+        }
+
+        /**
+         * Called when a test has completed. Makes the output of its class received so far available to readers.
+         */
+        public void testCompleted(long classId, long testId) {
+            retainedBytes.remove(new TestKey(classId, testId));
+            flush(classId);
+        }
+
+        /**
+         * Called when a test class has completed. Makes the output of the class received so far available to readers.
+         */
+        public void classCompleted(long classId) {
+            testCompleted(classId, 0);
+        }
+
+        private void flush(long classId) {
+            OpenChunk chunk = openChunks.remove(classId);
+            if (chunk != null) {
+                writeChunk(classId, chunk);
+            }
+            if (unflushed) {
+                output.flush();
+                indexOutput.flush();
+                unflushed = false;
+            }
         }
 
         public void onOutput(long classId, TestOutputEvent outputEvent) {
@@ -102,76 +166,77 @@ public void onOutput(long classId, TestOutputEvent outputEvent) {
 
         public void onOutput(long classId, long testId, TestOutputEvent outputEvent) {
             boolean stdout = outputEvent.getDestination() == TestOutputEvent.Destination.StdOut;
-            mark(classId, testId, stdout);
-
-            output.writeBoolean(stdout);
-            output.writeSmallLong(classId);
-            output.writeSmallLong(testId);
+            byte[] bytes = retain(classId, testId, outputEvent.getMessage().getBytes(StandardCharsets.UTF_8));
+            if (bytes == null) {
+                return;
+            }
 
-            byte[] bytes;
-            try {
-                bytes = outputEvent.getMessage().getBytes(messageStorageCharset.name());
-            } catch (UnsupportedEncodingException e) {
-                throw UncheckedException.throwAsUncheckedException(e);
+            OpenChunk chunk = openChunks.get(classId);
+            if (chunk != null && (chunk.testId != testId || chunk.stdout != stdout)) {
+                openChunks.remove(classId);
+                writeChunk(classId, chunk);
+                chunk = null;
+            }
+            if (chunk == null) {
+                if (bytes.length >= CHUNK_SIZE) {
+                    // Avoid copying large messages
+                    writeChunk(classId, testId, stdout, bytes, bytes.length);
+                    return;
+                }
+                chunk = new OpenChunk(testId, stdout);
+                openChunks.put(classId, chunk);
+            }
+            chunk.append(bytes);
+            if (chunk.length >= CHUNK_SIZE) {
+                openChunks.remove(classId);
+                writeChunk(classId, chunk);
             }
-            output.writeSmallInt(bytes.length);
-            output.writeBytes(bytes, 0, bytes.length);
         }
 
-        private void mark(long classId, long testId, boolean isStdout) {
-            if (!index.containsKey(classId)) {
-                index.put(classId, new LinkedHashMap<Long, TestCaseRegion>());
+        /**
+         * Returns the bytes to store for the given output, or {@code null} when the test has already produced the maximum retained output.
+         */
+        @Nullable
+        private byte[] retain(long classId, long testId, byte[] bytes) {
+            if (maxOutputBytesPerTest == UNLIMITED_OUTPUT) {
+                return bytes;
             }
-
-            Map<Long, TestCaseRegion> testCaseRegions = index.get(classId);
-            if (!testCaseRegions.containsKey(testId)) {
-                TestCaseRegion region = new TestCaseRegion();
-                testCaseRegions.put(testId, region);
+            TestKey key = new TestKey(classId, testId);
+            Long retained = retainedBytes.get(key);
+            long previouslyRetained = retained == null ? 0 : retained;
+            if (previouslyRetained > maxOutputBytesPerTest) {
+                return null;
             }
-
-            TestCaseRegion region = testCaseRegions.get(testId);
-
-            Region streamRegion = isStdout ? region.stdOutRegion : region.stdErrRegion;
-
-            long total = output.getWritePosition();
-            if (streamRegion.start < 0) {
-                streamRegion.start = total;
+            long nowRetained = previouslyRetained + bytes.length;
+            retainedBytes.put(key, nowRetained);
+            if (nowRetained <= maxOutputBytesPerTest) {
+                return bytes;
             }
-            streamRegion.stop = total;
+            return String.format("%n[Output truncated after %d bytes]%n", maxOutputBytesPerTest).getBytes(StandardCharsets.UTF_8);
         }
 
-        private void writeIndex() {
-            Output indexOutput;
-            try {
-                indexOutput = new Output(new FileOutputStream(getIndexFile()));
-            } catch (FileNotFoundException e) {
-                throw new UncheckedIOException(e);
+        private void writeOpenChunks() {
+            Iterator<Map.Entry<Long, OpenChunk>> iterator = openChunks.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Long, OpenChunk> entry = iterator.next();
+                iterator.remove();
+                writeChunk(entry.getKey(), entry.getValue());
             }
+        }
 
+        private void writeChunk(long classId, OpenChunk chunk) {
+            writeChunk(classId, chunk.testId, chunk.stdout, chunk.bytes, chunk.length);
+        }
 
-            try {
-                indexOutput.writeInt(index.size(), true);
-
-                for (Map.Entry<Long, Map<Long, TestCaseRegion>> classEntry : index.entrySet()) {
-                    Long classId = classEntry.getKey();
-                    Map<Long, TestCaseRegion> regions = classEntry.getValue();
-
-                    indexOutput.writeLong(classId, true);
-                    indexOutput.writeInt(regions.size(), true);
-
-                    for (Map.Entry<Long, TestCaseRegion> testCaseEntry : regions.entrySet()) {
-                        long id = testCaseEntry.getKey();
-                        TestCaseRegion region = testCaseEntry.getValue();
-                        indexOutput.writeLong(id, true);
-                        indexOutput.writeLong(region.stdOutRegion.start);
-                        indexOutput.writeLong(region.stdOutRegion.stop);
-                        indexOutput.writeLong(region.stdErrRegion.start);
-                        indexOutput.writeLong(region.stdErrRegion.stop);
-                    }
-                }
-            } finally {
-                indexOutput.close();
-            }
+        private void writeChunk(long classId, long testId, boolean stdout, byte[] bytes, int length) {
+            long position = output.getWritePosition();
+            output.writeBytes(bytes, 0, length);
+            indexOutput.writeSmallLong(classId);
+            indexOutput.writeSmallLong(testId);
+            indexOutput.writeBoolean(stdout);
+            indexOutput.writeSmallLong(position);
+            indexOutput.writeSmallInt(length);
+            unflushed = true;
         }
     }
 
@@ -179,55 +244,128 @@ public Writer writer() {
         return new Writer();
     }
 
-    private static class Index {
-        final ImmutableMap<Long, Index> children;
-        final Region stdOut;
-        final Region stdErr;
+    private static class OpenChunk {
+        final long testId;
+        final boolean stdout;
+        byte[] bytes = new byte[256];
+        int length;
 
-        private Index(Region stdOut, Region stdErr) {
-            this.children = ImmutableMap.of();
-            this.stdOut = stdOut;
-            this.stdErr = stdErr;
+        OpenChunk(long testId, boolean stdout) {
+            this.testId = testId;
+            this.stdout = stdout;
         }
 
-        private Index(ImmutableMap<Long, Index> children, Region stdOut, Region stdErr) {
-            this.children = children;
-            this.stdOut = stdOut;
-            this.stdErr = stdErr;
+        void append(byte[] message) {
+            if (length + message.length > bytes.length) {
+                byte[] newBytes = new byte[Math.max(bytes.length * 2, length + message.length)];
+                System.arraycopy(bytes, 0, newBytes, 0, length);
+                bytes = newBytes;
+            }
+            System.arraycopy(message, 0, bytes, length, message.length);
+            length += message.length;
         }
     }
 
-    private static class IndexBuilder {
-        final Region stdOut = new Region();
-        final Region stdErr = new Region();
+    private static class TestKey {
+        final long classId;
+        final long testId;
 
-        private final ImmutableMap.Builder<Long, Index> children = ImmutableMap.builder();
+        TestKey(long classId, long testId) {
+            this.classId = classId;
+            this.testId = testId;
+        }
 
-        void add(long key, Index index) {
-            if (stdOut.start < 0) {
-                stdOut.start = index.stdOut.start;
-            }
-            if (stdErr.start < 0) {
-                stdErr.start = index.stdErr.start;
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
             }
-            if (index.stdOut.stop > stdOut.stop) {
-                stdOut.stop = index.stdOut.stop;
+            if (o == null || getClass() != o.getClass()) {
+                return false;
             }
-            if (index.stdErr.stop > stdErr.stop) {
-                stdErr.stop = index.stdErr.stop;
+            TestKey testKey = (TestKey) o;
+            return classId == testKey.classId && testId == testKey.testId;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(classId) + Long.hashCode(testId);
+        }
+    }
+
+    private static class Chunk {
+        final long testId;
+        final boolean stdout;
+        final long position;
+        final int length;
+
+        Chunk(long testId, boolean stdout, long position, int length) {
+            this.testId = testId;
+            this.stdout = stdout;
+            this.position = position;
+            this.length = length;
+        }
+    }
+
+    /**
+     * The chunks of a test class or of a single test, in the order they were written.
+     */
+    private static class Chunks {
+        final List<Chunk> chunks = new ArrayList<Chunk>();
+        boolean hasStdOut;
+        boolean hasStdErr;
+
+        void add(Chunk chunk) {
+            chunks.add(chunk);
+            if (chunk.stdout) {
+                hasStdOut = true;
+            } else {
+                hasStdErr = true;
             }
+        }
 
-            children.put(key, index);
+        boolean hasOutput(TestOutputEvent.Destination destination) {
+            return destination == TestOutputEvent.Destination.StdOut ? hasStdOut : hasStdErr;
         }
+    }
+
+    private static class ClassChunks extends Chunks {
+        final Map<Long, Chunks> tests = new HashMap<Long, Chunks>();
+
+        @Override
+        void add(Chunk chunk) {
+            super.add(chunk);
+            Chunks testChunks = tests.get(chunk.testId);
+            if (testChunks == null) {
+                testChunks = new Chunks();
+                tests.put(chunk.testId, testChunks);
+            }
+            testChunks.add(chunk);
+        }
+    }
 
-        Index build() {
-            return new Index(children.build(), stdOut, stdErr);
+    /**
+     * The region of the index file that contains the entries of a test class.
+     * The entries of other classes may be interleaved in this region.
+     */
+    private static class IndexRange {
+        final long start;
+        long end;
+        boolean hasStdOut;
+        boolean hasStdErr;
+
+        IndexRange(long start) {
+            this.start = start;
         }
     }
 
     public class Reader implements Closeable {
-        private final Index index;
+        private final Map<Long, IndexRange> index = new HashMap<Long, IndexRange>();
+        private final RandomAccessFile indexData;
         private final RandomAccessFile dataFile;
+        private final ByteBuffer mappedData;
+        private long loadedClassId;
+        private ClassChunks loadedClass;
 
         public Reader() {
             File indexFile = getIndexFile();
@@ -238,41 +376,13 @@ public Reader() {
                     throw new IllegalStateException(String.format("Test outputs data file '%s' exists but the index file '%s' does not", outputsFile, indexFile));
                 }
 
-                Input input;
                 try {
-                    input = new Input(new FileInputStream(indexFile));
-                } catch (FileNotFoundException e) {
-                    throw new UncheckedIOException(e);
-                }
-
-                IndexBuilder rootBuilder = null;
-                try {
-                    int numClasses = input.readInt(true);
-                    rootBuilder = new IndexBuilder();
-
-                    for (int classCounter = 0; classCounter < numClasses; ++classCounter) {
-                        long classId = input.readLong(true);
-                        IndexBuilder classBuilder = new IndexBuilder();
-
-                        int numEntries = input.readInt(true);
-                        for (int entryCounter = 0; entryCounter < numEntries; ++entryCounter) {
-                            long testId = input.readLong(true);
-                            Region stdOut = new Region(input.readLong(), input.readLong());
-                            Region stdErr = new Region(input.readLong(), input.readLong());
-                            classBuilder.add(testId, new Index(stdOut, stdErr));
-                        }
-
-                        rootBuilder.add(classId, classBuilder.build());
-                    }
-                } finally {
-                    input.close();
-                }
-
-                index = rootBuilder.build();
-
-                try {
-                    dataFile = new RandomAccessFile(getOutputsFile(), "r");
-                } catch (FileNotFoundException e) {
+                    indexData = new RandomAccessFile(indexFile, "r");
+                    dataFile = new RandomAccessFile(outputsFile, "r");
+                    // Only read the chunks that have been completely written to the outputs file
+                    readIndex(indexFile, dataFile.length());
+                    mappedData = map(dataFile);
+                } catch (IOException e) {
                     throw new UncheckedIOException(e);
                 }
             } else { // no outputs file
@@ -280,123 +390,173 @@ public Reader() {
                     throw new IllegalStateException(String.format("Test outputs data file '%s' does not exist but the index file '%s' does", outputsFile, indexFile));
                 }
 
-                index = null;
+                indexData = null;
                 dataFile = null;
+                mappedData = null;
             }
         }
 
-        @Override
-        public void close() throws IOException {
-            if (dataFile != null) {
-                dataFile.close();
+        /**
+         * Scans the index file for the region that holds the entries of each class. The entries themselves are only loaded when the output of a class is read.
+         */
+        private void readIndex(File indexFile, long dataLength) throws IOException {
+            KryoBackedDecoder decoder = new KryoBackedDecoder(new FileInputStream(indexFile));
+            try {
+                while (true) {
+                    long entryStart = decoder.getReadPosition();
+                    long classId = decoder.readSmallLong();
+                    decoder.readSmallLong();
+                    boolean stdout = decoder.readBoolean();
+                    long position = decoder.readSmallLong();
+                    int length = decoder.readSmallInt();
+                    if (position + length > dataLength) {
+                        break;
+                    }
+                    IndexRange range = index.get(classId);
+                    if (range == null) {
+                        range = new IndexRange(entryStart);
+                        index.put(classId, range);
+                    }
+                    range.end = decoder.getReadPosition();
+                    if (stdout) {
+                        range.hasStdOut = true;
+                    } else {
+                        range.hasStdErr = true;
+                    }
+                }
+            } catch (EOFException e) {
+                // End of the index, which may still be written to
+            } finally {
+                decoder.close();
             }
         }
 
-        public boolean hasOutput(long classId, TestOutputEvent.Destination destination) {
-            return hasOutput(classId, 0, destination);
+        /**
+         * Loads the chunks of the given class from the index file. The chunks of the most recently read class are kept, as the report reads the output of one class at a time.
+         */
+        @Nullable
+        private ClassChunks loadClass(long classId) {
+            if (loadedClass != null && loadedClassId == classId) {
+                return loadedClass;
+            }
+            IndexRange range = index.get(classId);
+            if (range == null) {
+                return null;
+            }
+            ClassChunks classChunks = new ClassChunks();
+            try {
+                byte[] entries = new byte[(int) (range.end - range.start)];
+                indexData.seek(range.start);
+                indexData.readFully(entries);
+                KryoBackedDecoder decoder = new KryoBackedDecoder(new ByteArrayInputStream(entries));
+                while (decoder.getReadPosition() < entries.length) {
+                    long entryClassId = decoder.readSmallLong();
+                    Chunk chunk = new Chunk(decoder.readSmallLong(), decoder.readBoolean(), decoder.readSmallLong(), decoder.readSmallInt());
+                    if (entryClassId == classId) {
+                        classChunks.add(chunk);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            loadedClassId = classId;
+            loadedClass = classChunks;
+            return classChunks;
         }
 
-        public boolean hasOutput(long classId, long testId, TestOutputEvent.Destination destination) {
-            if (dataFile == null) {
-                return false;
+        /**
+         * Maps the outputs file into memory, unless it is too large or the mapping would prevent the file from being deleted.
+         */
+        @Nullable
+        private ByteBuffer map(RandomAccessFile dataFile) throws IOException {
+            long length = dataFile.length();
+            if (length == 0 || length > Integer.MAX_VALUE || OperatingSystem.current().isWindows()) {
+                return null;
             }
+            return dataFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length);
+        }
 
-            Index index = getIndex(classId, testId);
-            if (index == null) {
+        @Override
+        public void close() throws IOException {
+            CompositeStoppable.stoppable(indexData, dataFile).stop();
+        }
+
+        public boolean hasOutput(long classId, TestOutputEvent.Destination destination) {
+            IndexRange range = index.get(classId);
+            if (range == null) {
                 return false;
-            } else {
-                Region region = destination == TestOutputEvent.Destination.StdOut ? index.stdOut : index.stdErr;
-                return region.start >= 0;
             }
+            return destination == TestOutputEvent.Destination.StdOut ? range.hasStdOut : range.hasStdErr;
+        }
+
+        public boolean hasOutput(long classId, long testId, TestOutputEvent.Destination destination) {
+            Chunks chunks = getChunks(classId, testId);
+            return chunks != null && chunks.hasOutput(destination);
         }
 
         public void writeAllOutput(long classId, TestOutputEvent.Destination destination, java.io.Writer writer) {
-            doRead(classId, 0, true, destination, writer);
+            doRead(loadClass(classId), destination, writer);
         }
 
         public void writeNonTestOutput(long classId, TestOutputEvent.Destination destination, java.io.Writer writer) {
-            doRead(classId, 0, false, destination, writer);
+            ClassChunks classChunks = loadClass(classId);
+            doRead(classChunks == null ? null : classChunks.tests.get(0L), destination, writer);
         }
 
         public void writeTestOutput(long classId, long testId, TestOutputEvent.Destination destination, java.io.Writer writer) {
-            doRead(classId, testId, false, destination, writer);
+            ClassChunks classChunks = loadClass(classId);
+            doRead(classChunks == null ? null : classChunks.tests.get(testId), destination, writer);
         }
 
-        private void doRead(long classId, long testId, boolean allClassOutput, TestOutputEvent.Destination destination, java.io.Writer writer) {
-            if (dataFile == null) {
-                return;
-            }
-
-            Index targetIndex = getIndex(classId, testId);
-            if (targetIndex == null) {
+        private void doRead(@Nullable Chunks chunks, TestOutputEvent.Destination destination, java.io.Writer writer) {
+            if (chunks == null || !chunks.hasOutput(destination)) {
                 return;
             }
 
             boolean stdout = destination == TestOutputEvent.Destination.StdOut;
-            Region region = stdout ? targetIndex.stdOut : targetIndex.stdErr;
-
-            if (region.start < 0) {
-                return;
-            }
-
-            boolean ignoreClassLevel = !allClassOutput && testId != 0;
-            boolean ignoreTestLevel = !allClassOutput && testId == 0;
-
             try {
-                dataFile.seek(region.start);
-                long maxPos = region.stop - region.start;
-                KryoBackedDecoder decoder = new KryoBackedDecoder(new RandomAccessFileInputStream(dataFile));
-                while (decoder.getReadPosition() <= maxPos) {
-                    boolean readStdout = decoder.readBoolean();
-                    long readClassId = decoder.readSmallLong();
-                    long readTestId = decoder.readSmallLong();
-                    int readLength = decoder.readSmallInt();
-
-                    boolean isClassLevel = readTestId == 0;
-
-                    if (stdout != readStdout || classId != readClassId) {
-                        decoder.skipBytes(readLength);
+                byte[] buffer = new byte[CHUNK_SIZE];
+                for (Chunk chunk : chunks.chunks) {
+                    if (chunk.stdout != stdout) {
                         continue;
                     }
-
-                    if (ignoreClassLevel && isClassLevel) {
-                        decoder.skipBytes(readLength);
-                        continue;
-                    }
-
-                    if (ignoreTestLevel && !isClassLevel) {
-                        decoder.skipBytes(readLength);
-                        continue;
+                    if (buffer.length < chunk.length) {
+                        buffer = new byte[chunk.length];
                     }
+                    read(chunk, buffer);
+                    writer.write(new String(buffer, 0, chunk.length, StandardCharsets.UTF_8));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
 
-                    if (testId == 0 || testId == readTestId) {
-                        byte[] stringBytes = new byte[readLength];
-                        decoder.readBytes(stringBytes);
-                        String message;
-                        try {
-                            message = new String(stringBytes, messageStorageCharset.name());
-                        } catch (UnsupportedEncodingException e) {
-                            // shouldn't happen
-                            throw UncheckedException.throwAsUncheckedException(e);
-                        }
-
-                        writer.write(message);
-                    } else {
-                        decoder.skipBytes(readLength);
+        private void read(Chunk chunk, byte[] buffer) throws IOException {
+            if (mappedData != null) {
+                ByteBuffer data = mappedData.duplicate();
+                data.position((int) chunk.position);
+                data.get(buffer, 0, chunk.length);
+            } else {
+                ByteBuffer data = ByteBuffer.wrap(buffer, 0, chunk.length);
+                FileChannel channel = dataFile.getChannel();
+                long position = chunk.position;
+                while (data.hasRemaining()) {
+                    int read = channel.read(data, position);
+                    if (read < 0) {
+                        throw new EOFException();
                     }
+                    position += read;
                 }
-            } catch (IOException e1) {
-                throw new UncheckedIOException(e1);
             }
         }
 
         @Nullable
-        private Index getIndex(long classId, long testId) {
-            Index targetIndex = index.children.get(classId);
-            if (targetIndex != null && testId != 0) {
-                targetIndex = targetIndex.children.get(testId);
+        private Chunks getChunks(long classId, long testId) {
+            ClassChunks classChunks = loadClass(classId);
+            if (classChunks == null || testId == 0) {
+                return classChunks;
             }
-            return targetIndex;
+            return classChunks.tests.get(testId);
         }
     }
 
@@ -70,6 +70,7 @@ public void afterSuite(TestDescriptor suite, TestResult result) {
             methodResult.completed(result);
             classResult.add(methodResult);
             results.put(suite.getName(), classResult);
+            outputWriter.testCompleted(classResult.getId(), methodResult.getId());
         } else if (result.getResultType() == TestResult.ResultType.SKIPPED) {
             String parentClassName = findEnclosingClassName(suite.getParent());
             String classDisplayName = ((TestDescriptorInternal) suite).getClassDisplayName();
@@ -86,6 +87,11 @@ public void afterSuite(TestDescriptor suite, TestResult result) {
                 classResult.add(methodResult);
             }
         }
+        String className = suite.getClassName();
+        TestClassResult completedClass = className == null ? null : results.get(className);
+        if (completedClass != null) {
+            outputWriter.classCompleted(completedClass.getId());
+        }
     }
 
     @Override
@@ -112,6 +118,7 @@ public void afterTest(TestDescriptor testDescriptor, TestResult result) {
             classResult.setStartTime(result.getStartTime());
         }
         classResult.add(methodResult);
+        outputWriter.testCompleted(classResult.getId(), methodResult.getId());
     }
 
     private String failureMessage(Throwable throwable) {
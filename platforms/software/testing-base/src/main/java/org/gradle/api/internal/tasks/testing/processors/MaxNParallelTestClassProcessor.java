@@ -26,19 +26,27 @@
 import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.dispatch.DispatchException;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Manages a set of parallel TestClassProcessors. Uses a simple round-robin algorithm to assign test classes to
  * processors.
+ *
+ * <p>When the durations of the test classes are known, each test class is instead assigned to the processor with the least
+ * estimated work assigned so far. Combined with passing the test classes longest first, this keeps the processors busy for
+ * about the same time.</p>
  */
 public class MaxNParallelTestClassProcessor implements TestClassProcessor {
     private final int maxProcessors;
     private final Factory<TestClassProcessor> factory;
     private final ActorFactory actorFactory;
+    @Nullable
+    private final TestClassDurations durations;
     private TestResultProcessor resultProcessor;
     private int pos;
+    private final List<Long> assignedDurations = new ArrayList<Long>();
     private List<TestClassProcessor> processors = new ArrayList<TestClassProcessor>();
     private List<TestClassProcessor> rawProcessors = new ArrayList<TestClassProcessor>();
     private List<Actor> actors = new ArrayList<Actor>();
@@ -46,9 +54,14 @@ public class MaxNParallelTestClassProcessor implements TestClassProcessor {
     private volatile boolean stoppedNow;
 
     public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory) {
+        this(maxProcessors, factory, actorFactory, null);
+    }
+
+    public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, @Nullable TestClassDurations durations) {
         this.maxProcessors = maxProcessors;
         this.factory = factory;
         this.actorFactory = actorFactory;
+        this.durations = durations;
     }
 
     @Override
@@ -72,7 +85,13 @@ public void processTestClass(TestClassRunInfo testClass) {
             processor = actor.getProxy(TestClassProcessor.class);
             actors.add(actor);
             processors.add(processor);
+            assignedDurations.add(0L);
             processor.startProcessing(resultProcessor);
+            assignDuration(processors.size() - 1, testClass);
+        } else if (durations != null) {
+            int leastBusy = leastBusyProcessor();
+            processor = processors.get(leastBusy);
+            assignDuration(leastBusy, testClass);
         } else {
             processor = processors.get(pos);
             pos = (pos + 1) % processors.size();
@@ -80,6 +99,22 @@ public void processTestClass(TestClassRunInfo testClass) {
         processor.processTestClass(testClass);
     }
 
+    private void assignDuration(int processorIndex, TestClassRunInfo testClass) {
+        if (durations != null) {
+            assignedDurations.set(processorIndex, assignedDurations.get(processorIndex) + durations.estimate(testClass.getTestClassName()));
+        }
+    }
+
+    private int leastBusyProcessor() {
+        int leastBusy = 0;
+        for (int i = 1; i < assignedDurations.size(); i++) {
+            if (assignedDurations.get(i) < assignedDurations.get(leastBusy)) {
+                leastBusy = i;
+            }
+        }
+        return leastBusy;
+    }
+
     @Override
     public void stop() {
         try {
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Map;
+
+/**
+ * The durations of test classes in a previous run of a test task.
+ *
+ * <p>Classes without a previous duration are estimated to take the average duration of the known classes.</p>
+ */
+public class TestClassDurations {
+    private final Map<String, Long> durations;
+    private final long defaultDuration;
+
+    public TestClassDurations(Map<String, Long> durations) {
+        this.durations = ImmutableMap.copyOf(durations);
+        long total = 0;
+        for (Long duration : durations.values()) {
+            total += duration;
+        }
+        this.defaultDuration = durations.isEmpty() ? 1 : Math.max(1, total / durations.size());
+    }
+
+    /**
+     * Returns the estimated duration of the given test class in milliseconds, which is at least 1.
+     */
+    public long estimate(String testClassName) {
+        Long duration = durations.get(testClassName);
+        return duration == null ? defaultDuration : Math.max(1, duration);
+    }
+}
@@ -65,6 +65,7 @@
 import org.gradle.api.tasks.testing.logging.TestLoggingContainer;
 import org.gradle.internal.Cast;
 import org.gradle.internal.Describables;
+import org.gradle.internal.buildoption.InternalOptions;
 import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.deprecation.DeprecationLogger;
 import org.gradle.internal.dispatch.Dispatch;
@@ -490,7 +491,8 @@ public void execute(DeleteSpec spec) {
         binaryResultsDir.mkdirs();
 
         Map<String, TestClassResult> results = new HashMap<String, TestClassResult>();
-        TestOutputStore testOutputStore = new TestOutputStore(binaryResultsDir);
+        int maxOutputBytesPerTest = getServices().get(InternalOptions.class).getOption(TestOutputStore.MAX_OUTPUT_BYTES_PER_TEST).get();
+        TestOutputStore testOutputStore = new TestOutputStore(binaryResultsDir, maxOutputBytesPerTest < 0 ? TestOutputStore.UNLIMITED_OUTPUT : maxOutputBytesPerTest);
 
         TestOutputStore.Writer outputWriter = testOutputStore.writer();
         TestReportDataCollector testReportDataCollector = new TestReportDataCollector(results, outputWriter);
@@ -98,6 +98,136 @@ class TestOutputStoreSpec extends WorkspaceTest {
         reader.close()
     }
 
+    def "output of many interleaved test classes is kept in order"() {
+        when:
+        def writer = output.writer()
+        3.times { round ->
+            (1..100).each { classId ->
+                writer.onOutput(classId, output(StdOut, "[class-$classId-$round]"))
+                writer.onOutput(classId, 1, output(StdOut, "[test-$classId-$round]"))
+            }
+        }
+        writer.close()
+        def reader = output.reader()
+
+        then:
+        (1..100).every { classId ->
+            collectAllOutput(reader, classId, StdOut) == (0..2).collect { "[class-$classId-$it][test-$classId-$it]" }.join("")
+        }
+        collectOutput(reader, 50, 1, StdOut) == "[test-50-0][test-50-1][test-50-2]"
+        collectOutput(reader, 50, StdOut) == "[class-50-0][class-50-1][class-50-2]"
+
+        cleanup:
+        reader.close()
+    }
+
+    def "reads large output"() {
+        def large = "x" * 100_000
+
+        when:
+        def writer = output.writer()
+        writer.onOutput(1, 1, output(StdOut, "[before]"))
+        writer.onOutput(1, 1, output(StdOut, large))
+        writer.onOutput(1, 1, output(StdOut, "[after]"))
+        writer.close()
+        def reader = output.reader()
+
+        then:
+        collectOutput(reader, 1, 1, StdOut) == "[before]" + large + "[after]"
+
+        cleanup:
+        reader.close()
+    }
+
+    def "can read output of completed tests before the writer is closed"() {
+        def writer = output.writer()
+
+        when:
+        writer.onOutput(1, 1, output(StdOut, "[out-1]"))
+        writer.onOutput(2, 1, output(StdErr, "[out-2]"))
+        writer.onOutput(3, output(StdOut, "[out-3]"))
+        writer.testCompleted(1, 1)
+        writer.classCompleted(2)
+        writer.onOutput(1, 2, output(StdOut, "[out-4]"))
+        def reader = output.reader()
+
+        then:
+        collectOutput(reader, 1, 1, StdOut) == "[out-1]"
+        collectOutput(reader, 1, 2, StdOut) == ""
+        collectOutput(reader, 2, 1, StdErr) == "[out-2]"
+        !reader.hasOutput(3, StdOut)
+
+        cleanup:
+        reader.close()
+        writer.close()
+    }
+
+    def "truncates output of tests exceeding the maximum retained output"() {
+        def store = new TestOutputStore(testDirectory, 10)
+
+        when:
+        def writer = store.writer()
+        writer.onOutput(1, 1, output(StdOut, "12345"))
+        writer.onOutput(1, 1, output(StdErr, "67890"))
+        writer.onOutput(1, 1, output(StdOut, "abc"))
+        writer.onOutput(1, 1, output(StdOut, "def"))
+        writer.onOutput(1, 2, output(StdOut, "other"))
+        writer.close()
+        def reader = store.reader()
+
+        then:
+        collectOutput(reader, 1, 1, StdOut) == "12345" + String.format("%n[Output truncated after 10 bytes]%n")
+        collectOutput(reader, 1, 1, StdErr) == "67890"
+        collectOutput(reader, 1, 2, StdOut) == "other"
+
+        cleanup:
+        reader.close()
+    }
+
+    def "counts the retained output of a test again after it has completed"() {
+        def store = new TestOutputStore(testDirectory, 5)
+
+        when:
+        def writer = store.writer()
+        writer.onOutput(1, 1, output(StdOut, "12345"))
+        writer.testCompleted(1, 1)
+        // A test that is executed again uses the same ids
+        writer.onOutput(1, 1, output(StdOut, "abcde"))
+        writer.close()
+        def reader = store.reader()
+
+        then:
+        collectOutput(reader, 1, 1, StdOut) == "12345abcde"
+
+        cleanup:
+        reader.close()
+    }
+
+    def "reads output of classes in any order"() {
+        when:
+        def writer = output.writer()
+        writer.onOutput(1, 1, output(StdOut, "[out-1]"))
+        writer.onOutput(2, 1, output(StdOut, "[out-2]"))
+        writer.onOutput(3, 1, output(StdErr, "[out-3]"))
+        writer.onOutput(1, 2, output(StdOut, "[out-4]"))
+        writer.onOutput(2, output(StdOut, "[out-5]"))
+        writer.close()
+        def reader = output.reader()
+
+        then:
+        collectOutput(reader, 2, StdOut) == "[out-5]"
+        collectOutput(reader, 1, 2, StdOut) == "[out-4]"
+        collectOutput(reader, 3, 1, StdErr) == "[out-3]"
+        collectAllOutput(reader, 1, StdOut) == "[out-1][out-4]"
+        collectAllOutput(reader, 2, StdOut) == "[out-2][out-5]"
+        collectOutput(reader, 2, 1, StdOut) == "[out-2]"
+        reader.hasOutput(3, StdErr)
+        !reader.hasOutput(3, StdOut)
+
+        cleanup:
+        reader.close()
+    }
+
     def DefaultTestOutputEvent output(TestOutputEvent.Destination destination, String msg) {
         new DefaultTestOutputEvent(destination, msg)
     }
@@ -114,6 +114,31 @@ class TestReportDataCollectorSpec extends Specification {
 
         then:
         1 * writer.onOutput(_, _, new DefaultTestOutputEvent(StdOut, "suite-out"))
+        1 * writer.testCompleted(_, _)
+        0 * writer._
+    }
+
+    def "completes output when test and class complete"() {
+        def testClass = new DefaultTestClassDescriptor("1.1", "FooTest")
+        def test = new DefaultTestDescriptor("1.1.1", "FooTest", "testMethod")
+        def result = new DefaultTestResult(SUCCESS, 0, 0, 1, 0, 1, [])
+
+        when:
+        collector.beforeSuite(testClass)
+        collector.beforeTest(test)
+        collector.onOutput(test, new DefaultTestOutputEvent(StdOut, "out"))
+        collector.afterTest(test, result)
+
+        then:
+        1 * writer.onOutput(2, 1, new DefaultTestOutputEvent(StdOut, "out"))
+        1 * writer.testCompleted(2, 1)
+        0 * writer._
+
+        when:
+        collector.afterSuite(testClass, result)
+
+        then:
+        1 * writer.classCompleted(2)
         0 * writer._
     }
 
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.tasks.testing.processors
 
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
 import org.gradle.api.internal.tasks.testing.TestClassProcessor
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo
 import org.gradle.api.internal.tasks.testing.TestResultProcessor
@@ -168,6 +169,32 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         1 * asyncProcessor2.processTestClass(test)
     }
 
+    def assignsTestClassesToLeastBusyProcessorWhenDurationsAreKnown() {
+        def durations = new TestClassDurations([Class1: 300L, Class2: 100L, Class3: 100L, Class4: 100L])
+        def balancingProcessor = new MaxNParallelTestClassProcessor(2, factory, actorFactory, durations)
+        TestClassProcessor asyncProcessor1 = Mock()
+        TestClassProcessor asyncProcessor2 = Mock()
+        Actor actor1 = Mock()
+        Actor actor2 = Mock()
+
+        1 * actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        1 * resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        balancingProcessor.startProcessing(resultProcessor)
+
+        when:
+        ['Class1', 'Class2', 'Class3', 'Class4'].each { balancingProcessor.processTestClass(new DefaultTestClassRunInfo(it)) }
+
+        then:
+        2 * factory.create() >>> [Mock(TestClassProcessor), Mock(TestClassProcessor)]
+        2 * actorFactory.createActor(_) >>> [actor1, actor2]
+        1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+        1 * actor2.getProxy(TestClassProcessor) >> asyncProcessor2
+        1 * asyncProcessor1.processTestClass(new DefaultTestClassRunInfo('Class1'))
+        1 * asyncProcessor2.processTestClass(new DefaultTestClassRunInfo('Class2'))
+        1 * asyncProcessor2.processTestClass(new DefaultTestClassRunInfo('Class3'))
+        1 * asyncProcessor2.processTestClass(new DefaultTestClassRunInfo('Class4'))
+    }
+
     def "stopNow propagates to factory created processors"() {
         TestClassRunInfo test = Mock()
         TestClassProcessor processor1 = Mock()
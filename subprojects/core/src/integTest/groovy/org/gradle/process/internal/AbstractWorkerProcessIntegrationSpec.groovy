@@ -33,6 +33,7 @@ import org.gradle.cache.internal.scopes.DefaultCacheScopeMapping
 import org.gradle.cache.internal.scopes.DefaultGlobalScopedCacheBuilderFactory
 import org.gradle.cache.scopes.GlobalScopedCacheBuilderFactory
 import org.gradle.initialization.layout.GlobalCacheDir
+import org.gradle.internal.file.FileAccessTimeJournal
 import org.gradle.internal.id.LongIdGenerator
 import org.gradle.internal.instrumentation.agent.AgentStatus
 import org.gradle.internal.jvm.inspection.CachingJvmMetadataDetector
@@ -43,6 +44,7 @@ import org.gradle.internal.logging.TestOutputEventListener
 import org.gradle.internal.logging.events.OutputEventListener
 import org.gradle.internal.logging.services.DefaultLoggingManagerFactory
 import org.gradle.internal.logging.services.LoggingServiceRegistry
+import org.gradle.internal.operations.BuildOperationRunner
 import org.gradle.internal.operations.CurrentBuildOperationRef
 import org.gradle.internal.operations.DefaultBuildOperationRef
 import org.gradle.internal.operations.OperationIdentifier
@@ -52,6 +54,7 @@ import org.gradle.internal.service.ServiceRegistryBuilder
 import org.gradle.internal.service.scopes.GlobalScopeServices
 import org.gradle.process.internal.health.memory.MemoryManager
 import org.gradle.process.internal.worker.DefaultWorkerProcessFactory
+import org.gradle.process.internal.worker.WorkerClassDataSharing
 import org.gradle.process.internal.worker.child.WorkerProcessClassPathProvider
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.testfixtures.internal.NativeServicesTestFixture
@@ -88,6 +91,7 @@ abstract class AbstractWorkerProcessIntegrationSpec extends Specification {
         execHandleFactory as ExecHandleFactory,
         tmpDirTemporaryFileProvider
     )
+    final WorkerClassDataSharing classDataSharing = new WorkerClassDataSharing(null, Stub(FileAccessTimeJournal), classPathRegistry, Stub(BuildOperationRunner))
     DefaultWorkerProcessFactory workerFactory = new DefaultWorkerProcessFactory(
         loggingManager(LogLevel.DEBUG),
         server,
@@ -98,7 +102,8 @@ abstract class AbstractWorkerProcessIntegrationSpec extends Specification {
         execHandleFactory,
         new DefaultJvmVersionDetector(new CachingJvmMetadataDetector(defaultJvmMetadataDetector)),
         outputEventListener,
-        Stub(MemoryManager)
+        Stub(MemoryManager),
+        classDataSharing
     )
 
     def setup() {
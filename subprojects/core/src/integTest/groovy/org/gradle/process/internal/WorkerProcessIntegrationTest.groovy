@@ -99,7 +99,8 @@ class WorkerProcessIntegrationTest extends AbstractWorkerProcessIntegrationSpec
             execHandleFactory,
             new DefaultJvmVersionDetector(new CachingJvmMetadataDetector(defaultJvmMetadataDetector)),
             outputEventListener,
-            Stub(MemoryManager)
+            Stub(MemoryManager),
+            classDataSharing
         )
         and:
         execute(worker(loggingProcess))
@@ -118,7 +119,8 @@ class WorkerProcessIntegrationTest extends AbstractWorkerProcessIntegrationSpec
             execHandleFactory,
             new DefaultJvmVersionDetector(new CachingJvmMetadataDetector(defaultJvmMetadataDetector)),
             outputEventListener,
-            Stub(MemoryManager)
+            Stub(MemoryManager),
+            classDataSharing
         )
         and:
         execute(worker(loggingProcess))
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.internal.execution.history.impl.FileSystemSnapshotSerializer;
+import org.gradle.internal.file.FileMetadataAccessor;
+import org.gradle.internal.file.FileSystemDefaultExcludesProvider;
+import org.gradle.internal.serialize.ListSerializer;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.internal.service.scopes.Scope;
+import org.gradle.internal.service.scopes.ServiceScope;
+import org.gradle.internal.snapshot.CompositeFileSystemSnapshot;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.FileSystemSnapshot;
+import org.gradle.internal.snapshot.VfsRelativePath;
+import org.gradle.internal.snapshot.impl.FileSystemSnapshotValidator;
+import org.gradle.internal.time.Clock;
+import org.gradle.internal.vfs.VirtualFileSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.gradle.internal.serialize.BaseSerializerFactory.STRING_SERIALIZER;
+
+/**
+ * Stores the contents of the virtual file system on disk, so a new daemon can start with the snapshots of a previous one.
+ *
+ * <p>Only snapshots that still match the file system are restored, see {@link FileSystemSnapshotValidator}.
+ * The image is ignored when it has been written with different default excludes than the current ones.</p>
+ */
+@ServiceScope(Scope.BuildSession.class)
+public class VirtualFileSystemImage {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualFileSystemImage.class);
+    private static final int FORMAT_VERSION = 1;
+    /**
+     * Files modified this long before the image has been written may have been modified again without changing their modification time.
+     */
+    private static final long MODIFICATION_TIME_RESOLUTION_MILLIS = 2000;
+
+    private final File imageFile;
+    private final FileMetadataAccessor stat;
+    private final FileSystemDefaultExcludesProvider defaultExcludesProvider;
+    private final Clock clock;
+    private final Serializer<FileSystemSnapshot> snapshotSerializer;
+    private final Serializer<List<String>> excludesSerializer = new ListSerializer<>(STRING_SERIALIZER);
+
+    public VirtualFileSystemImage(File imageFile, FileMetadataAccessor stat, StringInterner stringInterner, FileSystemDefaultExcludesProvider defaultExcludesProvider, Clock clock) {
+        this.imageFile = imageFile;
+        this.stat = stat;
+        this.defaultExcludesProvider = defaultExcludesProvider;
+        this.clock = clock;
+        this.snapshotSerializer = new FileSystemSnapshotSerializer(stringInterner);
+    }
+
+    /**
+     * Stores the unchanged snapshots from the image in the virtual file system.
+     *
+     * Does nothing when the virtual file system already contains snapshots.
+     *
+     * @return the number of restored root snapshots.
+     */
+    public int restoreInto(VirtualFileSystem virtualFileSystem) {
+        if (!imageFile.isFile() || virtualFileSystem.findRootSnapshotsUnder(VfsRelativePath.ROOT).findAny().isPresent()) {
+            return 0;
+        }
+        List<String> defaultExcludes = defaultExcludesProvider.getCurrentDefaultExcludes();
+        FileSystemSnapshot snapshot;
+        long writeTime;
+        try (KryoBackedDecoder decoder = new KryoBackedDecoder(Files.newInputStream(imageFile.toPath()))) {
+            if (decoder.readSmallInt() != FORMAT_VERSION) {
+                LOGGER.info("Ignoring virtual file system image {} with a different format", imageFile);
+                return 0;
+            }
+            writeTime = decoder.readLong();
+            if (!excludesSerializer.read(decoder).equals(defaultExcludes)) {
+                LOGGER.info("Ignoring virtual file system image {} written with different default excludes", imageFile);
+                return 0;
+            }
+            snapshot = snapshotSerializer.read(decoder);
+        } catch (Exception e) {
+            LOGGER.info("Could not read virtual file system image {}", imageFile, e);
+            return 0;
+        }
+
+        FileSystemSnapshotValidator validator = new FileSystemSnapshotValidator(stat, defaultExcludes, writeTime - MODIFICATION_TIME_RESOLUTION_MILLIS);
+        AtomicInteger restoredSnapshots = new AtomicInteger();
+        snapshot.roots().forEach(root -> validator.collectUnchanged(root, unchangedSnapshot -> {
+            virtualFileSystem.store(unchangedSnapshot.getAbsolutePath(), () -> unchangedSnapshot);
+            restoredSnapshots.incrementAndGet();
+        }));
+        LOGGER.info("Restored {} snapshots from virtual file system image {}", restoredSnapshots.get(), imageFile);
+        return restoredSnapshots.get();
+    }
+
+    /**
+     * Replaces the image with the current contents of the virtual file system.
+     */
+    public void writeFrom(VirtualFileSystem virtualFileSystem) {
+        // Take the time before collecting the snapshots, so modifications made while writing the image are detected on restore
+        long writeTime = clock.getCurrentTime();
+        List<FileSystemLocationSnapshot> roots = virtualFileSystem.findRootSnapshotsUnder(VfsRelativePath.ROOT)
+            .collect(Collectors.toList());
+        File parentDir = imageFile.getParentFile();
+        File temporaryFile = null;
+        try {
+            Files.createDirectories(parentDir.toPath());
+            temporaryFile = File.createTempFile(imageFile.getName(), ".tmp", parentDir);
+            try (KryoBackedEncoder encoder = new KryoBackedEncoder(Files.newOutputStream(temporaryFile.toPath()))) {
+                encoder.writeSmallInt(FORMAT_VERSION);
+                encoder.writeLong(writeTime);
+                excludesSerializer.write(encoder, ImmutableList.copyOf(defaultExcludesProvider.getCurrentDefaultExcludes()));
+                snapshotSerializer.write(encoder, CompositeFileSystemSnapshot.of(roots));
+            }
+            // Other daemons sharing the Gradle user home may replace the image concurrently
+            Files.move(temporaryFile.toPath(), imageFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LOGGER.info("Wrote {} snapshots to virtual file system image {}", roots.size(), imageFile);
+        } catch (Exception e) {
+            LOGGER.info("Could not write virtual file system image {}", imageFile, e);
+            if (temporaryFile != null && temporaryFile.exists() && !temporaryFile.delete()) {
+                LOGGER.debug("Could not delete temporary file {}", temporaryFile);
+            }
+        }
+    }
+}
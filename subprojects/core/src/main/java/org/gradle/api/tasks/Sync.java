@@ -22,6 +22,7 @@
 import org.gradle.api.internal.file.copy.CopySpecInternal;
 import org.gradle.api.internal.file.copy.DestinationRootCopySpec;
 import org.gradle.api.internal.file.copy.FileCopyAction;
+import org.gradle.api.internal.file.copy.ParallelCopyExecutor;
 import org.gradle.api.internal.file.copy.SyncCopyActionDecorator;
 import org.gradle.api.tasks.util.PatternFilterable;
 import org.gradle.api.tasks.util.PatternSet;
@@ -77,12 +78,14 @@ protected CopyAction createCopyAction() {
         if (destinationDir == null) {
             throw new InvalidUserDataException("No copy destination directory has been specified, use 'into' to specify a target directory.");
         }
+        ParallelCopyExecutor parallelCopyExecutor = getServices().get(ParallelCopyExecutor.class);
         return new SyncCopyActionDecorator(
             destinationDir,
-            new FileCopyAction(getFileLookup().getFileResolver(destinationDir)),
+            new FileCopyAction(getFileLookup().getFileResolver(destinationDir), parallelCopyExecutor),
             preserveInDestination,
             getDeleter(),
-            getDirectoryFileTreeFactory()
+            getDirectoryFileTreeFactory(),
+            parallelCopyExecutor
         );
     }
 
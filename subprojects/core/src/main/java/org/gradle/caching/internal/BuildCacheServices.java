@@ -16,6 +16,7 @@
 
 package org.gradle.caching.internal;
 
+import com.google.common.collect.ImmutableMap;
 import org.gradle.api.internal.StartParameterInternal;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.file.temp.TemporaryFileProvider;
@@ -25,19 +26,31 @@
 import org.gradle.caching.configuration.internal.DefaultBuildCacheServiceRegistration;
 import org.gradle.caching.internal.controller.impl.LifecycleAwareBuildCacheController;
 import org.gradle.caching.internal.controller.impl.LifecycleAwareBuildCacheControllerFactory;
+import org.gradle.caching.internal.controller.service.AsyncRemoteStoreQueue;
 import org.gradle.caching.internal.origin.OriginMetadataFactory;
 import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
+import org.gradle.caching.internal.packaging.impl.BuildCacheEntryFormat;
 import org.gradle.caching.internal.packaging.impl.DefaultTarPackerFileSystemSupport;
 import org.gradle.caching.internal.packaging.impl.FilePermissionAccess;
+import org.gradle.caching.internal.packaging.impl.FormatDetectingBuildCacheEntryPacker;
 import org.gradle.caching.internal.packaging.impl.GZipBuildCacheEntryPacker;
+import org.gradle.caching.internal.packaging.impl.Lz4BuildCacheEntryPacker;
+import org.gradle.caching.internal.packaging.impl.ParallelGZipBuildCacheEntryPacker;
 import org.gradle.caching.internal.packaging.impl.TarBuildCacheEntryPacker;
 import org.gradle.caching.internal.packaging.impl.TarPackerFileSystemSupport;
 import org.gradle.caching.internal.services.BuildCacheControllerFactory;
 import org.gradle.caching.internal.services.DefaultBuildCacheControllerFactory;
+import org.gradle.caching.internal.services.RemoteBuildCacheBackgroundOperations;
 import org.gradle.caching.local.DirectoryBuildCache;
 import org.gradle.caching.local.internal.DirectoryBuildCacheServiceFactory;
 import org.gradle.internal.build.BuildState;
 import org.gradle.internal.build.RootBuildState;
+import org.gradle.internal.buildoption.IntegerInternalOption;
+import org.gradle.internal.buildoption.InternalFlag;
+import org.gradle.internal.buildoption.InternalOptions;
+import org.gradle.internal.buildoption.StringInternalOption;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
 import org.gradle.internal.file.BufferProvider;
 import org.gradle.internal.file.Deleter;
 import org.gradle.internal.file.FileException;
@@ -50,11 +63,13 @@
 import org.gradle.internal.operations.BuildOperationRunner;
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.internal.scopeids.id.BuildInvocationScopeId;
+import org.gradle.internal.service.PrivateService;
 import org.gradle.internal.service.Provides;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.ServiceRegistrationProvider;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.internal.service.scopes.AbstractGradleModuleServices;
+import org.gradle.internal.work.WorkerLeaseService;
 import org.gradle.util.GradleVersion;
 
 import java.io.File;
@@ -64,6 +79,38 @@
  * Build scoped services for build cache usage.
  */
 public final class BuildCacheServices extends AbstractGradleModuleServices {
+    /**
+     * Compresses and unpacks build cache entries on multiple threads.
+     */
+    public static final InternalFlag PARALLEL_PACKING = new InternalFlag("org.gradle.internal.build-cache.parallel-packing");
+    /**
+     * The format new build cache entries are stored in, see {@link BuildCacheEntryFormat}.
+     * Entries in any supported format can be loaded regardless of this setting.
+     */
+    public static final StringInternalOption ENTRY_FORMAT = new StringInternalOption("org.gradle.internal.build-cache.format", "gzip");
+    /**
+     * Stores entries to the remote build cache in the background, without blocking the work that produced them.
+     */
+    public static final InternalFlag ASYNC_REMOTE_STORE = new InternalFlag("org.gradle.internal.build-cache.remote-store.async");
+    /**
+     * The number of concurrent background stores to the remote build cache.
+     */
+    public static final IntegerInternalOption ASYNC_REMOTE_STORE_CONCURRENCY = new IntegerInternalOption("org.gradle.internal.build-cache.remote-store.concurrency", 4);
+    /**
+     * The number of background stores that can be pending before producing further entries blocks.
+     */
+    public static final IntegerInternalOption ASYNC_REMOTE_STORE_QUEUE_CAPACITY = new IntegerInternalOption("org.gradle.internal.build-cache.remote-store.queue-capacity", 32);
+    /**
+     * Starts downloading entries from the remote build cache as soon as their cache key is known,
+     * and lets other work run while waiting for a download.
+     */
+    public static final InternalFlag REMOTE_PREFETCH = new InternalFlag("org.gradle.internal.build-cache.remote-prefetch");
+    /**
+     * The number of concurrent downloads when prefetching entries from the remote build cache.
+     */
+    public static final IntegerInternalOption REMOTE_PREFETCH_CONCURRENCY = new IntegerInternalOption("org.gradle.internal.build-cache.remote-prefetch.concurrency", 8);
+    private static final int PACKING_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
     @Override
     public void registerGlobalServices(ServiceRegistration registration) {
         registration.addProvider(new ServiceRegistrationProvider() {
@@ -85,6 +132,25 @@ LifecycleAwareBuildCacheControllerFactory createRootBuildCacheControllerRef() {
                 return new LifecycleAwareBuildCacheControllerFactory();
             }
 
+            @Provides
+            RemoteBuildCacheBackgroundOperations createRemoteBuildCacheBackgroundOperations(
+                ExecutorFactory executorFactory,
+                InternalOptions internalOptions,
+                WorkerLeaseService workerLeaseService
+            ) {
+                AsyncRemoteStoreQueue storeQueue = null;
+                if (internalOptions.getOption(ASYNC_REMOTE_STORE).get()) {
+                    int concurrency = internalOptions.getOption(ASYNC_REMOTE_STORE_CONCURRENCY).get();
+                    int capacity = internalOptions.getOption(ASYNC_REMOTE_STORE_QUEUE_CAPACITY).get();
+                    storeQueue = new AsyncRemoteStoreQueue(executorFactory.create("Remote build cache store", concurrency), capacity);
+                }
+                ManagedExecutor prefetchExecutor = null;
+                if (internalOptions.getOption(REMOTE_PREFETCH).get()) {
+                    prefetchExecutor = executorFactory.create("Remote build cache prefetch", internalOptions.getOption(REMOTE_PREFETCH_CONCURRENCY).get());
+                }
+                return new RemoteBuildCacheBackgroundOperations(storeQueue, prefetchExecutor, workerLeaseService);
+            }
+
             @Provides
             OriginMetadataFactory createOriginMetadataFactory(
                 BuildInvocationScopeId buildInvocationScopeId
@@ -119,16 +185,37 @@ TarPackerFileSystemSupport createPackerFileSystemSupport(Deleter deleter) {
                 return new DefaultTarPackerFileSystemSupport(deleter);
             }
 
+            @Provides
+            @PrivateService
+            ManagedExecutor createPackingExecutor(ExecutorFactory executorFactory) {
+                return executorFactory.create("Build cache entry packing", PACKING_PARALLELISM);
+            }
+
             @Provides
             BuildCacheEntryPacker createResultPacker(
                 TarPackerFileSystemSupport fileSystemSupport,
                 FileSystem fileSystem,
                 StreamHasher fileHasher,
                 StringInterner stringInterner,
-                BufferProvider bufferProvider
+                BufferProvider bufferProvider,
+                InternalOptions internalOptions,
+                ManagedExecutor packingExecutor
             ) {
-                return new GZipBuildCacheEntryPacker(
-                    new TarBuildCacheEntryPacker(fileSystemSupport, new FilePermissionsAccessAdapter(fileSystem), fileHasher, stringInterner, bufferProvider));
+                FilePermissionsAccessAdapter filePermissionAccess = new FilePermissionsAccessAdapter(fileSystem);
+                BuildCacheEntryFormat format = BuildCacheEntryFormat.forName(internalOptions.getOption(ENTRY_FORMAT).get());
+                BuildCacheEntryPacker tarPacker;
+                BuildCacheEntryPacker gzipPacker;
+                if (internalOptions.getOption(PARALLEL_PACKING).get()) {
+                    tarPacker = new TarBuildCacheEntryPacker(fileSystemSupport, filePermissionAccess, fileHasher, stringInterner, bufferProvider, packingExecutor);
+                    gzipPacker = new ParallelGZipBuildCacheEntryPacker(tarPacker, packingExecutor, PACKING_PARALLELISM);
+                } else {
+                    tarPacker = new TarBuildCacheEntryPacker(fileSystemSupport, filePermissionAccess, fileHasher, stringInterner, bufferProvider);
+                    gzipPacker = new GZipBuildCacheEntryPacker(tarPacker);
+                }
+                return new FormatDetectingBuildCacheEntryPacker(format, ImmutableMap.of(
+                    BuildCacheEntryFormat.GZIP, gzipPacker,
+                    BuildCacheEntryFormat.LZ4, new Lz4BuildCacheEntryPacker(tarPacker)
+                ));
             }
 
             @Provides
@@ -155,7 +242,8 @@ BuildCacheControllerFactory createBuildCacheControllerFactory(
                 TemporaryFileProvider temporaryFileProvider,
                 BuildCacheEntryPacker packer,
                 OriginMetadataFactory originMetadataFactory,
-                StringInterner stringInterner
+                StringInterner stringInterner,
+                RemoteBuildCacheBackgroundOperations remoteBackgroundOperations
             ) {
                 return new DefaultBuildCacheControllerFactory(
                     startParameter,
@@ -164,7 +252,9 @@ BuildCacheControllerFactory createBuildCacheControllerFactory(
                     originMetadataFactory,
                     stringInterner,
                     temporaryFileProvider,
-                    packer
+                    packer,
+                    remoteBackgroundOperations.getStoreQueue(),
+                    remoteBackgroundOperations.getPrefetchExecutor()
                 );
             }
         });
@@ -20,6 +20,7 @@
 import org.gradle.caching.configuration.internal.BuildCacheConfigurationInternal;
 import org.gradle.caching.internal.CacheableEntity;
 import org.gradle.caching.internal.controller.BuildCacheController;
+import org.gradle.caching.internal.controller.BuildCachePrefetch;
 import org.gradle.caching.internal.controller.NoOpBuildCacheController;
 import org.gradle.caching.internal.controller.service.BuildCacheLoadResult;
 import org.gradle.caching.internal.services.BuildCacheControllerFactory;
@@ -77,6 +78,11 @@ public Optional<BuildCacheLoadResult> load(BuildCacheKey cacheKey, CacheableEnti
             return getDelegate().load(cacheKey, cacheableEntity);
         }
 
+        @Override
+        public BuildCachePrefetch prefetch(BuildCacheKey cacheKey) {
+            return getDelegate().prefetch(cacheKey);
+        }
+
         @Override
         public void store(BuildCacheKey cacheKey, CacheableEntity entity, Map<String, FileSystemSnapshot> snapshots, Duration executionTime) {
             getDelegate().store(cacheKey, entity, snapshots, executionTime);
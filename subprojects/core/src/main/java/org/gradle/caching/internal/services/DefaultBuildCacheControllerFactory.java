@@ -24,7 +24,9 @@
 import org.gradle.caching.configuration.BuildCache;
 import org.gradle.caching.internal.controller.BuildCacheController;
 import org.gradle.caching.internal.controller.DefaultBuildCacheController;
+import org.gradle.caching.internal.controller.service.AsyncRemoteStoreQueue;
 import org.gradle.caching.internal.controller.service.BuildCacheServicesConfiguration;
+import org.gradle.caching.internal.controller.service.RemoteBuildCachePrefetchExecutor;
 import org.gradle.caching.internal.origin.OriginMetadataFactory;
 import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
 import org.gradle.caching.local.DirectoryBuildCache;
@@ -40,6 +42,10 @@ public class DefaultBuildCacheControllerFactory extends AbstractBuildCacheContro
     private final TemporaryFileProvider temporaryFileProvider;
     private final BuildCacheEntryPacker packer;
     private final BuildOperationProgressEventEmitter buildOperationProgressEmitter;
+    @Nullable
+    private final AsyncRemoteStoreQueue remoteStoreQueue;
+    @Nullable
+    private final RemoteBuildCachePrefetchExecutor prefetchExecutor;
 
     public DefaultBuildCacheControllerFactory(
         StartParameter startParameter,
@@ -49,6 +55,20 @@ public DefaultBuildCacheControllerFactory(
         StringInterner stringInterner,
         TemporaryFileProvider temporaryFileProvider,
         BuildCacheEntryPacker packer
+    ) {
+        this(startParameter, buildOperationRunner, buildOperationProgressEmitter, originMetadataFactory, stringInterner, temporaryFileProvider, packer, null, null);
+    }
+
+    public DefaultBuildCacheControllerFactory(
+        StartParameter startParameter,
+        BuildOperationRunner buildOperationRunner,
+        BuildOperationProgressEventEmitter buildOperationProgressEmitter,
+        OriginMetadataFactory originMetadataFactory,
+        StringInterner stringInterner,
+        TemporaryFileProvider temporaryFileProvider,
+        BuildCacheEntryPacker packer,
+        @Nullable AsyncRemoteStoreQueue remoteStoreQueue,
+        @Nullable RemoteBuildCachePrefetchExecutor prefetchExecutor
     ) {
         super(
             startParameter,
@@ -59,6 +79,8 @@ public DefaultBuildCacheControllerFactory(
         this.temporaryFileProvider = temporaryFileProvider;
         this.packer = packer;
         this.buildOperationProgressEmitter = buildOperationProgressEmitter;
+        this.remoteStoreQueue = remoteStoreQueue;
+        this.prefetchExecutor = prefetchExecutor;
     }
 
     @Override
@@ -84,7 +106,9 @@ protected BuildCacheController doCreateController(
             !Boolean.getBoolean(REMOTE_CONTINUE_ON_ERROR_PROPERTY),
             packer,
             originMetadataFactory,
-            stringInterner
+            stringInterner,
+            remoteStoreQueue,
+            prefetchExecutor
         );
     }
 
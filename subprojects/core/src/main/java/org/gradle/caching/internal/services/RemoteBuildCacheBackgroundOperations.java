@@ -0,0 +1,103 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.services;
+
+import org.gradle.caching.internal.controller.service.AsyncRemoteStoreQueue;
+import org.gradle.caching.internal.controller.service.RemoteBuildCachePrefetchExecutor;
+import org.gradle.initialization.RootBuildLifecycleListener;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.operations.CurrentBuildOperationRef;
+import org.gradle.internal.service.scopes.Scope;
+import org.gradle.internal.service.scopes.ServiceScope;
+import org.gradle.internal.work.WorkerLeaseService;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+
+/**
+ * Owns the resources for accessing the remote build cache in the background, shared by all builds in the build tree.
+ *
+ * <p>Background stores are run as children of the root build operation, which encloses all work that can store entries.
+ * All pending stores are finished before the root build completes.</p>
+ *
+ * <p>Work waiting for a prefetched entry releases its worker lease, so that other ready work can start and prefetch its own entries in the meantime.</p>
+ */
+@ServiceScope(Scope.BuildTree.class)
+public class RemoteBuildCacheBackgroundOperations implements RootBuildLifecycleListener, Closeable {
+    @Nullable
+    private final AsyncRemoteStoreQueue storeQueue;
+    @Nullable
+    private final ManagedExecutor prefetchExecutor;
+    @Nullable
+    private final RemoteBuildCachePrefetchExecutor leaseReleasingPrefetchExecutor;
+
+    public RemoteBuildCacheBackgroundOperations(@Nullable AsyncRemoteStoreQueue storeQueue, @Nullable ManagedExecutor prefetchExecutor, WorkerLeaseService workerLeaseService) {
+        this.storeQueue = storeQueue;
+        this.prefetchExecutor = prefetchExecutor;
+        this.leaseReleasingPrefetchExecutor = prefetchExecutor == null ? null : new RemoteBuildCachePrefetchExecutor() {
+            @Override
+            public void execute(Runnable command) {
+                prefetchExecutor.execute(command);
+            }
+
+            @Override
+            public void blocking(Runnable action) {
+                workerLeaseService.blocking(action);
+            }
+        };
+    }
+
+    /**
+     * Returns the queue to run remote stores on, or {@code null} when remote stores should run synchronously.
+     */
+    @Nullable
+    public AsyncRemoteStoreQueue getStoreQueue() {
+        return storeQueue;
+    }
+
+    /**
+     * Returns the executor to prefetch remote entries on, or {@code null} when prefetching is disabled.
+     */
+    @Nullable
+    public RemoteBuildCachePrefetchExecutor getPrefetchExecutor() {
+        return leaseReleasingPrefetchExecutor;
+    }
+
+    @Override
+    public void afterStart() {
+        if (storeQueue != null) {
+            storeQueue.start(CurrentBuildOperationRef.instance().get());
+        }
+    }
+
+    @Override
+    public void beforeComplete() {
+        if (storeQueue != null) {
+            storeQueue.stop();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (storeQueue != null) {
+            storeQueue.close();
+        }
+        if (prefetchExecutor != null) {
+            prefetchExecutor.stop();
+        }
+    }
+}
@@ -22,19 +22,34 @@
 import org.gradle.api.internal.project.ProjectState;
 import org.gradle.initialization.BuildCancellationToken;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.buildtree.BuildModelParameters;
 import org.gradle.internal.operations.BuildOperationContext;
 import org.gradle.internal.operations.BuildOperationDescriptor;
 import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationQueue;
 import org.gradle.internal.operations.MultipleBuildOperationFailures;
 import org.gradle.internal.operations.RunnableBuildOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class TaskPathProjectEvaluator implements ProjectConfigurer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TaskPathProjectEvaluator.class);
+
     private final BuildCancellationToken cancellationToken;
     private final BuildOperationExecutor buildOperationExecutor;
+    private final BuildModelParameters buildModelParameters;
 
-    public TaskPathProjectEvaluator(BuildCancellationToken cancellationToken, BuildOperationExecutor buildOperationExecutor) {
+    public TaskPathProjectEvaluator(BuildCancellationToken cancellationToken, BuildOperationExecutor buildOperationExecutor, BuildModelParameters buildModelParameters) {
         this.cancellationToken = cancellationToken;
         this.buildOperationExecutor = buildOperationExecutor;
+        this.buildModelParameters = buildModelParameters;
     }
 
     @Override
@@ -53,35 +68,95 @@ public void configureFully(ProjectState projectState) {
 
     @Override
     public void configureHierarchy(ProjectInternal project) {
+        if (buildModelParameters.isIsolatedProjects()) {
+            // Projects cannot access each other's state, so the subprojects can be configured in parallel
+            configureHierarchyInParallel(project);
+            return;
+        }
         configure(project);
         for (Project sub : project.getSubprojects()) {
             configure((ProjectInternal) sub);
         }
     }
 
+    /**
+     * Configures a project before its children, as configuring a project requires its parent to be configured.
+     * Each project is only scheduled once its parent has been configured, so workers do not block waiting for the parent,
+     * and the children with the most subprojects are scheduled first.
+     */
     @Override
     public void configureHierarchyInParallel(ProjectInternal project) {
+        ConcurrencyTracker concurrency = new ConcurrencyTracker();
         try {
-            buildOperationExecutor.runAllWithAccessToProjectState(queue -> {
-                for (Project p : project.getAllprojects()) {
-                    queue.add(new RunnableBuildOperation() {
-                        @Override
-                        public void run(BuildOperationContext context) {
-                            configure((ProjectInternal) p);
-                        }
-
-                        @Override
-                        public BuildOperationDescriptor.Builder description() {
-                            return BuildOperationDescriptor.displayName("Configure project " + p.getName());
-                        }
-                    });
-                }
-            });
+            buildOperationExecutor.runAllWithAccessToProjectState(queue -> queue.add(new ConfigureProject(project.getOwner(), queue, concurrency)));
         } catch (MultipleBuildOperationFailures e) {
             if (e.getCauses().size() == 1) {
                 throw UncheckedException.throwAsUncheckedException(e.getCauses().get(0));
             }
             throw e;
         }
+        LOGGER.info("Configured {} projects with at most {} projects configured concurrently.", concurrency.configured.get(), concurrency.maxConcurrent.get());
+    }
+
+    private static int countProjects(ProjectState project) {
+        int count = 1;
+        for (ProjectState child : project.getChildProjects()) {
+            count += countProjects(child);
+        }
+        return count;
+    }
+
+    private static class ConcurrencyTracker {
+        final AtomicInteger configured = new AtomicInteger();
+        final AtomicInteger concurrent = new AtomicInteger();
+        final AtomicInteger maxConcurrent = new AtomicInteger();
+
+        void started() {
+            int current = concurrent.incrementAndGet();
+            maxConcurrent.accumulateAndGet(current, Math::max);
+        }
+
+        void finished() {
+            concurrent.decrementAndGet();
+            configured.incrementAndGet();
+        }
+    }
+
+    private class ConfigureProject implements RunnableBuildOperation {
+        private final ProjectState project;
+        private final BuildOperationQueue<RunnableBuildOperation> queue;
+        private final ConcurrencyTracker concurrency;
+
+        ConfigureProject(ProjectState project, BuildOperationQueue<RunnableBuildOperation> queue, ConcurrencyTracker concurrency) {
+            this.project = project;
+            this.queue = queue;
+            this.concurrency = concurrency;
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            concurrency.started();
+            try {
+                configure(project.getMutableModel());
+            } finally {
+                concurrency.finished();
+            }
+            if (cancellationToken.isCancellationRequested()) {
+                return;
+            }
+            List<ProjectState> children = new ArrayList<>(project.getChildProjects());
+            if (children.size() > 1) {
+                Map<ProjectState, Integer> sizes = new HashMap<>();
+                children.sort(Comparator.comparing((ProjectState child) -> sizes.computeIfAbsent(child, TaskPathProjectEvaluator::countProjects)).reversed());
+            }
+            for (ProjectState child : children) {
+                queue.add(new ConfigureProject(child, queue, concurrency));
+            }
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("Configure project " + project.getName());
+        }
     }
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.internal.operations.BuildOperationType;
+
+import java.util.List;
+
+/**
+ * Reports the critical path of an execution plan after it has executed.
+ *
+ * <p>The estimated critical path is the chain of nodes with the longest duration according to the durations of previous builds.
+ * The actual critical path is the chain of nodes that determined when the last node of the plan finished.</p>
+ */
+public final class CriticalPathBuildOperationType implements BuildOperationType<CriticalPathBuildOperationType.Details, CriticalPathBuildOperationType.Result> {
+    public interface Details {
+        String getPlanDisplayName();
+    }
+
+    public interface Result {
+        /**
+         * The nodes on the estimated critical path, starting with the node that was expected to execute first.
+         */
+        List<String> getEstimatedCriticalPath();
+
+        long getEstimatedDurationMillis();
+
+        /**
+         * The nodes on the actual critical path, starting with the node that executed first.
+         */
+        List<String> getActualCriticalPath();
+
+        long getActualDurationMillis();
+    }
+
+    private CriticalPathBuildOperationType() {
+    }
+}
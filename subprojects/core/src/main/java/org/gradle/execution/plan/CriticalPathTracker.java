@@ -0,0 +1,223 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationRunner;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.internal.time.Clock;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.collect.Sets.newIdentityHashSet;
+
+/**
+ * Prioritizes the nodes of an execution plan on its critical path, based on the durations of previous builds.
+ *
+ * <p>Each node is assigned the estimated duration of the longest chain of work that starts with the node.
+ * After the plan has executed, the durations of the nodes are recorded for later builds and the estimated and the actual critical path are reported.</p>
+ *
+ * <p>All methods except {@link #planCompleted()} are called while holding the state lock of the execution plan.</p>
+ */
+public class CriticalPathTracker {
+    private final String planDisplayName;
+    private final NodeDurationHistory durationHistory;
+    private final Clock clock;
+    private final BuildOperationRunner buildOperationRunner;
+    private final List<Node> scheduledNodes = new ArrayList<>();
+    private final Map<Node, Long> startTimes = new IdentityHashMap<>();
+    private final Map<Node, Long> finishTimes = new IdentityHashMap<>();
+
+    public CriticalPathTracker(String planDisplayName, NodeDurationHistory durationHistory, Clock clock, BuildOperationRunner buildOperationRunner) {
+        this.planDisplayName = planDisplayName;
+        this.durationHistory = durationHistory;
+        this.clock = clock;
+        this.buildOperationRunner = buildOperationRunner;
+    }
+
+    /**
+     * Sets the {@link Node#getEstimatedRemainingDuration() estimated remaining duration} of the given nodes.
+     *
+     * @param scheduledNodes the nodes of the plan, where every node comes after its dependencies.
+     */
+    public void estimateRemainingDurations(List<Node> scheduledNodes) {
+        this.scheduledNodes.addAll(scheduledNodes);
+        Set<Node> visited = newIdentityHashSet();
+        // Visit the dependents of a node before the node itself
+        for (int i = scheduledNodes.size() - 1; i >= 0; i--) {
+            Node node = scheduledNodes.get(i);
+            long longestDependentDuration = 0;
+            for (Node dependent : node.getDependencyPredecessors()) {
+                if (visited.contains(dependent)) {
+                    longestDependentDuration = Math.max(longestDependentDuration, dependent.getEstimatedRemainingDuration());
+                }
+            }
+            node.setEstimatedRemainingDuration(durationHistory.estimateDuration(node) + longestDependentDuration);
+            visited.add(node);
+        }
+    }
+
+    public void nodeStarted(Node node) {
+        startTimes.put(node, clock.getCurrentTime());
+    }
+
+    public void nodeFinished(Node node) {
+        if (startTimes.containsKey(node)) {
+            finishTimes.put(node, clock.getCurrentTime());
+        }
+    }
+
+    /**
+     * Records the durations of the nodes that executed successfully and reports the critical path.
+     */
+    public void planCompleted() {
+        if (finishTimes.isEmpty()) {
+            return;
+        }
+        Map<Node, Long> durations = new IdentityHashMap<>();
+        finishTimes.forEach((node, finishTime) -> {
+            if (node.isExecuted() && !node.isFailed()) {
+                durations.put(node, finishTime - startTimes.get(node));
+            }
+        });
+        durationHistory.recordDurations(durations);
+
+        List<Node> estimatedPath = estimatedCriticalPath();
+        long estimatedDuration = estimatedPath.isEmpty() ? 0 : estimatedPath.get(0).getEstimatedRemainingDuration();
+        List<Node> actualPath = actualCriticalPath();
+        long actualDuration = finishTimes.get(actualPath.get(actualPath.size() - 1)) - startTimes.get(actualPath.get(0));
+        CriticalPathResult result = new CriticalPathResult(displayNames(estimatedPath), estimatedDuration, displayNames(actualPath), actualDuration);
+
+        startTimes.clear();
+        finishTimes.clear();
+        scheduledNodes.clear();
+
+        buildOperationRunner.run(new RunnableBuildOperation() {
+            @Override
+            public void run(BuildOperationContext context) {
+                context.setResult(result);
+            }
+
+            @Override
+            public BuildOperationDescriptor.Builder description() {
+                return BuildOperationDescriptor.displayName("Critical path of " + planDisplayName)
+                    .details((CriticalPathBuildOperationType.Details) () -> planDisplayName);
+            }
+        });
+    }
+
+    private List<Node> estimatedCriticalPath() {
+        Set<Node> scheduled = newIdentityHashSet();
+        scheduled.addAll(scheduledNodes);
+        List<Node> path = new ArrayList<>();
+        Node current = longestRemaining(scheduledNodes, scheduled);
+        while (current != null) {
+            path.add(current);
+            current = longestRemaining(current.getDependencyPredecessors(), scheduled);
+        }
+        return path;
+    }
+
+    @Nullable
+    private static Node longestRemaining(Iterable<Node> candidates, Set<Node> scheduled) {
+        Node longest = null;
+        for (Node candidate : candidates) {
+            if (scheduled.contains(candidate)
+                && candidate.getEstimatedRemainingDuration() > 0
+                && (longest == null || candidate.getEstimatedRemainingDuration() > longest.getEstimatedRemainingDuration())) {
+                longest = candidate;
+            }
+        }
+        return longest;
+    }
+
+    private List<Node> actualCriticalPath() {
+        List<Node> path = new ArrayList<>();
+        Node current = latestFinished(finishTimes.keySet());
+        while (current != null) {
+            path.add(current);
+            // The dependency that finished last is the one that held up this node
+            current = latestFinished(current.getDependencySuccessors());
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    @Nullable
+    private Node latestFinished(Iterable<Node> candidates) {
+        Node latest = null;
+        long latestFinishTime = Long.MIN_VALUE;
+        for (Node candidate : candidates) {
+            Long finishTime = finishTimes.get(candidate);
+            if (finishTime != null && finishTime > latestFinishTime) {
+                latest = candidate;
+                latestFinishTime = finishTime;
+            }
+        }
+        return latest;
+    }
+
+    private static List<String> displayNames(List<Node> nodes) {
+        ImmutableList.Builder<String> builder = ImmutableList.builderWithExpectedSize(nodes.size());
+        for (Node node : nodes) {
+            builder.add(node.toString());
+        }
+        return builder.build();
+    }
+
+    private static class CriticalPathResult implements CriticalPathBuildOperationType.Result {
+        private final List<String> estimatedCriticalPath;
+        private final long estimatedDurationMillis;
+        private final List<String> actualCriticalPath;
+        private final long actualDurationMillis;
+
+        CriticalPathResult(List<String> estimatedCriticalPath, long estimatedDurationMillis, List<String> actualCriticalPath, long actualDurationMillis) {
+            this.estimatedCriticalPath = estimatedCriticalPath;
+            this.estimatedDurationMillis = estimatedDurationMillis;
+            this.actualCriticalPath = actualCriticalPath;
+            this.actualDurationMillis = actualDurationMillis;
+        }
+
+        @Override
+        public List<String> getEstimatedCriticalPath() {
+            return estimatedCriticalPath;
+        }
+
+        @Override
+        public long getEstimatedDurationMillis() {
+            return estimatedDurationMillis;
+        }
+
+        @Override
+        public List<String> getActualCriticalPath() {
+            return actualCriticalPath;
+        }
+
+        @Override
+        public long getActualDurationMillis() {
+            return actualDurationMillis;
+        }
+    }
+}
@@ -57,6 +57,10 @@ public int compare(Node node1, Node node2) {
             } else if (!node1.isPriority() && node2.isPriority()) {
                 return 1;
             }
+            int byRemainingDuration = Long.compare(node2.getEstimatedRemainingDuration(), node1.getEstimatedRemainingDuration());
+            if (byRemainingDuration != 0) {
+                return byRemainingDuration;
+            }
             if (node1.getIndex() > node2.getIndex()) {
                 return 1;
             } else if (node1.getIndex() < node2.getIndex()) {
@@ -84,6 +88,8 @@ public int compare(Node node1, Node node2) {
     private final Map<Pair<Node, Node>, Boolean> reachableCache = new HashMap<>();
     private final OrdinalNodeAccess ordinalNodeAccess;
     private final Consumer<LocalTaskNode> completionHandler;
+    @Nullable
+    private final CriticalPathTracker criticalPathTracker;
 
     // When true, there may be nodes that are both ready and "selectable", which means their project and resources are able to be locked
     // When false, there are definitely no nodes that are "selectable"
@@ -101,6 +107,21 @@ public DefaultFinalizedExecutionPlan(
         boolean continueOnFailure,
         QueryableExecutionPlan contents,
         Consumer<LocalTaskNode> completionHandler
+    ) {
+        this(displayName, ordinalNodeAccess, outputHierarchy, destroyableHierarchy, lockCoordinator, scheduledNodes, continueOnFailure, contents, completionHandler, null);
+    }
+
+    public DefaultFinalizedExecutionPlan(
+        String displayName,
+        OrdinalNodeAccess ordinalNodeAccess,
+        ExecutionNodeAccessHierarchy outputHierarchy,
+        ExecutionNodeAccessHierarchy destroyableHierarchy,
+        ResourceLockCoordinationService lockCoordinator,
+        List<Node> scheduledNodes,
+        boolean continueOnFailure,
+        QueryableExecutionPlan contents,
+        Consumer<LocalTaskNode> completionHandler,
+        @Nullable CriticalPathTracker criticalPathTracker
     ) {
         this.displayName = displayName;
         this.outputHierarchy = outputHierarchy;
@@ -110,6 +131,12 @@ public DefaultFinalizedExecutionPlan(
         this.continueOnFailure = continueOnFailure;
         this.contents = contents;
         this.completionHandler = completionHandler;
+        this.criticalPathTracker = criticalPathTracker;
+
+        if (criticalPathTracker != null) {
+            // Needs to happen before any node is added to the ready queue, which is ordered by the estimates
+            criticalPathTracker.estimateRemainingDurations(scheduledNodes);
+        }
 
         SetMultimap<FinalizerGroup, FinalizerGroup> reachableGroups = LinkedHashMultimap.create();
         for (Node node : scheduledNodes) {
@@ -146,6 +173,9 @@ public WorkSource<Node> asWorkSource() {
 
     @Override
     public void close() {
+        if (criticalPathTracker != null) {
+            criticalPathTracker.planCompleted();
+        }
         lockCoordinator.removeLockReleaseListener(resourceUnlockListener);
         waitingToStartNodes.clear();
         readyNodes.clear();
@@ -506,6 +536,9 @@ private boolean doesConsumerDependOnDestroyer(Node consumer, Node destroyer) {
 
     private void recordNodeExecutionStarted(Node node) {
         runningNodes.add(node);
+        if (criticalPathTracker != null) {
+            criticalPathTracker.nodeStarted(node);
+        }
     }
 
     private void recordNodeCompleted(Node node) {
@@ -560,6 +593,9 @@ public void finishedExecuting(Node node, @Nullable Throwable failure) {
             }
 
             node.finishExecution(this::recordNodeCompleted);
+            if (criticalPathTracker != null) {
+                criticalPathTracker.nodeFinished(node);
+            }
             if (node.isFailed()) {
                 LOGGER.debug("Node {} failed", node);
                 handleFailure(node);
@@ -567,6 +603,7 @@ public void finishedExecuting(Node node, @Nullable Throwable failure) {
                 LOGGER.debug("Node {} finished executing", node);
                 node.visitPostExecutionNodes(postNode -> {
                     postNode.setIndex(node.getIndex());
+                    postNode.setEstimatedRemainingDuration(node.getEstimatedRemainingDuration());
                     postNode.require();
                     postNode.updateAllDependenciesComplete();
                     addNodeToPlan(postNode);
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.cache.IndexedCache;
+import org.gradle.cache.IndexedCacheParameters;
+import org.gradle.cache.PersistentCache;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+
+import java.util.Map;
+
+/**
+ * Stores the durations of task nodes in a persistent cache, keyed by the identity path of the task.
+ *
+ * <p>Nodes other than local tasks are usually cheap, so their durations are not stored.</p>
+ */
+public class DefaultNodeDurationHistory implements NodeDurationHistory {
+    private final IndexedCache<String, Long> durations;
+
+    public DefaultNodeDurationHistory(PersistentCache cache) {
+        this.durations = cache.createIndexedCache(IndexedCacheParameters.of("nodeDurations", String.class, BaseSerializerFactory.LONG_SERIALIZER));
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public long estimateDuration(Node node) {
+        if (!(node instanceof LocalTaskNode)) {
+            return 0;
+        }
+        Long duration = durations.getIfPresent(keyOf((LocalTaskNode) node));
+        return duration == null ? 0 : duration;
+    }
+
+    @Override
+    public void recordDurations(Map<Node, Long> nodeDurations) {
+        nodeDurations.forEach((node, duration) -> {
+            if (node instanceof LocalTaskNode) {
+                durations.put(keyOf((LocalTaskNode) node), duration);
+            }
+        });
+    }
+
+    private static String keyOf(LocalTaskNode node) {
+        return node.getTask().getIdentityPath().toString();
+    }
+}
@@ -16,9 +16,11 @@
 
 package org.gradle.execution.plan;
 
+import org.gradle.internal.operations.BuildOperationRunner;
 import org.gradle.internal.resources.ResourceLockCoordinationService;
 import org.gradle.internal.service.scopes.Scope;
 import org.gradle.internal.service.scopes.ServiceScope;
+import org.gradle.internal.time.Clock;
 
 @ServiceScope(Scope.Build.class)
 public class ExecutionPlanFactory {
@@ -29,6 +31,9 @@ public class ExecutionPlanFactory {
     private final ExecutionNodeAccessHierarchy outputHierarchy;
     private final ExecutionNodeAccessHierarchy destroyableHierarchy;
     private final ResourceLockCoordinationService lockCoordinationService;
+    private final NodeDurationHistory durationHistory;
+    private final Clock clock;
+    private final BuildOperationRunner buildOperationRunner;
 
     public ExecutionPlanFactory(
         String displayName,
@@ -37,7 +42,10 @@ public ExecutionPlanFactory(
         TaskDependencyResolver dependencyResolver,
         ExecutionNodeAccessHierarchy outputHierarchy,
         ExecutionNodeAccessHierarchy destroyableHierarchy,
-        ResourceLockCoordinationService lockCoordinationService
+        ResourceLockCoordinationService lockCoordinationService,
+        NodeDurationHistory durationHistory,
+        Clock clock,
+        BuildOperationRunner buildOperationRunner
     ) {
         this.displayName = displayName;
         this.taskNodeFactory = taskNodeFactory;
@@ -46,9 +54,15 @@ public ExecutionPlanFactory(
         this.outputHierarchy = outputHierarchy;
         this.destroyableHierarchy = destroyableHierarchy;
         this.lockCoordinationService = lockCoordinationService;
+        this.durationHistory = durationHistory;
+        this.clock = clock;
+        this.buildOperationRunner = buildOperationRunner;
     }
 
     public ExecutionPlan createPlan() {
-        return new DefaultExecutionPlan(displayName, taskNodeFactory, ordinalGroupFactory, dependencyResolver, outputHierarchy, destroyableHierarchy, lockCoordinationService);
+        CriticalPathTracker criticalPathTracker = durationHistory.isEnabled()
+            ? new CriticalPathTracker(displayName, durationHistory, clock, buildOperationRunner)
+            : null;
+        return new DefaultExecutionPlan(displayName, taskNodeFactory, ordinalGroupFactory, dependencyResolver, outputHierarchy, destroyableHierarchy, lockCoordinationService, criticalPathTracker);
     }
 }
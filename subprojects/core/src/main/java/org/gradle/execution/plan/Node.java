@@ -68,6 +68,7 @@ public enum DependenciesState {
     private Throwable executionFailure;
     private boolean filtered;
     private int index;
+    private long estimatedRemainingDuration;
     private DependencyNodesSet dependencyNodes = DependencyNodesSet.EMPTY;
     private DependentNodesSet dependentNodes = DependentNodesSet.EMPTY;
     private final MutationInfo mutationInfo = new MutationInfo();
@@ -333,6 +334,19 @@ public void setIndex(int index) {
         this.index = index;
     }
 
+    /**
+     * Returns the estimated duration in milliseconds of the longest chain of work that starts with this node, or 0 when not known.
+     *
+     * <p>Ready nodes with a longer remaining duration are started first.</p>
+     */
+    public long getEstimatedRemainingDuration() {
+        return estimatedRemainingDuration;
+    }
+
+    public void setEstimatedRemainingDuration(long estimatedRemainingDuration) {
+        this.estimatedRemainingDuration = estimatedRemainingDuration;
+    }
+
     /**
      * Mark this node as filtered from the current plan. The node will be considered complete and successful.
      */
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.internal.service.scopes.Scope;
+import org.gradle.internal.service.scopes.ServiceScope;
+
+import java.util.Map;
+
+/**
+ * Remembers how long nodes took to execute in previous builds.
+ */
+@ServiceScope(Scope.Build.class)
+public interface NodeDurationHistory {
+    /**
+     * Does not know about any durations and does not record them.
+     */
+    NodeDurationHistory NONE = new NodeDurationHistory() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public long estimateDuration(Node node) {
+            return 0;
+        }
+
+        @Override
+        public void recordDurations(Map<Node, Long> durations) {
+        }
+    };
+
+    /**
+     * Whether execution plans should be scheduled using the durations from this history.
+     */
+    boolean isEnabled();
+
+    /**
+     * Returns the duration in milliseconds the given node took when it last executed, or 0 when not known.
+     */
+    long estimateDuration(Node node);
+
+    /**
+     * Records the durations in milliseconds of nodes that executed successfully.
+     */
+    void recordDurations(Map<Node, Long> durations);
+}
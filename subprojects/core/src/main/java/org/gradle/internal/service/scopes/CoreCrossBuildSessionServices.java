@@ -18,6 +18,7 @@
 
 import org.gradle.api.internal.CollectionCallbackActionDecorator;
 import org.gradle.api.internal.DefaultCollectionCallbackActionDecorator;
+import org.gradle.api.internal.file.copy.ParallelCopyExecutor;
 import org.gradle.configuration.internal.DefaultDynamicCallContextTracker;
 import org.gradle.configuration.internal.DefaultListenerBuildOperationDecorator;
 import org.gradle.configuration.internal.DynamicCallContextTracker;
@@ -80,6 +81,11 @@ BuildOperationExecutor createBuildOperationExecutor(
         );
     }
 
+    @Provides
+    ParallelCopyExecutor createParallelCopyExecutor(ExecutorFactory executorFactory, WorkerLimits workerLimits) {
+        return new ParallelCopyExecutor(executorFactory, workerLimits);
+    }
+
     @Provides
     UserCodeApplicationContext createUserCodeApplicationContext() {
         return new DefaultUserCodeApplicationContext();
@@ -101,8 +107,8 @@ LoggingBuildOperationProgressBroadcaster createLoggingBuildOperationProgressBroa
     }
 
     @Provides
-    BuildOperationTrace createBuildOperationTrace(BuildOperationListenerManager buildOperationListenerManager, CrossBuildSessionParameters buildSessionParameters) {
-        return new BuildOperationTrace(buildSessionParameters.getStartParameter(), buildOperationListenerManager);
+    BuildOperationTrace createBuildOperationTrace(BuildOperationListenerManager buildOperationListenerManager, CrossBuildSessionParameters buildSessionParameters, ExecutorFactory executorFactory) {
+        return new BuildOperationTrace(buildSessionParameters.getStartParameter(), buildOperationListenerManager, executorFactory);
     }
 
     @Provides
@@ -23,7 +23,11 @@
 import org.gradle.cache.internal.InMemoryCacheDecoratorFactory;
 import org.gradle.cache.scopes.BuildScopedCacheBuilderFactory;
 import org.gradle.caching.internal.controller.BuildCacheController;
+import org.gradle.execution.plan.DefaultNodeDurationHistory;
+import org.gradle.execution.plan.NodeDurationHistory;
 import org.gradle.initialization.BuildCancellationToken;
+import org.gradle.internal.buildoption.InternalFlag;
+import org.gradle.internal.buildoption.InternalOptions;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.execution.BuildOutputCleanupRegistry;
 import org.gradle.internal.execution.ExecutionEngine;
@@ -96,6 +100,11 @@
 import static org.gradle.internal.execution.steps.AfterExecutionOutputFilter.NO_FILTER;
 
 public class ExecutionBuildServices implements ServiceRegistrationProvider {
+    /**
+     * When enabled, task durations are recorded in the execution history, and nodes on the critical path of the execution plan are started first.
+     */
+    public static final InternalFlag CRITICAL_PATH_SCHEDULING = new InternalFlag("org.gradle.internal.critical-path-scheduling");
+
     @Provides
     ExecutionHistoryCacheAccess createCacheAccess(BuildScopedCacheBuilderFactory cacheBuilderFactory) {
         return new DefaultExecutionHistoryCacheAccess(cacheBuilderFactory);
@@ -116,6 +125,14 @@ ExecutionHistoryStore createExecutionHistoryStore(
         );
     }
 
+    @Provides
+    NodeDurationHistory createNodeDurationHistory(ExecutionHistoryCacheAccess executionHistoryCacheAccess, InternalOptions options) {
+        if (!options.getOption(CRITICAL_PATH_SCHEDULING).get()) {
+            return NodeDurationHistory.NONE;
+        }
+        return new DefaultNodeDurationHistory(executionHistoryCacheAccess.get());
+    }
+
     @Provides
     OutputFilesRepository createOutputFilesRepository(BuildScopedCacheBuilderFactory cacheBuilderFactory, InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory) {
         PersistentCache cacheAccess = cacheBuilderFactory
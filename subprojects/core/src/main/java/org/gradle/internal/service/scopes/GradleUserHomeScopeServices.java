@@ -31,8 +31,11 @@
 import org.gradle.api.internal.initialization.loadercache.ClassLoaderCache;
 import org.gradle.api.internal.initialization.loadercache.DefaultClassLoaderCache;
 import org.gradle.api.model.ObjectFactory;
+import org.gradle.cache.CacheCleanupStrategyFactory;
+import org.gradle.cache.FileLockManager;
 import org.gradle.cache.GlobalCache;
 import org.gradle.cache.GlobalCacheLocations;
+import org.gradle.cache.PersistentCache;
 import org.gradle.cache.UnscopedCacheBuilderFactory;
 import org.gradle.cache.internal.CrossBuildInMemoryCacheFactory;
 import org.gradle.cache.internal.DefaultFileContentCacheFactory;
@@ -41,7 +44,9 @@
 import org.gradle.cache.internal.FileContentCacheFactory;
 import org.gradle.cache.internal.GradleUserHomeCleanupServices;
 import org.gradle.cache.internal.InMemoryCacheDecoratorFactory;
+import org.gradle.cache.internal.LeastRecentlyUsedCacheCleanup;
 import org.gradle.cache.internal.LegacyCacheCleanupEnablement;
+import org.gradle.cache.internal.SingleDepthFilesFinder;
 import org.gradle.cache.internal.scopes.DefaultGlobalScopedCacheBuilderFactory;
 import org.gradle.cache.scopes.GlobalScopedCacheBuilderFactory;
 import org.gradle.execution.plan.ToPlannedNodeConverter;
@@ -58,6 +63,8 @@
 import org.gradle.initialization.DefaultClassLoaderScopeRegistry;
 import org.gradle.initialization.GradleUserHomeDirProvider;
 import org.gradle.initialization.layout.GlobalCacheDir;
+import org.gradle.internal.buildoption.DefaultInternalOptions;
+import org.gradle.internal.buildoption.InternalOptions;
 import org.gradle.internal.classloader.ClasspathHasher;
 import org.gradle.internal.classloader.DefaultHashingClassLoaderFactory;
 import org.gradle.internal.classloader.HashingClassLoaderFactory;
@@ -86,6 +93,7 @@
 import org.gradle.internal.jvm.inspection.ReportingJvmMetadataDetector;
 import org.gradle.internal.logging.LoggingManagerInternal;
 import org.gradle.internal.logging.events.OutputEventListener;
+import org.gradle.internal.operations.BuildOperationRunner;
 import org.gradle.internal.operations.CurrentBuildOperationRef;
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.internal.remote.MessagingServer;
@@ -99,10 +107,12 @@
 import org.gradle.process.internal.JavaExecHandleFactory;
 import org.gradle.process.internal.health.memory.MemoryManager;
 import org.gradle.process.internal.worker.DefaultWorkerProcessFactory;
+import org.gradle.process.internal.worker.WorkerClassDataSharing;
 import org.gradle.process.internal.worker.WorkerProcessFactory;
 import org.gradle.process.internal.worker.child.WorkerProcessClassPathProvider;
 import org.gradle.util.GradleVersion;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -237,7 +247,8 @@ WorkerProcessFactory createWorkerProcessFactory(
         JvmVersionDetector jvmVersionDetector,
         MemoryManager memoryManager,
         GradleUserHomeDirProvider gradleUserHomeDirProvider,
-        OutputEventListener outputEventListener
+        OutputEventListener outputEventListener,
+        WorkerClassDataSharing workerClassDataSharing
     ) {
         return new DefaultWorkerProcessFactory(
             loggingManagerInternal,
@@ -249,10 +260,41 @@ WorkerProcessFactory createWorkerProcessFactory(
             execHandleFactory,
             jvmVersionDetector,
             outputEventListener,
-            memoryManager
+            memoryManager,
+            workerClassDataSharing
         );
     }
 
+    @Provides
+    WorkerClassDataSharing createWorkerClassDataSharing(
+        GlobalScopedCacheBuilderFactory cacheBuilderFactory,
+        FileAccessTimeJournal fileAccessTimeJournal,
+        CacheConfigurationsInternal cacheConfigurations,
+        CacheCleanupStrategyFactory cacheCleanupStrategyFactory,
+        ClassPathRegistry classPathRegistry,
+        BuildOperationRunner buildOperationRunner
+    ) {
+        // The internal options of the build tree are not available here, so only the system properties of this process are used
+        InternalOptions internalOptions = new DefaultInternalOptions(Collections.emptyMap());
+        PersistentCache archivesCache = null;
+        if (internalOptions.getOption(WorkerClassDataSharing.CLASS_DATA_SHARING).get()) {
+            archivesCache = cacheBuilderFactory
+                .createCacheBuilder("worker-cds")
+                .withDisplayName("worker class data sharing archives")
+                .withInitialLockMode(FileLockManager.LockMode.OnDemand)
+                .withCleanupStrategy(cacheCleanupStrategyFactory.create(
+                    new LeastRecentlyUsedCacheCleanup(
+                        new SingleDepthFilesFinder(1),
+                        fileAccessTimeJournal,
+                        cacheConfigurations.getCreatedResources().getEntryRetentionTimestampSupplier()
+                    ),
+                    cacheConfigurations.getCleanupFrequency()::get
+                ))
+                .open();
+        }
+        return new WorkerClassDataSharing(archivesCache, fileAccessTimeJournal, classPathRegistry, buildOperationRunner);
+    }
+
     @Provides
     ClassPathRegistry createClassPathRegistry(ModuleRegistry moduleRegistry, WorkerProcessClassPathProvider workerProcessClassPathProvider) {
         return new DefaultClassPathRegistry(
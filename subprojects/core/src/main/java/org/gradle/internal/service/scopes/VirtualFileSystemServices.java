@@ -34,6 +34,7 @@
 import org.gradle.api.internal.changedetection.state.ResourceSnapshotterCacheService;
 import org.gradle.api.internal.changedetection.state.SplitFileHasher;
 import org.gradle.api.internal.changedetection.state.SplitResourceSnapshotterCacheService;
+import org.gradle.api.internal.changedetection.state.VirtualFileSystemImage;
 import org.gradle.api.internal.file.FileCollectionFactory;
 import org.gradle.api.internal.initialization.loadercache.DefaultClasspathHasher;
 import org.gradle.cache.GlobalCacheLocations;
@@ -82,7 +83,9 @@
 import org.gradle.internal.snapshot.CaseSensitivity;
 import org.gradle.internal.snapshot.SnapshotHierarchy;
 import org.gradle.internal.snapshot.ValueSnapshotter;
+import org.gradle.internal.snapshot.impl.DirectorySnapshotterPool;
 import org.gradle.internal.snapshot.impl.DirectorySnapshotterStatistics;
+import org.gradle.internal.time.Clock;
 import org.gradle.internal.vfs.FileSystemAccess;
 import org.gradle.internal.vfs.VirtualFileSystem;
 import org.gradle.internal.vfs.impl.DefaultFileSystemAccess;
@@ -118,6 +121,13 @@ public class VirtualFileSystemServices extends AbstractGradleModuleServices {
      * @see org.gradle.initialization.StartParameterBuildOptions.WatchFileSystemOption
      */
     public static final InternalFlag VFS_DROP_PROPERTY = new InternalFlag("org.gradle.vfs.drop");
+    /**
+     * When file system watching is enabled, this system property can be used to persist the VFS, so it can be restored by a new daemon.
+     *
+     * @see VirtualFileSystemImage
+     */
+    public static final InternalFlag VFS_PERSIST_PROPERTY = new InternalFlag("org.gradle.vfs.persist");
+    private static final String VFS_IMAGE_CACHE_KEY = "vfs";
     private static final int DEFAULT_MAX_HIERARCHIES_TO_WATCH = 50;
     public static final IntegerInternalOption MAX_HIERARCHIES_TO_WATCH_PROPERTY = new IntegerInternalOption("org.gradle.vfs.watch.hierarchies.max", DEFAULT_MAX_HIERARCHIES_TO_WATCH);
     private static final int FILE_HASHER_MEMORY_CACHE_SIZE = 400000;
@@ -126,6 +136,10 @@ public static boolean isDropVfs(InternalOptions options) {
         return options.getOption(VFS_DROP_PROPERTY).get();
     }
 
+    public static boolean isPersistVfs(InternalOptions options) {
+        return options.getOption(VFS_PERSIST_PROPERTY).get();
+    }
+
     public static int getMaximumNumberOfWatchedHierarchies(InternalOptions options) {
         return options.getOption(MAX_HIERARCHIES_TO_WATCH_PROPERTY).get();
     }
@@ -155,6 +169,11 @@ FileHasherStatistics.Collector createCachingFileHasherStatisticsCollector() {
         DirectorySnapshotterStatistics.Collector createDirectorySnapshotterStatisticsCollector() {
             return new DirectorySnapshotterStatistics.Collector();
         }
+
+        @Provides
+        DirectorySnapshotterPool createDirectorySnapshotterPool() {
+            return DirectorySnapshotterPool.fromSystemProperties();
+        }
     }
 
     @VisibleForTesting
@@ -246,6 +265,7 @@ FileSystemAccess createFileSystemAccess(
             StringInterner stringInterner,
             FileSystemAccess.WriteListener writeListener,
             DirectorySnapshotterStatistics.Collector statisticsCollector,
+            DirectorySnapshotterPool directorySnapshotterPool,
             ListenerManager listenerManager
         ) {
             DefaultFileSystemAccess defaultFileSystemAccess = new DefaultFileSystemAccess(
@@ -255,6 +275,7 @@ FileSystemAccess createFileSystemAccess(
                 virtualFileSystem,
                 writeListener,
                 statisticsCollector,
+                directorySnapshotterPool.getForkJoinPool(),
                 DirectoryScanner.getDefaultExcludes()
             );
             listenerManager.addListener(defaultFileSystemAccess);
@@ -321,6 +342,18 @@ FileSystemDefaultExcludesProvider createFileSystemDefaultExcludesProvider(Listen
             return new DefaultFileSystemDefaultExcludesProvider(listenerManager);
         }
 
+        @Provides
+        VirtualFileSystemImage createVirtualFileSystemImage(
+            GlobalScopedCacheBuilderFactory cacheBuilderFactory,
+            FileMetadataAccessor stat,
+            StringInterner stringInterner,
+            FileSystemDefaultExcludesProvider defaultExcludesProvider,
+            Clock clock
+        ) {
+            File imageFile = new File(cacheBuilderFactory.baseDirForCache(VFS_IMAGE_CACHE_KEY), "vfs.bin");
+            return new VirtualFileSystemImage(imageFile, stat, stringInterner, defaultExcludesProvider, clock);
+        }
+
         @Provides
         @PrivateService
         CrossBuildFileHashCache createCrossBuildFileHashCache(BuildTreeScopedCacheBuilderFactory cacheBuilderFactory, InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory) {
@@ -350,7 +383,8 @@ FileSystemAccess createFileSystemAccess(
             StringInterner stringInterner,
             VirtualFileSystem root,
             FileSystemAccess.WriteListener writeListener,
-            DirectorySnapshotterStatistics.Collector statisticsCollector
+            DirectorySnapshotterStatistics.Collector statisticsCollector,
+            DirectorySnapshotterPool directorySnapshotterPool
         ) {
             DefaultFileSystemAccess buildSessionsScopedVirtualFileSystem = new DefaultFileSystemAccess(
                 hasher,
@@ -359,6 +393,7 @@ FileSystemAccess createFileSystemAccess(
                 root,
                 writeListener,
                 statisticsCollector,
+                directorySnapshotterPool.getForkJoinPool(),
                 DirectoryScanner.getDefaultExcludes()
             );
 
@@ -91,7 +91,7 @@ public WorkerSharedGlobalScopeServices(ClassPath additionalModuleClassPath) {
 
     @Provides
     protected CacheFactory createCacheFactory(FileLockManager fileLockManager, ExecutorFactory executorFactory, BuildOperationRunner buildOperationRunner) {
-        return new DefaultCacheFactory(fileLockManager, executorFactory);
+        return new DefaultCacheFactory(fileLockManager, executorFactory, buildOperationRunner);
     }
 
     @Provides
@@ -64,6 +64,7 @@ public class DefaultWorkerProcessBuilder implements WorkerProcessBuilder {
 
     private final MemoryManager memoryManager;
     private final JvmVersionDetector jvmVersionDetector;
+    private final WorkerClassDataSharing classDataSharing;
     private Action<? super WorkerProcessContext> action;
     private LogLevel logLevel = LogLevel.LIFECYCLE;
     private String baseName = "Gradle Worker";
@@ -80,7 +81,8 @@ public class DefaultWorkerProcessBuilder implements WorkerProcessBuilder {
         ApplicationClassesInSystemClassLoaderWorkerImplementationFactory workerImplementationFactory,
         OutputEventListener outputEventListener,
         MemoryManager memoryManager,
-        JvmVersionDetector jvmVersionDetector
+        JvmVersionDetector jvmVersionDetector,
+        WorkerClassDataSharing classDataSharing
     ) {
         this.javaCommand = execHandleFactory.newJavaExec();
         this.javaCommand.setExecutable(Jvm.current().getJavaExecutable());
@@ -90,6 +92,7 @@ public class DefaultWorkerProcessBuilder implements WorkerProcessBuilder {
         this.outputEventListener = outputEventListener;
         this.memoryManager = memoryManager;
         this.jvmVersionDetector = jvmVersionDetector;
+        this.classDataSharing = classDataSharing;
     }
 
     public int getConnectTimeoutSeconds() {
@@ -243,8 +246,10 @@ public WorkerProcess build() {
         JavaExecHandleBuilder javaCommand = getJavaCommand();
         javaCommand.setDisplayName(displayName);
 
-        boolean java9Compatible = jvmVersionDetector.getJavaVersionMajor(javaCommand.getExecutable()) >= 9;
+        int javaVersion = jvmVersionDetector.getJavaVersionMajor(javaCommand.getExecutable());
+        boolean java9Compatible = javaVersion >= 9;
         workerImplementationFactory.prepareJavaCommand(id, displayName, this, implementationClassPath, implementationModulePath, localAddress, javaCommand, shouldPublishJvmMemoryInfo, java9Compatible);
+        classDataSharing.configure(displayName, javaVersion, java9Compatible, this, javaCommand);
 
         javaCommand.args("'" + displayName + "'");
         if (javaCommand.getMaxHeapSize() == null) {
@@ -41,6 +41,7 @@ public class DefaultWorkerProcessFactory implements WorkerProcessFactory {
     private final OutputEventListener outputEventListener;
     private final ApplicationClassesInSystemClassLoaderWorkerImplementationFactory workerImplementationFactory;
     private final MemoryManager memoryManager;
+    private final WorkerClassDataSharing classDataSharing;
     private int connectTimeoutSeconds = 120;
 
     public DefaultWorkerProcessFactory(
@@ -53,7 +54,8 @@ public DefaultWorkerProcessFactory(
         JavaExecHandleFactory execHandleFactory,
         JvmVersionDetector jvmVersionDetector,
         OutputEventListener outputEventListener,
-        MemoryManager memoryManager
+        MemoryManager memoryManager,
+        WorkerClassDataSharing classDataSharing
     ) {
         this.loggingManager = loggingManager;
         this.server = server;
@@ -63,6 +65,7 @@ public DefaultWorkerProcessFactory(
         this.outputEventListener = outputEventListener;
         this.workerImplementationFactory = new ApplicationClassesInSystemClassLoaderWorkerImplementationFactory(classPathRegistry, temporaryFileProvider, gradleUserHomeDir);
         this.memoryManager = memoryManager;
+        this.classDataSharing = classDataSharing;
     }
 
     public void setConnectTimeoutSeconds(int connectTimeoutSeconds) {
@@ -88,7 +91,7 @@ public <IN, OUT> MultiRequestWorkerProcessBuilder<IN, OUT> multiRequestWorker(Cl
     }
 
     private DefaultWorkerProcessBuilder newWorkerProcessBuilder() {
-        DefaultWorkerProcessBuilder builder = new DefaultWorkerProcessBuilder(execHandleFactory, server, idGenerator, workerImplementationFactory, outputEventListener, memoryManager, jvmVersionDetector);
+        DefaultWorkerProcessBuilder builder = new DefaultWorkerProcessBuilder(execHandleFactory, server, idGenerator, workerImplementationFactory, outputEventListener, memoryManager, jvmVersionDetector, classDataSharing);
         builder.setLogLevel(loggingManager.getLevel());
         builder.setConnectTimeoutSeconds(connectTimeoutSeconds);
         return builder;
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.worker;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.api.internal.ClassPathRegistry;
+import org.gradle.cache.PersistentCache;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.buildoption.InternalFlag;
+import org.gradle.internal.file.FileAccessTimeJournal;
+import org.gradle.internal.file.FileAccessTracker;
+import org.gradle.internal.file.impl.SingleDepthFileAccessTracker;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationRunner;
+import org.gradle.internal.operations.CallableBuildOperation;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.process.ExecResult;
+import org.gradle.process.internal.ExecHandle;
+import org.gradle.process.internal.ExecHandleListener;
+import org.gradle.process.internal.JavaExecHandleBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Manages dynamic class data sharing (AppCDS) archives for worker processes, so workers started with the same classpath and JVM
+ * do not have to load and verify the same classes from scratch.
+ *
+ * <p>An archive is keyed by the Java executable and the classpath of the worker, including the length and modification time of each entry.
+ * When there is no archive for a key yet, the next worker started for the key dumps the classes it loaded when it exits, see {@code -XX:ArchiveClassesAtExit}.
+ * The archive is dumped to a temporary file and moved into place once the worker has stopped, so other workers never map a partially written archive.
+ * Later workers for the key map the archive via {@code -XX:SharedArchiveFile}.</p>
+ *
+ * <p>Archives are only used for Java 13 and later, and only when the classpath is passed via an options file and consists of jar files,
+ * since the JVM cannot archive classes loaded from directories.</p>
+ *
+ * <p>The archives are stored in a cache, which is locked while archives are looked up or moved into place.
+ * Archives which have not been used for a while are removed by the cleanup of the cache.</p>
+ */
+public class WorkerClassDataSharing implements Closeable {
+    /**
+     * Set to {@code true} to start workers with class data sharing archives.
+     */
+    public static final InternalFlag CLASS_DATA_SHARING = new InternalFlag("org.gradle.internal.worker.class-data-sharing");
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkerClassDataSharing.class);
+    private static final int MIN_JAVA_VERSION = 13;
+    private static final String ARCHIVE_EXTENSION = ".jsa";
+    // Warnings about archives that cannot be mapped would end up in the worker output
+    private static final String DISABLE_CDS_LOGGING = "-Xlog:cds*=off,class+path=off";
+
+    @Nullable
+    private final PersistentCache archivesCache;
+    @Nullable
+    private final FileAccessTracker fileAccessTracker;
+    private final ClassPathRegistry classPathRegistry;
+    private final BuildOperationRunner buildOperationRunner;
+    private final Set<String> archivesInProgress = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates the archive manager, which does not use any archives when the cache is {@code null}.
+     */
+    public WorkerClassDataSharing(@Nullable PersistentCache archivesCache, FileAccessTimeJournal fileAccessTimeJournal, ClassPathRegistry classPathRegistry, BuildOperationRunner buildOperationRunner) {
+        this.archivesCache = archivesCache;
+        this.fileAccessTracker = archivesCache == null ? null : new SingleDepthFileAccessTracker(fileAccessTimeJournal, archivesCache.getBaseDir(), 1);
+        this.classPathRegistry = classPathRegistry;
+        this.buildOperationRunner = buildOperationRunner;
+    }
+
+    /**
+     * Adds the JVM arguments for using or generating the archive for the given worker, when an archive can be used.
+     */
+    public void configure(String displayName, int javaVersion, boolean useOptionsFile, WorkerProcessBuilder processBuilder, JavaExecHandleBuilder javaCommand) {
+        if (archivesCache == null || javaVersion < MIN_JAVA_VERSION || !useOptionsFile || !processBuilder.getApplicationModulePath().isEmpty() || hasClassDataSharingArguments(javaCommand)) {
+            return;
+        }
+        List<File> classpath = new ArrayList<>(classPathRegistry.getClassPath("WORKER_MAIN").getAsFiles());
+        classpath.addAll(processBuilder.getApplicationClasspath());
+        if (!classpath.stream().allMatch(File::isFile)) {
+            return;
+        }
+
+        String key = archiveKey(javaCommand.getExecutable(), classpath);
+        File archivesDir = archivesCache.getBaseDir();
+        File archive = new File(archivesDir, key + ARCHIVE_EXTENSION);
+        buildOperationRunner.call(new CallableBuildOperation<Void>() {
+            @Override
+            public Void call(BuildOperationContext context) {
+                context.setResult(archivesCache.useCache(() -> {
+                    if (archive.isFile()) {
+                        // Keep the archive from being cleaned up while it is in use
+                        fileAccessTracker.markAccessed(archive);
+                        javaCommand.jvmArgs(ImmutableList.of("-XX:SharedArchiveFile=" + archive.getAbsolutePath(), DISABLE_CDS_LOGGING));
+                        return new OperationResult(true, false);
+                    } else if (archivesInProgress.add(key)) {
+                        File temporaryArchive = new File(archivesDir, key + "-" + UUID.randomUUID() + ARCHIVE_EXTENSION + ".tmp");
+                        javaCommand.jvmArgs(ImmutableList.of("-XX:ArchiveClassesAtExit=" + temporaryArchive.getAbsolutePath(), DISABLE_CDS_LOGGING));
+                        javaCommand.listener(new StoreArchiveOnExit(displayName, key, temporaryArchive, archive));
+                        return new OperationResult(false, true);
+                    } else {
+                        // Another worker is generating the archive
+                        return new OperationResult(false, false);
+                    }
+                }));
+                return null;
+            }
+
+            @Override
+            public BuildOperationDescriptor.Builder description() {
+                return BuildOperationDescriptor.displayName("Resolve class data sharing archive for " + displayName)
+                    .details(new OperationDetails(displayName, archive.getAbsolutePath()));
+            }
+        });
+    }
+
+    private static boolean hasClassDataSharingArguments(JavaExecHandleBuilder javaCommand) {
+        return javaCommand.getAllJvmArgs().stream().anyMatch(arg ->
+            arg.startsWith("-Xshare") || arg.startsWith("-XX:SharedArchiveFile") || arg.startsWith("-XX:ArchiveClassesAtExit") || arg.startsWith("-XX:+AutoCreateSharedArchive")
+        );
+    }
+
+    private static String archiveKey(String javaExecutable, Collection<File> classpath) {
+        Hasher hasher = Hashing.newHasher();
+        File executable = new File(javaExecutable);
+        hasher.putString(executable.getAbsolutePath());
+        hasher.putLong(executable.lastModified());
+        for (File file : classpath) {
+            hasher.putString(file.getAbsolutePath());
+            hasher.putLong(file.length());
+            hasher.putLong(file.lastModified());
+        }
+        return hasher.hash().toString();
+    }
+
+    @Override
+    public void close() {
+        if (archivesCache != null) {
+            archivesCache.close();
+        }
+    }
+
+    private class StoreArchiveOnExit implements ExecHandleListener {
+        private final String displayName;
+        private final String key;
+        private final File temporaryArchive;
+        private final File archive;
+
+        StoreArchiveOnExit(String displayName, String key, File temporaryArchive, File archive) {
+            this.displayName = displayName;
+            this.key = key;
+            this.temporaryArchive = temporaryArchive;
+            this.archive = archive;
+        }
+
+        @Override
+        public void beforeExecutionStarted(ExecHandle execHandle) {
+        }
+
+        @Override
+        public void executionStarted(ExecHandle execHandle) {
+        }
+
+        @Override
+        public void executionFinished(ExecHandle execHandle, ExecResult execResult) {
+            try {
+                // The archive is not dumped when the worker is killed
+                if (temporaryArchive.isFile()) {
+                    buildOperationRunner.run(new RunnableBuildOperation() {
+                        @Override
+                        public void run(BuildOperationContext context) {
+                            // The JVM dumps a read-only archive, which could not be cleaned up on Windows
+                            if (!temporaryArchive.setWritable(true)) {
+                                LOGGER.debug("Could not make {} writable", temporaryArchive);
+                            }
+                            archivesCache.useCache(() -> {
+                                try {
+                                    Files.move(temporaryArchive.toPath(), archive.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                                } catch (IOException e) {
+                                    throw UncheckedException.throwAsUncheckedException(e);
+                                }
+                                fileAccessTracker.markAccessed(archive);
+                            });
+                        }
+
+                        @Override
+                        public BuildOperationDescriptor.Builder description() {
+                            return BuildOperationDescriptor.displayName("Store class data sharing archive for " + displayName);
+                        }
+                    });
+                }
+            } catch (Exception e) {
+                LOGGER.info("Could not store class data sharing archive {}", archive, e);
+                if (temporaryArchive.exists() && !temporaryArchive.delete()) {
+                    LOGGER.debug("Could not delete temporary file {}", temporaryArchive);
+                }
+            } finally {
+                archivesInProgress.remove(key);
+            }
+        }
+    }
+
+    private static class OperationDetails implements WorkerClassDataSharingBuildOperationType.Details {
+        private final String workerDisplayName;
+        private final String archivePath;
+
+        OperationDetails(String workerDisplayName, String archivePath) {
+            this.workerDisplayName = workerDisplayName;
+            this.archivePath = archivePath;
+        }
+
+        @Override
+        public String getWorkerDisplayName() {
+            return workerDisplayName;
+        }
+
+        @Override
+        public String getArchivePath() {
+            return archivePath;
+        }
+    }
+
+    private static class OperationResult implements WorkerClassDataSharingBuildOperationType.Result {
+        private final boolean archiveUsed;
+        private final boolean archiveGenerated;
+
+        OperationResult(boolean archiveUsed, boolean archiveGenerated) {
+            this.archiveUsed = archiveUsed;
+            this.archiveGenerated = archiveGenerated;
+        }
+
+        @Override
+        public boolean isArchiveUsed() {
+            return archiveUsed;
+        }
+
+        @Override
+        public boolean isArchiveGenerated() {
+            return archiveGenerated;
+        }
+    }
+}
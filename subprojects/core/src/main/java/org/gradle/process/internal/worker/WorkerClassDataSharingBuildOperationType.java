@@ -0,0 +1,50 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.worker;
+
+import org.gradle.internal.operations.BuildOperationType;
+
+/**
+ * Reports whether a worker process is started with a class data sharing archive, see {@link WorkerClassDataSharing}.
+ *
+ * <p>The archive hit rate of a build is the fraction of these operations that have {@link Result#isArchiveUsed()} set.</p>
+ */
+public final class WorkerClassDataSharingBuildOperationType implements BuildOperationType<WorkerClassDataSharingBuildOperationType.Details, WorkerClassDataSharingBuildOperationType.Result> {
+    public interface Details {
+        String getWorkerDisplayName();
+
+        /**
+         * The archive for the classpath and JVM of the worker, whether it exists or not.
+         */
+        String getArchivePath();
+    }
+
+    public interface Result {
+        /**
+         * Whether the worker maps an existing archive.
+         */
+        boolean isArchiveUsed();
+
+        /**
+         * Whether the worker generates the archive when it exits.
+         */
+        boolean isArchiveGenerated();
+    }
+
+    private WorkerClassDataSharingBuildOperationType() {
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state
+
+import org.apache.tools.ant.DirectoryScanner
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.internal.file.FileSystemDefaultExcludesProvider
+import org.gradle.internal.snapshot.CaseSensitivity
+import org.gradle.internal.snapshot.VfsRelativePath
+import org.gradle.internal.time.Clock
+import org.gradle.internal.vfs.VirtualFileSystem
+import org.gradle.internal.vfs.impl.DefaultSnapshotHierarchy
+import org.gradle.internal.watch.vfs.impl.WatchingNotSupportedVirtualFileSystem
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class VirtualFileSystemImageTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    def fileSystem = TestFiles.fileSystem()
+    List<String> defaultExcludes = DirectoryScanner.getDefaultExcludes() as List
+    def defaultExcludesProvider = Stub(FileSystemDefaultExcludesProvider) {
+        getCurrentDefaultExcludes() >> { defaultExcludes }
+    }
+    def clock = Stub(Clock) {
+        getCurrentTime() >> { System.currentTimeMillis() }
+    }
+    def imageFile = tmpDir.file("caches/vfs/vfs.bin")
+    def image = new VirtualFileSystemImage(imageFile, fileSystem, new StringInterner(), defaultExcludesProvider, clock)
+    def root = tmpDir.createDir("root")
+
+    def setup() {
+        createFile(root.file("dir/file.txt"), "file")
+        createFile(root.file("other.txt"), "other")
+    }
+
+    def "restores unchanged snapshots"() {
+        def snapshot = TestFiles.fileSystemAccess().read(root.absolutePath)
+        def virtualFileSystem = newVirtualFileSystem()
+        virtualFileSystem.store(root.absolutePath, { snapshot })
+
+        when:
+        image.writeFrom(virtualFileSystem)
+        def restoredVirtualFileSystem = newVirtualFileSystem()
+        def restored = image.restoreInto(restoredVirtualFileSystem)
+
+        then:
+        restored == 1
+        restoredVirtualFileSystem.findSnapshot(root.absolutePath).get().hash == snapshot.hash
+    }
+
+    def "restores unchanged parts of changed snapshots"() {
+        def virtualFileSystem = newVirtualFileSystem()
+        virtualFileSystem.store(root.absolutePath, { TestFiles.fileSystemAccess().read(root.absolutePath) })
+        image.writeFrom(virtualFileSystem)
+        createFile(root.file("other.txt"), "changed")
+
+        when:
+        def restoredVirtualFileSystem = newVirtualFileSystem()
+        image.restoreInto(restoredVirtualFileSystem)
+
+        then:
+        rootPaths(restoredVirtualFileSystem) == [root.file("dir").absolutePath]
+    }
+
+    def "does not restore into virtual file system with snapshots"() {
+        def virtualFileSystem = newVirtualFileSystem()
+        virtualFileSystem.store(root.absolutePath, { TestFiles.fileSystemAccess().read(root.absolutePath) })
+        image.writeFrom(virtualFileSystem)
+
+        def otherFile = createFile(tmpDir.file("other/file.txt"), "other")
+        def nonEmptyVirtualFileSystem = newVirtualFileSystem()
+        nonEmptyVirtualFileSystem.store(otherFile.absolutePath, { TestFiles.fileSystemAccess().read(otherFile.absolutePath) })
+
+        expect:
+        image.restoreInto(nonEmptyVirtualFileSystem) == 0
+        rootPaths(nonEmptyVirtualFileSystem) == [otherFile.absolutePath]
+    }
+
+    def "ignores image written with different default excludes"() {
+        def virtualFileSystem = newVirtualFileSystem()
+        virtualFileSystem.store(root.absolutePath, { TestFiles.fileSystemAccess().read(root.absolutePath) })
+        image.writeFrom(virtualFileSystem)
+        defaultExcludes = ["**/*.txt"]
+
+        expect:
+        image.restoreInto(newVirtualFileSystem()) == 0
+    }
+
+    def "ignores missing or corrupt image"() {
+        expect:
+        image.restoreInto(newVirtualFileSystem()) == 0
+
+        when:
+        imageFile.text = "corrupt"
+
+        then:
+        image.restoreInto(newVirtualFileSystem()) == 0
+    }
+
+    private static TestFile createFile(TestFile file, String text) {
+        file.text = text
+        // Make sure the file is not considered as possibly modified without changing its modification time
+        file.lastModified = System.currentTimeMillis() - 60_000
+        return file
+    }
+
+    private static VirtualFileSystem newVirtualFileSystem() {
+        return new WatchingNotSupportedVirtualFileSystem(DefaultSnapshotHierarchy.empty(CaseSensitivity.CASE_SENSITIVE))
+    }
+
+    private static List<String> rootPaths(VirtualFileSystem virtualFileSystem) {
+        return virtualFileSystem.findRootSnapshotsUnder(VfsRelativePath.ROOT).map { it.absolutePath }.toList().sort()
+    }
+}
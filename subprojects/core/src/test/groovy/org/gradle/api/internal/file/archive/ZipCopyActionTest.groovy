@@ -24,13 +24,17 @@ import org.gradle.api.internal.file.DefaultFilePermissions
 import org.gradle.api.internal.file.copy.CopyActionProcessingStream
 import org.gradle.api.internal.file.copy.DefaultZipCompressor
 import org.gradle.api.internal.file.copy.FileCopyDetailsInternal
+import org.gradle.api.internal.file.copy.ParallelCopyExecutor
 import org.gradle.api.tasks.bundling.Zip
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.test.fixtures.archive.ZipTestFixture
 import org.gradle.test.fixtures.file.TestFile
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.junit.Rule
 import spock.lang.Specification
 
+import java.util.concurrent.ConcurrentHashMap
+
 import static org.gradle.api.internal.file.copy.CopyActionExecuterUtil.visit
 import static org.hamcrest.CoreMatchers.equalTo
 
@@ -74,6 +78,80 @@ class ZipCopyActionTest extends Specification {
         expandDir.file("file2").assertContents(equalTo("contents of file2"))
     }
 
+    void deflatesEntriesInParallel() {
+        given:
+        def executorFactory = new DefaultExecutorFactory()
+        def executor = new ParallelCopyExecutor(executorFactory, 4)
+        def copyThreads = new ConcurrentHashMap<String, Thread>()
+        // Large enough for the archive to grow beyond the parallel threshold
+        def entries = [dir("dir"), file("dir/file1"), file("file2"), file("file3", true)] + (1..100).collect { file("dir/file-$it", it % 2 == 0, 4000, copyThreads) }
+
+        when:
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipArchiveOutputStream.DEFLATED), new DocumentationRegistry(), encoding, false)
+        zip(entries as FileCopyDetailsInternal[])
+        def sequentialZip = zipFile.bytes
+        copyThreads.clear()
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipArchiveOutputStream.DEFLATED), new DocumentationRegistry(), encoding, false, executor, tmpDir.createDir("tmp"))
+        zip(entries as FileCopyDetailsInternal[])
+
+        then:
+        zipFile.bytes == sequentialZip
+        def zipFixture = new ZipTestFixture(zipFile)
+        zipFixture.assertContainsFile("dir/file-100")
+        zipFixture.content("file3") == "contents of file3"
+        zipFixture.content("dir/file-100") == "contents of dir/file-100" * 4000
+        tmpDir.file("tmp").list().length == 0
+        copyThreads["dir/file-2"] == Thread.currentThread()
+        copyThreads["dir/file-100"] != Thread.currentThread()
+
+        cleanup:
+        executorFactory.stop()
+    }
+
+    void writesSameZip64ArchiveAsSequentialCopy() {
+        given:
+        def executorFactory = new DefaultExecutorFactory()
+        def executor = new ParallelCopyExecutor(executorFactory, 4)
+        def copyThreads = new ConcurrentHashMap<String, Thread>()
+        def entries = [dir("dir"), file("dir/file1"), file("file2"), file("file3", true)] + (1..100).collect { file("dir/file-$it", it % 2 == 0, 4000, copyThreads) }
+
+        when:
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(true, ZipArchiveOutputStream.DEFLATED), new DocumentationRegistry(), encoding, false)
+        zip(entries as FileCopyDetailsInternal[])
+        def sequentialZip = zipFile.bytes
+        copyThreads.clear()
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(true, ZipArchiveOutputStream.DEFLATED), new DocumentationRegistry(), encoding, false, executor, tmpDir.createDir("tmp"))
+        zip(entries as FileCopyDetailsInternal[])
+
+        then:
+        zipFile.bytes == sequentialZip
+        new ZipTestFixture(zipFile).content("dir/file-100") == "contents of dir/file-100" * 4000
+        copyThreads.values().every { it == Thread.currentThread() }
+
+        cleanup:
+        executorFactory.stop()
+    }
+
+    void writesSmallArchivesOnTheCallingThread() {
+        given:
+        def executorFactory = new DefaultExecutorFactory()
+        def executor = new ParallelCopyExecutor(executorFactory, 4)
+        def copyThreads = new ConcurrentHashMap<String, Thread>()
+        def entries = [dir("dir")] + (1..100).collect { file("dir/file-$it", true, 1, copyThreads) }
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipArchiveOutputStream.DEFLATED), new DocumentationRegistry(), encoding, false, executor, tmpDir.createDir("tmp"))
+
+        when:
+        zip(entries as FileCopyDetailsInternal[])
+
+        then:
+        new ZipTestFixture(zipFile).content("dir/file-100") == "contents of dir/file-100"
+        copyThreads.size() == 100
+        copyThreads.values().every { it == Thread.currentThread() }
+
+        cleanup:
+        executorFactory.stop()
+    }
+
     void zipFileContainsExpectedPermissions() {
         given:
         zip(dir("dir"), file("file"))
@@ -129,6 +207,29 @@ class ZipCopyActionTest extends Specification {
         e.message == "xyz\n\nTo build this archive, please enable the zip64 extension.\nSee: doc url"
     }
 
+    void wrapsFailureToAddElementDeflatedInParallel() {
+        given:
+        def executorFactory = new DefaultExecutorFactory()
+        def executor = new ParallelCopyExecutor(executorFactory, 4)
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipArchiveOutputStream.DEFLATED), new DocumentationRegistry(), encoding, false, executor, tmpDir.createDir("tmp"))
+        Throwable failure = new RuntimeException("broken")
+        def brokenFile = brokenFile("dir/file1", failure)
+        brokenFile.canBeCopiedInParallel() >> true
+
+        when:
+        // The first file is large enough for the following files to be deflated in parallel
+        zip(file("file1", true, 100000), brokenFile, file("file2", true))
+
+        then:
+        def e = thrown(Exception)
+        e.message == String.format("Could not add $brokenFile to ZIP '%s'.", zipFile)
+        e.cause.is(failure)
+        !zipFile.exists()
+
+        cleanup:
+        executorFactory.stop()
+    }
+
     void wrapsFailureToAddElement() {
         given:
         Throwable failure = new RuntimeException("broken")
@@ -153,14 +254,16 @@ class ZipCopyActionTest extends Specification {
         })
     }
 
-    private FileCopyDetailsInternal file(final String path) {
+    private FileCopyDetailsInternal file(final String path, boolean parallel = false, int repeat = 1, Map<String, Thread> copyThreads = [:]) {
         def mock = Mock(FileCopyDetailsInternal)
         mock.getRelativePath() >> RelativePath.parse(false, path)
         mock.getLastModified() >> 1000L
         mock.isDirectory() >> false
         mock.getPermissions() >> new DefaultFilePermissions(1)
+        mock.canBeCopiedInParallel() >> parallel
         mock.copyTo(_ as OutputStream) >> { OutputStream out ->
-            out << "contents of $path"
+            copyThreads.put(path, Thread.currentThread())
+            out << "contents of $path" * repeat
         }
         mock
     }
@@ -18,10 +18,13 @@ package org.gradle.api.internal.file.copy
 
 import org.gradle.api.file.RelativePath
 import org.gradle.api.internal.file.TestFiles
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.junit.Rule
 import spock.lang.Specification
 
+import java.util.concurrent.ConcurrentHashMap
+
 import static org.gradle.api.internal.file.copy.CopyActionExecuterUtil.visit
 
 class FileCopyActionTest extends Specification {
@@ -30,10 +33,16 @@ class FileCopyActionTest extends Specification {
     @Rule
     public TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
 
+    def executorFactory = new DefaultExecutorFactory()
+
     def setup() throws IOException {
         destDir = tmpDir.getTestDirectory().file("dest")
     }
 
+    def cleanup() {
+        executorFactory.stop()
+    }
+
     def plainCopy() {
         FileCopyAction visitor = new FileCopyAction(TestFiles.resolver(destDir))
 
@@ -44,6 +53,63 @@ class FileCopyActionTest extends Specification {
         )
     }
 
+    def "copies files which support it in parallel"() {
+        def executor = new ParallelCopyExecutor(executorFactory, 4)
+        FileCopyAction visitor = new FileCopyAction(TestFiles.resolver(destDir), executor)
+        def copyThreads = new ConcurrentHashMap<String, Thread>()
+        def parallelFiles = (1..50).collect { "dir-${it % 5}/file-${it}.txt".toString() }
+
+        when:
+        def result = visit(visitor, parallelFiles.collect { writing(it, true, copyThreads) } + [writing("filtered.txt", false, copyThreads)])
+
+        then:
+        result.didWork
+        (parallelFiles + "filtered.txt").every { new File(destDir, it).text == "contents of $it" }
+        // Small copies are not worth handing over to the pool
+        parallelFiles.take(ParallelFileOperations.PARALLEL_THRESHOLD_OPERATIONS).every { copyThreads[it] == Thread.currentThread() }
+        parallelFiles.drop(ParallelFileOperations.PARALLEL_THRESHOLD_OPERATIONS).every { copyThreads[it] != Thread.currentThread() }
+        copyThreads["filtered.txt"] == Thread.currentThread()
+    }
+
+    def "copies all files on the calling thread when the build has a single worker"() {
+        def executor = new ParallelCopyExecutor(executorFactory, 1)
+        FileCopyAction visitor = new FileCopyAction(TestFiles.resolver(destDir), executor)
+        def copyThreads = new ConcurrentHashMap<String, Thread>()
+        def files = (1..50).collect { "file-${it}.txt".toString() }
+
+        when:
+        def result = visit(visitor, files.collect { writing(it, true, copyThreads) })
+
+        then:
+        result.didWork
+        files.every { new File(destDir, it).text == "contents of $it" }
+        files.every { copyThreads[it] == Thread.currentThread() }
+    }
+
+    def "rethrows failure of parallel copy"() {
+        def executor = new ParallelCopyExecutor(executorFactory, 4)
+        FileCopyAction visitor = new FileCopyAction(TestFiles.resolver(destDir), executor)
+        def copyThreads = new ConcurrentHashMap<String, Thread>()
+        def failure = new RuntimeException("broken")
+        def details = Stub(FileCopyDetailsInternal) {
+            getRelativePath() >> new RelativePath(true, "broken.txt")
+            canBeCopiedInParallel() >> true
+            copyTo(_ as File) >> {
+                copyThreads.put("broken.txt", Thread.currentThread())
+                throw failure
+            }
+        }
+        def files = (1..ParallelFileOperations.PARALLEL_THRESHOLD_OPERATIONS).collect { writing("file-${it}.txt", true, copyThreads) }
+
+        when:
+        visit(visitor, files + [details])
+
+        then:
+        def e = thrown(RuntimeException)
+        e.is(failure)
+        copyThreads["broken.txt"] != Thread.currentThread()
+    }
+
     private FileCopyDetailsInternal file(final RelativePath relativePath, final File targetFile) {
         final FileCopyDetailsInternal details = Mock(FileCopyDetailsInternal)
         _ * details.relativePath >> relativePath
@@ -51,4 +117,17 @@ class FileCopyActionTest extends Specification {
         0 * details._
         return details
     }
+
+    private FileCopyDetailsInternal writing(String path, boolean parallel, Map<String, Thread> copyThreads) {
+        return Stub(FileCopyDetailsInternal) {
+            getRelativePath() >> RelativePath.parse(true, path)
+            canBeCopiedInParallel() >> parallel
+            copyTo(_ as File) >> { File target ->
+                copyThreads.put(path, Thread.currentThread())
+                target.parentFile.mkdirs()
+                target.text = "contents of $path"
+                true
+            }
+        }
+    }
 }
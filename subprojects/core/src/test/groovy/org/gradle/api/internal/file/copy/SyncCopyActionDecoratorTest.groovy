@@ -16,10 +16,17 @@
 package org.gradle.api.internal.file.copy
 
 import org.gradle.api.Action
+import org.gradle.api.file.RelativePath
 import org.gradle.api.internal.file.TestFiles
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.file.Deleter
 import org.gradle.test.fixtures.file.WorkspaceTest
 import org.gradle.util.TestUtil
 
+import java.util.concurrent.ConcurrentHashMap
+
+import static org.gradle.api.internal.file.copy.CopyActionExecuterUtil.visit
+
 class SyncCopyActionDecoratorTest extends WorkspaceTest {
 
     FileCopier copier
@@ -64,4 +71,50 @@ class SyncCopyActionDecoratorTest extends WorkspaceTest {
         file("dest").assertHasDescendants("subdir/included.txt", "included.txt")
     }
 
+    void deletesExtraFilesInParallelAndExtraDirectoriesAfterTheirChildren() {
+        given:
+        def executorFactory = new DefaultExecutorFactory()
+        def executor = new ParallelCopyExecutor(executorFactory, 4)
+        def destDir = file("dest")
+        destDir.createFile("included.txt")
+        def extraFiles = (1..50).collect { "extra/dir-${it % 5}/file-${it}.txt".toString() }
+        extraFiles.each { destDir.createFile(it) }
+        def deleteThreads = new ConcurrentHashMap<String, Thread>()
+        def deleter = Stub(Deleter) {
+            deleteRecursively(_ as File) >> { File target ->
+                // The children of a directory are deleted before the directory itself
+                assert !target.directory || target.list().length == 0
+                deleteThreads.put(target.name, Thread.currentThread())
+                TestFiles.deleter().deleteRecursively(target)
+            }
+        }
+        def included = Stub(FileCopyDetailsInternal) {
+            getRelativePath() >> RelativePath.parse(true, "included.txt")
+            canBeCopiedInParallel() >> false
+            copyTo(_ as File) >> false
+        }
+        def action = new SyncCopyActionDecorator(
+                destDir,
+                new FileCopyAction(TestFiles.resolver(destDir), executor),
+                null,
+                deleter,
+                TestFiles.directoryFileTreeFactory(),
+                executor
+        )
+
+        when:
+        def result = visit(action, included)
+
+        then:
+        result.didWork
+        destDir.assertHasDescendants("included.txt")
+        !destDir.file("extra").exists()
+        deleteThreads.size() == 56
+        extraFiles.count { deleteThreads[new File(it).name] != Thread.currentThread() } == 50 - ParallelFileOperations.PARALLEL_THRESHOLD_OPERATIONS
+        (["extra"] + (0..4).collect { "dir-$it".toString() }).every { deleteThreads[it] == Thread.currentThread() }
+
+        cleanup:
+        executorFactory.stop()
+    }
+
 }
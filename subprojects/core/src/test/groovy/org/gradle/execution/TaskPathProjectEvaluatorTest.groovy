@@ -0,0 +1,113 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution
+
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.project.ProjectState
+import org.gradle.initialization.BuildCancellationToken
+import org.gradle.internal.buildtree.BuildModelParameters
+import org.gradle.internal.operations.BuildOperationExecutorSupport
+import org.gradle.internal.operations.TestBuildOperationExecutor
+import spock.lang.Specification
+
+import java.util.concurrent.CopyOnWriteArrayList
+
+class TaskPathProjectEvaluatorTest extends Specification {
+    def cancellationToken = Stub(BuildCancellationToken)
+    def buildModelParameters = Stub(BuildModelParameters)
+    def evaluator = new TaskPathProjectEvaluator(cancellationToken, new TestBuildOperationExecutor(), buildModelParameters)
+    def configured = new CopyOnWriteArrayList<String>()
+
+    def "configures projects before their children and larger subtrees first"() {
+        def small = project(":small")
+        def nested = project(":large:nested")
+        def large = project(":large", nested, project(":large:other"))
+        def root = project(":", small, large)
+
+        when:
+        evaluator.configureHierarchyInParallel(root.mutableModel)
+
+        then:
+        configured == [":", ":large", ":large:nested", ":large:other", ":small"]
+    }
+
+    def "configures each project after its parent when projects are configured concurrently"() {
+        def buildOperationExecutor = BuildOperationExecutorSupport.builder(4).build()
+        def concurrentEvaluator = new TaskPathProjectEvaluator(cancellationToken, buildOperationExecutor, buildModelParameters)
+        def children = (1..4).collect { a ->
+            project(":a$a", (1..4).collect { b -> project(":a$a:b$b") } as ProjectState[])
+        }
+        def root = project(":", children as ProjectState[])
+
+        when:
+        concurrentEvaluator.configureHierarchyInParallel(root.mutableModel)
+
+        then:
+        configured.size() == 21
+        configured.first() == ":"
+        (1..4).every { a ->
+            (1..4).every { b -> configured.indexOf(":a$a".toString()) < configured.indexOf(":a$a:b$b".toString()) }
+        }
+
+        cleanup:
+        buildOperationExecutor?.stop()
+    }
+
+    def "does not configure children of project that fails to configure"() {
+        def failure = new RuntimeException("broken")
+        def root = project(":", failure, project(":child"))
+
+        when:
+        evaluator.configureHierarchyInParallel(root.mutableModel)
+
+        then:
+        def e = thrown(RuntimeException)
+        e == failure
+        configured.empty
+    }
+
+    def "configures hierarchy in parallel when isolated projects is enabled"() {
+        buildModelParameters.isolatedProjects >> true
+        def root = project(":", project(":child"))
+
+        when:
+        evaluator.configureHierarchy(root.mutableModel)
+
+        then:
+        configured == [":", ":child"]
+    }
+
+    private ProjectState project(String path, ProjectState... children) {
+        return project(path, null, children)
+    }
+
+    private ProjectState project(String path, RuntimeException failure, ProjectState... children) {
+        def model = Stub(ProjectInternal)
+        def state = Mock(ProjectState)
+        _ * state.mutableModel >> model
+        _ * state.childProjects >> (children as Set)
+        _ * state.name >> path
+        _ * state.ensureConfigured() >> {
+            if (failure != null) {
+                throw failure
+            }
+            configured << path
+        }
+        _ * model.owner >> state
+        return state
+    }
+}
@@ -35,6 +35,7 @@ import org.gradle.api.tasks.TaskAction
 import org.gradle.composite.internal.BuildTreeWorkGraphController
 import org.gradle.internal.file.Stat
 import org.gradle.internal.operations.TestBuildOperationRunner
+import org.gradle.internal.time.Clock
 import org.gradle.test.fixtures.file.TestFile
 import org.gradle.test.precondition.Requires
 import org.gradle.test.preconditions.UnitTestPreconditions
@@ -1830,6 +1831,51 @@ class DefaultExecutionPlanParallelTest extends AbstractExecutionPlanSpec {
         assertAllWorkComplete()
     }
 
+    def "starts nodes on the critical path first"() {
+        given:
+        def time = 0L
+        def clock = Stub(Clock) {
+            getCurrentTime() >> { time += 10 }
+        }
+        def durations = [a: 10L, b: 100L, c: 10L]
+        def recordedDurations = [:]
+        def durationHistory = Stub(NodeDurationHistory) {
+            isEnabled() >> true
+            estimateDuration(_) >> { Node node -> node instanceof LocalTaskNode ? durations[node.task.name] : 0L }
+            recordDurations(_) >> { Map<Node, Long> nodeDurations ->
+                nodeDurations.each { node, duration -> if (node instanceof LocalTaskNode) { recordedDurations[node.task.name] = duration } }
+            }
+        }
+        def buildOperationRunner = new TestBuildOperationRunner()
+        def tracker = new CriticalPathTracker(Path.ROOT.toString(), durationHistory, clock, buildOperationRunner)
+        executionPlan = new DefaultExecutionPlan(Path.ROOT.toString(), taskNodeFactory, new OrdinalGroupFactory(), new TaskDependencyResolver([new TaskNodeDependencyResolver(taskNodeFactory)]), accessHierarchies.outputHierarchy, accessHierarchies.destroyableHierarchy, coordinator, tracker)
+
+        Task a = task("a", type: Async)
+        Task b = task("b", type: Async)
+        Task c = task("c", type: Async, dependsOn: [b])
+
+        when:
+        addToGraphAndPopulate(a, c)
+
+        then:
+        taskNodeFactory.getNode(b).estimatedRemainingDuration == 110
+        taskNodeFactory.getNode(a).estimatedRemainingDuration == 10
+        assertTasksReady(b, a)
+        assertTaskReadyAndNoMoreToStart(c)
+        assertAllWorkComplete()
+
+        when:
+        executionPlan.close()
+
+        then:
+        recordedDurations.keySet() == ["a", "b", "c"] as Set
+        def result = buildOperationRunner.log.mostRecentResult(CriticalPathBuildOperationType)
+        result.estimatedCriticalPath == [":b", ":c"]
+        result.estimatedDurationMillis == 110
+        result.actualCriticalPath == [":b", ":c"]
+        result.actualDurationMillis > 0
+    }
+
     @Issue("https://github.com/gradle/gradle/issues/20508")
     def "stops executing nodes after failure when priority node has already executed"() {
         def node = priorityNode()
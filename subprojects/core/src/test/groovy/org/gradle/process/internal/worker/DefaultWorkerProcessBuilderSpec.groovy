@@ -60,7 +60,8 @@ class DefaultWorkerProcessBuilderSpec extends Specification {
         applicationClassesInSystemClassLoaderWorkerImplementationFactory,
         outputEventListener,
         memoryManager,
-        versionDetector)
+        versionDetector,
+        Mock(WorkerClassDataSharing))
 
 
     def "validate entries in classpath"() {
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.worker
+
+import org.gradle.api.internal.ClassPathRegistry
+import org.gradle.cache.PersistentCache
+import org.gradle.internal.classpath.DefaultClassPath
+import org.gradle.internal.file.FileAccessTimeJournal
+import org.gradle.internal.operations.TestBuildOperationRunner
+import org.gradle.process.ExecResult
+import org.gradle.process.internal.ExecHandle
+import org.gradle.process.internal.ExecHandleListener
+import org.gradle.process.internal.JavaExecHandleBuilder
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.function.Supplier
+
+class WorkerClassDataSharingTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    def archivesDir = tmpDir.createDir("worker-cds")
+    def archivesCache = Mock(PersistentCache) {
+        getBaseDir() >> archivesDir
+    }
+    def fileAccessTimeJournal = Mock(FileAccessTimeJournal)
+    def javaExecutable = tmpDir.createFile("jdk/bin/java")
+    def workerMainJar = tmpDir.createFile("gradle-worker.jar")
+    def classPathRegistry = Stub(ClassPathRegistry) {
+        getClassPath("WORKER_MAIN") >> DefaultClassPath.of(workerMainJar)
+    }
+    def buildOperationRunner = new TestBuildOperationRunner()
+    def classDataSharing = new WorkerClassDataSharing(archivesCache, fileAccessTimeJournal, classPathRegistry, buildOperationRunner)
+    def applicationClasspath = [tmpDir.createFile("lib/app.jar")] as Set
+    def processBuilder = Stub(WorkerProcessBuilder) {
+        getApplicationClasspath() >> { applicationClasspath }
+        getApplicationModulePath() >> ([] as Set)
+    }
+
+    def "generates archive for first worker and uses it for later workers"() {
+        def javaCommand = javaCommand()
+        ExecHandleListener listener = null
+        File temporaryArchive = null
+
+        when:
+        classDataSharing.configure("worker 1", 17, true, processBuilder, javaCommand)
+
+        then:
+        1 * archivesCache.useCache(_ as Supplier) >> { Supplier action -> action.get() }
+        1 * javaCommand.jvmArgs({ it[0].startsWith("-XX:ArchiveClassesAtExit=") }) >> { args ->
+            temporaryArchive = new File(args[0][0] - "-XX:ArchiveClassesAtExit=")
+            javaCommand
+        }
+        1 * javaCommand.listener(_) >> { args ->
+            listener = args[0]
+            javaCommand
+        }
+        with(buildOperationRunner.log.mostRecentResult(WorkerClassDataSharingBuildOperationType)) {
+            !archiveUsed
+            archiveGenerated
+        }
+
+        when:
+        listener.beforeExecutionStarted(Stub(ExecHandle))
+        // Dumped by the worker when it exits
+        temporaryArchive.text = "archive"
+        listener.executionFinished(Stub(ExecHandle), Stub(ExecResult))
+        def otherJavaCommand = javaCommand()
+        classDataSharing.configure("worker 2", 17, true, processBuilder, otherJavaCommand)
+
+        then:
+        1 * archivesCache.useCache(_ as Runnable) >> { Runnable action -> action.run() }
+        1 * archivesCache.useCache(_ as Supplier) >> { Supplier action -> action.get() }
+        2 * fileAccessTimeJournal.setLastAccessTime({ it.parentFile == archivesDir && it.name.endsWith(".jsa") }, _)
+        archivesDir.listFiles().size() == 1
+        !temporaryArchive.exists()
+        1 * otherJavaCommand.jvmArgs({ it[0] == "-XX:SharedArchiveFile=${archivesDir.listFiles()[0].absolutePath}".toString() })
+        0 * otherJavaCommand.listener(_)
+        with(buildOperationRunner.log.mostRecentResult(WorkerClassDataSharingBuildOperationType)) {
+            archiveUsed
+            !archiveGenerated
+        }
+    }
+
+    def "generates archive only once at a time"() {
+        def javaCommand = javaCommand()
+        def otherJavaCommand = javaCommand()
+
+        when:
+        classDataSharing.configure("worker 1", 17, true, processBuilder, javaCommand)
+        classDataSharing.configure("worker 2", 17, true, processBuilder, otherJavaCommand)
+
+        then:
+        2 * archivesCache.useCache(_ as Supplier) >> { Supplier action -> action.get() }
+        1 * javaCommand.jvmArgs(_)
+        0 * otherJavaCommand.jvmArgs(_)
+        with(buildOperationRunner.log.mostRecentResult(WorkerClassDataSharingBuildOperationType)) {
+            !archiveUsed
+            !archiveGenerated
+        }
+    }
+
+    def "does not use archive when #description"() {
+        def javaCommand = javaCommand(jvmArgs)
+        applicationClasspath = [classpath(tmpDir)] as Set
+
+        when:
+        new WorkerClassDataSharing(enabled ? archivesCache : null, fileAccessTimeJournal, classPathRegistry, buildOperationRunner).configure("worker", javaVersion, true, processBuilder, javaCommand)
+
+        then:
+        0 * javaCommand.jvmArgs(_)
+        0 * archivesCache.useCache(_)
+        buildOperationRunner.operations.empty
+
+        where:
+        description                    | enabled | javaVersion | jvmArgs                                    | classpath
+        "disabled"                     | false   | 17          | []                                         | { it.createFile("lib/app.jar") }
+        "running on Java 11"           | true    | 11          | []                                         | { it.createFile("lib/app.jar") }
+        "classpath contains directory" | true    | 17          | []                                         | { it.createDir("classes") }
+        "configured by the user"       | true    | 17          | ["-XX:SharedArchiveFile=/tmp/archive.jsa"] | { it.createFile("lib/app.jar") }
+    }
+
+    private JavaExecHandleBuilder javaCommand(List<String> jvmArgs = []) {
+        Mock(JavaExecHandleBuilder) {
+            getExecutable() >> javaExecutable.absolutePath
+            getAllJvmArgs() >> jvmArgs
+        }
+    }
+}